@@ -62,6 +62,9 @@ public class TestEnv {
         // Stop the mock WebSocket server
         mockWsServer.stop();
 
+        // Stop observing sent frames
+        runtimeAwaiter.close();
+
         // Clear configuration
         runtimeConfig.clear();
     }
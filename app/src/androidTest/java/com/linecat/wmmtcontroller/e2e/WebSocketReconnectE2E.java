@@ -1,8 +1,13 @@
 package com.linecat.wmmtcontroller.e2e;
 
+import androidx.test.platform.app.InstrumentationRegistry;
 import com.linecat.wmmtcontroller.e2e.util.JsonAssertions;
 import com.linecat.wmmtcontroller.service.RuntimeEvents;
+import com.linecat.wmmtcontroller.service.WebSocketClient;
+import org.json.JSONException;
+import org.json.JSONObject;
 import org.junit.Test;
+import java.util.Collections;
 import static org.junit.Assert.*;
 
 /**
@@ -53,4 +58,67 @@ public class WebSocketReconnectE2E extends TestEnv {
                 runtimeStatus);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 网络闪断后自动重连：退避后重新建立连接，并发送携带最后 stateId 的 resume 握手
+     */
+    @Test
+    public void testAutoReconnectWithResume() throws Exception {
+        mockWsServer.enqueueWebSocketSession();
+        mockWsServer.enqueueWebSocketSession();
+
+        WebSocketClient client = new WebSocketClient(context, mockWsServer.getLoopbackWsUrl());
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> {
+            client.init();
+            client.connect();
+        });
+        try {
+            assertTrue("Initial session should open", mockWsServer.awaitWebSocketOpen(5000));
+            awaitConnected(client, 5000);
+
+            long lastStateId = client.sendStateMessage(Collections.emptyList(), null, false);
+            assertNotNull("State message should reach the server", awaitMessageOfType("state", 5000));
+
+            // 模拟 Wi-Fi 闪断：服务端直接断开连接
+            mockWsServer.dropWebSocketSessions();
+
+            assertTrue("Client should reconnect without user action", mockWsServer.awaitWebSocketOpen(10000));
+            JSONObject resume = awaitMessageOfType("resume", 5000);
+            assertNotNull("Reconnect should start with a resume handshake", resume);
+            assertEquals(lastStateId, resume.getLong("lastStateId"));
+
+            awaitConnected(client, 5000);
+            assertEquals(1, client.getReconnectCount());
+            assertTrue("Outage duration should be recorded", client.getLastOutageMs() >= 0);
+            assertTrue("First backoff should stay under the base delay",
+                    client.getLastReconnectDelayMs() <= 250);
+            assertFalse(client.isReconnecting());
+        } finally {
+            InstrumentationRegistry.getInstrumentation().runOnMainSync(client::shutdown);
+        }
+    }
+
+    private JSONObject awaitMessageOfType(String type, long timeoutMs) throws InterruptedException, JSONException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        long remaining;
+        while ((remaining = deadline - System.currentTimeMillis()) > 0) {
+            String message = mockWsServer.takeWebSocketMessage(remaining);
+            if (message == null) {
+                break;
+            }
+            JSONObject json = new JSONObject(message);
+            if (type.equals(json.optString("type"))) {
+                return json;
+            }
+        }
+        return null;
+    }
+
+    private static void awaitConnected(WebSocketClient client, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (!client.isConnected()) {
+            assertTrue("Client should report connected", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -1,8 +1,16 @@
 package com.linecat.wmmtcontroller.e2e.util;
 
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import okhttp3.mockwebserver.RecordedRequest;
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -12,6 +20,9 @@ import java.util.concurrent.TimeUnit;
 public class MockWsServer {
 
     private final MockWebServer mockServer = new MockWebServer();
+    private final LinkedBlockingQueue<String> wsMessages = new LinkedBlockingQueue<>();
+    private final List<WebSocket> wsSessions = new CopyOnWriteArrayList<>();
+    private final Semaphore wsOpened = new Semaphore(0);
 
     /**
      * Start the mock server
@@ -44,6 +55,67 @@ public class MockWsServer {
         return "ws://10.0.2.2:" + mockServer.getPort() + "/ws/input";
     }
 
+    /**
+     * Get a loopback WebSocket URL, for clients running in the same process as the server
+     * @return WebSocket URL
+     */
+    public String getLoopbackWsUrl() {
+        return "ws://127.0.0.1:" + mockServer.getPort() + "/ws/input";
+    }
+
+    /**
+     * Accept one WebSocket upgrade; text messages received on the session are recorded
+     */
+    public void enqueueWebSocketSession() {
+        mockServer.enqueue(new MockResponse().withWebSocketUpgrade(new WebSocketListener() {
+            @Override
+            public void onOpen(WebSocket webSocket, Response response) {
+                wsSessions.add(webSocket);
+                wsOpened.release();
+            }
+
+            @Override
+            public void onMessage(WebSocket webSocket, String text) {
+                wsMessages.offer(text);
+            }
+
+            @Override
+            public void onClosing(WebSocket webSocket, int code, String reason) {
+                webSocket.close(1000, null);
+            }
+        }));
+    }
+
+    /**
+     * Wait for the next accepted WebSocket session to open
+     * @param timeoutMs Timeout in milliseconds
+     * @return true if a session opened within the timeout
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitWebSocketOpen(long timeoutMs) throws InterruptedException {
+        return wsOpened.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Take the next text message received on any WebSocket session
+     * @param timeoutMs Timeout in milliseconds
+     * @return message, or null if none arrived within the timeout
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public String takeWebSocketMessage(long timeoutMs) throws InterruptedException {
+        return wsMessages.poll(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Abruptly drop all open WebSocket sessions, simulating a network blip
+     */
+    public void dropWebSocketSessions() {
+        for (WebSocket session : wsSessions) {
+            session.cancel();
+        }
+        wsSessions.clear();
+    }
+
     /**
      * Take the next WebSocket message from the queue
      * @param timeoutMs Timeout in milliseconds
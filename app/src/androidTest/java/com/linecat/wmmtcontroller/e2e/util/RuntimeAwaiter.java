@@ -6,6 +6,7 @@ import android.content.Intent;
 import android.content.IntentFilter;
 import androidx.test.core.app.ApplicationProvider;
 import com.linecat.wmmtcontroller.service.RuntimeEvents;
+import com.linecat.wmmtcontroller.service.SentFrameTap;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -21,21 +22,19 @@ public class RuntimeAwaiter {
     private BroadcastReceiver receiver;
     private final LinkedBlockingQueue<String> frameQueue = new LinkedBlockingQueue<>();
     
-    private final BroadcastReceiver wsSentFrameReceiver = new BroadcastReceiver() {
-        @Override
-        public void onReceive(Context context, Intent intent) {
-            if (RuntimeEvents.ACTION_WS_SENT_FRAME.equals(intent.getAction())) {
-                String message = intent.getStringExtra(RuntimeEvents.EXTRA_WS_MESSAGE);
-                if (message != null) {
-                    frameQueue.offer(message);
-                }
-            }
-        }
-    };
+    // Sent frames are observed in-process through SentFrameTap instead of broadcasts
+    private final SentFrameTap.Listener sentFrameListener =
+            (frameId, message, payloadBytes, binary) -> frameQueue.offer(message);
     
     public RuntimeAwaiter() {
-        IntentFilter filter = new IntentFilter(RuntimeEvents.ACTION_WS_SENT_FRAME);
-        context.registerReceiver(wsSentFrameReceiver, filter);
+        SentFrameTap.addListener(sentFrameListener);
+    }
+
+    /**
+     * Stop observing sent frames
+     */
+    public void close() {
+        SentFrameTap.removeListener(sentFrameListener);
     }
 
     /**
@@ -128,7 +127,17 @@ public class RuntimeAwaiter {
      * @return True if frame was sent, false if timed out
      */
     public boolean awaitWsSentFrame(long timeoutMs) {
-        return awaitEvent(RuntimeEvents.ACTION_WS_SENT_FRAME, timeoutMs);
+        final CountDownLatch latch = new CountDownLatch(1);
+        SentFrameTap.Listener listener = (frameId, message, payloadBytes, binary) -> latch.countDown();
+        SentFrameTap.addListener(listener);
+        try {
+            return latch.await(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            SentFrameTap.removeListener(listener);
+        }
     }
 
     /**
@@ -52,22 +52,13 @@ public class ControlLayerCoordinator {
         List<ControlAction> actions = new ArrayList<>();
         
         // 第一层：UI层处理 - ControlNode处理原始输入
+        // 命中与否都交给节点处理（触摸节点自行判断命中，陀螺仪等节点需要持续处理），
+        // 因此这里不再逐节点做命中检测
         for (ControlNode node : controlNodes) {
             if (node.isActive() && node.isVisible()) {
-                // 检查节点是否被激活（例如，触摸点是否在节点区域内）
-                if (node.hitTest(rawInput.getTouchX() / layout.getScreenWidth(), 
-                               rawInput.getTouchY() / layout.getScreenHeight())) {
-                    // 处理输入并生成控制动作
-                    ControlAction action = node.processInput(rawInput, layout);
-                    if (action != null) {
-                        actions.add(action);
-                    }
-                } else {
-                    // 对于非触摸激活的节点，可能需要持续处理（如陀螺仪节点）
-                    ControlAction action = node.processInput(rawInput, layout);
-                    if (action != null) {
-                        actions.add(action);
-                    }
+                ControlAction action = node.processInput(rawInput, layout);
+                if (action != null) {
+                    actions.add(action);
                 }
             }
         }
@@ -22,6 +22,8 @@ public class ThreeTierControlManager {
     private UINodeManager uiNodeManager;
     private OperationNodeManager operationNodeManager;
     private MappingNodeManager mappingNodeManager;
+    // 逐帧复用的输入状态
+    private final InputState frameState = new InputState();
     
     public ThreeTierControlManager() {
         this.uiNodeManager = new UINodeManager();
@@ -33,11 +35,12 @@ public class ThreeTierControlManager {
      * 处理完整的三层架构输入流程
      * @param rawInput 原始输入
      * @param frameId 帧ID
-     * @return 处理后的输入状态
+     * @return 处理后的输入状态（逐帧复用，只在下一次调用前有效；需要保留时调用 snapshot()）
      */
     public InputState processInputFlow(RawInput rawInput, long frameId) {
-        // 创建输入状态
-        InputState inputState = new InputState();
+        // 复用输入状态，清零后重新生成
+        InputState inputState = frameState;
+        inputState.reset();
         inputState.setFrameId(frameId);
         
         // 第一步：UI层处理 - 处理原始输入，生成控制动作
@@ -18,6 +18,8 @@ public class NewLayoutEngine {
     
     private ControlLayerCoordinator coordinator;
     private LayoutSnapshot currentLayout;
+    // 逐帧复用的输入状态
+    private final InputState frameState = new InputState();
     
     public NewLayoutEngine(DeviceMapping deviceMapping) {
         this.coordinator = new ControlLayerCoordinator(deviceMapping);
@@ -46,10 +48,11 @@ public class NewLayoutEngine {
      * 执行布局处理
      * @param rawInput 原始输入
      * @param frameId 帧ID
-     * @return 输入状态
+     * @return 输入状态（逐帧复用，只在下一次调用前有效；需要保留时调用 snapshot()）
      */
     public InputState executeLayout(RawInput rawInput, long frameId) {
-        InputState inputState = new InputState();
+        InputState inputState = frameState;
+        inputState.reset();
         inputState.setFrameId(frameId);
         
         // 使用协调器处理输入
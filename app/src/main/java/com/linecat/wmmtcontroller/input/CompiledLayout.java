@@ -0,0 +1,211 @@
+package com.linecat.wmmtcontroller.input;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 编译后的布局
+ * <p>
+ * 由 LayoutSnapshot 在设置布局时一次性生成，各层处理器每帧只遍历这里的数组：
+ * <ul>
+ *   <li>按类型预先分区，并只保留最高 zIndex 组（陀螺仪、Operation、Mapping 各自独立取最高组）；</li>
+ *   <li>Mapping 区域预先解析出映射类别，映射目标字符串驻留（intern）；</li>
+ *   <li>全部区域按 zIndex 降序排列，触控命中时遇到更低的 zIndex 即可停止。</li>
+ * </ul>
+ */
+public final class CompiledLayout {
+    private static final String TAG = "CompiledLayout";
+
+    /**
+     * 映射类别
+     */
+    public enum MappingKind {
+        KEYBOARD,
+        GAMEPAD,
+        CUSTOM
+    }
+
+    /**
+     * 预解析的映射目标
+     */
+    public static final class MappingTarget {
+        public final Region region;
+        public final String regionId;
+        public final MappingKind kind;
+        // 驻留的映射目标，不适用时为 null
+        public final String key;
+        public final String button;
+        public final String axis;
+        public final String customTarget;
+
+        MappingTarget(Region region, MappingKind kind) {
+            this.region = region;
+            this.regionId = intern(region.getId());
+            this.kind = kind;
+            this.key = intern(region.getMappingKey());
+            this.button = intern(region.getMappingButton());
+            this.axis = intern(region.getMappingAxis());
+            this.customTarget = intern(region.getCustomMappingTarget());
+        }
+    }
+
+    private static final Region[] NO_REGIONS = new Region[0];
+
+    private final Region[] regionsByZ;
+    private final Region[] topGyroRegions;
+    private final Region[] topOperationRegions;
+    private final int topOperationZIndex;
+    private final MappingTarget[] topMappingTargets;
+
+    private CompiledLayout(Region[] regionsByZ, Region[] topGyroRegions, Region[] topOperationRegions,
+                           int topOperationZIndex, MappingTarget[] topMappingTargets) {
+        this.regionsByZ = regionsByZ;
+        this.topGyroRegions = topGyroRegions;
+        this.topOperationRegions = topOperationRegions;
+        this.topOperationZIndex = topOperationZIndex;
+        this.topMappingTargets = topMappingTargets;
+    }
+
+    /**
+     * 编译布局
+     * @param regionsByZ 按 zIndex 降序排列的区域（同 zIndex 保持原顺序）
+     */
+    static CompiledLayout compile(List<Region> regionsByZ) {
+        Region[] all = regionsByZ.toArray(NO_REGIONS);
+
+        List<Region> gyro = new ArrayList<>();
+        List<Region> operation = new ArrayList<>();
+        List<MappingTarget> mapping = new ArrayList<>();
+        int gyroZ = Integer.MIN_VALUE;
+        int operationZ = Integer.MIN_VALUE;
+        int mappingZ = Integer.MIN_VALUE;
+        boolean mappingSeen = false;
+
+        // 区域已按 zIndex 降序排列：每类第一个出现的 zIndex 即最高组
+        for (Region region : all) {
+            int z = region.getZIndex();
+            if (region.getType() == Region.RegionType.GYROSCOPE) {
+                if (gyro.isEmpty()) {
+                    gyroZ = z;
+                }
+                if (z == gyroZ) {
+                    gyro.add(region);
+                }
+            }
+            if (region.getType() == Region.RegionType.OPERATION) {
+                if (operation.isEmpty()) {
+                    operationZ = z;
+                }
+                if (z == operationZ) {
+                    operation.add(region);
+                }
+            }
+            if (isMappingElement(region)) {
+                if (!mappingSeen) {
+                    mappingZ = z;
+                    mappingSeen = true;
+                }
+                if (z == mappingZ) {
+                    MappingKind kind = resolveMappingKind(region);
+                    if (kind != null) {
+                        mapping.add(new MappingTarget(region, kind));
+                    }
+                }
+            }
+        }
+
+        return new CompiledLayout(all, gyro.toArray(NO_REGIONS), operation.toArray(NO_REGIONS),
+                operationZ, mapping.toArray(new MappingTarget[0]));
+    }
+
+    /**
+     * 全部区域，按 zIndex 降序
+     */
+    public Region[] getRegionsByZ() {
+        return regionsByZ;
+    }
+
+    /**
+     * 最高 zIndex 组的陀螺仪区域
+     */
+    public Region[] getTopGyroRegions() {
+        return topGyroRegions;
+    }
+
+    /**
+     * 最高 zIndex 组的 Operation 区域
+     */
+    public Region[] getTopOperationRegions() {
+        return topOperationRegions;
+    }
+
+    /**
+     * Operation 区域的最高 zIndex，没有 Operation 区域时为 Integer.MIN_VALUE
+     */
+    public int getTopOperationZIndex() {
+        return topOperationZIndex;
+    }
+
+    /**
+     * 最高 zIndex 组的映射目标
+     */
+    public MappingTarget[] getTopMappingTargets() {
+        return topMappingTargets;
+    }
+
+    /**
+     * 是否参与 Mapping 层：传统 MAPPING 类型，或带映射信息的按钮/轴/陀螺仪区域（简化格式）
+     */
+    private static boolean isMappingElement(Region region) {
+        switch (region.getType()) {
+            case MAPPING:
+                return true;
+            case BUTTON:
+            case AXIS:
+            case GYROSCOPE:
+                return region.getMappingButton() != null || region.getMappingKey() != null
+                        || region.getMappingAxis() != null;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 解析映射类别，无法映射时返回 null（只在编译时告警一次，不再每帧告警）
+     */
+    private static MappingKind resolveMappingKind(Region region) {
+        if (region.getType() == Region.RegionType.MAPPING) {
+            if (region.getMappingType() == null) {
+                Log.w(TAG, "Unknown mapping type: null, region: " + region.getId());
+                return null;
+            }
+            switch (region.getMappingType()) {
+                case KEYBOARD:
+                    return MappingKind.KEYBOARD;
+                case GAMEPAD:
+                    return MappingKind.GAMEPAD;
+                case CUSTOM:
+                    return MappingKind.CUSTOM;
+                default:
+                    Log.w(TAG, "Unknown mapping type: " + region.getMappingType());
+                    return null;
+            }
+        }
+        // 简化格式：基于映射属性判断，轴映射也视为游戏手柄映射
+        if (region.getMappingKey() != null) {
+            return MappingKind.KEYBOARD;
+        } else if (region.getMappingButton() != null || region.getMappingAxis() != null) {
+            return MappingKind.GAMEPAD;
+        } else if (region.getCustomMappingTarget() != null) {
+            return MappingKind.CUSTOM;
+        }
+        Log.w(TAG, "Region has no mapping information: " + region.getId());
+        return null;
+    }
+
+    private static String intern(String value) {
+        return value != null ? value.intern() : null;
+    }
+}
@@ -0,0 +1,340 @@
+package com.linecat.wmmtcontroller.input;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * 预编译的灵敏度曲线
+ * <p>
+ * 曲线在布局加载时按 Region 编译一次，每帧只调用 apply()，不再按字符串分派：
+ * <ul>
+ *   <li>精确实现：线性、平方、立方直接相乘，其余使用幂/对数/正弦函数；</li>
+ *   <li>查找表：在 [0,1] 上均匀采样 256 或 1024 点，线性插值，开销恒定；</li>
+ *   <li>自定义曲线：分段线性（piecewise）与三次贝塞尔（bezier），用于踏板等自定义响应。</li>
+ * </ul>
+ * 所有曲线均为奇对称：按输入绝对值求值后恢复符号。查找表只覆盖 [-1,1]，超出范围的输入使用精确实现。
+ * 实例不可变，可在线程间共享。
+ */
+public abstract class CurveFunction {
+    // 查找表尺寸
+    public static final int LUT_SMALL = 256;
+    public static final int LUT_LARGE = 1024;
+
+    /**
+     * 线性曲线（原样输出）
+     */
+    public static final CurveFunction LINEAR = new CurveFunction() {
+        @Override
+        public float apply(float value) {
+            return value;
+        }
+    };
+
+    /**
+     * 计算曲线输出
+     * @param value 输入值（通常为 -1.0 到 1.0）
+     * @return 输出值
+     */
+    public abstract float apply(float value);
+
+    /**
+     * 幂曲线 sign(v)·|v|^gamma，gamma 为 1、2、3 时特化为乘法
+     * 平方在 float 中只舍入一次；立方在 double 中计算后再转 float，与 Math.pow 的结果一致
+     */
+    public static CurveFunction power(final float gamma) {
+        if (gamma == 1f) {
+            return LINEAR;
+        }
+        if (gamma == 2f) {
+            return new CurveFunction() {
+                @Override
+                public float apply(float value) {
+                    return value * Math.abs(value);
+                }
+            };
+        }
+        if (gamma == 3f) {
+            return new CurveFunction() {
+                @Override
+                public float apply(float value) {
+                    double v = value;
+                    return (float) (v * v * v);
+                }
+            };
+        }
+        return new CurveFunction() {
+            @Override
+            public float apply(float value) {
+                return Math.signum(value) * (float) Math.pow(Math.abs(value), gamma);
+            }
+        };
+    }
+
+    /**
+     * 对数曲线 sign(v)·log10(|v|·factor + 1) / log10(factor + 1)
+     */
+    public static CurveFunction logarithmic(final float factor) {
+        final float norm = (float) Math.log10(factor + 1);
+        return new CurveFunction() {
+            @Override
+            public float apply(float value) {
+                return Math.signum(value) * (float) Math.log10(Math.abs(value) * factor + 1) / norm;
+            }
+        };
+    }
+
+    /**
+     * 正弦曲线 sin(v·π/2·factor)
+     */
+    public static CurveFunction sine(final float factor) {
+        return new CurveFunction() {
+            @Override
+            public float apply(float value) {
+                return (float) Math.sin(value * Math.PI / 2 * factor);
+            }
+        };
+    }
+
+    /**
+     * 输出按固定比例缩放
+     */
+    public static CurveFunction scaled(final CurveFunction curve, final float scale) {
+        return new CurveFunction() {
+            @Override
+            public float apply(float value) {
+                return curve.apply(value) * scale;
+            }
+        };
+    }
+
+    /**
+     * 分段线性曲线：在 |v| 上按控制点线性插值，首点之前与末点之后保持端点输出
+     * @param xs 控制点输入，严格递增，位于 [0,1]
+     * @param ys 控制点输出
+     */
+    public static CurveFunction piecewise(float[] xs, float[] ys) {
+        if (xs.length < 2 || xs.length != ys.length) {
+            throw new IllegalArgumentException("piecewise curve needs at least 2 points");
+        }
+        for (int i = 0; i < xs.length; i++) {
+            if (!(xs[i] >= 0f && xs[i] <= 1f) || (i > 0 && xs[i] <= xs[i - 1])) {
+                throw new IllegalArgumentException("piecewise x must be strictly increasing within [0,1]");
+            }
+        }
+        final float[] px = xs.clone();
+        final float[] py = ys.clone();
+        return new CurveFunction() {
+            @Override
+            public float apply(float value) {
+                float a = Math.abs(value);
+                float r;
+                if (a <= px[0]) {
+                    r = py[0];
+                } else if (a >= px[px.length - 1]) {
+                    r = py[py.length - 1];
+                } else {
+                    // 二分查找所在区间 [px[lo], px[lo+1]]
+                    int lo = 0;
+                    int hi = px.length - 1;
+                    while (hi - lo > 1) {
+                        int mid = (lo + hi) >>> 1;
+                        if (px[mid] <= a) {
+                            lo = mid;
+                        } else {
+                            hi = mid;
+                        }
+                    }
+                    r = py[lo] + (py[hi] - py[lo]) * (a - px[lo]) / (px[hi] - px[lo]);
+                }
+                return value < 0 ? -r : r;
+            }
+        };
+    }
+
+    /**
+     * 三次贝塞尔曲线：起点 (0,0)、终点 (1,1)，两个控制点与 CSS cubic-bezier 相同
+     * 精确求值需要按 x 反解参数 t（牛顿迭代，失败时二分），通常配合查找表使用
+     * @param x1 第一个控制点 x，位于 [0,1]
+     * @param y1 第一个控制点 y
+     * @param x2 第二个控制点 x，位于 [0,1]
+     * @param y2 第二个控制点 y
+     */
+    public static CurveFunction bezier(final float x1, final float y1, final float x2, final float y2) {
+        if (!(x1 >= 0f && x1 <= 1f && x2 >= 0f && x2 <= 1f)) {
+            throw new IllegalArgumentException("bezier control point x must be within [0,1]");
+        }
+        return new CurveFunction() {
+            @Override
+            public float apply(float value) {
+                float a = Math.min(Math.abs(value), 1f);
+                double t = solveT(a);
+                float r = (float) bezierCoord(t, y1, y2);
+                return value < 0 ? -r : r;
+            }
+
+            private double solveT(double x) {
+                double t = x;
+                for (int i = 0; i < 8; i++) {
+                    double err = bezierCoord(t, x1, x2) - x;
+                    if (Math.abs(err) < 1e-7) {
+                        return t;
+                    }
+                    double slope = bezierSlope(t, x1, x2);
+                    if (Math.abs(slope) < 1e-6) {
+                        break;
+                    }
+                    t -= err / slope;
+                }
+                // 牛顿迭代不收敛时二分（x(t) 在控制点 x 位于 [0,1] 时单调）
+                double lo = 0;
+                double hi = 1;
+                t = x;
+                for (int i = 0; i < 40; i++) {
+                    double current = bezierCoord(t, x1, x2);
+                    if (Math.abs(current - x) < 1e-7) {
+                        break;
+                    }
+                    if (current < x) {
+                        lo = t;
+                    } else {
+                        hi = t;
+                    }
+                    t = (lo + hi) / 2;
+                }
+                return t;
+            }
+        };
+    }
+
+    /**
+     * 将曲线烘焙为查找表
+     * @param exact 精确实现（奇对称），超出 [-1,1] 的输入仍使用它
+     * @param size 采样点数，至少 2
+     * @return 查找表曲线
+     */
+    public static CurveFunction lut(final CurveFunction exact, int size) {
+        if (size < 2) {
+            throw new IllegalArgumentException("lut size must be at least 2");
+        }
+        final float[] table = new float[size + 1];
+        final float scale = size - 1;
+        for (int i = 0; i < size; i++) {
+            table[i] = exact.apply(i / scale);
+        }
+        // 末尾重复一项，|v| = 1 时插值不越界
+        table[size] = table[size - 1];
+        return new CurveFunction() {
+            @Override
+            public float apply(float value) {
+                float a = Math.abs(value);
+                if (!(a <= 1f)) {
+                    return exact.apply(value);
+                }
+                float pos = a * scale;
+                int i = (int) pos;
+                float r = table[i] + (table[i + 1] - table[i]) * (pos - i);
+                return value < 0 ? -r : r;
+            }
+        };
+    }
+
+    /**
+     * 解析区域的曲线定义
+     * <p>
+     * 支持内置名称（linear、exponential、logarithmic、sine，公式与原各层处理器一致），
+     * 以及布局 JSON 中的对象形式，例如：
+     * <pre>
+     * {"type": "power", "gamma": 1.8}
+     * {"type": "piecewise", "points": [[0, 0], [0.3, 0.1], [1, 1]], "lut": 256}
+     * {"type": "bezier", "controlPoints": [0.4, 0, 0.8, 0.6], "lut": 1024}
+     * </pre>
+     * lut 为 0 时使用精确实现；省略时多项式曲线使用精确实现，其余曲线使用 256 点查找表。
+     * @param spec 曲线定义，null 或空串视为线性
+     * @return 编译后的曲线
+     * @throws IllegalArgumentException 定义无法解析
+     */
+    public static CurveFunction parse(String spec) {
+        if (spec == null) {
+            return LINEAR;
+        }
+        String trimmed = spec.trim();
+        if (trimmed.startsWith("{")) {
+            try {
+                return parseObject(JsonParser.parseString(trimmed).getAsJsonObject());
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid curve definition: " + spec, e);
+            }
+        }
+        switch (trimmed) {
+            case "exponential":
+                return power(2f);
+            case "logarithmic":
+                // 原处理器的对数曲线输出上限为 0.5
+                return lut(scaled(logarithmic(9f), 0.5f), LUT_SMALL);
+            case "sine":
+                return lut(sine(1f), LUT_SMALL);
+            case "linear":
+            default:
+                return LINEAR;
+        }
+    }
+
+    private static CurveFunction parseObject(JsonObject json) {
+        String type = json.has("type") ? json.get("type").getAsString() : "linear";
+        CurveFunction exact;
+        boolean polynomial = false;
+        switch (type) {
+            case "linear":
+                return LINEAR;
+            case "power":
+            case "exponential": {
+                float gamma = json.has("gamma") ? json.get("gamma").getAsFloat() : 2f;
+                exact = power(gamma);
+                polynomial = gamma == 1f || gamma == 2f || gamma == 3f;
+                break;
+            }
+            case "logarithmic":
+                exact = logarithmic(json.has("factor") ? json.get("factor").getAsFloat() : 9f);
+                break;
+            case "sine":
+                exact = sine(json.has("factor") ? json.get("factor").getAsFloat() : 1f);
+                break;
+            case "piecewise": {
+                JsonArray points = json.getAsJsonArray("points");
+                float[] xs = new float[points.size()];
+                float[] ys = new float[points.size()];
+                for (int i = 0; i < points.size(); i++) {
+                    JsonArray point = points.get(i).getAsJsonArray();
+                    xs[i] = point.get(0).getAsFloat();
+                    ys[i] = point.get(1).getAsFloat();
+                }
+                exact = piecewise(xs, ys);
+                break;
+            }
+            case "bezier": {
+                JsonArray cp = json.getAsJsonArray("controlPoints");
+                exact = bezier(cp.get(0).getAsFloat(), cp.get(1).getAsFloat(),
+                        cp.get(2).getAsFloat(), cp.get(3).getAsFloat());
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown curve type: " + type);
+        }
+
+        JsonElement lut = json.get("lut");
+        int lutSize = lut != null ? lut.getAsInt() : (polynomial ? 0 : LUT_SMALL);
+        return lutSize > 0 ? lut(exact, lutSize) : exact;
+    }
+
+    private static double bezierCoord(double t, double p1, double p2) {
+        double u = 1 - t;
+        return 3 * u * u * t * p1 + 3 * u * t * t * p2 + t * t * t;
+    }
+
+    private static double bezierSlope(double t, double p1, double p2) {
+        double u = 1 - t;
+        return 3 * u * u * p1 + 6 * u * t * (p2 - p1) + 3 * t * t * (1 - p2);
+    }
+}
@@ -3,6 +3,7 @@ package com.linecat.wmmtcontroller.input;
 /**
  * 静态处理器模型 - 曲线处理器
  * 负责应用不同类型的灵敏度曲线
+ * applyCurve 为逐次按类型分派的精确实现；热路径应通过 compile 预编译为 CurveFunction 后重复调用
  */
 public class CurveProcessor {
     /**
@@ -26,6 +27,42 @@ public class CurveProcessor {
         }
     }
 
+    /**
+     * 将曲线编译为精确实现，结果与 applyCurve 一致
+     * exponential 的 gamma 为 2、3 时以乘法代替 Math.pow，输出仍与 applyCurve 相同
+     * @param curveType 曲线类型：linear, exponential, logarithmic, sine
+     * @param curveParam 曲线参数（根据曲线类型不同而不同）
+     * @return 编译后的曲线
+     */
+    public static CurveFunction compile(String curveType, float curveParam) {
+        switch (curveType) {
+            case "exponential":
+                return CurveFunction.power(curveParam);
+            case "logarithmic":
+                return CurveFunction.logarithmic(curveParam);
+            case "sine":
+                return CurveFunction.sine(curveParam);
+            case "linear":
+            default:
+                return CurveFunction.LINEAR;
+        }
+    }
+
+    /**
+     * 将曲线编译为查找表实现
+     * @param curveType 曲线类型：linear, exponential, logarithmic, sine
+     * @param curveParam 曲线参数（根据曲线类型不同而不同）
+     * @param lutSize 查找表点数（如 CurveFunction.LUT_SMALL、LUT_LARGE），0 表示使用精确实现
+     * @return 编译后的曲线
+     */
+    public static CurveFunction compile(String curveType, float curveParam, int lutSize) {
+        CurveFunction exact = compile(curveType, curveParam);
+        if (lutSize <= 0 || exact == CurveFunction.LINEAR) {
+            return exact;
+        }
+        return CurveFunction.lut(exact, lutSize);
+    }
+
     /**
      * 应用指数曲线
      * @param value 输入值
@@ -38,8 +38,8 @@ public class DeviceProjector {
         // 使用布局引擎处理输入并生成最终输入状态
         InputState inputState = layoutEngine.executeLayout(rawInput, frameId);
 
-        // 发送到服务端
-        if (transportController != null && transportController.isConnected()) {
+        // 发送到服务端（断线期间由传输控制器保留最新一帧，重连后补发）
+        if (transportController != null) {
             transportController.sendInputState(inputState);
             
             // 按时间间隔打印日志
@@ -0,0 +1,349 @@
+package com.linecat.wmmtcontroller.input;
+
+import com.linecat.wmmtcontroller.model.InputState;
+import com.linecat.wmmtcontroller.model.RawInput;
+
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
+import org.mozilla.javascript.Function;
+import org.mozilla.javascript.NativeArray;
+import org.mozilla.javascript.RhinoException;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.WrapFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于嵌入式解释器（Rhino）的JavaScript输入脚本引擎实现
+ * <p>
+ * 与 {@link JsInputScriptEngine} 不同，脚本在调用线程（输入线程）上同步执行：
+ * 没有主线程 Handler 投递、没有 WebView IPC、没有 CountDownLatch 等待。
+ * rawAccess / stateMutator 直接绑定到 {@link ScriptContext}，桥接调用就是一次 Java 方法调用。
+ * <p>
+ * 解释模式运行（Android 上不能生成字节码），通过指令计数观察器实施每帧执行预算，
+ * 死循环脚本会在预算耗尽时被中止并释放所有按键。
+ * 脚本只能访问本应用包内的桥接对象，不能访问其他 Java 类。
+ */
+public class EmbeddedJsInputScriptEngine implements InputScriptEngine {
+
+    // 每帧执行预算与加载预算
+    private static final long UPDATE_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long LOAD_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(5000);
+    // 每执行多少条解释器指令检查一次预算
+    private static final int INSTRUCTION_CHECK_INTERVAL = 10000;
+    // 脚本可见的 Java 类（桥接对象及其返回值）
+    private static final String VISIBLE_PACKAGE_PREFIX = "com.linecat.wmmtcontroller.";
+
+    // 与 WebView 引擎一致的运行时分层（Env / InputCore / UserAPI），桥接直接指向 ScriptContext
+    private static final String PRELUDE =
+            "const Env = {\n" +
+            "    now: function() { return rawAccess.getTimestamp(); },\n" +
+            "    log: function(msg) { if (typeof host !== 'undefined') { host.debug(String(msg)); } },\n" +
+            "    sendKey: function(code, pressed) { if (pressed) { stateMutator.holdKey(code); } else { stateMutator.releaseKey(code); } },\n" +
+            "    sendAxis: function(id, value) { /* 轴事件处理，目前暂未实现 */ },\n" +
+            "    sendMacro: function(macroId) { /* 宏事件处理，目前暂未实现 */ }\n" +
+            "};\n" +
+            "const InputCore = (() => {\n" +
+            "    const regions = new Map();\n" +
+            "    const bindings = new Map();\n" +
+            "    function defineRegion(def) { regions.set(def.id, def); }\n" +
+            "    function bind(regionId, handler) { bindings.set(regionId, handler); }\n" +
+            "    function onEvent(event) {\n" +
+            "        const handler = bindings.get(event.region);\n" +
+            "        if (handler) { handler(event); }\n" +
+            "    }\n" +
+            "    return { defineRegion: defineRegion, bind: bind, onEvent: onEvent };\n" +
+            "})();\n" +
+            "const UserAPI = Object.freeze({\n" +
+            "    onButton: function(id, fn) { InputCore.bind(id, fn); },\n" +
+            "    sendKey: Env.sendKey,\n" +
+            "    sendAxis: Env.sendAxis,\n" +
+            "    now: Env.now,\n" +
+            "    log: Env.log\n" +
+            "});\n";
+
+    private final ScriptContext scriptContext = new ScriptContext();
+    private final EngineContextFactory contextFactory = new EngineContextFactory();
+
+    private volatile EngineState state = EngineState.UNINITIALIZED;
+    private volatile String lastError = null;
+    private volatile long lastExecutionTimeNanos = 0;
+    private boolean allowHostServices = false;
+
+    // 脚本作用域与入口函数（loadScript 时建立）
+    private ScriptableObject scope;
+    private Function updateFunction;
+    private Object[] updateArgs;
+    private long currentFrameId = 0;
+
+    // 当前执行的截止时间（仅在执行线程上读写）
+    private long deadlineNanos = Long.MAX_VALUE;
+
+    /**
+     * 设置是否允许脚本使用HostServices（日志等），需在 loadScript 之前调用
+     * @param allow true表示允许，false表示不允许
+     */
+    public void setAllowHostServices(boolean allow) {
+        this.allowHostServices = allow;
+    }
+
+    @Override
+    public synchronized void init() {
+        if (state == EngineState.SHUTDOWN) {
+            return;
+        }
+        state = EngineState.INITIALIZED;
+    }
+
+    @Override
+    public synchronized boolean loadScript(String scriptCode) {
+        if (state != EngineState.INITIALIZED && state != EngineState.LOADED && state != EngineState.ERROR) {
+            lastError = "Script engine not initialized";
+            state = EngineState.ERROR;
+            return false;
+        }
+
+        state = EngineState.LOADING;
+        lastError = null;
+        scope = null;
+        updateFunction = null;
+
+        Context cx = contextFactory.enterContext();
+        try {
+            deadlineNanos = System.nanoTime() + LOAD_BUDGET_NANOS;
+            ScriptableObject newScope = cx.initSafeStandardObjects();
+            Object bridge = Context.javaToJS(scriptContext, newScope);
+            ScriptableObject.putProperty(newScope, "rawAccess", bridge);
+            ScriptableObject.putProperty(newScope, "stateMutator", bridge);
+            if (allowHostServices) {
+                ScriptableObject.putProperty(newScope, "host", bridge);
+            }
+
+            cx.evaluateString(newScope, PRELUDE, "prelude.js", 1, null);
+            cx.evaluateString(newScope, scriptCode, "profile.js", 1, null);
+
+            Object update = ScriptableObject.getProperty(newScope, "update");
+            if (!(update instanceof Function)) {
+                lastError = "Script missing required function: update";
+                state = EngineState.ERROR;
+                return false;
+            }
+
+            // init 可选，加载时调用一次
+            Object init = ScriptableObject.getProperty(newScope, "init");
+            if (init instanceof Function) {
+                ((Function) init).call(cx, newScope, newScope, new Object[0]);
+            }
+
+            scope = newScope;
+            updateFunction = (Function) update;
+            updateArgs = new Object[]{bridge, bridge};
+            state = EngineState.LOADED;
+            return true;
+        } catch (ScriptBudgetExceededError e) {
+            lastError = "TIMEOUT: Script loading timed out";
+            state = EngineState.ERROR;
+            return false;
+        } catch (RhinoException e) {
+            lastError = "Error loading script: " + e.details();
+            state = EngineState.ERROR;
+            return false;
+        } finally {
+            deadlineNanos = Long.MAX_VALUE;
+            Context.exit();
+        }
+    }
+
+    @Override
+    public synchronized boolean update(RawInput rawInput, InputState inputState) {
+        if (state != EngineState.LOADED) {
+            // 脚本未加载或处于错误状态时，仅释放按键，与 WebView 引擎一致
+            releaseAllKeys(inputState);
+            return true;
+        }
+
+        long startTime = System.nanoTime();
+        scriptContext.beginFrame(rawInput, inputState, ++currentFrameId);
+
+        Context cx = contextFactory.enterContext();
+        try {
+            deadlineNanos = startTime + UPDATE_BUDGET_NANOS;
+            state = EngineState.EXECUTING;
+            Object result = updateFunction.call(cx, scope, scope, updateArgs);
+            applyScriptOutput(result);
+            scriptContext.applyKeyStates();
+            state = EngineState.LOADED;
+            return true;
+        } catch (ScriptBudgetExceededError e) {
+            lastError = "TIMEOUT: Script execution timed out";
+            state = EngineState.ERROR;
+            // 确保所有按键释放，防止粘键
+            releaseAllKeys(inputState);
+            return false;
+        } catch (RhinoException e) {
+            lastError = "RUNTIME_ERROR: " + e.details();
+            state = EngineState.ERROR;
+            // 确保所有按键释放，防止粘键
+            releaseAllKeys(inputState);
+            return false;
+        } finally {
+            deadlineNanos = Long.MAX_VALUE;
+            Context.exit();
+            lastExecutionTimeNanos = System.nanoTime() - startTime;
+        }
+    }
+
+    @Override
+    public synchronized void onEvent(GameInputEvent event) {
+        if (state != EngineState.LOADED) {
+            return;
+        }
+
+        Context cx = contextFactory.enterContext();
+        try {
+            Object onEvent = ScriptableObject.getProperty(scope, "onEvent");
+            if (!(onEvent instanceof Function)) {
+                return;
+            }
+            deadlineNanos = System.nanoTime() + UPDATE_BUDGET_NANOS;
+            Scriptable eventObj = cx.newObject(scope);
+            ScriptableObject.putProperty(eventObj, "key", event.getKey());
+            ScriptableObject.putProperty(eventObj, "type", event.getType().name());
+            ScriptableObject.putProperty(eventObj, "timestamp", event.getTimestamp());
+            ((Function) onEvent).call(cx, scope, scope, new Object[]{eventObj});
+        } catch (ScriptBudgetExceededError e) {
+            lastError = "TIMEOUT: Event handler timed out";
+            state = EngineState.ERROR;
+        } catch (RhinoException e) {
+            lastError = "RUNTIME_ERROR: " + e.details();
+            state = EngineState.ERROR;
+        } finally {
+            deadlineNanos = Long.MAX_VALUE;
+            Context.exit();
+        }
+    }
+
+    @Override
+    public synchronized void reset() {
+        if (state == EngineState.SHUTDOWN) {
+            return;
+        }
+        scriptContext.releaseAllKeys();
+        if (scope == null) {
+            return;
+        }
+
+        Context cx = contextFactory.enterContext();
+        try {
+            Object reset = ScriptableObject.getProperty(scope, "reset");
+            if (reset instanceof Function) {
+                deadlineNanos = System.nanoTime() + UPDATE_BUDGET_NANOS;
+                ((Function) reset).call(cx, scope, scope, new Object[0]);
+            }
+        } catch (ScriptBudgetExceededError e) {
+            lastError = "TIMEOUT: Script reset timed out";
+            state = EngineState.ERROR;
+        } catch (RhinoException e) {
+            lastError = "Error resetting script: " + e.details();
+            state = EngineState.ERROR;
+        } finally {
+            deadlineNanos = Long.MAX_VALUE;
+            Context.exit();
+        }
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        state = EngineState.SHUTDOWN;
+        scope = null;
+        updateFunction = null;
+        updateArgs = null;
+    }
+
+    @Override
+    public EngineState getState() {
+        return state;
+    }
+
+    @Override
+    public String getLastError() {
+        return lastError;
+    }
+
+    @Override
+    public long getLastExecutionTime() {
+        return TimeUnit.NANOSECONDS.toMillis(lastExecutionTimeNanos);
+    }
+
+    @Override
+    public long getLastExecutionTimeNanos() {
+        return lastExecutionTimeNanos;
+    }
+
+    /**
+     * 释放所有按键（脚本按键写入 keyboard 集合，兼容字段 keys 一并清空）
+     */
+    private static void releaseAllKeys(InputState inputState) {
+        inputState.clearKeys();
+        inputState.clearAllKeys();
+    }
+
+    /**
+     * 应用脚本返回的ScriptOutput（heldKeys 覆盖当前按键集合）
+     */
+    private void applyScriptOutput(Object result) {
+        if (!(result instanceof Scriptable)) {
+            return;
+        }
+        Object heldKeys = ScriptableObject.getProperty((Scriptable) result, "heldKeys");
+        if (!(heldKeys instanceof NativeArray)) {
+            return;
+        }
+        NativeArray keys = (NativeArray) heldKeys;
+        scriptContext.releaseAllKeys();
+        long length = keys.getLength();
+        for (int i = 0; i < length; i++) {
+            Object key = keys.get(i, keys);
+            if (key != null && key != Scriptable.NOT_FOUND) {
+                scriptContext.holdKey(Context.toString(key));
+            }
+        }
+    }
+
+    /**
+     * 执行预算耗尽时从解释器中抛出，终止脚本
+     * 继承 Error，脚本中的 try/catch 无法捕获
+     */
+    private static final class ScriptBudgetExceededError extends Error {
+        ScriptBudgetExceededError() {
+            super("Script execution budget exceeded", null, false, false);
+        }
+    }
+
+    /**
+     * 引擎专用的 Context 工厂：解释模式、ES6、指令计数预算、类访问白名单
+     */
+    private final class EngineContextFactory extends ContextFactory {
+        @Override
+        protected Context makeContext() {
+            Context cx = super.makeContext();
+            cx.setOptimizationLevel(-1);
+            cx.setLanguageVersion(Context.VERSION_ES6);
+            cx.setInstructionObserverThreshold(INSTRUCTION_CHECK_INTERVAL);
+            cx.setClassShutter(className -> className.startsWith(VISIBLE_PACKAGE_PREFIX));
+            // Java 字符串/数字直接作为 JS 原始值返回
+            WrapFactory wrapFactory = new WrapFactory();
+            wrapFactory.setJavaPrimitiveWrap(false);
+            cx.setWrapFactory(wrapFactory);
+            return cx;
+        }
+
+        @Override
+        protected void observeInstructionCount(Context cx, int instructionCount) {
+            if (System.nanoTime() > deadlineNanos) {
+                throw new ScriptBudgetExceededError();
+            }
+        }
+    }
+}
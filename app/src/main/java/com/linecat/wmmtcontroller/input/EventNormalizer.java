@@ -2,6 +2,8 @@ package com.linecat.wmmtcontroller.input;
 
 import android.util.Log;
 
+import com.linecat.wmmtcontroller.monitor.TraceLog;
+
 import java.util.LinkedList;
 import java.util.Queue;
 
@@ -21,6 +23,7 @@ import java.util.Queue;
 public class EventNormalizer {
     
     private static final String TAG = "EventNormalizer";
+    private static final TraceLog.Counter DUPLICATES_SKIPPED = TraceLog.counter("normalizer.duplicateSkipped");
     
     // 事件队列，用于缓冲和处理事件
     private final Queue<NormalizedEvent> eventQueue;
@@ -56,7 +59,10 @@ public class EventNormalizer {
         
         // 2. 过滤过于频繁的重复事件
         if (isDuplicateEvent(event)) {
-            Log.d(TAG, "Duplicate event skipped: " + event);
+            DUPLICATES_SKIPPED.increment();
+            if (TraceLog.ENABLED && TraceLog.isLoggable(TAG, Log.DEBUG)) {
+                TraceLog.log(TAG, Log.DEBUG, "Duplicate event skipped: " + event);
+            }
             return;
         }
         
@@ -7,6 +7,10 @@ import com.linecat.wmmtcontroller.model.RawInput;
  * 输入处理管线
  * 负责将原始输入转换为最终输入状态
  * 处理流程：RawInput → Filter → Smoothing → Deadzone → Curve → 语义分离 → 映射 → InputState
+ * <p>
+ * 预处理阶段在一个逐帧复用的 Frame 上原地依次执行，不再为每个阶段复制 RawInput；
+ * 阶段可通过 setStageOrder / setStages 重新排列、禁用或替换。稳态处理不分配对象。
+ * 非线程安全，只在输入线程上使用。
  */
 public class InputPipeline {
     // 配置参数
@@ -15,13 +19,79 @@ public class InputPipeline {
     private float joystickDeadzone = 0.1f; // 摇杆死区
     private float joystickSmoothing = 0.5f; // 摇杆平滑系数
     private float curveExponent = 2.0f; // 曲线映射指数
+    private CurveFunction curve = CurveFunction.power(2.0f); // 按指数预编译的曲线
 
-    // 上一次的输入状态，用于平滑处理
-    private RawInput lastInput;
+    // 上一帧的原始陀螺仪数据，用于平滑处理
+    private boolean hasLastInput;
+    private float lastGyroPitch;
+    private float lastGyroRoll;
+    private float lastGyroYaw;
     
     // 键盘映射策略
     private KeyboardMapping keyboardMapping;
 
+    // 逐帧复用的输入状态
+    private final InputState frameState = new InputState();
+
+    // 逐帧复用的预处理暂存
+    private final Frame frame = new Frame();
+
+    // 内置预处理阶段
+    private final Stage filterStage = this::filter;
+    private final Stage smoothingStage = this::smooth;
+    private final Stage deadzoneStage = this::applyDeadzone;
+    private final Stage curveStage = this::applyCurve;
+
+    // 当前预处理阶段链
+    private Stage[] stages = {filterStage, smoothingStage, deadzoneStage, curveStage};
+
+    /**
+     * 内置预处理阶段类型
+     */
+    public enum StageType {
+        FILTER,
+        SMOOTHING,
+        DEADZONE,
+        CURVE
+    }
+
+    /**
+     * 预处理阶段
+     * 原地修改 Frame，不得持有它，也不应分配对象
+     */
+    public interface Stage {
+        void apply(Frame frame);
+    }
+
+    /**
+     * 预处理暂存：RawInput 中参与管线处理的基本类型字段（逐帧复用）
+     */
+    public static final class Frame {
+        public float gyroPitch;
+        public float gyroRoll;
+        public float gyroYaw;
+        public boolean touchPressed;
+        public float touchX;
+        public float touchY;
+        public boolean buttonA;
+        public boolean buttonB;
+        public boolean buttonC;
+        public boolean buttonD;
+
+        void load(RawInput input) {
+            gyroPitch = input.getGyroPitch();
+            gyroRoll = input.getGyroRoll();
+            gyroYaw = input.getGyroYaw();
+            touchPressed = input.isTouchPressed();
+            touchX = input.getTouchX();
+            touchY = input.getTouchY();
+            buttonA = input.isButtonA();
+            buttonB = input.isButtonB();
+            buttonC = input.isButtonC();
+            buttonD = input.isButtonD();
+        }
+    }
+
     /**
      * 构造函数
      */
@@ -40,156 +110,124 @@ public class InputPipeline {
     /**
      * 处理原始输入，生成最终输入状态
      * @param rawInput 原始输入
-     * @return 最终输入状态
+     * @return 最终输入状态（逐帧复用，只在下一次调用前有效；需要保留时调用 snapshot()）
      */
     public InputState process(RawInput rawInput) {
+        frameState.reset();
         if (rawInput == null) {
-            return new InputState();
+            return frameState;
         }
 
-        // 1. 数据预处理阶段：Filter → Smoothing → Deadzone → Curve
-        RawInput processedInput = preprocessInput(rawInput);
+        // 1. 数据预处理阶段：在暂存上依次执行各阶段（默认 Filter → Smoothing → Deadzone → Curve）
+        Frame processed = frame;
+        processed.load(rawInput);
+        Stage[] chain = stages;
+        for (int i = 0; i < chain.length; i++) {
+            chain[i].apply(processed);
+        }
         
         // 2. 语义分离阶段：将处理后的输入分离为具体的游戏语义
-        InputState inputState = new InputState();
+        InputState inputState = frameState;
         
         // 处理陀螺仪转向
-        processSteeringInput(processedInput, inputState);
+        processSteeringInput(processed, inputState);
         
         // 处理按钮输入（油门、刹车等）
-        processButtonInput(processedInput, inputState);
+        processButtonInput(processed, inputState);
         
         // 处理触摸输入
-        processTouchInput(processedInput, inputState);
+        processTouchInput(processed, inputState);
         
         // 3. 设置原始传感器数据到输出状态
-        setRawSensorData(processedInput, inputState);
+        setRawSensorData(processed, inputState);
 
-        // 保存当前输入作为下一次的参考
-        lastInput = rawInput;
+        // 保存当前原始输入作为下一次的参考
+        lastGyroPitch = rawInput.getGyroPitch();
+        lastGyroRoll = rawInput.getGyroRoll();
+        lastGyroYaw = rawInput.getGyroYaw();
+        hasLastInput = true;
 
         return inputState;
     }
-    
+
     /**
-     * 预处理输入数据
-     * @param rawInput 原始输入
-     * @return 预处理后的输入
+     * 按内置阶段类型设置预处理顺序，未列出的阶段被禁用
+     * @param types 阶段类型，按执行顺序排列
      */
-    private RawInput preprocessInput(RawInput rawInput) {
-        // 1. Filter: 过滤原始数据
-        RawInput filteredInput = filter(rawInput);
-
-        // 2. Smoothing: 平滑处理
-        RawInput smoothedInput = smooth(filteredInput);
-
-        // 3. Deadzone: 应用死区
-        RawInput deadzoneInput = applyDeadzone(smoothedInput);
-
-        // 4. Curve: 曲线映射
-        return applyCurve(deadzoneInput);
+    public void setStageOrder(StageType... types) {
+        Stage[] chain = new Stage[types.length];
+        for (int i = 0; i < types.length; i++) {
+            chain[i] = getStage(types[i]);
+        }
+        this.stages = chain;
     }
 
     /**
-     * 过滤原始数据
-     * @param input 原始输入
-     * @return 过滤后的输入
+     * 设置预处理阶段链（可混合内置阶段与自定义阶段）
+     * @param stages 阶段，按执行顺序排列
      */
-    private RawInput filter(RawInput input) {
-        // 这里可以添加过滤逻辑，如去除异常值
-        RawInput filtered = new RawInput();
-        // 复制所有属性
-        filtered.setGyroPitch(clamp(input.getGyroPitch(), -180, 180));
-        filtered.setGyroRoll(clamp(input.getGyroRoll(), -180, 180));
-        filtered.setGyroYaw(clamp(input.getGyroYaw(), -180, 180));
-        filtered.setTouchPressed(input.isTouchPressed());
-        filtered.setTouchX(input.getTouchX());
-        filtered.setTouchY(input.getTouchY());
-        filtered.setButtonA(input.isButtonA());
-        filtered.setButtonB(input.isButtonB());
-        filtered.setButtonC(input.isButtonC());
-        filtered.setButtonD(input.isButtonD());
-        return filtered;
+    public void setStages(Stage... stages) {
+        this.stages = stages.clone();
     }
 
     /**
-     * 应用死区
-     * @param input 输入数据
-     * @return 应用死区后的数据
+     * 获取内置预处理阶段
+     * @param type 阶段类型
+     * @return 阶段
      */
-    private RawInput applyDeadzone(RawInput input) {
-        RawInput result = new RawInput();
-
-        // 应用陀螺仪死区
-        result.setGyroPitch(applyDeadzone(input.getGyroPitch(), gyroDeadzone));
-        result.setGyroRoll(applyDeadzone(input.getGyroRoll(), gyroDeadzone));
-        result.setGyroYaw(applyDeadzone(input.getGyroYaw(), gyroDeadzone));
-
-        // 复制其他属性
-        result.setTouchPressed(input.isTouchPressed());
-        result.setTouchX(input.getTouchX());
-        result.setTouchY(input.getTouchY());
-        result.setButtonA(input.isButtonA());
-        result.setButtonB(input.isButtonB());
-        result.setButtonC(input.isButtonC());
-        result.setButtonD(input.isButtonD());
-
-        return result;
+    public Stage getStage(StageType type) {
+        switch (type) {
+            case FILTER:
+                return filterStage;
+            case SMOOTHING:
+                return smoothingStage;
+            case DEADZONE:
+                return deadzoneStage;
+            case CURVE:
+            default:
+                return curveStage;
+        }
     }
 
     /**
-     * 应用曲线映射
-     * @param input 输入数据
-     * @return 应用曲线映射后的数据
+     * 过滤原始数据，如去除异常值
      */
-    private RawInput applyCurve(RawInput input) {
-        RawInput result = new RawInput();
-
-        // 应用曲线映射，使输入更符合人体工学
-        result.setGyroPitch(applyCurve(input.getGyroPitch(), curveExponent));
-        result.setGyroRoll(applyCurve(input.getGyroRoll(), curveExponent));
-        result.setGyroYaw(applyCurve(input.getGyroYaw(), curveExponent));
-
-        // 复制其他属性
-        result.setTouchPressed(input.isTouchPressed());
-        result.setTouchX(input.getTouchX());
-        result.setTouchY(input.getTouchY());
-        result.setButtonA(input.isButtonA());
-        result.setButtonB(input.isButtonB());
-        result.setButtonC(input.isButtonC());
-        result.setButtonD(input.isButtonD());
-
-        return result;
+    private void filter(Frame frame) {
+        frame.gyroPitch = clamp(frame.gyroPitch, -180, 180);
+        frame.gyroRoll = clamp(frame.gyroRoll, -180, 180);
+        frame.gyroYaw = clamp(frame.gyroYaw, -180, 180);
     }
 
     /**
-     * 平滑处理
-     * @param input 当前输入
-     * @return 平滑后的输入
+     * 平滑处理：与上一帧的原始值插值（触摸和按钮不需要平滑）
      */
-    private RawInput smooth(RawInput input) {
-        RawInput result = new RawInput();
-
-        if (lastInput == null) {
+    private void smooth(Frame frame) {
+        if (!hasLastInput) {
             // 第一次输入，直接返回
-            return input;
+            return;
         }
+        frame.gyroPitch = lerp(lastGyroPitch, frame.gyroPitch, gyroSmoothing);
+        frame.gyroRoll = lerp(lastGyroRoll, frame.gyroRoll, gyroSmoothing);
+        frame.gyroYaw = lerp(lastGyroYaw, frame.gyroYaw, gyroSmoothing);
+    }
 
-        // 应用平滑处理，使用指数移动平均
-        result.setGyroPitch(lerp(lastInput.getGyroPitch(), input.getGyroPitch(), gyroSmoothing));
-        result.setGyroRoll(lerp(lastInput.getGyroRoll(), input.getGyroRoll(), gyroSmoothing));
-        result.setGyroYaw(lerp(lastInput.getGyroYaw(), input.getGyroYaw(), gyroSmoothing));
-
-        // 复制其他属性（触摸和按钮不需要平滑）
-        result.setTouchPressed(input.isTouchPressed());
-        result.setTouchX(input.getTouchX());
-        result.setTouchY(input.getTouchY());
-        result.setButtonA(input.isButtonA());
-        result.setButtonB(input.isButtonB());
-        result.setButtonC(input.isButtonC());
-        result.setButtonD(input.isButtonD());
-
-        return result;
+    /**
+     * 应用陀螺仪死区
+     */
+    private void applyDeadzone(Frame frame) {
+        frame.gyroPitch = applyDeadzone(frame.gyroPitch, gyroDeadzone);
+        frame.gyroRoll = applyDeadzone(frame.gyroRoll, gyroDeadzone);
+        frame.gyroYaw = applyDeadzone(frame.gyroYaw, gyroDeadzone);
+    }
+
+    /**
+     * 应用曲线映射，使输入更符合人体工学
+     */
+    private void applyCurve(Frame frame) {
+        CurveFunction curve = this.curve;
+        frame.gyroPitch = curve.apply(frame.gyroPitch);
+        frame.gyroRoll = curve.apply(frame.gyroRoll);
+        frame.gyroYaw = curve.apply(frame.gyroYaw);
     }
 
     /**
@@ -198,8 +236,8 @@ public class InputPipeline {
      * @param input 处理后的输入
      * @param state 输入状态
      */
-    private void processSteeringInput(RawInput input, InputState state) {
-        float roll = input.getGyroRoll();
+    private void processSteeringInput(Frame input, InputState state) {
+        float roll = input.gyroRoll;
 
         if (roll > 0.5f) {
             state.getKeyboard().add(keyboardMapping.getRightKey()); // 右转向
@@ -214,23 +252,23 @@ public class InputPipeline {
      * @param input 处理后的输入
      * @param state 输入状态
      */
-    private void processButtonInput(RawInput input, InputState state) {
+    private void processButtonInput(Frame input, InputState state) {
         // 油门输入
-        if (input.isButtonA()) {
+        if (input.buttonA) {
             state.getKeyboard().add(keyboardMapping.getThrottleKey()); // 加速
         }
         
         // 刹车输入
-        if (input.isButtonB()) {
+        if (input.buttonB) {
             state.getKeyboard().add(keyboardMapping.getBrakeKey()); // 刹车
         }
         
         // 辅助按钮
-        if (input.isButtonC()) {
+        if (input.buttonC) {
             state.getKeyboard().add(keyboardMapping.getButtonCKey()); // 按钮C
         }
         
-        if (input.isButtonD()) {
+        if (input.buttonD) {
             state.getKeyboard().add(keyboardMapping.getButtonDKey()); // 按钮D
         }
     }
@@ -241,10 +279,10 @@ public class InputPipeline {
      * @param input 处理后的输入
      * @param state 输入状态
      */
-    private void processTouchInput(RawInput input, InputState state) {
-        state.getMouse().setX(input.getTouchX());
-        state.getMouse().setY(input.getTouchY());
-        state.getMouse().setLeft(input.isTouchPressed());
+    private void processTouchInput(Frame input, InputState state) {
+        state.getMouse().setX(input.touchX);
+        state.getMouse().setY(input.touchY);
+        state.getMouse().setLeft(input.touchPressed);
     }
     
     /**
@@ -252,7 +290,7 @@ public class InputPipeline {
      * @param input 处理后的输入
      * @param state 输入状态
      */
-    private void setRawSensorData(RawInput input, InputState state) {
+    private void setRawSensorData(Frame input, InputState state) {
         // 陀螺仪数据已经在processSteeringInput中转换为键盘操作，无需在此处设置
     }
 
@@ -264,15 +302,6 @@ public class InputPipeline {
         return value;
     }
 
-    // 辅助方法：应用曲线映射
-    private float applyCurve(float value, float exponent) {
-        // 使用幂函数进行曲线映射
-        // 保留符号
-        float sign = Math.signum(value);
-        float absValue = Math.abs(value);
-        return sign * (float) Math.pow(absValue, exponent);
-    }
-
     // 辅助方法：线性插值
     private float lerp(float a, float b, float t) {
         return a + (b - a) * t;
@@ -322,5 +351,6 @@ public class InputPipeline {
 
     public void setCurveExponent(float curveExponent) {
         this.curveExponent = curveExponent;
+        this.curve = CurveFunction.power(curveExponent);
     }
 }
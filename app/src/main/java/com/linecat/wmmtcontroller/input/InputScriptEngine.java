@@ -3,6 +3,8 @@ package com.linecat.wmmtcontroller.input;
 import com.linecat.wmmtcontroller.model.InputState;
 import com.linecat.wmmtcontroller.model.RawInput;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * 输入脚本引擎接口
  * 定义脚本执行的核心方法
@@ -67,6 +69,15 @@ public interface InputScriptEngine {
      */
     long getLastExecutionTime();
     
+    /**
+     * 获取脚本执行时间（纳秒）
+     * 默认由毫秒值换算；能够精确计时的引擎应覆盖此方法
+     * @return 上次执行耗时
+     */
+    default long getLastExecutionTimeNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(getLastExecutionTime());
+    }
+    
     /**
      * 脚本引擎状态枚举
      */
@@ -23,13 +23,15 @@ public class InputStateController {
     public void updateOutput(InputState newState) {
         synchronized (this) {
             if (isOutputEnabled) {
-                this.currentOutputState = new InputState(newState); // 返回副本，避免并发问题
+                // 原地复制：调用方会复用 newState，这里不持有它
+                this.currentOutputState.copyFrom(newState);
             }
         }
     }
 
     /**
      * 获取当前输出状态
+     * @return 独立副本，可长期持有
      */
     public InputState getCurrentOutput() {
         synchronized (this) {
@@ -37,6 +39,16 @@ public class InputStateController {
         }
     }
 
+    /**
+     * 将当前输出状态复制到调用方复用的对象中（不分配）
+     * @param target 目标状态
+     */
+    public void copyCurrentOutput(InputState target) {
+        synchronized (this) {
+            target.copyFrom(currentOutputState);
+        }
+    }
+
     /**
      * 启用输出
      */
@@ -63,7 +75,7 @@ public class InputStateController {
      */
     public void clearAllOutputs() {
         synchronized (this) {
-            this.currentOutputState = new InputState();
+            this.currentOutputState.reset();
             Log.d(TAG, "All outputs cleared");
         }
     }
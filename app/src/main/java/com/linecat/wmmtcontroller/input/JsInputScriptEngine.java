@@ -15,7 +15,6 @@ import com.linecat.wmmtcontroller.model.RawInput;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -47,8 +46,8 @@ public class JsInputScriptEngine implements InputScriptEngine {
     private AtomicReference<InputState> executionResult = new AtomicReference<>();
     private CountDownLatch executionLatch;
     
-    // 存储当前帧的原始输入JSON，用于ScriptBridge的RawAccess方法
-    private String rawInputToJson;
+    // 当前帧的原始输入快照，每帧发布一次，用于ScriptBridge的RawAccess方法
+    private volatile RawInputSnapshot rawInputSnapshot;
     
     /**
      * 构造函数
@@ -156,6 +155,7 @@ public class JsInputScriptEngine implements InputScriptEngine {
         expectedFrameId.set(frameId);
         
         executionResult.set(inputState);
+        rawInputSnapshot = RawInputSnapshot.of(rawInput, frameId);
         executionLatch = new CountDownLatch(1);
         
         final AtomicBoolean success = new AtomicBoolean(true);
@@ -163,9 +163,6 @@ public class JsInputScriptEngine implements InputScriptEngine {
         uiHandler.post(() -> {
             try {
                 // 调用脚本的update函数
-                String rawJson = rawInputToJson(rawInput, frameId);
-                // 保存raw input JSON，用于RawAccess方法
-                this.rawInputToJson = rawJson;
                 // 传递rawAccess和stateMutator两个参数，保持接口一致性
                 String jsCode = String.format(
                     "try { var result = update(rawAccess, stateMutator); android.onUpdateComplete(JSON.stringify({frameId: %d, result: result})); } catch(e) { android.onScriptError('RUNTIME_ERROR', e.message, %d); }",
@@ -352,6 +349,7 @@ public class JsInputScriptEngine implements InputScriptEngine {
                "    getTimestamp: function() { return android.getTimestamp(); },\n" +
                "    getAxis: function(axisName) { return android.getAxis(axisName); },\n" +
                "    isGamepadButtonPressed: function(buttonName) { return android.isGamepadButtonPressed(buttonName); },\n" +
+               "    getRawFrame: function() { return JSON.parse(android.getRawFrame()); },\n" +
                "    getRawInput: function() { return {\n" +
                "        getGyroPitch: function() { return android.getGyroPitch(); },\n" +
                "        getGyroRoll: function() { return android.getGyroRoll(); },\n" +
@@ -380,63 +378,6 @@ public class JsInputScriptEngine implements InputScriptEngine {
                "</script></head><body></body></html>";
     }
     
-    /**
-     * 将RawInput转换为JSON字符串
-     * @param rawInput 原始输入数据
-     * @param frameId 帧序号
-     * @return JSON字符串
-     */
-    private String rawInputToJson(RawInput rawInput, long frameId) {
-        // 使用JSONObject构建JSON，避免手动转义错误
-        org.json.JSONObject jsonObj = new org.json.JSONObject();
-        
-        try {
-            // 基本字段
-            jsonObj.put("frameId", frameId);
-            jsonObj.put("gyroPitch", rawInput.getGyroPitch());
-            jsonObj.put("gyroRoll", rawInput.getGyroRoll());
-            jsonObj.put("gyroYaw", rawInput.getGyroYaw());
-            jsonObj.put("touchPressed", rawInput.isTouchPressed());
-            jsonObj.put("touchX", rawInput.getTouchX());
-            jsonObj.put("touchY", rawInput.getTouchY());
-            jsonObj.put("buttonA", rawInput.isButtonA());
-            jsonObj.put("buttonB", rawInput.isButtonB());
-            jsonObj.put("buttonC", rawInput.isButtonC());
-            jsonObj.put("buttonD", rawInput.isButtonD());
-            
-            // 游戏手柄数据
-            org.json.JSONObject gamepadObj = new org.json.JSONObject();
-            
-            // 轴数据
-            org.json.JSONObject axesObj = new org.json.JSONObject();
-            for (Map.Entry<String, Float> axis : rawInput.getGamepad().getAxes().entrySet()) {
-                axesObj.put(axis.getKey(), axis.getValue());
-            }
-            gamepadObj.put("axes", axesObj);
-            
-            // 按键数据
-            org.json.JSONObject buttonsObj = new org.json.JSONObject();
-            for (Map.Entry<String, Boolean> button : rawInput.getGamepad().getButtons().entrySet()) {
-                buttonsObj.put(button.getKey(), button.getValue());
-            }
-            gamepadObj.put("buttons", buttonsObj);
-            
-            jsonObj.put("gamepad", gamepadObj);
-            
-            return jsonObj.toString();
-        } catch (org.json.JSONException e) {
-            Log.e(TAG, "Error building raw input JSON: " + e.getMessage());
-            // 返回简化的JSON格式
-            return String.format(
-                "{\"frameId\": %d, \"gyroPitch\": %.6f, \"gyroRoll\": %.6f, \"gyroYaw\": %.6f}",
-                frameId,
-                rawInput.getGyroPitch(),
-                rawInput.getGyroRoll(),
-                rawInput.getGyroYaw()
-            );
-        }
-    }
-    
     /**
      * 将GameInputEvent转换为JSON字符串
      * @param event 游戏输入事件
@@ -533,168 +474,87 @@ public class JsInputScriptEngine implements InputScriptEngine {
         }
         
         // === RawAccess 相关方法 ===
+        // 读取本帧发布的不可变快照，不再为每次读取解析原始输入JSON
         @JavascriptInterface
         public float getAxis(String axisName) {
-            if (executionResult.get() != null && JsInputScriptEngine.this.rawInputToJson != null) {
-                // 从当前帧的原始输入中获取轴值
-                try {
-                    org.json.JSONObject rawJsonObj = new org.json.JSONObject(JsInputScriptEngine.this.rawInputToJson);
-                    org.json.JSONObject gamepadObj = rawJsonObj.optJSONObject("gamepad");
-                    if (gamepadObj != null) {
-                        return (float) gamepadObj.optDouble(axisName, 0.0);
-                    }
-                } catch (org.json.JSONException e) {
-                    Log.e(TAG, "Error getting axis value: " + e.getMessage());
-                }
-            }
-            return 0.0f;
+            RawInputSnapshot snapshot = rawInputSnapshot;
+            return snapshot != null ? snapshot.getAxis(axisName) : 0.0f;
         }
         
         @JavascriptInterface
         public boolean isGamepadButtonPressed(String buttonName) {
-            if (executionResult.get() != null && JsInputScriptEngine.this.rawInputToJson != null) {
-                // 从当前帧的原始输入中获取按钮状态
-                try {
-                    org.json.JSONObject rawJsonObj = new org.json.JSONObject(JsInputScriptEngine.this.rawInputToJson);
-                    org.json.JSONObject gamepadObj = rawJsonObj.optJSONObject("gamepad");
-                    if (gamepadObj != null) {
-                        return gamepadObj.optBoolean(buttonName, false);
-                    }
-                } catch (org.json.JSONException e) {
-                    Log.e(TAG, "Error getting button state: " + e.getMessage());
-                }
-            }
-            return false;
+            RawInputSnapshot snapshot = rawInputSnapshot;
+            return snapshot != null && snapshot.isGamepadButtonPressed(buttonName);
         }
         
         @JavascriptInterface
         public float getGyroPitch() {
-            if (executionResult.get() != null && JsInputScriptEngine.this.rawInputToJson != null) {
-                try {
-                    org.json.JSONObject rawJsonObj = new org.json.JSONObject(JsInputScriptEngine.this.rawInputToJson);
-                    return (float) rawJsonObj.optDouble("gyroPitch", 0.0);
-                } catch (org.json.JSONException e) {
-                    Log.e(TAG, "Error getting gyro pitch: " + e.getMessage());
-                }
-            }
-            return 0.0f;
+            RawInputSnapshot snapshot = rawInputSnapshot;
+            return snapshot != null ? snapshot.gyroPitch : 0.0f;
         }
         
         @JavascriptInterface
         public float getGyroRoll() {
-            if (executionResult.get() != null && JsInputScriptEngine.this.rawInputToJson != null) {
-                try {
-                    org.json.JSONObject rawJsonObj = new org.json.JSONObject(JsInputScriptEngine.this.rawInputToJson);
-                    return (float) rawJsonObj.optDouble("gyroRoll", 0.0);
-                } catch (org.json.JSONException e) {
-                    Log.e(TAG, "Error getting gyro roll: " + e.getMessage());
-                }
-            }
-            return 0.0f;
+            RawInputSnapshot snapshot = rawInputSnapshot;
+            return snapshot != null ? snapshot.gyroRoll : 0.0f;
         }
         
         @JavascriptInterface
         public float getGyroYaw() {
-            if (executionResult.get() != null && JsInputScriptEngine.this.rawInputToJson != null) {
-                try {
-                    org.json.JSONObject rawJsonObj = new org.json.JSONObject(JsInputScriptEngine.this.rawInputToJson);
-                    return (float) rawJsonObj.optDouble("gyroYaw", 0.0);
-                } catch (org.json.JSONException e) {
-                    Log.e(TAG, "Error getting gyro yaw: " + e.getMessage());
-                }
-            }
-            return 0.0f;
+            RawInputSnapshot snapshot = rawInputSnapshot;
+            return snapshot != null ? snapshot.gyroYaw : 0.0f;
         }
         
         @JavascriptInterface
         public boolean isTouchPressed() {
-            if (executionResult.get() != null && JsInputScriptEngine.this.rawInputToJson != null) {
-                try {
-                    org.json.JSONObject rawJsonObj = new org.json.JSONObject(JsInputScriptEngine.this.rawInputToJson);
-                    return rawJsonObj.optBoolean("touchPressed", false);
-                } catch (org.json.JSONException e) {
-                    Log.e(TAG, "Error getting touch pressed: " + e.getMessage());
-                }
-            }
-            return false;
+            RawInputSnapshot snapshot = rawInputSnapshot;
+            return snapshot != null && snapshot.touchPressed;
         }
         
         @JavascriptInterface
         public float getTouchX() {
-            if (executionResult.get() != null && JsInputScriptEngine.this.rawInputToJson != null) {
-                try {
-                    org.json.JSONObject rawJsonObj = new org.json.JSONObject(JsInputScriptEngine.this.rawInputToJson);
-                    return (float) rawJsonObj.optDouble("touchX", 0.0);
-                } catch (org.json.JSONException e) {
-                    Log.e(TAG, "Error getting touch X: " + e.getMessage());
-                }
-            }
-            return 0.0f;
+            RawInputSnapshot snapshot = rawInputSnapshot;
+            return snapshot != null ? snapshot.touchX : 0.0f;
         }
         
         @JavascriptInterface
         public float getTouchY() {
-            if (executionResult.get() != null && JsInputScriptEngine.this.rawInputToJson != null) {
-                try {
-                    org.json.JSONObject rawJsonObj = new org.json.JSONObject(JsInputScriptEngine.this.rawInputToJson);
-                    return (float) rawJsonObj.optDouble("touchY", 0.0);
-                } catch (org.json.JSONException e) {
-                    Log.e(TAG, "Error getting touch Y: " + e.getMessage());
-                }
-            }
-            return 0.0f;
+            RawInputSnapshot snapshot = rawInputSnapshot;
+            return snapshot != null ? snapshot.touchY : 0.0f;
         }
         
         @JavascriptInterface
         public boolean isButtonA() {
-            if (executionResult.get() != null && JsInputScriptEngine.this.rawInputToJson != null) {
-                try {
-                    org.json.JSONObject rawJsonObj = new org.json.JSONObject(JsInputScriptEngine.this.rawInputToJson);
-                    return rawJsonObj.optBoolean("buttonA", false);
-                } catch (org.json.JSONException e) {
-                    Log.e(TAG, "Error getting button A: " + e.getMessage());
-                }
-            }
-            return false;
+            RawInputSnapshot snapshot = rawInputSnapshot;
+            return snapshot != null && snapshot.buttonA;
         }
         
         @JavascriptInterface
         public boolean isButtonB() {
-            if (executionResult.get() != null && JsInputScriptEngine.this.rawInputToJson != null) {
-                try {
-                    org.json.JSONObject rawJsonObj = new org.json.JSONObject(JsInputScriptEngine.this.rawInputToJson);
-                    return rawJsonObj.optBoolean("buttonB", false);
-                } catch (org.json.JSONException e) {
-                    Log.e(TAG, "Error getting button B: " + e.getMessage());
-                }
-            }
-            return false;
+            RawInputSnapshot snapshot = rawInputSnapshot;
+            return snapshot != null && snapshot.buttonB;
         }
         
         @JavascriptInterface
         public boolean isButtonC() {
-            if (executionResult.get() != null && JsInputScriptEngine.this.rawInputToJson != null) {
-                try {
-                    org.json.JSONObject rawJsonObj = new org.json.JSONObject(JsInputScriptEngine.this.rawInputToJson);
-                    return rawJsonObj.optBoolean("buttonC", false);
-                } catch (org.json.JSONException e) {
-                    Log.e(TAG, "Error getting button C: " + e.getMessage());
-                }
-            }
-            return false;
+            RawInputSnapshot snapshot = rawInputSnapshot;
+            return snapshot != null && snapshot.buttonC;
         }
         
         @JavascriptInterface
         public boolean isButtonD() {
-            if (executionResult.get() != null && JsInputScriptEngine.this.rawInputToJson != null) {
-                try {
-                    org.json.JSONObject rawJsonObj = new org.json.JSONObject(JsInputScriptEngine.this.rawInputToJson);
-                    return rawJsonObj.optBoolean("buttonD", false);
-                } catch (org.json.JSONException e) {
-                    Log.e(TAG, "Error getting button D: " + e.getMessage());
-                }
-            }
-            return false;
+            RawInputSnapshot snapshot = rawInputSnapshot;
+            return snapshot != null && snapshot.buttonD;
+        }
+        
+        /**
+         * 批量获取本帧全部原始输入，脚本一次跨桥调用即可取得整帧数据
+         * @return 整帧原始输入JSON
+         */
+        @JavascriptInterface
+        public String getRawFrame() {
+            RawInputSnapshot snapshot = rawInputSnapshot;
+            return snapshot != null ? snapshot.toJson() : "{}";
         }
         
         @JavascriptInterface
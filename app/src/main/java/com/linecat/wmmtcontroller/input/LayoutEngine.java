@@ -5,6 +5,7 @@ import android.util.Log;
 
 import com.linecat.wmmtcontroller.model.InputState;
 import com.linecat.wmmtcontroller.model.RawInput;
+import com.linecat.wmmtcontroller.monitor.TraceLog;
 
 import java.util.ArrayList;
 
@@ -15,10 +16,8 @@ import java.util.ArrayList;
 public class LayoutEngine {
     private static final String TAG = "LayoutEngine";
 
-    // 用于控制日志打印频率的变量
-    private static long lastLayoutLogTime = 0;
-    private static final long LAYOUT_LOG_INTERVAL = 5000; // 5秒间隔
-    private static int layoutExecutionCount = 0;
+    // 布局执行次数（替代按时间间隔打印的日志）
+    private static final TraceLog.Counter LAYOUT_EXECUTIONS = TraceLog.counter("layout.execute");
 
     // 各层处理器
     private UILayerHandler uiLayerHandler;
@@ -31,6 +30,9 @@ public class LayoutEngine {
     // 输出控制器
     private InputStateController inputStateController;
 
+    // 逐帧复用的输入状态（只在输入线程上使用）
+    private final InputState frameState = new InputState();
+
     // 布局加载器
     private LayoutLoader layoutLoader;
 
@@ -90,6 +92,10 @@ public class LayoutEngine {
      * 设置当前布局
      */
     public void setLayout(LayoutSnapshot layout) {
+        // 在切换时编译布局，各层处理器每帧只遍历预分区的数组
+        if (layout != null) {
+            layout.getCompiledLayout();
+        }
         this.currentLayout = layout;
         Log.d(TAG, "Layout set: " + (layout != null ? layout.toString() : "null"));
 
@@ -118,6 +124,7 @@ public class LayoutEngine {
 
     /**
      * 执行布局处理
+     * 返回的输入状态逐帧复用，只在下一次调用前有效；需要保留时调用 snapshot()
      */
     public InputState executeLayout(RawInput rawInput, long frameId) {
         if (currentLayout == null) {
@@ -125,8 +132,9 @@ public class LayoutEngine {
             currentLayout = new LayoutSnapshot(new ArrayList<>());
         }
 
-        // 创建输入状态
-        InputState inputState = new InputState();
+        // 复用输入状态，清零后重新生成
+        InputState inputState = frameState;
+        inputState.reset();
         inputState.setFrameId(frameId);
 
         // 1. UI 层处理：原始输入 → 抽象值
@@ -138,15 +146,7 @@ public class LayoutEngine {
         // 3. Mapping 层处理：抽象语义 → 设备输出
         mappingLayerHandler.process(rawInput, currentLayout, inputState);
 
-        // 按时间间隔打印日志
-        layoutExecutionCount++;
-        long currentTime = System.currentTimeMillis();
-        if (currentTime - lastLayoutLogTime >= LAYOUT_LOG_INTERVAL) {
-
-            // 重置计数器
-            layoutExecutionCount = 0;
-            lastLayoutLogTime = currentTime;
-        }
+        LAYOUT_EXECUTIONS.increment();
 
         // 更新输出状态
         inputStateController.updateOutput(inputState);
@@ -77,6 +77,13 @@ public class LayoutLoader {
             allRegions.addAll(mappingRegions);
         }
 
+        // 曲线在区域构造时编译，无法解析的定义已退回线性，这里统一记录
+        for (Region region : allRegions) {
+            if (region.getCurveError() != null) {
+                Log.w(TAG, "Invalid curve for region " + region.getId() + ", falling back to linear: " + region.getCurveError());
+            }
+        }
+
         // 创建布局快照
         return new LayoutSnapshot(allRegions);
     }
@@ -1,9 +1,12 @@
 package com.linecat.wmmtcontroller.input;
 
+import com.linecat.wmmtcontroller.layer.InputAbstractionLayer;
+
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 布局快照
@@ -13,7 +16,12 @@ import java.util.List;
 public class LayoutSnapshot {
     
     private final List<Region> regions;
+    private final List<Region> regionsView;
+    // 区域网格索引，创建快照时构建
+    private final RegionGridIndex gridIndex;
     private final long timestamp;
+    // 编译后的布局，首次使用时生成（LayoutEngine.setLayout 时预先生成）
+    private volatile CompiledLayout compiledLayout;
     private final float screenWidth;
     private final float screenHeight;
     
@@ -40,6 +48,8 @@ public class LayoutSnapshot {
                 return Integer.compare(r2.getZIndex(), r1.getZIndex()); // 降序排序，高zIndex优先
             }
         });
+        this.regionsView = Collections.unmodifiableList(this.regions);
+        this.gridIndex = new RegionGridIndex(this.regions.toArray(new Region[0]));
         this.timestamp = System.currentTimeMillis();
         this.screenWidth = screenWidth;
         this.screenHeight = screenHeight;
@@ -52,13 +62,62 @@ public class LayoutSnapshot {
      * @return 命中的区域，如果没有命中则返回null
      */
     public Region hitTest(float normalizedX, float normalizedY) {
-        // 遍历所有区域，返回第一个命中的区域（按zIndex排序，高zIndex的先检查）
-        for (Region region : regions) {
-            if (region.hitTest(normalizedX, normalizedY)) {
-                return region;
+        // 只检查触点所在网格单元内的区域，单元内按zIndex降序排列，第一个命中即最高zIndex
+        return gridIndex.hitTest(normalizedX, normalizedY);
+    }
+    
+    /**
+     * 区域命中检测，返回最高zIndex组内的全部命中区域（同zIndex的区域结果叠加）
+     * @param normalizedX 归一化X坐标（0.0-1.0）
+     * @param normalizedY 归一化Y坐标（0.0-1.0）
+     * @param out 可复用的结果数组，容量不足时只写满为止
+     * @return 写入的区域数
+     */
+    public int hitTestTopGroup(float normalizedX, float normalizedY, Region[] out) {
+        return gridIndex.hitTestTopGroup(normalizedX, normalizedY, out);
+    }
+    
+    /**
+     * 批量命中检测：一次解析指针帧中所有活动指针（不分配对象）
+     * 坐标按帧的坐标空间归一化，帧没有坐标空间时使用快照的屏幕尺寸
+     * @param frame 指针帧视图
+     * @param outPointerIds 可复用的指针ID结果数组
+     * @param outRegions 可复用的命中区域结果数组，未命中的指针对应 null
+     * @return 写入的指针数（不超过结果数组容量）
+     */
+    public int hitTestPointers(InputAbstractionLayer.PointerFrameView frame, int[] outPointerIds, Region[] outRegions) {
+        float width = frame.space() != null ? frame.space().widthPx : screenWidth;
+        float height = frame.space() != null ? frame.space().heightPx : screenHeight;
+        int count = Math.min(frame.pointerCount(), Math.min(outPointerIds.length, outRegions.length));
+        for (int i = 0; i < count; i++) {
+            outPointerIds[i] = frame.pointerId(i);
+            outRegions[i] = gridIndex.hitTest(frame.x(i) / width, frame.y(i) / height);
+        }
+        return count;
+    }
+    
+    /**
+     * 批量命中检测：一次解析指针帧快照中所有活动指针
+     * @param frame 指针帧
+     * @param outPointerIds 可复用的指针ID结果数组
+     * @param outRegions 可复用的命中区域结果数组，未命中的指针对应 null
+     * @return 写入的指针数（不超过结果数组容量）
+     */
+    public int hitTestPointers(InputAbstractionLayer.PointerFrame frame, int[] outPointerIds, Region[] outRegions) {
+        float width = frame.space != null ? frame.space.widthPx : screenWidth;
+        float height = frame.space != null ? frame.space.heightPx : screenHeight;
+        int capacity = Math.min(outPointerIds.length, outRegions.length);
+        int count = 0;
+        for (Map.Entry<Integer, InputAbstractionLayer.PointerState> entry : frame.pointersById.entrySet()) {
+            if (count >= capacity) {
+                break;
             }
+            InputAbstractionLayer.PointerState pointer = entry.getValue();
+            outPointerIds[count] = entry.getKey();
+            outRegions[count] = gridIndex.hitTest(pointer.x / width, pointer.y / height);
+            count++;
         }
-        return null;
+        return count;
     }
     
     /**
@@ -66,7 +125,20 @@ public class LayoutSnapshot {
      * @return 区域列表（不可变）
      */
     public List<Region> getRegions() {
-        return Collections.unmodifiableList(regions);
+        return regionsView;
+    }
+    
+    /**
+     * 获取编译后的布局（按层预分区的区域数组），供每帧处理使用
+     * @return 编译后的布局
+     */
+    public CompiledLayout getCompiledLayout() {
+        CompiledLayout compiled = compiledLayout;
+        if (compiled == null) {
+            compiled = CompiledLayout.compile(regions);
+            compiledLayout = compiled;
+        }
+        return compiled;
     }
     
     /**
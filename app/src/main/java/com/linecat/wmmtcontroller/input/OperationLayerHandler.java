@@ -4,13 +4,9 @@ import android.util.Log;
 
 import com.linecat.wmmtcontroller.model.InputState;
 import com.linecat.wmmtcontroller.model.RawInput;
+import com.linecat.wmmtcontroller.monitor.TraceLog;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 
 /**
  * Operation 层处理器
@@ -20,6 +16,8 @@ import java.util.Map;
  */
 public class OperationLayerHandler {
     private static final String TAG = "OperationLayerHandler";
+    // 逐帧处理的 Operation 区域计数
+    private static final TraceLog.Counter OPERATION_REGIONS = TraceLog.counter("operation.region");
     
     /**
      * 处理 Operation 层
@@ -29,31 +27,19 @@ public class OperationLayerHandler {
             return;
         }
         
-        // 获取所有 Operation 元素
-        List<Region> operationElements = new ArrayList<>();
-        for (Region region : layout.getRegions()) {
-            if (region.getType() == Region.RegionType.OPERATION) {
-                operationElements.add(region);
-            }
-        }
-        
-        // 按 zIndex 分组处理
-        Map<Integer, List<Region>> zIndexGroups = new HashMap<>();
-        for (Region region : operationElements) {
-            zIndexGroups.computeIfAbsent(region.getZIndex(), k -> new ArrayList<>()).add(region);
-        }
-        
-        // 处理最高 zIndex 组
-        if (!zIndexGroups.isEmpty()) {
-            int highestZIndex = Collections.max(zIndexGroups.keySet());
-            List<Region> highestZIndexRegions = zIndexGroups.get(highestZIndex);
-            
+        // 处理最高 zIndex 组的 Operation 区域（编译布局时已分组）
+        CompiledLayout compiled = layout.getCompiledLayout();
+        Region[] highestZIndexRegions = compiled.getTopOperationRegions();
+        if (highestZIndexRegions.length > 0) {
             // 相同 zIndex 结果叠加
             for (Region region : highestZIndexRegions) {
                 processOperationElement(region, rawInput, inputState);
             }
             
-            Log.d(TAG, "Processed " + highestZIndexRegions.size() + " operation regions with zIndex " + highestZIndex);
+            OPERATION_REGIONS.add(highestZIndexRegions.length);
+            if (TraceLog.ENABLED && TraceLog.isLoggable(TAG, Log.VERBOSE)) {
+                TraceLog.log(TAG, Log.VERBOSE, "Processed " + highestZIndexRegions.length + " operation regions with zIndex " + compiled.getTopOperationZIndex());
+            }
         }
     }
     
@@ -88,14 +74,16 @@ public class OperationLayerHandler {
         
         // 示例：从 UI 层获取归一化值并应用处理
         float normalizedValue = 0.0f; // 实际应从 UI 层结果获取
-        float processedValue = applyCurve(normalizedValue, region.getCurve());
+        float processedValue = region.getCurveFunction().apply(normalizedValue);
         processedValue = applyDeadzone(processedValue, region.getDeadzone());
         processedValue = applyRange(processedValue, region.getRange());
         
         // 更新输入状态
         // inputState.setSteering(processedValue);
         
-        Log.d(TAG, "Steering operation processed: " + region.getId() + ", value: " + processedValue);
+        if (TraceLog.ENABLED && TraceLog.isLoggable(TAG, Log.VERBOSE)) {
+            TraceLog.log(TAG, Log.VERBOSE, "Steering operation processed: " + region.getId() + ", value: " + processedValue);
+        }
     }
     
     /**
@@ -104,14 +92,16 @@ public class OperationLayerHandler {
     private void processThrottleOperation(Region region, RawInput rawInput, InputState inputState) {
         // 处理油门操作
         float normalizedValue = 0.0f; // 实际应从 UI 层结果获取
-        float processedValue = applyCurve(normalizedValue, region.getCurve());
+        float processedValue = region.getCurveFunction().apply(normalizedValue);
         processedValue = applyDeadzone(processedValue, region.getDeadzone());
         processedValue = applyRange(processedValue, region.getRange());
         
         // 更新输入状态
         // inputState.setThrottle(processedValue);
         
-        Log.d(TAG, "Throttle operation processed: " + region.getId() + ", value: " + processedValue);
+        if (TraceLog.ENABLED && TraceLog.isLoggable(TAG, Log.VERBOSE)) {
+            TraceLog.log(TAG, Log.VERBOSE, "Throttle operation processed: " + region.getId() + ", value: " + processedValue);
+        }
     }
     
     /**
@@ -120,14 +110,16 @@ public class OperationLayerHandler {
     private void processBrakeOperation(Region region, RawInput rawInput, InputState inputState) {
         // 处理刹车操作
         float normalizedValue = 0.0f; // 实际应从 UI 层结果获取
-        float processedValue = applyCurve(normalizedValue, region.getCurve());
+        float processedValue = region.getCurveFunction().apply(normalizedValue);
         processedValue = applyDeadzone(processedValue, region.getDeadzone());
         processedValue = applyRange(processedValue, region.getRange());
         
         // 更新输入状态
         // inputState.setBrake(processedValue);
         
-        Log.d(TAG, "Brake operation processed: " + region.getId() + ", value: " + processedValue);
+        if (TraceLog.ENABLED && TraceLog.isLoggable(TAG, Log.VERBOSE)) {
+            TraceLog.log(TAG, Log.VERBOSE, "Brake operation processed: " + region.getId() + ", value: " + processedValue);
+        }
     }
     
     /**
@@ -138,25 +130,8 @@ public class OperationLayerHandler {
         // 从 RawInput 中获取按钮状态，按钮ID应该是区域ID
         boolean isPressed = rawInput.getGamepad().getButtons().getOrDefault(region.getId(), false);
         
-        Log.d(TAG, "Button operation processed: " + region.getId() + ", pressed: " + isPressed);
-    }
-    
-    /**
-     * 应用灵敏度曲线
-     */
-    private float applyCurve(float value, String curveType) {
-        // 应用不同类型的灵敏度曲线
-        switch (curveType) {
-            case "linear":
-                return value;
-            case "exponential":
-                return (float) Math.pow(value, 2.0) * Math.signum(value);
-            case "logarithmic":
-                return (float) Math.log10(Math.abs(value) * 9 + 1) * Math.signum(value) * 0.5f;
-            case "sine":
-                return (float) Math.sin(value * Math.PI / 2);
-            default:
-                return value;
+        if (TraceLog.ENABLED && TraceLog.isLoggable(TAG, Log.VERBOSE)) {
+            TraceLog.log(TAG, Log.VERBOSE, "Button operation processed: " + region.getId() + ", pressed: " + isPressed);
         }
     }
     
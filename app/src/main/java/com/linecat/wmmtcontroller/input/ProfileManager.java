@@ -169,6 +169,9 @@ public class ProfileManager {
                             profile.setEngineApiVersion("1.0.0");
                         }
                         
+                        // 设置脚本引擎类型
+                        profile.setScriptEngine(jsonObject.optString("scriptEngine", ScriptProfile.SCRIPT_ENGINE_WEBVIEW));
+                        
                         // 添加到可用配置文件列表
                         availableProfiles.add(profile);
                         log(Log.DEBUG, TAG, "Loaded official profile: " + profile.getName() + " from " + profileDir);
@@ -224,6 +227,9 @@ public class ProfileManager {
                                 profile.setEngineApiVersion("1.0.0");
                             }
                             
+                            // 设置脚本引擎类型
+                            profile.setScriptEngine(jsonObject.optString("scriptEngine", ScriptProfile.SCRIPT_ENGINE_WEBVIEW));
+                            
                             // 添加到可用配置文件列表
                             availableProfiles.add(profile);
                             log(Log.DEBUG, TAG, "Loaded custom profile: " + profile.getName() + " from " + profileFile);
@@ -290,11 +296,20 @@ public class ProfileManager {
             return false;
         }
         
+        // 按Profile选择脚本引擎
+        String previousEngine = null;
+        if (scriptEngine instanceof SwitchableInputScriptEngine) {
+            previousEngine = ((SwitchableInputScriptEngine) scriptEngine).select(profile.getScriptEngine());
+        }
+        
         // 加载脚本
         boolean loadSuccess = scriptEngine.loadScript(profile.getScriptCode());
         if (!loadSuccess) {
             log(Log.ERROR, TAG, "Failed to load script: " + profile.getName() + ", Error: " + scriptEngine.getLastError());
-            // 切换失败，清空所有heldKeys
+            // 切换失败，恢复原引擎并清空所有heldKeys
+            if (previousEngine != null) {
+                ((SwitchableInputScriptEngine) scriptEngine).select(previousEngine);
+            }
             clearAllKeys();
             return false;
         }
@@ -493,6 +508,7 @@ public class ProfileManager {
             
             // 设置engineApiVersion
             profile.setEngineApiVersion(engineApiVersion);
+            profile.setScriptEngine(jsonObject.optString("scriptEngine", ScriptProfile.SCRIPT_ENGINE_WEBVIEW));
             
             // 验证profile
             if (!validateProfile(profile)) {
@@ -552,6 +568,7 @@ public class ProfileManager {
             jsonObject.put("author", profile.getAuthor());
             jsonObject.put("entry", profile.getEntryPoint());
             jsonObject.put("engineApiVersion", profile.getEngineApiVersion());
+            jsonObject.put("scriptEngine", profile.getScriptEngine());
             
             // 写入profile.json到zip
             addZipEntry(zipOutputStream, "profile.json", jsonObject.toString(2));
@@ -608,8 +625,10 @@ public class ProfileManager {
      */
     private boolean testProfileScript(ScriptProfile profile) {
         try {
-            // 临时初始化一个脚本引擎
-            InputScriptEngine tempEngine = new JsInputScriptEngine(context);
+            // 临时初始化一个与Profile一致的脚本引擎
+            InputScriptEngine tempEngine = ScriptProfile.SCRIPT_ENGINE_EMBEDDED.equals(profile.getScriptEngine())
+                    ? new EmbeddedJsInputScriptEngine()
+                    : new JsInputScriptEngine(context);
             tempEngine.init();
             
             // 加载脚本
@@ -0,0 +1,187 @@
+package com.linecat.wmmtcontroller.input;
+
+import com.linecat.wmmtcontroller.model.RawInput;
+
+import java.util.Map;
+
+/**
+ * 单帧原始输入的不可变快照
+ * <p>
+ * 每帧在 update 时由 RawInput 复制一次并发布，ScriptBridge 的各个 getter 直接读取其中的基本类型字段，
+ * 不再为每次读取解析 JSON。游戏手柄的轴与按键按名称展开为平行数组（数量很少，线性查找即可）。
+ * 整帧 JSON 只在脚本调用批量访问接口时生成一次并缓存。
+ */
+final class RawInputSnapshot {
+    final long frameId;
+    final float gyroPitch;
+    final float gyroRoll;
+    final float gyroYaw;
+    final float accelX;
+    final float accelY;
+    final float accelZ;
+    final boolean touchPressed;
+    final float touchX;
+    final float touchY;
+    final boolean buttonA;
+    final boolean buttonB;
+    final boolean buttonC;
+    final boolean buttonD;
+
+    private final String[] axisNames;
+    private final float[] axisValues;
+    private final String[] buttonNames;
+    private final boolean[] buttonStates;
+
+    // 批量访问时生成的整帧 JSON（只在读取它的线程上惰性生成，重复生成结果相同）
+    private String json;
+
+    private RawInputSnapshot(RawInput rawInput, long frameId) {
+        this.frameId = frameId;
+        this.gyroPitch = rawInput.getGyroPitch();
+        this.gyroRoll = rawInput.getGyroRoll();
+        this.gyroYaw = rawInput.getGyroYaw();
+        this.accelX = rawInput.getAccelX();
+        this.accelY = rawInput.getAccelY();
+        this.accelZ = rawInput.getAccelZ();
+        this.touchPressed = rawInput.isTouchPressed();
+        this.touchX = rawInput.getTouchX();
+        this.touchY = rawInput.getTouchY();
+        this.buttonA = rawInput.isButtonA();
+        this.buttonB = rawInput.isButtonB();
+        this.buttonC = rawInput.isButtonC();
+        this.buttonD = rawInput.isButtonD();
+
+        RawInput.GamepadData gamepad = rawInput.getGamepad();
+        Map<String, Float> axes = gamepad != null ? gamepad.getAxes() : null;
+        int axisCount = axes != null ? axes.size() : 0;
+        this.axisNames = new String[axisCount];
+        this.axisValues = new float[axisCount];
+        if (axisCount > 0) {
+            int i = 0;
+            for (Map.Entry<String, Float> axis : axes.entrySet()) {
+                axisNames[i] = axis.getKey();
+                axisValues[i] = axis.getValue() != null ? axis.getValue() : 0.0f;
+                i++;
+            }
+        }
+
+        Map<String, Boolean> buttons = gamepad != null ? gamepad.getButtons() : null;
+        int buttonCount = buttons != null ? buttons.size() : 0;
+        this.buttonNames = new String[buttonCount];
+        this.buttonStates = new boolean[buttonCount];
+        if (buttonCount > 0) {
+            int i = 0;
+            for (Map.Entry<String, Boolean> button : buttons.entrySet()) {
+                buttonNames[i] = button.getKey();
+                buttonStates[i] = Boolean.TRUE.equals(button.getValue());
+                i++;
+            }
+        }
+    }
+
+    /**
+     * 从当前帧的原始输入创建快照
+     * @param rawInput 原始输入数据
+     * @param frameId 帧序号
+     * @return 快照
+     */
+    static RawInputSnapshot of(RawInput rawInput, long frameId) {
+        return new RawInputSnapshot(rawInput, frameId);
+    }
+
+    /**
+     * 获取游戏手柄轴值
+     * @param axisName 轴名称
+     * @return 轴值，不存在时为 0.0
+     */
+    float getAxis(String axisName) {
+        for (int i = 0; i < axisNames.length; i++) {
+            if (axisNames[i].equals(axisName)) {
+                return axisValues[i];
+            }
+        }
+        return 0.0f;
+    }
+
+    /**
+     * 获取游戏手柄按键状态
+     * @param buttonName 按键名称
+     * @return 是否按下，不存在时为 false
+     */
+    boolean isGamepadButtonPressed(String buttonName) {
+        for (int i = 0; i < buttonNames.length; i++) {
+            if (buttonNames[i].equals(buttonName)) {
+                return buttonStates[i];
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 整帧 JSON，字段与脚本 update 收到的原始输入一致
+     * @return JSON字符串
+     */
+    String toJson() {
+        String cached = json;
+        if (cached != null) {
+            return cached;
+        }
+        StringBuilder sb = new StringBuilder(256);
+        sb.append("{\"frameId\":").append(frameId)
+                .append(",\"gyroPitch\":").append(number(gyroPitch))
+                .append(",\"gyroRoll\":").append(number(gyroRoll))
+                .append(",\"gyroYaw\":").append(number(gyroYaw))
+                .append(",\"accelX\":").append(number(accelX))
+                .append(",\"accelY\":").append(number(accelY))
+                .append(",\"accelZ\":").append(number(accelZ))
+                .append(",\"touchPressed\":").append(touchPressed)
+                .append(",\"touchX\":").append(number(touchX))
+                .append(",\"touchY\":").append(number(touchY))
+                .append(",\"buttonA\":").append(buttonA)
+                .append(",\"buttonB\":").append(buttonB)
+                .append(",\"buttonC\":").append(buttonC)
+                .append(",\"buttonD\":").append(buttonD)
+                .append(",\"gamepad\":{\"axes\":{");
+        for (int i = 0; i < axisNames.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            appendString(sb, axisNames[i]);
+            sb.append(':').append(number(axisValues[i]));
+        }
+        sb.append("},\"buttons\":{");
+        for (int i = 0; i < buttonNames.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            appendString(sb, buttonNames[i]);
+            sb.append(':').append(buttonStates[i]);
+        }
+        sb.append("}}}");
+        cached = sb.toString();
+        json = cached;
+        return cached;
+    }
+
+    /**
+     * JSON 不支持 NaN/Infinity，按 0 输出
+     */
+    private static float number(float value) {
+        return Float.isNaN(value) || Float.isInfinite(value) ? 0.0f : value;
+    }
+
+    private static void appendString(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+}
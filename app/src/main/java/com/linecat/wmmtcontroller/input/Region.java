@@ -46,7 +46,9 @@ public class Region {
     private final float bottom;           // 下边界（0.0-1.0，相对于屏幕）
     private final int zIndex;             // z-index（数值越大，优先级越高）
     private final float deadzone;         // 死区
-    private final String curve;           // 曲线类型
+    private final String curve;           // 曲线类型（名称或 JSON 定义）
+    private final CurveFunction curveFunction; // 构造时编译的曲线
+    private final String curveError;      // 曲线解析错误（无错误时为 null）
     private final float[] range;          // 范围
     private final float[] outputRange;    // 输出范围
     
@@ -75,6 +77,17 @@ public class Region {
         this.zIndex = zIndex;
         this.deadzone = deadzone;
         this.curve = curve;
+        CurveFunction compiled;
+        String error = null;
+        try {
+            compiled = CurveFunction.parse(curve);
+        } catch (IllegalArgumentException e) {
+            // 无法解析时退回线性，错误留给布局加载方记录
+            compiled = CurveFunction.LINEAR;
+            error = e.getMessage();
+        }
+        this.curveFunction = compiled;
+        this.curveError = error;
         this.range = range;
         this.outputRange = outputRange;
         this.operationType = operationType;
@@ -154,6 +167,21 @@ public class Region {
         return curve;
     }
     
+    /**
+     * 获取编译后的曲线，每帧直接调用 apply()，不再解析曲线类型
+     */
+    public CurveFunction getCurveFunction() {
+        return curveFunction;
+    }
+    
+    /**
+     * 获取曲线解析错误
+     * @return 曲线定义无法解析（已退回线性）时的错误信息，否则为 null
+     */
+    public String getCurveError() {
+        return curveError;
+    }
+    
     public float[] getRange() {
         return range;
     }
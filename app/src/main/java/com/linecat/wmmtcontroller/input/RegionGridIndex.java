@@ -0,0 +1,133 @@
+package com.linecat.wmmtcontroller.input;
+
+/**
+ * 区域均匀网格索引
+ * <p>
+ * 把归一化屏幕 [0,1]×[0,1] 划分为 GRID×GRID 个单元，每个单元记录与之相交的区域下标。
+ * 下标指向按 zIndex 降序排列的区域数组，单元内下标升序存放，因此单元内的遍历顺序与线性扫描一致：
+ * 第一个命中即最高 zIndex（同 zIndex 保持原顺序）。单元列表压缩存放在一个 int 数组中（CSR），
+ * 查询不分配对象。超出 [0,1] 的坐标和区域边界钳制到边缘单元，命中结果仍由 Region.hitTest 精确判定。
+ */
+final class RegionGridIndex {
+    // 每个维度的单元数
+    static final int GRID = 16;
+
+    private final Region[] regionsByZ;
+    // cellStart[c]..cellStart[c+1] 为单元 c 在 cellItems 中的范围
+    private final int[] cellStart;
+    private final int[] cellItems;
+
+    /**
+     * 构建索引
+     * @param regionsByZ 按 zIndex 降序排列的区域
+     */
+    RegionGridIndex(Region[] regionsByZ) {
+        this.regionsByZ = regionsByZ;
+        int cellCount = GRID * GRID;
+        int[] counts = new int[cellCount + 1];
+
+        // 第一遍：统计每个单元的区域数
+        for (Region region : regionsByZ) {
+            if (!isIndexable(region)) {
+                continue;
+            }
+            int x0 = cell(region.getLeft());
+            int x1 = cell(region.getRight());
+            int y0 = cell(region.getTop());
+            int y1 = cell(region.getBottom());
+            for (int cy = y0; cy <= y1; cy++) {
+                for (int cx = x0; cx <= x1; cx++) {
+                    counts[cy * GRID + cx + 1]++;
+                }
+            }
+        }
+        for (int c = 0; c < cellCount; c++) {
+            counts[c + 1] += counts[c];
+        }
+        this.cellStart = counts;
+
+        // 第二遍：按区域下标升序填充，单元内即 zIndex 降序
+        int[] items = new int[counts[cellCount]];
+        int[] fill = new int[cellCount];
+        for (int i = 0; i < regionsByZ.length; i++) {
+            Region region = regionsByZ[i];
+            if (!isIndexable(region)) {
+                continue;
+            }
+            int x0 = cell(region.getLeft());
+            int x1 = cell(region.getRight());
+            int y0 = cell(region.getTop());
+            int y1 = cell(region.getBottom());
+            for (int cy = y0; cy <= y1; cy++) {
+                for (int cx = x0; cx <= x1; cx++) {
+                    int c = cy * GRID + cx;
+                    items[counts[c] + fill[c]++] = i;
+                }
+            }
+        }
+        this.cellItems = items;
+    }
+
+    /**
+     * 命中检测，返回最高 zIndex 的命中区域
+     * @return 命中的区域，没有命中时返回 null
+     */
+    Region hitTest(float x, float y) {
+        int c = cell(y) * GRID + cell(x);
+        for (int i = cellStart[c], end = cellStart[c + 1]; i < end; i++) {
+            Region region = regionsByZ[cellItems[i]];
+            if (region.hitTest(x, y)) {
+                return region;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 命中检测，返回最高 zIndex 组内的全部命中区域（同 zIndex 保持原顺序）
+     * @param out 结果数组，容量不足时只写满为止
+     * @return 写入的区域数
+     */
+    int hitTestTopGroup(float x, float y, Region[] out) {
+        int c = cell(y) * GRID + cell(x);
+        int count = 0;
+        int hitZIndex = 0;
+        for (int i = cellStart[c], end = cellStart[c + 1]; i < end && count < out.length; i++) {
+            Region region = regionsByZ[cellItems[i]];
+            if (count > 0 && region.getZIndex() < hitZIndex) {
+                break;
+            }
+            if (region.hitTest(x, y)) {
+                hitZIndex = region.getZIndex();
+                out[count++] = region;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 单元 c 中的候选区域数（测试和诊断用）
+     */
+    int cellSize(float x, float y) {
+        int c = cell(y) * GRID + cell(x);
+        return cellStart[c + 1] - cellStart[c];
+    }
+
+    /**
+     * 边界无效（NaN 或左右、上下颠倒）的区域永远不会命中，不进入索引
+     */
+    private static boolean isIndexable(Region region) {
+        return region.getLeft() <= region.getRight() && region.getTop() <= region.getBottom();
+    }
+
+    /**
+     * 坐标所在的单元（钳制到 [0, GRID-1]，单调不减，保证区域覆盖的单元包含其内部所有点的单元）
+     */
+    private static int cell(float v) {
+        int c = (int) (v * GRID);
+        if (c < 0) {
+            return 0;
+        }
+        return c >= GRID ? GRID - 1 : c;
+    }
+}
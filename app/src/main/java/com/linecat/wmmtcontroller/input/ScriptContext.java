@@ -48,6 +48,25 @@ public class ScriptContext implements RawAccess, StateMutator, HostServices {
         this.timestamp = System.currentTimeMillis();
     }
     
+    /**
+     * 开始新的一帧
+     * 绑定本帧的输入/输出，并以输出状态中已按下的按键作为初始按键集合，
+     * 使 holdKey/releaseKey 的效果与直接修改 InputState 一致
+     * @param rawInput 原始输入数据
+     * @param inputState 输入状态
+     * @param frameId 帧ID
+     */
+    public void beginFrame(RawInput rawInput, InputState inputState, long frameId) {
+        this.rawInput = rawInput;
+        this.inputState = inputState;
+        this.frameId = frameId;
+        this.timestamp = System.currentTimeMillis();
+        this.heldKeys.clear();
+        if (inputState != null) {
+            this.heldKeys.addAll(inputState.getKeyboard());
+        }
+    }
+    
     /**
      * 设置当前帧ID
      * @param frameId 帧ID
@@ -10,6 +10,10 @@ import java.util.UUID;
  */
 public class ScriptProfile {
     
+    // 脚本引擎类型（profile.json 的 scriptEngine 字段）
+    public static final String SCRIPT_ENGINE_WEBVIEW = "webview";
+    public static final String SCRIPT_ENGINE_EMBEDDED = "embedded";
+    
     // 核心标识信息
     private String id;
     private String name;
@@ -19,6 +23,9 @@ public class ScriptProfile {
     // 脚本运行时API版本
     private String engineApiVersion;
     
+    // 脚本引擎类型
+    private String scriptEngine;
+    
     // 描述信息
     private String description;
     
@@ -50,6 +57,7 @@ public class ScriptProfile {
         this.version = version;
         this.author = author;
         this.engineApiVersion = "1.0.0"; // 默认API版本
+        this.scriptEngine = SCRIPT_ENGINE_WEBVIEW; // 默认使用WebView引擎
         this.entryPoint = entryPoint;
         this.scriptCode = scriptCode;
         this.createdAt = new Date();
@@ -141,6 +149,23 @@ public class ScriptProfile {
         this.updatedAt = new Date();
     }
     
+    /**
+     * 获取脚本引擎类型
+     * @return SCRIPT_ENGINE_WEBVIEW 或 SCRIPT_ENGINE_EMBEDDED
+     */
+    public String getScriptEngine() {
+        return scriptEngine;
+    }
+    
+    /**
+     * 设置脚本引擎类型
+     * @param scriptEngine SCRIPT_ENGINE_WEBVIEW 或 SCRIPT_ENGINE_EMBEDDED，为空时使用WebView引擎
+     */
+    public void setScriptEngine(String scriptEngine) {
+        this.scriptEngine = scriptEngine != null ? scriptEngine : SCRIPT_ENGINE_WEBVIEW;
+        this.updatedAt = new Date();
+    }
+    
     /**
      * 获取描述
      * @return 配置文件描述
@@ -228,6 +228,56 @@ public class ScriptTestHarness {
         }
     }
     
+    /**
+     * 桥接读取基准结果
+     * 对比每帧读取原始输入的开销：旧方式（每个getter重新解析JSON）、快照getter、批量访问
+     */
+    public static class BridgeBenchmarkResult {
+        private final int frames;
+        private final int readsPerFrame;
+        private final long jsonPerGetterNanosPerFrame;
+        private final long snapshotNanosPerFrame;
+        private final long bulkNanosPerFrame;
+        
+        public BridgeBenchmarkResult(int frames, int readsPerFrame, long jsonPerGetterNanosPerFrame,
+                                     long snapshotNanosPerFrame, long bulkNanosPerFrame) {
+            this.frames = frames;
+            this.readsPerFrame = readsPerFrame;
+            this.jsonPerGetterNanosPerFrame = jsonPerGetterNanosPerFrame;
+            this.snapshotNanosPerFrame = snapshotNanosPerFrame;
+            this.bulkNanosPerFrame = bulkNanosPerFrame;
+        }
+        
+        public int getFrames() {
+            return frames;
+        }
+        
+        public int getReadsPerFrame() {
+            return readsPerFrame;
+        }
+        
+        public long getJsonPerGetterNanosPerFrame() {
+            return jsonPerGetterNanosPerFrame;
+        }
+        
+        public long getSnapshotNanosPerFrame() {
+            return snapshotNanosPerFrame;
+        }
+        
+        public long getBulkNanosPerFrame() {
+            return bulkNanosPerFrame;
+        }
+        
+        @Override
+        public String toString() {
+            return String.format("Bridge reads (%d frames, %d reads/frame): json-per-getter %d ns/frame, snapshot %d ns/frame, bulk %d ns/frame",
+                    frames, readsPerFrame, jsonPerGetterNanosPerFrame, snapshotNanosPerFrame, bulkNanosPerFrame);
+        }
+    }
+    
+    // 防止基准循环中的读取被优化掉
+    private volatile float benchmarkSink;
+    
     /**
      * 构造函数
      * @param context 上下文
@@ -322,6 +372,89 @@ public class ScriptTestHarness {
         return result;
     }
     
+    /**
+     * 基准测试ScriptBridge每帧读取原始输入的开销
+     * 不经过WebView，只测量桥接Java侧的工作：每帧发布输入，再读取10个常用字段
+     * @param rawInput 每帧使用的原始输入
+     * @param frames 帧数
+     * @return 基准结果
+     */
+    public BridgeBenchmarkResult benchmarkBridgeReads(RawInput rawInput, int frames) {
+        final int readsPerFrame = 10;
+        int warmupFrames = Math.max(frames / 10, 1);
+        
+        // 旧方式：每帧生成一次JSON，每个getter重新解析
+        runJsonPerGetterFrames(rawInput, warmupFrames);
+        long start = System.nanoTime();
+        runJsonPerGetterFrames(rawInput, frames);
+        long jsonNanos = System.nanoTime() - start;
+        
+        // 快照：每帧复制一次基本类型字段，getter直接读字段
+        runSnapshotFrames(rawInput, warmupFrames);
+        start = System.nanoTime();
+        runSnapshotFrames(rawInput, frames);
+        long snapshotNanos = System.nanoTime() - start;
+        
+        // 批量访问：每帧一次跨桥调用取得整帧JSON
+        runBulkFrames(rawInput, warmupFrames);
+        start = System.nanoTime();
+        runBulkFrames(rawInput, frames);
+        long bulkNanos = System.nanoTime() - start;
+        
+        BridgeBenchmarkResult result = new BridgeBenchmarkResult(frames, readsPerFrame,
+                jsonNanos / frames, snapshotNanos / frames, bulkNanos / frames);
+        Log.i(TAG, result.toString());
+        return result;
+    }
+    
+    private void runJsonPerGetterFrames(RawInput rawInput, int frames) {
+        float sink = 0;
+        try {
+            for (int frame = 0; frame < frames; frame++) {
+                String json = RawInputSnapshot.of(rawInput, frame).toJson();
+                sink += (float) new org.json.JSONObject(json).optDouble("gyroPitch", 0.0);
+                sink += (float) new org.json.JSONObject(json).optDouble("gyroRoll", 0.0);
+                sink += (float) new org.json.JSONObject(json).optDouble("gyroYaw", 0.0);
+                sink += new org.json.JSONObject(json).optBoolean("touchPressed", false) ? 1 : 0;
+                sink += (float) new org.json.JSONObject(json).optDouble("touchX", 0.0);
+                sink += (float) new org.json.JSONObject(json).optDouble("touchY", 0.0);
+                sink += new org.json.JSONObject(json).optBoolean("buttonA", false) ? 1 : 0;
+                sink += new org.json.JSONObject(json).optBoolean("buttonB", false) ? 1 : 0;
+                sink += new org.json.JSONObject(json).optBoolean("buttonC", false) ? 1 : 0;
+                sink += new org.json.JSONObject(json).optBoolean("buttonD", false) ? 1 : 0;
+            }
+        } catch (org.json.JSONException e) {
+            Log.e(TAG, "Benchmark JSON error: " + e.getMessage());
+        }
+        benchmarkSink = sink;
+    }
+    
+    private void runSnapshotFrames(RawInput rawInput, int frames) {
+        float sink = 0;
+        for (int frame = 0; frame < frames; frame++) {
+            RawInputSnapshot snapshot = RawInputSnapshot.of(rawInput, frame);
+            sink += snapshot.gyroPitch;
+            sink += snapshot.gyroRoll;
+            sink += snapshot.gyroYaw;
+            sink += snapshot.touchPressed ? 1 : 0;
+            sink += snapshot.touchX;
+            sink += snapshot.touchY;
+            sink += snapshot.buttonA ? 1 : 0;
+            sink += snapshot.buttonB ? 1 : 0;
+            sink += snapshot.buttonC ? 1 : 0;
+            sink += snapshot.buttonD ? 1 : 0;
+        }
+        benchmarkSink = sink;
+    }
+    
+    private void runBulkFrames(RawInput rawInput, int frames) {
+        int sink = 0;
+        for (int frame = 0; frame < frames; frame++) {
+            sink += RawInputSnapshot.of(rawInput, frame).toJson().length();
+        }
+        benchmarkSink = sink;
+    }
+    
     /**
      * 验证输出结果
      * @param actual 实际输出
@@ -0,0 +1,159 @@
+package com.linecat.wmmtcontroller.input;
+
+import com.linecat.wmmtcontroller.model.InputState;
+import com.linecat.wmmtcontroller.model.RawInput;
+
+import java.util.function.Supplier;
+
+/**
+ * 可按Profile切换实现的脚本引擎
+ * <p>
+ * 持有 WebView 引擎与嵌入式引擎，所有调用转发给当前选中的引擎。
+ * 引擎在首次选中时才通过工厂创建（工厂负责返回已初始化的引擎），
+ * 切换后原引擎保留，以便回滚Profile时无需重新创建。
+ * shutdown 之后切换器整体停用：不再创建或转发到任何引擎，状态固定为 SHUTDOWN。
+ */
+public class SwitchableInputScriptEngine implements InputScriptEngine {
+
+    private final Supplier<InputScriptEngine> webViewEngineFactory;
+    private final Supplier<InputScriptEngine> embeddedEngineFactory;
+
+    private InputScriptEngine webViewEngine;
+    private InputScriptEngine embeddedEngine;
+    private volatile String selectedEngine = ScriptProfile.SCRIPT_ENGINE_WEBVIEW;
+    private volatile InputScriptEngine current;
+    private volatile boolean shutdown;
+
+    /**
+     * 构造函数
+     * @param webViewEngineFactory WebView引擎工厂
+     * @param embeddedEngineFactory 嵌入式引擎工厂
+     */
+    public SwitchableInputScriptEngine(Supplier<InputScriptEngine> webViewEngineFactory,
+                                       Supplier<InputScriptEngine> embeddedEngineFactory) {
+        this.webViewEngineFactory = webViewEngineFactory;
+        this.embeddedEngineFactory = embeddedEngineFactory;
+    }
+
+    /**
+     * 选择脚本引擎
+     * @param engineType ScriptProfile.SCRIPT_ENGINE_*，未知取值按WebView引擎处理
+     * @return 之前选中的引擎类型，用于切换失败时恢复
+     */
+    public synchronized String select(String engineType) {
+        String previous = selectedEngine;
+        selectedEngine = ScriptProfile.SCRIPT_ENGINE_EMBEDDED.equals(engineType)
+                ? ScriptProfile.SCRIPT_ENGINE_EMBEDDED
+                : ScriptProfile.SCRIPT_ENGINE_WEBVIEW;
+        current = null;
+        return previous;
+    }
+
+    /**
+     * 获取当前选中的引擎类型
+     */
+    public String getSelectedEngine() {
+        return selectedEngine;
+    }
+
+    /**
+     * 获取当前选中的引擎（必要时创建）
+     * @return 当前引擎，切换器已关闭时返回 null
+     */
+    private InputScriptEngine engine() {
+        InputScriptEngine engine = current;
+        if (engine != null) {
+            return engine;
+        }
+        synchronized (this) {
+            if (shutdown) {
+                return null;
+            }
+            if (current == null) {
+                if (ScriptProfile.SCRIPT_ENGINE_EMBEDDED.equals(selectedEngine)) {
+                    if (embeddedEngine == null) {
+                        embeddedEngine = embeddedEngineFactory.get();
+                    }
+                    current = embeddedEngine;
+                } else {
+                    if (webViewEngine == null) {
+                        webViewEngine = webViewEngineFactory.get();
+                    }
+                    current = webViewEngine;
+                }
+            }
+            return current;
+        }
+    }
+
+    @Override
+    public void init() {
+        // 引擎由工厂在创建时初始化，这里只确保当前引擎已创建
+        engine();
+    }
+
+    @Override
+    public boolean loadScript(String scriptCode) {
+        InputScriptEngine engine = engine();
+        return engine != null && engine.loadScript(scriptCode);
+    }
+
+    @Override
+    public boolean update(RawInput rawInput, InputState inputState) {
+        InputScriptEngine engine = engine();
+        return engine != null && engine.update(rawInput, inputState);
+    }
+
+    @Override
+    public void onEvent(GameInputEvent event) {
+        InputScriptEngine engine = engine();
+        if (engine != null) {
+            engine.onEvent(event);
+        }
+    }
+
+    @Override
+    public void reset() {
+        InputScriptEngine engine = engine();
+        if (engine != null) {
+            engine.reset();
+        }
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        // 先标记关闭再清空当前引擎，之后的调用不会再创建或转发到已关闭的引擎
+        shutdown = true;
+        current = null;
+        if (webViewEngine != null) {
+            webViewEngine.shutdown();
+        }
+        if (embeddedEngine != null) {
+            embeddedEngine.shutdown();
+        }
+    }
+
+    @Override
+    public EngineState getState() {
+        InputScriptEngine engine = engine();
+        return engine != null ? engine.getState() : EngineState.SHUTDOWN;
+    }
+
+    @Override
+    public String getLastError() {
+        InputScriptEngine engine = engine();
+        return engine != null ? engine.getLastError() : "Script engine shut down";
+    }
+
+    @Override
+    public long getLastExecutionTime() {
+        InputScriptEngine engine = engine();
+        return engine != null ? engine.getLastExecutionTime() : 0;
+    }
+
+    @Override
+    public long getLastExecutionTimeNanos() {
+        InputScriptEngine engine = engine();
+        return engine != null ? engine.getLastExecutionTimeNanos() : 0;
+    }
+}
@@ -4,13 +4,9 @@ import android.util.Log;
 
 import com.linecat.wmmtcontroller.model.InputState;
 import com.linecat.wmmtcontroller.model.RawInput;
+import com.linecat.wmmtcontroller.monitor.TraceLog;
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 
 /**
  * UI 层处理器
@@ -23,15 +19,21 @@ import java.util.Map;
 public class UILayerHandler {
     private static final String TAG = "UILayerHandler";
     
-    // 用于控制日志打印频率的变量
-    private static long lastGyroLogTime = 0;
-    private static final long GYRO_LOG_INTERVAL = 1000; // 1秒间隔
-    private static int gyroRegionCount = 0;
+    // 逐帧处理的计数器（替代逐区域日志）
+    private static final TraceLog.Counter BUTTON_REGIONS = TraceLog.counter("ui.buttonRegion");
+    private static final TraceLog.Counter AXIS_REGIONS = TraceLog.counter("ui.axisRegion");
+    private static final TraceLog.Counter GESTURE_REGIONS = TraceLog.counter("ui.gestureRegion");
+    private static final TraceLog.Counter GYRO_REGIONS = TraceLog.counter("ui.gyroRegion");
+    
+    // 最近一次陀螺仪区域的处理结果
     private static float lastGyroRoll = 0.0f;
     private static float lastGyroPitch = 0.0f;
     private static float lastGyroYaw = 0.0f;
     private static String lastGyroRegionId = "";
     
+    // 触控命中结果缓冲，按布局区域数扩容后复用
+    private Region[] hitBuffer = new Region[0];
+    
     /**
      * 处理 UI 层输入
      */
@@ -62,31 +64,27 @@ public class UILayerHandler {
             normalizedX = Math.max(0f, Math.min(1f, normalizedX));
             normalizedY = Math.max(0f, Math.min(1f, normalizedY));
             
-            // 按 zIndex 分组处理
-            Map<Integer, List<Region>> zIndexGroups = new HashMap<>();
-            for (Region region : layout.getRegions()) {
-                if (region.hitTest(normalizedX, normalizedY)) {
-                    zIndexGroups.computeIfAbsent(region.getZIndex(), k -> new ArrayList<>()).add(region);
-                }
-            }
-            
-            // 处理最高 zIndex 组
-            if (!zIndexGroups.isEmpty()) {
-                int highestZIndex = Collections.max(zIndexGroups.keySet());
-                List<Region> highestZIndexRegions = zIndexGroups.get(highestZIndex);
-                
-                // 相同 zIndex 结果叠加
-                for (Region region : highestZIndexRegions) {
-                    processUIElement(region, normalizedX, normalizedY, inputState);
-                }
-                
-
-            } else {
-
+            // 网格索引只检查触点所在单元的区域，返回最高 zIndex 组的全部命中区域，相同 zIndex 结果叠加
+            Region[] hits = hitBuffer(layout);
+            int hitCount = layout.hitTestTopGroup(normalizedX, normalizedY, hits);
+            for (int i = 0; i < hitCount; i++) {
+                processUIElement(hits[i], normalizedX, normalizedY, inputState);
+                hits[i] = null;
             }
         }
     }
     
+    /**
+     * 获取可复用的命中结果数组，容量不小于布局区域数
+     */
+    private Region[] hitBuffer(LayoutSnapshot layout) {
+        int needed = layout.getRegionCount();
+        if (hitBuffer.length < needed) {
+            hitBuffer = new Region[needed];
+        }
+        return hitBuffer;
+    }
+    
     /**
      * 处理陀螺仪输入
      */
@@ -106,31 +104,9 @@ public class UILayerHandler {
         normalizedPitch = Math.max(-1f, Math.min(1f, normalizedPitch));
         normalizedYaw = Math.max(-1f, Math.min(1f, normalizedYaw));
         
-        // 查找陀螺仪相关的 UI 元素
-        List<Region> gyroRegions = new ArrayList<>();
-        for (Region region : layout.getRegions()) {
-            if (region.getType() == Region.RegionType.GYROSCOPE) {
-                gyroRegions.add(region);
-            }
-        }
-        
-        // 按 zIndex 分组处理
-        Map<Integer, List<Region>> zIndexGroups = new HashMap<>();
-        for (Region region : gyroRegions) {
-            zIndexGroups.computeIfAbsent(region.getZIndex(), k -> new ArrayList<>()).add(region);
-        }
-        
-        // 处理最高 zIndex 组
-        if (!zIndexGroups.isEmpty()) {
-            int highestZIndex = Collections.max(zIndexGroups.keySet());
-            List<Region> highestZIndexRegions = zIndexGroups.get(highestZIndex);
-            
-            // 相同 zIndex 结果叠加
-            for (Region region : highestZIndexRegions) {
-                processGyroRegion(region, normalizedRoll, normalizedPitch, normalizedYaw, inputState);
-            }
-            
-            // 不再打印每个处理步骤的区域数量，由processGyroRegion统一处理日志输出
+        // 处理最高 zIndex 组的陀螺仪区域（编译布局时已分组），相同 zIndex 结果叠加
+        for (Region region : layout.getCompiledLayout().getTopGyroRegions()) {
+            processGyroRegion(region, normalizedRoll, normalizedPitch, normalizedYaw, inputState);
         }
     }
     
@@ -158,7 +134,10 @@ public class UILayerHandler {
      */
     private void processButtonRegion(Region region, float normalizedX, float normalizedY, InputState inputState) {
         // 处理按钮区域
-        Log.d(TAG, "Button region processed: " + region.getId());
+        BUTTON_REGIONS.increment();
+        if (TraceLog.ENABLED && TraceLog.isLoggable(TAG, Log.VERBOSE)) {
+            TraceLog.log(TAG, Log.VERBOSE, "Button region processed: " + region.getId());
+        }
     }
     
     /**
@@ -188,7 +167,10 @@ public class UILayerHandler {
         valueX = Math.max(-1f, Math.min(1f, valueX));
         valueY = Math.max(-1f, Math.min(1f, valueY));
         
-        Log.d(TAG, "Axis region processed: " + region.getId() + ", valueX: " + valueX + ", valueY: " + valueY);
+        AXIS_REGIONS.increment();
+        if (TraceLog.ENABLED && TraceLog.isLoggable(TAG, Log.VERBOSE)) {
+            TraceLog.log(TAG, Log.VERBOSE, "Axis region processed: " + region.getId() + ", valueX: " + valueX + ", valueY: " + valueY);
+        }
     }
     
     /**
@@ -196,7 +178,10 @@ public class UILayerHandler {
      */
     private void processGestureRegion(Region region, float normalizedX, float normalizedY, InputState inputState) {
         // 处理手势区域
-        Log.d(TAG, "Gesture region processed: " + region.getId());
+        GESTURE_REGIONS.increment();
+        if (TraceLog.ENABLED && TraceLog.isLoggable(TAG, Log.VERBOSE)) {
+            TraceLog.log(TAG, Log.VERBOSE, "Gesture region processed: " + region.getId());
+        }
     }
     
     /**
@@ -218,16 +203,7 @@ public class UILayerHandler {
         lastGyroRoll = processedRoll;
         lastGyroPitch = processedPitch;
         lastGyroYaw = processedYaw;
-        gyroRegionCount++;
-        
-        // 按时间间隔打印日志
-        long currentTime = System.currentTimeMillis();
-        if (currentTime - lastGyroLogTime >= GYRO_LOG_INTERVAL) {
-
-            // 重置计数器
-            gyroRegionCount = 0;
-            lastGyroLogTime = currentTime;
-        }
+        GYRO_REGIONS.increment();
     }
     
     /**
@@ -0,0 +1,232 @@
+package com.linecat.wmmtcontroller.layer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 陀螺仪处理阶段
+ * <p>
+ * 在输出节拍之间按样本时间戳对角速度做梯形积分，并抽取到配置的输出频率：
+ * 每个输出帧携带本周期的积分角度与平均角速度，而不是只取最后一个样本。
+ * 输出频率为 0 时不抽取，每个样本都输出且角速度为原始值。
+ * <p>
+ * 可选的互补滤波：用加速度计的重力方向修正陀螺仪积分的漂移，得到绕屏幕法线（yaw 轴）的稳定转向角。
+ * 转向角为设备相对竖直竖屏姿态绕屏幕法线的旋转角（弧度，逆时针为正，范围 [-π, π]），
+ * 横屏（home 键在右）持握时静止约为 +π/2；手机平放时重力方向无法确定转向角，只做陀螺仪积分。
+ * <p>
+ * 只在输入线程上调用，不分配对象。
+ */
+final class GyroProcessor {
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    // 相邻样本间隔超过该值视为中断（如传感器暂停），不跨越中断积分
+    private static final long MAX_SAMPLE_GAP_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final float STANDARD_GRAVITY = 9.80665f;
+    // 重力在屏幕平面内的分量低于该值（接近平放）时，加速度计无法给出转向角
+    private static final float MIN_PLANAR_GRAVITY = 3.0f;
+    // 加速度模长偏离重力超过该值时视为存在线性加速度，不用于修正
+    private static final float MAX_GRAVITY_DEVIATION = 3.0f;
+    static final float DEFAULT_FUSION_TIME_CONSTANT_SECONDS = 0.5f;
+
+    // 配置
+    private long outputIntervalNanos;
+    private boolean fusionEnabled;
+    private float fusionTimeConstantSeconds = DEFAULT_FUSION_TIME_CONSTANT_SECONDS;
+
+    // 积分状态
+    private long lastSampleNanos;
+    private float lastYawRate;
+    private float lastPitchRate;
+    private float lastRollRate;
+    private double integratedYaw;
+    private double integratedPitch;
+    private double integratedRoll;
+    private long windowStartNanos;
+    private long lastOutputNanos;
+
+    // 互补滤波状态
+    private long lastAccelNanos;
+    private boolean steeringValid;
+    private double steeringAngle;
+
+    // 最近一次输出
+    private float outputYawRate;
+    private float outputPitchRate;
+    private float outputRollRate;
+    private float outputDeltaYaw;
+    private float outputDeltaPitch;
+    private float outputDeltaRoll;
+
+    /**
+     * 设置输出频率
+     * @param hz 输出频率，0 表示不抽取
+     */
+    void setOutputHz(int hz) {
+        this.outputIntervalNanos = hz > 0 ? (long) (NANOS_PER_SECOND / hz) : 0;
+    }
+
+    /**
+     * 启用或关闭加速度计互补滤波
+     */
+    void setFusionEnabled(boolean enabled) {
+        this.fusionEnabled = enabled;
+        if (!enabled) {
+            steeringValid = false;
+        }
+    }
+
+    /**
+     * 设置互补滤波时间常数（秒）：越大越信任陀螺仪，越小越快收敛到重力方向
+     */
+    void setFusionTimeConstantSeconds(float seconds) {
+        if (seconds <= 0) {
+            throw new IllegalArgumentException("time constant must be positive: " + seconds);
+        }
+        this.fusionTimeConstantSeconds = seconds;
+    }
+
+    boolean isFusionEnabled() {
+        return fusionEnabled;
+    }
+
+    /**
+     * 处理一个陀螺仪样本
+     * @return 是否到达输出节拍（为 true 时通过 getter 读取本次输出）
+     */
+    boolean onGyroSample(long timeNanos, float yawRate, float pitchRate, float rollRate) {
+        long gap = timeNanos - lastSampleNanos;
+        if (lastSampleNanos == 0 || gap <= 0 || gap > MAX_SAMPLE_GAP_NANOS) {
+            // 首个样本或中断后：重新开始积分窗口
+            windowStartNanos = timeNanos;
+            integratedYaw = 0;
+            integratedPitch = 0;
+            integratedRoll = 0;
+        } else {
+            double dt = gap / NANOS_PER_SECOND;
+            double yawStep = (yawRate + lastYawRate) * 0.5 * dt;
+            integratedYaw += yawStep;
+            integratedPitch += (pitchRate + lastPitchRate) * 0.5 * dt;
+            integratedRoll += (rollRate + lastRollRate) * 0.5 * dt;
+            if (steeringValid) {
+                steeringAngle = wrapAngle(steeringAngle + yawStep);
+            }
+        }
+        lastSampleNanos = timeNanos;
+        lastYawRate = yawRate;
+        lastPitchRate = pitchRate;
+        lastRollRate = rollRate;
+
+        if (outputIntervalNanos > 0 && timeNanos - lastOutputNanos < outputIntervalNanos) {
+            return false;
+        }
+
+        long elapsed = timeNanos - windowStartNanos;
+        if (outputIntervalNanos > 0 && elapsed > 0) {
+            // 抽取模式：输出本周期的平均角速度
+            double seconds = elapsed / NANOS_PER_SECOND;
+            outputYawRate = (float) (integratedYaw / seconds);
+            outputPitchRate = (float) (integratedPitch / seconds);
+            outputRollRate = (float) (integratedRoll / seconds);
+        } else {
+            outputYawRate = yawRate;
+            outputPitchRate = pitchRate;
+            outputRollRate = rollRate;
+        }
+        outputDeltaYaw = (float) integratedYaw;
+        outputDeltaPitch = (float) integratedPitch;
+        outputDeltaRoll = (float) integratedRoll;
+
+        integratedYaw = 0;
+        integratedPitch = 0;
+        integratedRoll = 0;
+        windowStartNanos = timeNanos;
+        lastOutputNanos = timeNanos;
+        return true;
+    }
+
+    /**
+     * 处理一个加速度计样本（m/s²，设备坐标系），用于互补滤波修正转向角
+     */
+    void onAccelerometerSample(long timeNanos, float ax, float ay, float az) {
+        if (!fusionEnabled) {
+            return;
+        }
+        float planar = (float) Math.sqrt(ax * ax + ay * ay);
+        float magnitude = (float) Math.sqrt(ax * ax + ay * ay + az * az);
+        if (planar < MIN_PLANAR_GRAVITY || Math.abs(magnitude - STANDARD_GRAVITY) > MAX_GRAVITY_DEVIATION) {
+            lastAccelNanos = timeNanos;
+            return;
+        }
+
+        double accelAngle = Math.atan2(ax, ay);
+        long gap = timeNanos - lastAccelNanos;
+        lastAccelNanos = timeNanos;
+        if (!steeringValid) {
+            steeringAngle = accelAngle;
+            steeringValid = true;
+            return;
+        }
+        if (gap <= 0) {
+            return;
+        }
+        double dt = Math.min(gap, MAX_SAMPLE_GAP_NANOS) / NANOS_PER_SECOND;
+        double alpha = fusionTimeConstantSeconds / (fusionTimeConstantSeconds + dt);
+        steeringAngle = wrapAngle(steeringAngle + (1 - alpha) * wrapAngle(accelAngle - steeringAngle));
+    }
+
+    /**
+     * 重置积分与滤波状态（如传感器重新注册）
+     */
+    void reset() {
+        lastSampleNanos = 0;
+        lastOutputNanos = 0;
+        lastAccelNanos = 0;
+        integratedYaw = 0;
+        integratedPitch = 0;
+        integratedRoll = 0;
+        steeringValid = false;
+    }
+
+    float getYawRate() {
+        return outputYawRate;
+    }
+
+    float getPitchRate() {
+        return outputPitchRate;
+    }
+
+    float getRollRate() {
+        return outputRollRate;
+    }
+
+    float getDeltaYaw() {
+        return outputDeltaYaw;
+    }
+
+    float getDeltaPitch() {
+        return outputDeltaPitch;
+    }
+
+    float getDeltaRoll() {
+        return outputDeltaRoll;
+    }
+
+    boolean isSteeringValid() {
+        return steeringValid;
+    }
+
+    float getSteeringAngle() {
+        return (float) steeringAngle;
+    }
+
+    /**
+     * 角度归一化到 [-π, π]
+     */
+    private static double wrapAngle(double angle) {
+        while (angle > Math.PI) {
+            angle -= 2 * Math.PI;
+        }
+        while (angle < -Math.PI) {
+            angle += 2 * Math.PI;
+        }
+        return angle;
+    }
+}
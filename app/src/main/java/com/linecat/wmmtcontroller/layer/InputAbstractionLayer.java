@@ -12,8 +12,6 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -21,31 +19,61 @@ import java.util.concurrent.TimeUnit;
  * <p>
  * 负责：归一化、状态机、合并、原语输出
  * 不负责：Android API、权限、overlay
+ * <p>
+ * 指针状态按槽位保存在定长基本类型数组中，PointerFrame 通过可复用的 {@link PointerFrameView} 输出；
+ * sink 覆盖 {@link OutputSink#onPointerFrameView} 即可让稳态触摸处理不产生任何垃圾。
  */
 public final class InputAbstractionLayer implements PlatformAdaptationLayer.RawEventSink {
     private static final String TAG = "InputAbstractionLayer";
     
-    // 目标合并频率：60Hz
-    private static final long TARGET_FREQUENCY_NS = TimeUnit.SECONDS.toNanos(1) / 60;
+    // 默认 MOVE 合并频率：60Hz
+    public static final int DEFAULT_MOVE_OUTPUT_HZ = 60;
     
     // 轴映射规则（必须与代码注释一致）
     // yawRate   = values[2]
     // pitchRate = values[0]
     // rollRate  = values[1]
     
+    // 最大同时跟踪的指针数
+    private static final int MAX_POINTERS = PlatformAdaptationLayer.MAX_POINTERS;
+    
     private final OutputSink sink;
-    private final Map<Integer, PointerState> pointerStates;
-    private final Set<Integer> changedIds;
     private final RawInputInspectorManager inspectorManager;
     
+    // 指针状态（按槽位索引，slotActive 为 false 的槽位空闲）
+    private final int[] slotIds = new int[MAX_POINTERS];
+    private final boolean[] slotActive = new boolean[MAX_POINTERS];
+    private final PointerState.Phase[] slotPhases = new PointerState.Phase[MAX_POINTERS];
+    private final float[] slotXs = new float[MAX_POINTERS];
+    private final float[] slotYs = new float[MAX_POINTERS];
+    private final boolean[] slotChanged = new boolean[MAX_POINTERS];
+    private int activePointerCount;
+    private final ReusablePointerFrameView frameView = new ReusablePointerFrameView();
+    // onRawPointerEvent 展开指针列表用的暂存数组（指针数超过容量时才扩容）
+    private int[] eventPointerIds = new int[MAX_POINTERS];
+    private float[] eventPointerXs = new float[MAX_POINTERS];
+    private float[] eventPointerYs = new float[MAX_POINTERS];
+    
     // 当前显示 metrics
     private int displayWidthPx;
     private int displayHeightPx;
     private int displayRotation;
+    // 坐标空间只在 metrics 变化时重建
+    private CoordinateSpace coordinateSpace;
     
     // MOVE 合并相关
+    private volatile MoveCoalescingPolicy moveCoalescingPolicy;
     private long lastMoveOutputTimeNs;
     private boolean hasPendingMove;
+    // 当前手势开始时间，用于只统计同一手势内的 MOVE 输出间隔
+    private long gestureStartTimeNs;
+    
+    // MOVE 帧时序统计（输入线程写，任意线程读）
+    private volatile long moveFramesOutput;
+    private volatile long movesCoalesced;
+    private volatile long lastMoveIntervalNanos;
+    private volatile long totalMoveIntervalNanos;
+    private volatile long moveIntervalCount;
     
     // 陀螺仪数据
     private float lastYawRate;
@@ -53,6 +81,8 @@ public final class InputAbstractionLayer implements PlatformAdaptationLayer.RawE
     private float lastRollRate;
     private RawSensorEvent.Accuracy lastGyroAccuracy;
     private long lastGyroTimeNs;
+    // 陀螺仪积分/抽取与互补滤波
+    private final GyroProcessor gyroProcessor = new GyroProcessor();
     
     // 取消标志
     private boolean isCanceled;
@@ -72,16 +102,16 @@ public final class InputAbstractionLayer implements PlatformAdaptationLayer.RawE
      */
     public InputAbstractionLayer(Context context, OutputSink sink) {
         this.sink = sink;
-        this.pointerStates = new ConcurrentHashMap<>();
-        this.changedIds = ConcurrentHashMap.newKeySet();
         this.inspectorManager = context != null ? RawInputInspectorManager.getInstance(context) : null;
         
         // 初始化默认 metrics
         this.displayWidthPx = 1080;
         this.displayHeightPx = 1920;
         this.displayRotation = 0;
+        this.coordinateSpace = new CoordinateSpace(displayWidthPx, displayHeightPx, CoordinateSpace.Basis.LANDSCAPE_90);
         
         // 初始化 MOVE 合并相关
+        this.moveCoalescingPolicy = new MoveCoalescingPolicy.FixedRate(DEFAULT_MOVE_OUTPUT_HZ);
         this.lastMoveOutputTimeNs = 0;
         this.hasPendingMove = false;
         
@@ -98,16 +128,59 @@ public final class InputAbstractionLayer implements PlatformAdaptationLayer.RawE
     
     /**
      * 接收 Raw 窗口事件
+     * <p>
+     * ATTACHED / METRICS_CHANGED：更新 metrics，后续指针按新 metrics 旋转；
+     * 若旋转方向在手势进行中改变，活动指针的坐标基准已失效，输出 canceled 帧结束这些指针
+     * （仅尺寸变化时手势继续）。
+     * DETACHED：overlay 已移除，不会再收到 UP，同样取消活动指针。
      */
     @Override
     public void onRawWindowEvent(RawWindowEvent e) {
-        // 更新 metrics
-        this.displayWidthPx = e.metrics.widthPx;
-        this.displayHeightPx = e.metrics.heightPx;
-        this.displayRotation = e.metrics.rotation;
-        
-        // 发送 metrics 变化事件（如果需要）
-        // sink.onMetricsChanged(e.metrics);
+        switch (e.kind) {
+            case METRICS_CHANGED:
+                if (e.metrics.rotation != displayRotation) {
+                    cancelActivePointers(e.timeNanos);
+                }
+                updateMetrics(e.metrics);
+                break;
+            case ATTACHED:
+                updateMetrics(e.metrics);
+                break;
+            case DETACHED:
+                cancelActivePointers(e.timeNanos);
+                updateMetrics(e.metrics);
+                break;
+            case ATTACH_FAILED:
+            default:
+                updateMetrics(e.metrics);
+                break;
+        }
+    }
+    
+    /**
+     * 更新 metrics
+     */
+    private void updateMetrics(RawWindowEvent.Metrics metrics) {
+        if (metrics.widthPx != displayWidthPx || metrics.heightPx != displayHeightPx) {
+            this.coordinateSpace = new CoordinateSpace(
+                    metrics.widthPx, metrics.heightPx, CoordinateSpace.Basis.LANDSCAPE_90);
+        }
+        this.displayWidthPx = metrics.widthPx;
+        this.displayHeightPx = metrics.heightPx;
+        this.displayRotation = metrics.rotation;
+    }
+    
+    /**
+     * 取消所有活动指针并立即输出 canceled 帧（无活动指针时不输出）
+     */
+    private void cancelActivePointers(long timeNanos) {
+        if (activePointerCount == 0) {
+            return;
+        }
+        isCanceled = true;
+        clearAllPointers();
+        hasPendingMove = false;
+        outputPointerFrame(timeNanos);
     }
     
     /**
@@ -115,37 +188,60 @@ public final class InputAbstractionLayer implements PlatformAdaptationLayer.RawE
      */
     @Override
     public void onRawPointerEvent(RawPointerEvent e) {
-        long timeNanos = e.timeNanos;
+        List<RawPointerEvent.Pointer> pointers = e.pointers;
+        int count = pointers.size();
+        if (count > eventPointerIds.length) {
+            eventPointerIds = new int[count];
+            eventPointerXs = new float[count];
+            eventPointerYs = new float[count];
+        }
+        for (int i = 0; i < count; i++) {
+            RawPointerEvent.Pointer pointer = pointers.get(i);
+            eventPointerIds[i] = pointer.id;
+            eventPointerXs[i] = pointer.x;
+            eventPointerYs[i] = pointer.y;
+        }
+        onRawPointerSample(e.timeNanos, e.action, e.changedId, count,
+                eventPointerIds, eventPointerXs, eventPointerYs, e.display);
+    }
+    
+    /**
+     * 接收 Raw 指针样本（无分配入口，由 PlatformAdaptationLayer 输入线程直接调用）
+     */
+    @Override
+    public void onRawPointerSample(long timeNanos, RawPointerEvent.Action action, int changedId,
+                                   int pointerCount, int[] pointerIds, float[] pointerXs, float[] pointerYs,
+                                   RawWindowEvent.Metrics display) {
+        int rotation = display.rotation;
         
         // 处理指针事件
-        switch (e.action) {
+        switch (action) {
             case DOWN:
-                handlePointerDown(e);
+                handlePointerDown(timeNanos, changedId, pointerCount, pointerIds, pointerXs, pointerYs, rotation);
                 break;
             case MOVE:
-                handlePointerMove(e);
+                handlePointerMove(pointerCount, pointerIds, pointerXs, pointerYs, rotation);
                 break;
             case UP:
-                handlePointerUp(e);
+                handlePointerUp(changedId, pointerCount, pointerIds, pointerXs, pointerYs, rotation);
                 break;
             case CANCEL:
-                handlePointerCancel(e);
+                handlePointerCancel();
                 break;
         }
         
         // 更新原始输入检查器数据
-        if (inspectorManager != null && !e.pointers.isEmpty()) {
-            RawPointerEvent.Pointer pointer = e.pointers.get(0);
+        if (inspectorManager != null && pointerCount > 0) {
             inspectorManager.onTouchEvent(null); // 这里需要实际的MotionEvent，后续优化
             // 临时解决方案：直接更新坐标
-            for (RawPointerEvent.Pointer p : e.pointers) {
+            for (int i = 0; i < pointerCount; i++) {
                 // 这里需要转换为实际的触摸事件，后续优化
-                inspectorManager.updateTouchData(p.x, p.y);
+                inspectorManager.updateTouchData(pointerXs[i], pointerYs[i]);
             }
         }
         
         // 检查是否需要输出 PointerFrame
-        if (e.action != RawPointerEvent.Action.MOVE || shouldOutputMove(timeNanos)) {
+        if (action != RawPointerEvent.Action.MOVE || shouldOutputMove(timeNanos)) {
             outputPointerFrame(timeNanos);
         }
     }
@@ -155,32 +251,73 @@ public final class InputAbstractionLayer implements PlatformAdaptationLayer.RawE
      */
     @Override
     public void onRawSensorEvent(RawSensorEvent e) {
-        if (e.sensorType == RawSensorEvent.SensorType.GYROSCOPE) {
+        onRawSensorSample(e.timeNanos, e.sensorType, e.values[0], e.values[1], e.values[2], e.accuracy);
+    }
+    
+    /**
+     * 接收 Raw 传感器样本（无分配入口，由 PlatformAdaptationLayer 输入线程直接调用）
+     */
+    @Override
+    public void onRawSensorSample(long timeNanos, RawSensorEvent.SensorType sensorType,
+                                  float v0, float v1, float v2, RawSensorEvent.Accuracy accuracy) {
+        if (sensorType == RawSensorEvent.SensorType.ACCELEROMETER) {
+            // 加速度计只用于互补滤波修正转向角，不单独输出帧
+            gyroProcessor.onAccelerometerSample(timeNanos, v0, v1, v2);
+            return;
+        }
+        if (sensorType == RawSensorEvent.SensorType.GYROSCOPE) {
             // 映射陀螺仪轴
             // yawRate   = values[2]
             // pitchRate = values[0]
             // rollRate  = values[1]
-            float yawRate = e.values[2];
-            float pitchRate = e.values[0];
-            float rollRate = e.values[1];
+            float yawRate = v2;
+            float pitchRate = v0;
+            float rollRate = v1;
             
             // 更新陀螺仪数据
             this.lastYawRate = yawRate;
             this.lastPitchRate = pitchRate;
             this.lastRollRate = rollRate;
-            this.lastGyroAccuracy = e.accuracy;
-            this.lastGyroTimeNs = e.timeNanos;
+            this.lastGyroAccuracy = accuracy;
+            this.lastGyroTimeNs = timeNanos;
             
             // 更新原始输入检查器数据
             if (inspectorManager != null) {
                 inspectorManager.updateGyroData(pitchRate, rollRate, yawRate);
             }
             
-            // 输出 GyroFrame
-            outputGyroFrame(e.timeNanos);
+            // 积分并按输出频率抽取，到达输出节拍才输出 GyroFrame
+            if (gyroProcessor.onGyroSample(timeNanos, yawRate, pitchRate, rollRate)) {
+                outputGyroFrame(timeNanos);
+            }
         }
     }
     
+    /**
+     * 设置 GyroFrame 输出频率
+     * 0（默认）：每个陀螺仪样本输出一帧，角速度为原始值；
+     * &gt; 0：在输出节拍之间按样本时间戳积分，每帧输出本周期的平均角速度与积分角度
+     * @param hz 输出频率
+     */
+    public void setGyroOutputHz(int hz) {
+        gyroProcessor.setOutputHz(hz);
+    }
+    
+    /**
+     * 启用或关闭加速度计互补滤波
+     * 启用后 GyroFrame 携带稳定的转向角；需要平台适配层同时上报加速度计样本
+     */
+    public void setGyroFusionEnabled(boolean enabled) {
+        gyroProcessor.setFusionEnabled(enabled);
+    }
+    
+    /**
+     * 设置互补滤波时间常数（秒），默认 0.5 秒
+     */
+    public void setGyroFusionTimeConstantSeconds(float seconds) {
+        gyroProcessor.setFusionTimeConstantSeconds(seconds);
+    }
+    
     /**
      * 接收 Raw 丢包事件
      */
@@ -193,26 +330,39 @@ public final class InputAbstractionLayer implements PlatformAdaptationLayer.RawE
     
     /**
      * 处理指针 DOWN 事件
+     * changedId >= 0 时（含 ACTION_POINTER_DOWN）只有该指针进入 DOWN，其余指针仅同步位置
      */
-    private void handlePointerDown(RawPointerEvent e) {
+    private void handlePointerDown(long timeNanos, int changedId, int count,
+                                   int[] ids, float[] xs, float[] ys, int rotation) {
         // 重置取消标志
         isCanceled = false;
+        if (activePointerCount == 0) {
+            gestureStartTimeNs = timeNanos;
+        }
         
         // 处理每个指针
-        for (RawPointerEvent.Pointer pointer : e.pointers) {
+        for (int i = 0; i < count; i++) {
+            int id = ids[i];
             // 旋转坐标到基准方向，不归一化
-            RotatedPoint rotated = rotatePoint(pointer.x, pointer.y, e.display.rotation);
-            
-            // 创建新的 PointerState
-            PointerState state = new PointerState(
-                    PointerState.Phase.DOWN,
-                    rotated.x,
-                    rotated.y
-            );
+            float x = rotateX(xs[i], ys[i], rotation);
+            float y = rotateY(xs[i], ys[i], rotation);
+            int slot = findSlot(id);
             
-            // 更新状态
-            pointerStates.put(pointer.id, state);
-            changedIds.add(pointer.id);
+            if (changedId < 0 || id == changedId || slot < 0) {
+                if (slot < 0) {
+                    slot = acquireSlot(id);
+                    if (slot < 0) {
+                        // 超过 MAX_POINTERS，忽略多出的指针
+                        continue;
+                    }
+                }
+                slotPhases[slot] = PointerState.Phase.DOWN;
+                slotXs[slot] = x;
+                slotYs[slot] = y;
+                slotChanged[slot] = true;
+            } else {
+                syncPointerPosition(slot, x, y);
+            }
         }
         
         // 立即输出 DOWN 事件
@@ -222,26 +372,22 @@ public final class InputAbstractionLayer implements PlatformAdaptationLayer.RawE
     /**
      * 处理指针 MOVE 事件
      */
-    private void handlePointerMove(RawPointerEvent e) {
+    private void handlePointerMove(int count, int[] ids, float[] xs, float[] ys, int rotation) {
         // 如果已取消，忽略 MOVE 事件
         if (isCanceled) {
             return;
         }
         
         // 处理每个指针
-        for (RawPointerEvent.Pointer pointer : e.pointers) {
+        for (int i = 0; i < count; i++) {
             // 检查指针是否已存在
-            if (pointerStates.containsKey(pointer.id)) {
+            int slot = findSlot(ids[i]);
+            if (slot >= 0) {
                 // 旋转坐标到基准方向，不归一化
-                RotatedPoint rotated = rotatePoint(pointer.x, pointer.y, e.display.rotation);
-                
-                // 更新 PointerState
-                PointerState state = pointerStates.get(pointer.id);
-                state.phase = PointerState.Phase.MOVE;
-                state.x = rotated.x;
-                state.y = rotated.y;
-                
-                changedIds.add(pointer.id);
+                slotPhases[slot] = PointerState.Phase.MOVE;
+                slotXs[slot] = rotateX(xs[i], ys[i], rotation);
+                slotYs[slot] = rotateY(xs[i], ys[i], rotation);
+                slotChanged[slot] = true;
                 hasPendingMove = true;
             }
         }
@@ -249,22 +395,26 @@ public final class InputAbstractionLayer implements PlatformAdaptationLayer.RawE
     
     /**
      * 处理指针 UP 事件
+     * changedId >= 0 时（含 ACTION_POINTER_UP）只有该指针进入 UP，其余指针保持按下并同步位置
      */
-    private void handlePointerUp(RawPointerEvent e) {
+    private void handlePointerUp(int changedId, int count, int[] ids, float[] xs, float[] ys, int rotation) {
         // 处理每个指针
-        for (RawPointerEvent.Pointer pointer : e.pointers) {
+        for (int i = 0; i < count; i++) {
             // 检查指针是否已存在
-            if (pointerStates.containsKey(pointer.id)) {
+            int slot = findSlot(ids[i]);
+            if (slot >= 0) {
                 // 旋转坐标到基准方向（90° home-on-right landscape），不归一化
-                RotatedPoint rotated = rotatePoint(pointer.x, pointer.y, e.display.rotation);
-                
-                // 更新 PointerState
-                PointerState state = pointerStates.get(pointer.id);
-                state.phase = PointerState.Phase.UP;
-                state.x = rotated.x;
-                state.y = rotated.y;
+                float x = rotateX(xs[i], ys[i], rotation);
+                float y = rotateY(xs[i], ys[i], rotation);
                 
-                changedIds.add(pointer.id);
+                if (changedId < 0 || ids[i] == changedId) {
+                    slotPhases[slot] = PointerState.Phase.UP;
+                    slotXs[slot] = x;
+                    slotYs[slot] = y;
+                    slotChanged[slot] = true;
+                } else {
+                    syncPointerPosition(slot, x, y);
+                }
             }
         }
         
@@ -272,50 +422,107 @@ public final class InputAbstractionLayer implements PlatformAdaptationLayer.RawE
         hasPendingMove = false;
     }
     
+    /**
+     * 同步非变化指针的位置（多指 DOWN/UP 事件中携带的其他指针）
+     * 位置有变化时才计入 changedIds，phase 保持不变
+     */
+    private void syncPointerPosition(int slot, float x, float y) {
+        if (slotXs[slot] != x || slotYs[slot] != y) {
+            slotXs[slot] = x;
+            slotYs[slot] = y;
+            slotChanged[slot] = true;
+        }
+    }
+    
     /**
      * 处理指针 CANCEL 事件
      */
-    private void handlePointerCancel(RawPointerEvent e) {
+    private void handlePointerCancel() {
         // 标记为已取消
         isCanceled = true;
         
         // 清空所有指针状态
-        pointerStates.clear();
-        changedIds.clear();
+        clearAllPointers();
         
         // 立即输出 CANCEL 事件
         hasPendingMove = false;
     }
     
     /**
-     * 旋转坐标到基准方向（90° home-on-right landscape），不进行归一化
+     * 查找指针所在槽位
+     * @return 槽位下标，不存在时返回 -1
+     */
+    private int findSlot(int pointerId) {
+        for (int i = 0; i < MAX_POINTERS; i++) {
+            if (slotActive[i] && slotIds[i] == pointerId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * 为新指针分配空闲槽位
+     * @return 槽位下标，槽位已满时返回 -1
      */
-    private RotatedPoint rotatePoint(float xPx, float yPx, int rotation) {
-        // 只旋转坐标到90° home-on-right landscape，不进行归一化
-        float rotatedX, rotatedY;
+    private int acquireSlot(int pointerId) {
+        for (int i = 0; i < MAX_POINTERS; i++) {
+            if (!slotActive[i]) {
+                slotActive[i] = true;
+                slotIds[i] = pointerId;
+                slotChanged[i] = false;
+                activePointerCount++;
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * 释放全部槽位
+     */
+    private void clearAllPointers() {
+        for (int i = 0; i < MAX_POINTERS; i++) {
+            slotActive[i] = false;
+            slotChanged[i] = false;
+        }
+        activePointerCount = 0;
+    }
+    
+    /**
+     * 旋转 X 坐标到基准方向（90° home-on-right landscape），不进行归一化
+     */
+    private float rotateX(float xPx, float yPx, int rotation) {
         switch (rotation) {
             case 0: // ROTATION_0 (Natural Portrait) → 90° landscape
-                rotatedX = displayHeightPx - yPx;
-                rotatedY = xPx;
-                break;
+                return displayHeightPx - yPx;
             case 1: // ROTATION_90 (Landscape) → 90° landscape
-                rotatedX = xPx;
-                rotatedY = yPx;
-                break;
+                return xPx;
             case 2: // ROTATION_180 (Upside Down Portrait) → 90° landscape
-                rotatedX = yPx;
-                rotatedY = displayWidthPx - xPx;
-                break;
+                return yPx;
             case 3: // ROTATION_270 (Reverse Landscape) → 90° landscape
-                rotatedX = displayWidthPx - xPx;
-                rotatedY = displayHeightPx - yPx;
-                break;
+                return displayWidthPx - xPx;
             default:
-                rotatedX = xPx;
-                rotatedY = yPx;
+                return xPx;
+        }
+    }
+    
+    /**
+     * 旋转 Y 坐标到基准方向（90° home-on-right landscape），不进行归一化
+     */
+    private float rotateY(float xPx, float yPx, int rotation) {
+        switch (rotation) {
+            case 0: // ROTATION_0 (Natural Portrait) → 90° landscape
+                return xPx;
+            case 1: // ROTATION_90 (Landscape) → 90° landscape
+                return yPx;
+            case 2: // ROTATION_180 (Upside Down Portrait) → 90° landscape
+                return displayWidthPx - xPx;
+            case 3: // ROTATION_270 (Reverse Landscape) → 90° landscape
+                return displayHeightPx - yPx;
+            default:
+                return yPx;
         }
-        
-        return new RotatedPoint(rotatedX, rotatedY);
     }
     
     /**
@@ -326,62 +533,128 @@ public final class InputAbstractionLayer implements PlatformAdaptationLayer.RawE
     }
     
     /**
-     * 检查是否需要输出 MOVE 事件
+     * 检查是否需要输出 MOVE 事件（由当前 MoveCoalescingPolicy 决定）
      */
     private boolean shouldOutputMove(long currentTimeNs) {
         if (!hasPendingMove) {
             return false;
         }
         
-        if (currentTimeNs - lastMoveOutputTimeNs >= TARGET_FREQUENCY_NS) {
-            lastMoveOutputTimeNs = currentTimeNs;
-            hasPendingMove = false;
-            return true;
+        if (!moveCoalescingPolicy.shouldOutput(currentTimeNs, lastMoveOutputTimeNs)) {
+            movesCoalesced++;
+            return false;
         }
         
-        return false;
+        recordMoveOutput(currentTimeNs);
+        hasPendingMove = false;
+        return true;
+    }
+    
+    /**
+     * 记录一次 MOVE 帧输出的时序
+     */
+    private void recordMoveOutput(long currentTimeNs) {
+        if (lastMoveOutputTimeNs > 0 && lastMoveOutputTimeNs >= gestureStartTimeNs) {
+            long interval = currentTimeNs - lastMoveOutputTimeNs;
+            lastMoveIntervalNanos = interval;
+            totalMoveIntervalNanos += interval;
+            moveIntervalCount++;
+        }
+        lastMoveOutputTimeNs = currentTimeNs;
+        moveFramesOutput++;
+    }
+    
+    /**
+     * 设置 MOVE 合并策略
+     * DOWN/UP/CANCEL 不受策略影响，始终立即输出
+     * @param policy 合并策略，不能为空
+     */
+    public void setMoveCoalescingPolicy(MoveCoalescingPolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("policy must not be null");
+        }
+        this.moveCoalescingPolicy = policy;
+    }
+    
+    /**
+     * 获取 MOVE 合并策略
+     */
+    public MoveCoalescingPolicy getMoveCoalescingPolicy() {
+        return moveCoalescingPolicy;
+    }
+    
+    /**
+     * 获取已输出的 MOVE 帧数
+     */
+    public long getMoveFramesOutput() {
+        return moveFramesOutput;
+    }
+    
+    /**
+     * 获取被合并（未单独输出）的 MOVE 事件数
+     */
+    public long getMovesCoalesced() {
+        return movesCoalesced;
+    }
+    
+    /**
+     * 获取最近一次 MOVE 帧输出间隔（纳秒）
+     */
+    public long getLastMoveIntervalNanos() {
+        return lastMoveIntervalNanos;
+    }
+    
+    /**
+     * 获取手势内 MOVE 帧平均输出间隔（纳秒），没有样本时返回 0
+     */
+    public long getAverageMoveIntervalNanos() {
+        long count = moveIntervalCount;
+        return count == 0 ? 0 : totalMoveIntervalNanos / count;
+    }
+    
+    /**
+     * 获取实际 MOVE 输出频率（Hz），没有样本时返回 0
+     */
+    public double getEffectiveMoveRateHz() {
+        long average = getAverageMoveIntervalNanos();
+        return average == 0 ? 0 : (double) TimeUnit.SECONDS.toNanos(1) / average;
+    }
+    
+    /**
+     * 重置 MOVE 帧时序统计
+     */
+    public void resetMoveStats() {
+        moveFramesOutput = 0;
+        movesCoalesced = 0;
+        lastMoveIntervalNanos = 0;
+        totalMoveIntervalNanos = 0;
+        moveIntervalCount = 0;
     }
     
     /**
      * 输出 PointerFrame
+     * 通过复用的 view 输出，随后清理已 UP 的指针与变化标记
      */
     private void outputPointerFrame(long timeNanos) {
-        if (pointerStates.isEmpty() && !isCanceled) {
+        if (activePointerCount == 0 && !isCanceled) {
             return;
         }
         
-        // 创建 CoordinateSpace
-        CoordinateSpace space = new CoordinateSpace(
-                displayWidthPx,
-                displayHeightPx,
-                CoordinateSpace.Basis.LANDSCAPE_90
-        );
-        
-        // 创建 PointerFrame
-        PointerFrame frame = new PointerFrame(
-                timeNanos,
-                new HashMap<>(pointerStates),
-                new ArrayList<>(changedIds),
-                isCanceled,
-                space
-        );
-        
         // 发送到上层
-        sink.onPointerFrame(frame);
+        frameView.prepare(timeNanos);
+        sink.onPointerFrameView(frameView);
         
-        // 清理已 UP 的指针
-        List<Integer> toRemove = new ArrayList<>();
-        for (Map.Entry<Integer, PointerState> entry : pointerStates.entrySet()) {
-            if (entry.getValue().phase == PointerState.Phase.UP) {
-                toRemove.add(entry.getKey());
+        // 清理已 UP 的指针与变化标记
+        for (int i = 0; i < MAX_POINTERS; i++) {
+            if (!slotActive[i]) {
+                continue;
+            }
+            slotChanged[i] = false;
+            if (slotPhases[i] == PointerState.Phase.UP) {
+                slotActive[i] = false;
+                activePointerCount--;
             }
         }
-        for (int id : toRemove) {
-            pointerStates.remove(id);
-        }
-        
-        // 清理 changedIds
-        changedIds.clear();
         
         // 重置取消标志
         if (isCanceled) {
@@ -396,10 +669,15 @@ public final class InputAbstractionLayer implements PlatformAdaptationLayer.RawE
         // 创建 GyroFrame
         GyroFrame frame = new GyroFrame(
                 timeNanos,
-                lastYawRate,
-                lastPitchRate,
-                lastRollRate,
-                convertGyroAccuracy(lastGyroAccuracy)
+                gyroProcessor.getYawRate(),
+                gyroProcessor.getPitchRate(),
+                gyroProcessor.getRollRate(),
+                convertGyroAccuracy(lastGyroAccuracy),
+                gyroProcessor.getDeltaYaw(),
+                gyroProcessor.getDeltaPitch(),
+                gyroProcessor.getDeltaRoll(),
+                gyroProcessor.isSteeringValid(),
+                gyroProcessor.getSteeringAngle()
         );
         
         // 发送到上层
@@ -423,15 +701,94 @@ public final class InputAbstractionLayer implements PlatformAdaptationLayer.RawE
     }
     
     /**
-     * 旋转后的像素点
+     * 复用的指针帧视图，直接读取槽位数组
      */
-    private static class RotatedPoint {
-        public final float x;
-        public final float y;
+    private final class ReusablePointerFrameView implements PointerFrameView {
+        private final int[] activeSlots = new int[MAX_POINTERS];
+        private final int[] changedSlots = new int[MAX_POINTERS];
+        private int pointerCount;
+        private int changedCount;
+        private long timeNanos;
+        
+        /**
+         * 按当前槽位状态建立索引（不分配）
+         */
+        void prepare(long timeNanos) {
+            this.timeNanos = timeNanos;
+            pointerCount = 0;
+            changedCount = 0;
+            for (int i = 0; i < MAX_POINTERS; i++) {
+                if (!slotActive[i]) {
+                    continue;
+                }
+                activeSlots[pointerCount++] = i;
+                if (slotChanged[i]) {
+                    changedSlots[changedCount++] = i;
+                }
+            }
+        }
         
-        public RotatedPoint(float x, float y) {
-            this.x = x;
-            this.y = y;
+        @Override
+        public long timeNanos() {
+            return timeNanos;
+        }
+        
+        @Override
+        public boolean isCanceled() {
+            return isCanceled;
+        }
+        
+        @Override
+        public CoordinateSpace space() {
+            return coordinateSpace;
+        }
+        
+        @Override
+        public int pointerCount() {
+            return pointerCount;
+        }
+        
+        @Override
+        public int pointerId(int index) {
+            return slotIds[activeSlots[index]];
+        }
+        
+        @Override
+        public PointerState.Phase phase(int index) {
+            return slotPhases[activeSlots[index]];
+        }
+        
+        @Override
+        public float x(int index) {
+            return slotXs[activeSlots[index]];
+        }
+        
+        @Override
+        public float y(int index) {
+            return slotYs[activeSlots[index]];
+        }
+        
+        @Override
+        public int changedCount() {
+            return changedCount;
+        }
+        
+        @Override
+        public int changedId(int index) {
+            return slotIds[changedSlots[index]];
+        }
+        
+        @Override
+        public PointerFrame toPointerFrame() {
+            Map<Integer, PointerState> pointersById = new HashMap<>();
+            for (int i = 0; i < pointerCount; i++) {
+                pointersById.put(pointerId(i), new PointerState(phase(i), x(i), y(i)));
+            }
+            List<Integer> changedIds = new ArrayList<>(changedCount);
+            for (int i = 0; i < changedCount; i++) {
+                changedIds.add(changedId(i));
+            }
+            return new PointerFrame(timeNanos, pointersById, changedIds, isCanceled, coordinateSpace);
         }
     }
     
@@ -439,6 +796,37 @@ public final class InputAbstractionLayer implements PlatformAdaptationLayer.RawE
     public interface OutputSink {
         void onPointerFrame(PointerFrame frame);
         void onGyroFrame(GyroFrame frame);
+        
+        /**
+         * 指针帧的无分配输出入口
+         * 默认实现物化为快照 PointerFrame 并转交 onPointerFrame；
+         * 覆盖此方法即进入零分配模式：直接读取 view，回调返回后不得持有它（view 会被复用）
+         */
+        default void onPointerFrameView(PointerFrameView view) {
+            onPointerFrame(view.toPointerFrame());
+        }
+    }
+    
+    /**
+     * 指针帧只读视图
+     * 仅在 {@link OutputSink#onPointerFrameView} 回调期间有效；index 范围为 [0, pointerCount())
+     */
+    public interface PointerFrameView {
+        long timeNanos();
+        boolean isCanceled();
+        CoordinateSpace space();
+        int pointerCount();
+        int pointerId(int index);
+        PointerState.Phase phase(int index);
+        float x(int index);
+        float y(int index);
+        int changedCount();
+        int changedId(int index);
+        
+        /**
+         * 物化为可长期持有的 PointerFrame 快照（会分配）
+         */
+        PointerFrame toPointerFrame();
     }
     
     /**
@@ -506,6 +894,8 @@ public final class InputAbstractionLayer implements PlatformAdaptationLayer.RawE
     
     /**
      * 陀螺仪帧
+     * 角速度单位 rad/s；delta* 为自上一帧以来积分的角度（rad）；
+     * steeringAngle 仅在 steeringValid 时有效（启用互补滤波且已获得重力方向）
      */
     public static final class GyroFrame {
         public final long timeNanos;
@@ -513,6 +903,11 @@ public final class InputAbstractionLayer implements PlatformAdaptationLayer.RawE
         public final float pitchRate;
         public final float rollRate;
         public final Accuracy accuracy;
+        public final float deltaYaw;
+        public final float deltaPitch;
+        public final float deltaRoll;
+        public final boolean steeringValid;
+        public final float steeringAngle;
         
         public enum Accuracy {
             UNRELIABLE,
@@ -522,11 +917,22 @@ public final class InputAbstractionLayer implements PlatformAdaptationLayer.RawE
         }
         
         public GyroFrame(long timeNanos, float yawRate, float pitchRate, float rollRate, Accuracy accuracy) {
+            this(timeNanos, yawRate, pitchRate, rollRate, accuracy, 0f, 0f, 0f, false, 0f);
+        }
+        
+        public GyroFrame(long timeNanos, float yawRate, float pitchRate, float rollRate, Accuracy accuracy,
+                         float deltaYaw, float deltaPitch, float deltaRoll,
+                         boolean steeringValid, float steeringAngle) {
             this.timeNanos = timeNanos;
             this.yawRate = yawRate;
             this.pitchRate = pitchRate;
             this.rollRate = rollRate;
             this.accuracy = accuracy;
+            this.deltaYaw = deltaYaw;
+            this.deltaPitch = deltaPitch;
+            this.deltaRoll = deltaRoll;
+            this.steeringValid = steeringValid;
+            this.steeringAngle = steeringAngle;
         }
     }
     
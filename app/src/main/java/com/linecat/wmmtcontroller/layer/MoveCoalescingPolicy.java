@@ -0,0 +1,191 @@
+package com.linecat.wmmtcontroller.layer;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * MOVE 合并策略
+ * <p>
+ * InputAbstractionLayer 在输入线程上对每个挂起的 MOVE 询问策略是否输出 PointerFrame；
+ * DOWN/UP/CANCEL 不经过策略，始终立即输出。
+ * 实现会在每个 MOVE 上被调用，必须轻量且不分配对象。
+ */
+public interface MoveCoalescingPolicy {
+    long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * 是否输出当前挂起的 MOVE
+     * @param timeNanos 当前 MOVE 的事件时间
+     * @param lastOutputNanos 上一次输出 MOVE 帧的事件时间（从未输出时为 0）
+     */
+    boolean shouldOutput(long timeNanos, long lastOutputNanos);
+
+    /**
+     * 获取当前目标输出间隔（纳秒），用于统计展示
+     */
+    long targetIntervalNanos();
+
+    /**
+     * 启动策略依赖的外部时钟源（如 vsync 回调）
+     */
+    default void start() {
+    }
+
+    /**
+     * 停止策略依赖的外部时钟源
+     */
+    default void stop() {
+    }
+
+    /**
+     * 固定频率：距上次输出满一个周期才输出
+     */
+    final class FixedRate implements MoveCoalescingPolicy {
+        private final long intervalNanos;
+
+        public FixedRate(int hz) {
+            if (hz <= 0) {
+                throw new IllegalArgumentException("hz must be positive: " + hz);
+            }
+            this.intervalNanos = NANOS_PER_SECOND / hz;
+        }
+
+        @Override
+        public boolean shouldOutput(long timeNanos, long lastOutputNanos) {
+            return timeNanos - lastOutputNanos >= intervalNanos;
+        }
+
+        @Override
+        public long targetIntervalNanos() {
+            return intervalNanos;
+        }
+    }
+
+    /**
+     * vsync 对齐：每个显示帧最多输出一次 MOVE
+     * <p>
+     * 通过主线程 Choreographer 记录最近一次 vsync 时间戳（与 MotionEvent 同为 CLOCK_MONOTONIC 时基），
+     * 上次输出之后出现新的 vsync 即输出；vsync 回调停滞（如主线程卡顿）时按两个周期兜底输出。
+     * 帧周期从面板刷新率初始化，并根据实际 vsync 间隔平滑修正，自动适配 90/120/144Hz。
+     */
+    final class VsyncAligned implements MoveCoalescingPolicy, Choreographer.FrameCallback {
+        private final Handler mainHandler = new Handler(Looper.getMainLooper());
+        private volatile long lastVsyncNanos;
+        private volatile long vsyncPeriodNanos;
+        private volatile boolean running;
+
+        /**
+         * @param refreshRateHz 面板刷新率，作为初始帧周期
+         */
+        public VsyncAligned(float refreshRateHz) {
+            float hz = refreshRateHz > 0 ? refreshRateHz : 60f;
+            this.vsyncPeriodNanos = (long) (NANOS_PER_SECOND / hz);
+        }
+
+        @Override
+        public void start() {
+            if (running) {
+                return;
+            }
+            running = true;
+            mainHandler.post(() -> {
+                if (running) {
+                    Choreographer.getInstance().postFrameCallback(this);
+                }
+            });
+        }
+
+        @Override
+        public void stop() {
+            running = false;
+            mainHandler.post(() -> Choreographer.getInstance().removeFrameCallback(this));
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            long previous = lastVsyncNanos;
+            if (previous > 0 && frameTimeNanos > previous) {
+                long delta = frameTimeNanos - previous;
+                // 丢帧产生的长间隔不参与周期估计
+                if (delta < vsyncPeriodNanos * 3 / 2) {
+                    vsyncPeriodNanos = (vsyncPeriodNanos * 7 + delta) / 8;
+                }
+            }
+            lastVsyncNanos = frameTimeNanos;
+            if (running) {
+                Choreographer.getInstance().postFrameCallback(this);
+            }
+        }
+
+        @Override
+        public boolean shouldOutput(long timeNanos, long lastOutputNanos) {
+            long vsync = lastVsyncNanos;
+            if (vsync > lastOutputNanos && timeNanos >= vsync) {
+                return true;
+            }
+            return timeNanos - lastOutputNanos >= vsyncPeriodNanos * 2;
+        }
+
+        @Override
+        public long targetIntervalNanos() {
+            return vsyncPeriodNanos;
+        }
+    }
+
+    /**
+     * 自适应：按下游发送队列深度在最高与最低频率之间线性调整输出间隔
+     * <p>
+     * 队列为空时按最高频率输出；积压达到高水位时降到最低频率，避免向无法及时发送的链路继续堆积帧。
+     */
+    final class Adaptive implements MoveCoalescingPolicy {
+        private final long minIntervalNanos;
+        private final long maxIntervalNanos;
+        private final LongSupplier sendQueueDepth;
+        private final long highWatermark;
+        private volatile long currentIntervalNanos;
+
+        /**
+         * @param maxHz 队列空闲时的输出频率
+         * @param minHz 队列达到高水位时的输出频率
+         * @param sendQueueDepth 下游待发送量（如 WebSocket 待发送字节数）
+         * @param highWatermark 降到最低频率时的队列深度
+         */
+        public Adaptive(int maxHz, int minHz, LongSupplier sendQueueDepth, long highWatermark) {
+            if (maxHz <= 0 || minHz <= 0 || minHz > maxHz) {
+                throw new IllegalArgumentException("invalid rate range: " + minHz + ".." + maxHz);
+            }
+            if (highWatermark <= 0) {
+                throw new IllegalArgumentException("highWatermark must be positive: " + highWatermark);
+            }
+            this.minIntervalNanos = NANOS_PER_SECOND / maxHz;
+            this.maxIntervalNanos = NANOS_PER_SECOND / minHz;
+            this.sendQueueDepth = sendQueueDepth;
+            this.highWatermark = highWatermark;
+            this.currentIntervalNanos = minIntervalNanos;
+        }
+
+        @Override
+        public boolean shouldOutput(long timeNanos, long lastOutputNanos) {
+            long depth = sendQueueDepth.getAsLong();
+            long interval;
+            if (depth <= 0) {
+                interval = minIntervalNanos;
+            } else if (depth >= highWatermark) {
+                interval = maxIntervalNanos;
+            } else {
+                interval = minIntervalNanos + (maxIntervalNanos - minIntervalNanos) * depth / highWatermark;
+            }
+            currentIntervalNanos = interval;
+            return timeNanos - lastOutputNanos >= interval;
+        }
+
+        @Override
+        public long targetIntervalNanos() {
+            return currentIntervalNanos;
+        }
+    }
+}
@@ -1,11 +1,19 @@
 package com.linecat.wmmtcontroller.layer;
 
 import android.content.Context;
+import android.content.res.Configuration;
+import android.hardware.display.DisplayManager;
 import android.hardware.Sensor;
 import android.hardware.SensorEvent;
 import android.hardware.SensorEventListener;
 import android.hardware.SensorManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
 import android.util.Log;
+import android.view.Display;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.WindowManager;
@@ -13,35 +21,100 @@ import android.view.WindowManager;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Platform Adaptation Layer
  * <p>
  * 负责：overlay、生存、触摸、传感器、raw 事件
  * 不负责：坐标归一、状态机、语义
+ * <p>
+ * 线程模型：触摸/传感器回调只负责入队并立即返回，
+ * RawEventSink 的分发全部在专用的高优先级输入线程上执行，避免与 overlay 渲染争抢主线程。
+ * <p>
+ * 队列模型：指针/窗口事件与传感器事件各走一条预分配的 SPSC 环形缓冲区（{@link RawEventRing}），
+ * 稳态下入队不产生垃圾。丢弃优先级：sensor 样本 → MOVE；DOWN/UP/CANCEL 与窗口事件永不丢弃。
  */
 public final class PlatformAdaptationLayer {
     private static final String TAG = "PlatformAdaptationLayer";
-    private static final int MAX_QUEUE_SIZE = 4096;
+    private static final int POINTER_RING_CAPACITY = 1024;
+    private static final int SENSOR_RING_CAPACITY = 2048;
+    // 为关键事件预留的槽位：MOVE / sensor 样本在剩余空间不足时即被丢弃
+    private static final int CRITICAL_RESERVED_SLOTS = 64;
+    // 每丢弃多少个 sensor 样本上报一次 RawDropEvent
+    private static final int SENSOR_DROP_REPORT_INTERVAL = 100;
+    private static final String INPUT_THREAD_NAME = "wmmt-input";
+    private static final String SENSOR_THREAD_NAME = "wmmt-sensor";
+
+    /** 单个指针事件最多携带的指针数，超出部分被截断 */
+    public static final int MAX_POINTERS = 10;
+
+    /** 默认输入线程优先级（与显示合成同级，高于普通 UI 线程） */
+    public static final int DEFAULT_INPUT_THREAD_PRIORITY = Process.THREAD_PRIORITY_URGENT_DISPLAY;
 
     public enum OverlayMode {
         SYSTEM_OVERLAY,     // TYPE_APPLICATION_OVERLAY (production)
         ACTIVITY_PANEL      // TYPE_APPLICATION_PANEL (instrumentation tests)
     }
 
+    /**
+     * MotionEvent 批量历史样本的处理方式
+     */
+    public enum HistoricalSampleMode {
+        COALESCE,   // 只取每个 MotionEvent 的最新样本（默认）
+        FORWARD     // 逐个转发两次 vsync 之间的历史样本，各自带真实纳秒时间戳
+    }
+
     private final Context context;
     private final RawEventSink sink;
     private final SensorManager sensorManager;
     private final Sensor gyroscopeSensor;
+    private final Sensor accelerometerSensor;
     private volatile OverlayView overlayView; // 延迟创建
     private final WindowManager windowManager;
-    private final ConcurrentLinkedQueue<RawEvent> eventQueue;
+    private final DisplayManager displayManager;
+    private final DisplayManager.DisplayListener displayListener;
+    private final Handler mainHandler;
+    // 指针/窗口通道（生产者：UI 线程）与传感器通道（生产者：传感器回调线程），各自单生产者单消费者
+    private final RawEventRing pointerRing;
+    private final RawEventRing sensorRing;
+    // 指针通道溢出队列：仅在 pointerRing 写满时承接关键事件，保证 DOWN/UP/CANCEL 永不丢
+    private final ConcurrentLinkedQueue<RawEvent> criticalOverflow;
+    private final AtomicInteger criticalOverflowCount = new AtomicInteger(0);
     private final SensorEventListener sensorEventListener;
     private final OverlayMode overlayMode;
     private final android.os.IBinder hostWindowToken; // nullable
 
     private boolean isOverlayRunning = false;
-    private int sensorDropCount = 0;
+    // 传感器回调线程累加，停止时由主线程清零，需原子访问
+    private final AtomicInteger sensorDropCount = new AtomicInteger(0);
+    private volatile HistoricalSampleMode historicalSampleMode = HistoricalSampleMode.COALESCE;
+
+    // 传感器批量模式：> 0 时按 maxReportLatencyUs 批量上报，并在专用线程接收回调
+    private int sensorMaxReportLatencyUs = 0;
+    private HandlerThread sensorThread;
+    // 是否同时上报加速度计（供输入抽象层的互补滤波使用）
+    private boolean accelerometerEnabled = false;
+
+    // 缓存的显示 metrics（不可变），仅在显示变化/配置变化时刷新，触摸路径不再查询系统服务
+    private volatile RawWindowEvent.Metrics cachedMetrics;
+
+    // 输入线程（RawEventSink 的唯一消费者）
+    private int inputThreadPriority = DEFAULT_INPUT_THREAD_PRIORITY;
+    private HandlerThread inputThread;
+    private volatile Handler inputHandler;
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+    private final Runnable drainRunnable = this::drainEventQueue;
+    // 回退同步分发时保证仍然只有一个消费者
+    private final Object drainLock = new Object();
+
+    // 队列统计：深度由环形缓冲区 O(1) 计算，等待时间由消费者线程写入
+    private volatile int maxQueueDepth = 0;
+    private volatile long lastQueueWaitNanos = 0;
+    private volatile long maxQueueWaitNanos = 0;
+    private volatile long totalQueueWaitNanos = 0;
+    private volatile long dispatchedEventCount = 0;
 
     // 构造函数
     public PlatformAdaptationLayer(Context context, RawEventSink sink) {
@@ -61,8 +134,14 @@ public final class PlatformAdaptationLayer {
         this.hostWindowToken = hostWindowToken;
         this.sensorManager = (SensorManager) context.getSystemService(Context.SENSOR_SERVICE);
         this.gyroscopeSensor = sensorManager.getDefaultSensor(Sensor.TYPE_GYROSCOPE);
+        this.accelerometerSensor = sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
         this.windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
-        this.eventQueue = new ConcurrentLinkedQueue<>();
+        this.displayManager = (DisplayManager) context.getSystemService(Context.DISPLAY_SERVICE);
+        this.mainHandler = new Handler(Looper.getMainLooper());
+        this.cachedMetrics = queryMetrics();
+        this.pointerRing = new RawEventRing(POINTER_RING_CAPACITY);
+        this.sensorRing = new RawEventRing(SENSOR_RING_CAPACITY);
+        this.criticalOverflow = new ConcurrentLinkedQueue<>();
         this.overlayView = null; // 延迟到startOverlay时创建
         
         // 初始化传感器事件监听器
@@ -77,6 +156,24 @@ public final class PlatformAdaptationLayer {
                 // 处理传感器精度变化
             }
         };
+
+        // 显示变化监听（旋转、分辨率变化），回调在主线程，与触摸事件同一生产者
+        this.displayListener = new DisplayManager.DisplayListener() {
+            @Override
+            public void onDisplayAdded(int displayId) {
+            }
+
+            @Override
+            public void onDisplayRemoved(int displayId) {
+            }
+
+            @Override
+            public void onDisplayChanged(int displayId) {
+                if (displayId == Display.DEFAULT_DISPLAY) {
+                    refreshMetrics();
+                }
+            }
+        };
     }
 
     /**
@@ -87,16 +184,21 @@ public final class PlatformAdaptationLayer {
             return;
         }
 
+        // 先启动输入线程，保证 ATTACH_FAILED 等窗口事件同样在输入线程上分发
+        startInputThread();
+
         // 能力检查与可运行失败处理
         if (overlayMode == OverlayMode.SYSTEM_OVERLAY) {
             if (!android.provider.Settings.canDrawOverlays(context)) {
                 // 关键：不要崩溃，让测试/上层可以观测到失败原因
-                sendRawWindowEvent(RawWindowEvent.Kind.ATTACH_FAILED, getCurrentMetrics());
+                sendRawWindowEvent(RawWindowEvent.Kind.ATTACH_FAILED, refreshCachedMetrics());
+                stopInputThread();
                 return;
             }
         } else {
             if (hostWindowToken == null) {
-                sendRawWindowEvent(RawWindowEvent.Kind.ATTACH_FAILED, getCurrentMetrics());
+                sendRawWindowEvent(RawWindowEvent.Kind.ATTACH_FAILED, refreshCachedMetrics());
+                stopInputThread();
                 return;
             }
         }
@@ -111,16 +213,15 @@ public final class PlatformAdaptationLayer {
         windowManager.addView(overlayView, params);
         
         // 注册传感器监听器（最高采样率）
-        sensorManager.registerListener(
-                sensorEventListener,
-                gyroscopeSensor,
-                SensorManager.SENSOR_DELAY_FASTEST
-        );
+        registerSensorListener();
+
+        // 监听显示变化，刷新缓存的 metrics
+        displayManager.registerDisplayListener(displayListener, mainHandler);
 
         isOverlayRunning = true;
         
-        // 发送窗口附加事件
-        sendRawWindowEvent(RawWindowEvent.Kind.ATTACHED, getCurrentMetrics());
+        // 发送窗口附加事件（附加时重新查询一次，保证基准正确）
+        sendRawWindowEvent(RawWindowEvent.Kind.ATTACHED, refreshCachedMetrics());
     }
 
     /**
@@ -135,16 +236,214 @@ public final class PlatformAdaptationLayer {
         windowManager.removeView(overlayView);
         
         // 注销传感器监听器
-        sensorManager.unregisterListener(sensorEventListener);
+        unregisterSensorListener();
+
+        // 注销显示变化监听
+        displayManager.unregisterDisplayListener(displayListener);
 
         isOverlayRunning = false;
         
         // 发送窗口分离事件
-        sendRawWindowEvent(RawWindowEvent.Kind.DETACHED, getCurrentMetrics());
-        
-        // 清空事件队列
-        eventQueue.clear();
-        sensorDropCount = 0;
+        sendRawWindowEvent(RawWindowEvent.Kind.DETACHED, cachedMetrics);
+        sensorDropCount.set(0);
+
+        // 安全退出输入线程：已入队的事件（包括 DETACHED）会先分发完毕
+        stopInputThread();
+    }
+
+    /**
+     * 设置输入线程优先级（android.os.Process.THREAD_PRIORITY_*）
+     * 需在 startOverlay() 之前调用，运行中修改会在下次启动时生效
+     */
+    public void setInputThreadPriority(int priority) {
+        this.inputThreadPriority = priority;
+    }
+
+    /**
+     * 设置历史样本处理方式
+     */
+    public void setHistoricalSampleMode(HistoricalSampleMode mode) {
+        this.historicalSampleMode = mode;
+    }
+
+    /**
+     * 设置传感器批量上报延迟（微秒）
+     * <p>
+     * 0（默认）：传感器回调在主线程逐个上报。
+     * &gt; 0：以 maxReportLatencyUs 注册，允许硬件 FIFO 攒批后一次性上报，CPU 可在帧间休眠；
+     * 回调在专用的传感器线程上执行，样本直接写入传感器通道的预分配槽位。
+     * 需在 startOverlay() 之前调用。
+     */
+    public void setSensorMaxReportLatencyUs(int maxReportLatencyUs) {
+        this.sensorMaxReportLatencyUs = Math.max(0, maxReportLatencyUs);
+    }
+
+    /**
+     * 设置是否上报加速度计样本
+     * 加速度计与陀螺仪注册到同一个回调线程，保持传感器通道单生产者。需在 startOverlay() 之前调用。
+     */
+    public void setAccelerometerEnabled(boolean enabled) {
+        this.accelerometerEnabled = enabled;
+    }
+
+    /**
+     * 获取传感器批量上报延迟（微秒）
+     */
+    public int getSensorMaxReportLatencyUs() {
+        return sensorMaxReportLatencyUs;
+    }
+
+    /**
+     * 获取历史样本处理方式
+     */
+    public HistoricalSampleMode getHistoricalSampleMode() {
+        return historicalSampleMode;
+    }
+
+    /**
+     * 获取输入线程优先级
+     */
+    public int getInputThreadPriority() {
+        return inputThreadPriority;
+    }
+
+    /**
+     * 获取当前队列深度（等待分发的事件数）
+     */
+    public int getQueueDepth() {
+        return pointerRing.size() + sensorRing.size() + criticalOverflowCount.get();
+    }
+
+    /**
+     * 获取历史最大队列深度
+     */
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    /**
+     * 获取最近一个事件在队列中的等待时间（纳秒）
+     */
+    public long getLastQueueWaitNanos() {
+        return lastQueueWaitNanos;
+    }
+
+    /**
+     * 获取历史最大队列等待时间（纳秒）
+     */
+    public long getMaxQueueWaitNanos() {
+        return maxQueueWaitNanos;
+    }
+
+    /**
+     * 获取平均队列等待时间（纳秒）
+     */
+    public long getAverageQueueWaitNanos() {
+        long count = dispatchedEventCount;
+        return count == 0 ? 0 : totalQueueWaitNanos / count;
+    }
+
+    /**
+     * 重置队列统计
+     */
+    public void resetQueueStats() {
+        maxQueueDepth = getQueueDepth();
+        lastQueueWaitNanos = 0;
+        maxQueueWaitNanos = 0;
+        totalQueueWaitNanos = 0;
+        dispatchedEventCount = 0;
+    }
+
+    /**
+     * 注册陀螺仪（及可选的加速度计）监听
+     * 批量模式下使用专用传感器线程作为回调 Handler，该线程即为传感器通道的唯一生产者
+     */
+    private void registerSensorListener() {
+        if (gyroscopeSensor == null) {
+            Log.w(TAG, "Gyroscope not available");
+            return;
+        }
+        boolean withAccelerometer = accelerometerEnabled && accelerometerSensor != null;
+        if (accelerometerEnabled && accelerometerSensor == null) {
+            Log.w(TAG, "Accelerometer not available, sensor fusion disabled");
+        }
+        if (sensorMaxReportLatencyUs <= 0) {
+            sensorManager.registerListener(
+                    sensorEventListener,
+                    gyroscopeSensor,
+                    SensorManager.SENSOR_DELAY_FASTEST
+            );
+            if (withAccelerometer) {
+                // 互补滤波只需重力方向，游戏级频率即可
+                sensorManager.registerListener(
+                        sensorEventListener,
+                        accelerometerSensor,
+                        SensorManager.SENSOR_DELAY_GAME
+                );
+            }
+            return;
+        }
+
+        if (gyroscopeSensor.getFifoMaxEventCount() == 0) {
+            // 没有硬件 FIFO 时 maxReportLatencyUs 会被忽略，但专用线程仍然让主线程免于传感器回调
+            Log.w(TAG, "Gyroscope has no hardware FIFO, batching will not take effect");
+        }
+        sensorThread = new HandlerThread(SENSOR_THREAD_NAME, inputThreadPriority);
+        sensorThread.start();
+        sensorManager.registerListener(
+                sensorEventListener,
+                gyroscopeSensor,
+                SensorManager.SENSOR_DELAY_FASTEST,
+                sensorMaxReportLatencyUs,
+                new Handler(sensorThread.getLooper())
+        );
+        if (withAccelerometer) {
+            sensorManager.registerListener(
+                    sensorEventListener,
+                    accelerometerSensor,
+                    SensorManager.SENSOR_DELAY_GAME,
+                    sensorMaxReportLatencyUs,
+                    new Handler(sensorThread.getLooper())
+            );
+        }
+        Log.d(TAG, "Gyroscope registered in batch mode, maxReportLatencyUs=" + sensorMaxReportLatencyUs);
+    }
+
+    /**
+     * 注销传感器监听并退出传感器线程
+     */
+    private void unregisterSensorListener() {
+        sensorManager.unregisterListener(sensorEventListener);
+        if (sensorThread != null) {
+            sensorThread.quitSafely();
+            sensorThread = null;
+        }
+    }
+
+    /**
+     * 启动输入线程
+     */
+    private void startInputThread() {
+        if (inputThread != null) {
+            return;
+        }
+        inputThread = new HandlerThread(INPUT_THREAD_NAME, inputThreadPriority);
+        inputThread.start();
+        inputHandler = new Handler(inputThread.getLooper());
+        Log.d(TAG, "Input thread started, priority=" + inputThreadPriority);
+    }
+
+    /**
+     * 停止输入线程
+     */
+    private void stopInputThread() {
+        if (inputThread == null) {
+            return;
+        }
+        inputThread.quitSafely();
+        inputThread = null;
+        inputHandler = null;
+        Log.d(TAG, "Input thread stopped");
     }
 
     /**
@@ -170,9 +469,40 @@ public final class PlatformAdaptationLayer {
     }
 
     /**
-     * 获取当前显示 metrics
+     * 获取当前显示 metrics（缓存值，无系统调用、无分配）
      */
     private RawWindowEvent.Metrics getCurrentMetrics() {
+        return cachedMetrics;
+    }
+
+    /**
+     * 重新查询并更新缓存的 metrics（不发送事件）
+     */
+    private RawWindowEvent.Metrics refreshCachedMetrics() {
+        cachedMetrics = queryMetrics();
+        return cachedMetrics;
+    }
+
+    /**
+     * 刷新 metrics，发生变化时发送 METRICS_CHANGED
+     * 由 DisplayListener 与 overlay 配置变化触发（主线程）
+     */
+    private void refreshMetrics() {
+        RawWindowEvent.Metrics previous = cachedMetrics;
+        RawWindowEvent.Metrics current = queryMetrics();
+        if (current.equals(previous)) {
+            return;
+        }
+        cachedMetrics = current;
+        if (isOverlayRunning) {
+            sendRawWindowEvent(RawWindowEvent.Kind.METRICS_CHANGED, current);
+        }
+    }
+
+    /**
+     * 从系统查询显示 metrics
+     */
+    private RawWindowEvent.Metrics queryMetrics() {
         android.util.DisplayMetrics displayMetrics = context.getResources().getDisplayMetrics();
         int rotation = windowManager.getDefaultDisplay().getRotation();
         
@@ -186,25 +516,29 @@ public final class PlatformAdaptationLayer {
 
     /**
      * 处理触摸事件
+     * 直接写入预分配槽位，不创建中间对象
+     * <p>
+     * 多指：ACTION_POINTER_DOWN/UP 映射为 DOWN/UP，changedId 为 actionIndex 对应的指针，
+     * pointers 仍携带全部指针，上层据 changedId 只切换该指针的状态。
      */
     private void handleTouchEvent(MotionEvent event) {
-        long timeNanos = event.getEventTime() * 1000000; // 转换为纳秒
         RawPointerEvent.Action action;
         int changedId = -1;
-        List<RawPointerEvent.Pointer> pointers = new ArrayList<>();
 
         // 转换 MotionEvent.Action 为 RawPointerEvent.Action
         switch (event.getActionMasked()) {
             case MotionEvent.ACTION_DOWN:
+            case MotionEvent.ACTION_POINTER_DOWN:
                 action = RawPointerEvent.Action.DOWN;
-                changedId = event.getPointerId(0);
+                changedId = event.getPointerId(event.getActionIndex());
                 break;
             case MotionEvent.ACTION_MOVE:
                 action = RawPointerEvent.Action.MOVE;
                 break;
             case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_POINTER_UP:
                 action = RawPointerEvent.Action.UP;
-                changedId = event.getPointerId(0);
+                changedId = event.getPointerId(event.getActionIndex());
                 break;
             case MotionEvent.ACTION_CANCEL:
                 action = RawPointerEvent.Action.CANCEL;
@@ -213,129 +547,323 @@ public final class PlatformAdaptationLayer {
                 return;
         }
 
-        // 收集所有指针信息
-        for (int i = 0; i < event.getPointerCount(); i++) {
-            int pointerId = event.getPointerId(i);
-            float x = event.getX(i);
-            float y = event.getY(i);
-            pointers.add(new RawPointerEvent.Pointer(pointerId, x, y));
+        RawWindowEvent.Metrics metrics = getCurrentMetrics();
+
+        // 先按时间顺序转发批量历史样本（均为 MOVE，可丢）
+        if (historicalSampleMode == HistoricalSampleMode.FORWARD && action != RawPointerEvent.Action.CANCEL) {
+            int historySize = event.getHistorySize();
+            for (int pos = 0; pos < historySize; pos++) {
+                publishPointerSample(event, pos, historicalEventTimeNanos(event, pos),
+                        RawPointerEvent.Action.MOVE, -1, metrics);
+            }
         }
 
-        // 创建 RawPointerEvent
-        RawPointerEvent rawPointerEvent = new RawPointerEvent(
-                timeNanos,
-                action,
-                changedId,
-                pointers,
-                getCurrentMetrics()
-        );
+        publishPointerSample(event, -1, eventTimeNanos(event), action, changedId, metrics);
+    }
+
+    /**
+     * 写入一个指针样本
+     * @param historyPos 历史样本下标，-1 表示当前样本
+     */
+    private void publishPointerSample(MotionEvent event, int historyPos, long timeNanos,
+                                      RawPointerEvent.Action action, int changedId,
+                                      RawWindowEvent.Metrics metrics) {
+        boolean critical = action != RawPointerEvent.Action.MOVE;
+        RawEventRing.Slot slot = claimPointerSlot(critical);
+        if (slot == null) {
+            if (critical) {
+                // 关键事件（永不丢）：进入溢出队列
+                enqueueCriticalOverflow(toRawPointerEvent(event, timeNanos, action, changedId, metrics));
+            }
+            // MOVE 直接丢弃：后续 MOVE 会携带完整的最新位置
+            return;
+        }
+
+        slot.type = RawEventRing.TYPE_POINTER;
+        slot.timeNanos = timeNanos;
+        slot.action = action;
+        slot.changedId = changedId;
+        slot.metrics = metrics;
+        int count = Math.min(event.getPointerCount(), MAX_POINTERS);
+        for (int i = 0; i < count; i++) {
+            slot.pointerIds[i] = event.getPointerId(i);
+            if (historyPos < 0) {
+                slot.pointerXs[i] = event.getX(i);
+                slot.pointerYs[i] = event.getY(i);
+            } else {
+                slot.pointerXs[i] = event.getHistoricalX(i, historyPos);
+                slot.pointerYs[i] = event.getHistoricalY(i, historyPos);
+            }
+        }
+        slot.pointerCount = count;
+        publishSlot(pointerRing, slot);
+    }
+
+    /**
+     * 获取 MotionEvent 的纳秒时间戳（API 34+ 为真实纳秒，之前由毫秒换算）
+     */
+    private static long eventTimeNanos(MotionEvent event) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE) {
+            return event.getEventTimeNanos();
+        }
+        return event.getEventTime() * 1000000; // 转换为纳秒
+    }
+
+    /**
+     * 获取历史样本的纳秒时间戳
+     */
+    private static long historicalEventTimeNanos(MotionEvent event, int pos) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE) {
+            return event.getHistoricalEventTimeNanos(pos);
+        }
+        return event.getHistoricalEventTime(pos) * 1000000;
+    }
 
-        // 发送 RawPointerEvent（关键事件，永不丢）
-        sendRawEvent(rawPointerEvent);
+    /**
+     * 将 MotionEvent 当前样本转换为不可变的 RawPointerEvent（仅溢出路径使用）
+     */
+    private RawPointerEvent toRawPointerEvent(MotionEvent event, long timeNanos, RawPointerEvent.Action action,
+                                              int changedId, RawWindowEvent.Metrics metrics) {
+        int count = Math.min(event.getPointerCount(), MAX_POINTERS);
+        List<RawPointerEvent.Pointer> pointers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            pointers.add(new RawPointerEvent.Pointer(event.getPointerId(i), event.getX(i), event.getY(i)));
+        }
+        return new RawPointerEvent(timeNanos, action, changedId, pointers, metrics);
     }
 
     /**
      * 处理传感器事件
+     * 时间戳使用硬件采样时间 SensorEvent.timestamp（批量上报时与回调时间可相差 maxReportLatencyUs）
      */
     private void handleSensorEvent(SensorEvent event) {
-        long timeNanos = System.nanoTime();
-        
-        // 转换传感器精度
-        RawSensorEvent.Accuracy accuracy = RawSensorEvent.Accuracy.fromAndroidAccuracy(event.accuracy);
-        
-        // 创建 RawSensorEvent
-        RawSensorEvent rawSensorEvent = new RawSensorEvent(
-                timeNanos,
-                RawSensorEvent.SensorType.GYROSCOPE,
-                event.values.clone(), // 复制数组，避免并发问题
-                accuracy
-        );
+        long timeNanos = event.timestamp;
 
-        // 发送 RawSensorEvent（可丢）
-        boolean sent = sendRawEvent(rawSensorEvent);
-        if (!sent) {
-            sensorDropCount++;
-            // 每 100 个丢包发送一次丢包事件
-            if (sensorDropCount % 100 == 0) {
-                sendRawDropEvent(RawDropEvent.Kind.SENSOR, sensorDropCount);
-                sensorDropCount = 0;
-            }
+        // sensor 样本最先被丢弃：剩余空间低于预留量即放弃写入
+        RawEventRing.Slot slot = sensorRing.size() < SENSOR_RING_CAPACITY - CRITICAL_RESERVED_SLOTS
+                ? sensorRing.claim()
+                : null;
+        if (slot == null) {
+            onSensorSampleDropped();
+            return;
+        }
+
+        slot.type = RawEventRing.TYPE_SENSOR;
+        slot.timeNanos = timeNanos;
+        slot.sensorType = event.sensor.getType() == Sensor.TYPE_ACCELEROMETER
+                ? RawSensorEvent.SensorType.ACCELEROMETER
+                : RawSensorEvent.SensorType.GYROSCOPE;
+        // 直接拷贝到槽位内的数组，避免 values.clone()
+        int n = Math.min(event.values.length, slot.values.length);
+        for (int i = 0; i < n; i++) {
+            slot.values[i] = event.values[i];
         }
+        slot.accuracy = RawSensorEvent.Accuracy.fromAndroidAccuracy(event.accuracy);
+        publishSlot(sensorRing, slot);
     }
 
     /**
-     * 发送 Raw 事件
-     */
-    private boolean sendRawEvent(RawEvent event) {
-        // 检查队列大小，实现背压
-        if (eventQueue.size() >= MAX_QUEUE_SIZE) {
-            // 如果是关键事件（Pointer DOWN/UP/CANCEL），则移除最旧的非关键事件
-            if (event instanceof RawPointerEvent) {
-                RawPointerEvent pointerEvent = (RawPointerEvent) event;
-                if (pointerEvent.action == RawPointerEvent.Action.DOWN ||
-                    pointerEvent.action == RawPointerEvent.Action.UP ||
-                    pointerEvent.action == RawPointerEvent.Action.CANCEL) {
-                    // 移除最旧的事件，直到队列有空间
-                    while (eventQueue.size() >= MAX_QUEUE_SIZE) {
-                        RawEvent oldest = eventQueue.poll();
-                        // 如果移除的是关键事件，则重新添加
-                        if (oldest instanceof RawPointerEvent) {
-                            RawPointerEvent oldestPointer = (RawPointerEvent) oldest;
-                            if (oldestPointer.action == RawPointerEvent.Action.DOWN ||
-                                oldestPointer.action == RawPointerEvent.Action.UP ||
-                                oldestPointer.action == RawPointerEvent.Action.CANCEL) {
-                                eventQueue.add(oldest);
-                            }
-                        }
-                    }
-                } else {
-                    // 非关键事件，直接丢弃
-                    return false;
-                }
-            } else {
-                // 非指针事件，直接丢弃
-                return false;
+     * 记录一次 sensor 丢包，累计到阈值时上报 RawDropEvent
+     */
+    private void onSensorSampleDropped() {
+        if (sensorDropCount.incrementAndGet() >= SENSOR_DROP_REPORT_INTERVAL) {
+            // 先原子取走累计值，避免与清零并发时重复上报或丢失计数
+            int dropped = sensorDropCount.getAndSet(0);
+            // 丢包事件可以使用预留槽位；若仍然写满则把计数加回，下次再报
+            if (dropped > 0 && !sendRawDropEvent(RawDropEvent.Kind.SENSOR, dropped)) {
+                sensorDropCount.addAndGet(dropped);
             }
         }
-        
-        // 添加到队列并处理
-        eventQueue.add(event);
-        processEventQueue();
-        return true;
     }
 
     /**
-     * 处理事件队列
+     * 取得指针通道的可写槽位
+     * @param critical 是否为关键事件（关键事件可使用预留槽位）
+     * @return 槽位；通道已满或溢出队列尚未清空（需保持顺序）时返回 null
+     */
+    private RawEventRing.Slot claimPointerSlot(boolean critical) {
+        if (criticalOverflowCount.get() > 0) {
+            return null;
+        }
+        int limit = critical ? POINTER_RING_CAPACITY : POINTER_RING_CAPACITY - CRITICAL_RESERVED_SLOTS;
+        if (pointerRing.size() >= limit) {
+            return null;
+        }
+        return pointerRing.claim();
+    }
+
+    /**
+     * 关键事件进入溢出队列
+     */
+    private void enqueueCriticalOverflow(RawEvent event) {
+        criticalOverflow.add(event);
+        criticalOverflowCount.incrementAndGet();
+        updateMaxQueueDepth();
+        scheduleDrain();
+    }
+
+    /**
+     * 发布槽位并通知输入线程
+     */
+    private void publishSlot(RawEventRing ring, RawEventRing.Slot slot) {
+        slot.enqueueTimeNanos = System.nanoTime();
+        ring.publish();
+        updateMaxQueueDepth();
+        scheduleDrain();
+    }
+
+    /**
+     * 更新最大队列深度（统计用途，允许竞争下的近似值）
+     */
+    private void updateMaxQueueDepth() {
+        int depth = getQueueDepth();
+        if (depth > maxQueueDepth) {
+            maxQueueDepth = depth;
+        }
+    }
+
+    /**
+     * 调度输入线程分发队列
+     * 已有未执行的分发任务时不重复 post，避免每个事件都产生一条 Message
      */
-    private void processEventQueue() {
-        RawEvent event;
-        while ((event = eventQueue.poll()) != null) {
-            if (event instanceof RawWindowEvent) {
-                sink.onRawWindowEvent((RawWindowEvent) event);
-            } else if (event instanceof RawPointerEvent) {
-                sink.onRawPointerEvent((RawPointerEvent) event);
-            } else if (event instanceof RawSensorEvent) {
-                sink.onRawSensorEvent((RawSensorEvent) event);
-            } else if (event instanceof RawDropEvent) {
-                sink.onRawDropEvent((RawDropEvent) event);
+    private void scheduleDrain() {
+        Handler handler = inputHandler;
+        if (handler == null) {
+            // 输入线程未运行（overlay 未启动），退化为调用线程同步分发
+            drainEventQueue();
+            return;
+        }
+        if (drainScheduled.compareAndSet(false, true)) {
+            if (!handler.post(drainRunnable)) {
+                // Looper 已退出，回退到同步分发
+                drainScheduled.set(false);
+                drainEventQueue();
             }
         }
     }
 
     /**
-     * 发送 RawWindowEvent
+     * 处理事件队列（在输入线程上执行）
+     */
+    private void drainEventQueue() {
+        // 先清标志再取队列，保证分发期间新入队的事件会触发下一次调度
+        drainScheduled.set(false);
+        synchronized (drainLock) {
+            drainPointerLane();
+            drainRing(sensorRing);
+        }
+    }
+
+    /**
+     * 分发指针/窗口通道：先环形缓冲区，再溢出队列（溢出期间生产者不会写入环形缓冲区，顺序得以保持）
+     */
+    private void drainPointerLane() {
+        drainRing(pointerRing);
+        RawEvent overflow;
+        while ((overflow = criticalOverflow.poll()) != null) {
+            criticalOverflowCount.decrementAndGet();
+            dispatch(overflow);
+        }
+    }
+
+    /**
+     * 分发单个环形缓冲区中的全部槽位
+     */
+    private void drainRing(RawEventRing ring) {
+        RawEventRing.Slot slot;
+        while ((slot = ring.peek()) != null) {
+            recordQueueWait(System.nanoTime() - slot.enqueueTimeNanos);
+            dispatchSlot(slot, sink);
+            // 分发完成后才释放槽位，sink 回调期间槽位内容保持稳定
+            ring.release();
+        }
+    }
+
+    /**
+     * 记录队列等待时间
+     */
+    private void recordQueueWait(long waitNanos) {
+        lastQueueWaitNanos = waitNanos;
+        if (waitNanos > maxQueueWaitNanos) {
+            maxQueueWaitNanos = waitNanos;
+        }
+        totalQueueWaitNanos += waitNanos;
+        dispatchedEventCount++;
+    }
+
+    /**
+     * 分发槽位到 sink（指针与传感器样本直接传递槽位内容，不分配对象）
+     */
+    static void dispatchSlot(RawEventRing.Slot slot, RawEventSink sink) {
+        switch (slot.type) {
+            case RawEventRing.TYPE_WINDOW:
+                sink.onRawWindowEvent(new RawWindowEvent(slot.timeNanos, slot.windowKind, slot.metrics));
+                break;
+            case RawEventRing.TYPE_POINTER:
+                // 热路径：直接传递槽位中的基本类型数组，sink 可选择不分配对象
+                sink.onRawPointerSample(slot.timeNanos, slot.action, slot.changedId, slot.pointerCount,
+                        slot.pointerIds, slot.pointerXs, slot.pointerYs, slot.metrics);
+                break;
+            case RawEventRing.TYPE_SENSOR:
+                // 热路径：以原始分量分发，sink 可选择不分配对象
+                sink.onRawSensorSample(slot.timeNanos, slot.sensorType,
+                        slot.values[0], slot.values[1], slot.values[2], slot.accuracy);
+                break;
+            case RawEventRing.TYPE_DROP:
+                sink.onRawDropEvent(new RawDropEvent(slot.timeNanos, slot.dropKind, slot.droppedCount));
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 分发单个事件到 sink
+     */
+    private void dispatch(RawEvent event) {
+        if (event instanceof RawWindowEvent) {
+            sink.onRawWindowEvent((RawWindowEvent) event);
+        } else if (event instanceof RawPointerEvent) {
+            sink.onRawPointerEvent((RawPointerEvent) event);
+        } else if (event instanceof RawSensorEvent) {
+            sink.onRawSensorEvent((RawSensorEvent) event);
+        } else if (event instanceof RawDropEvent) {
+            sink.onRawDropEvent((RawDropEvent) event);
+        }
+    }
+
+    /**
+     * 发送 RawWindowEvent（关键事件，永不丢）
      */
     private void sendRawWindowEvent(RawWindowEvent.Kind kind, RawWindowEvent.Metrics metrics) {
-        RawWindowEvent event = new RawWindowEvent(System.nanoTime(), kind, metrics);
-        sendRawEvent(event);
+        long timeNanos = System.nanoTime();
+        RawEventRing.Slot slot = claimPointerSlot(true);
+        if (slot == null) {
+            enqueueCriticalOverflow(new RawWindowEvent(timeNanos, kind, metrics));
+            return;
+        }
+        slot.type = RawEventRing.TYPE_WINDOW;
+        slot.timeNanos = timeNanos;
+        slot.windowKind = kind;
+        slot.metrics = metrics;
+        publishSlot(pointerRing, slot);
     }
 
     /**
-     * 发送 RawDropEvent
+     * 发送 RawDropEvent（走传感器通道，可使用预留槽位）
+     * @return 是否写入成功
      */
-    private void sendRawDropEvent(RawDropEvent.Kind kind, int droppedCount) {
-        RawDropEvent event = new RawDropEvent(System.nanoTime(), kind, droppedCount);
-        sendRawEvent(event);
+    private boolean sendRawDropEvent(RawDropEvent.Kind kind, int droppedCount) {
+        RawEventRing.Slot slot = sensorRing.claim();
+        if (slot == null) {
+            return false;
+        }
+        slot.type = RawEventRing.TYPE_DROP;
+        slot.timeNanos = System.nanoTime();
+        slot.dropKind = kind;
+        slot.droppedCount = droppedCount;
+        publishSlot(sensorRing, slot);
+        return true;
     }
 
     // 事件类型标记接口
@@ -347,6 +875,30 @@ public final class PlatformAdaptationLayer {
         void onRawPointerEvent(RawPointerEvent e);
         void onRawSensorEvent(RawSensorEvent e);
         void onRawDropEvent(RawDropEvent e);
+
+        /**
+         * 传感器样本的无分配分发入口（输入线程热路径）
+         * 默认实现包装为 RawSensorEvent；关心 GC 的 sink 可覆盖此方法直接读取分量
+         */
+        default void onRawSensorSample(long timeNanos, RawSensorEvent.SensorType sensorType,
+                                       float v0, float v1, float v2, RawSensorEvent.Accuracy accuracy) {
+            onRawSensorEvent(new RawSensorEvent(timeNanos, sensorType, new float[]{v0, v1, v2}, accuracy));
+        }
+
+        /**
+         * 指针样本的无分配分发入口（输入线程热路径）
+         * 数组属于环形缓冲区槽位，只在回调期间有效，前 pointerCount 项有效
+         * 默认实现包装为 RawPointerEvent；关心 GC 的 sink 可覆盖此方法直接读取数组
+         */
+        default void onRawPointerSample(long timeNanos, RawPointerEvent.Action action, int changedId,
+                                        int pointerCount, int[] pointerIds, float[] pointerXs, float[] pointerYs,
+                                        RawWindowEvent.Metrics display) {
+            List<RawPointerEvent.Pointer> pointers = new ArrayList<>(pointerCount);
+            for (int i = 0; i < pointerCount; i++) {
+                pointers.add(new RawPointerEvent.Pointer(pointerIds[i], pointerXs[i], pointerYs[i]));
+            }
+            onRawPointerEvent(new RawPointerEvent(timeNanos, action, changedId, pointers, display));
+        }
     }
 
     // Raw 窗口事件
@@ -374,6 +926,30 @@ public final class PlatformAdaptationLayer {
                 this.densityDpi = densityDpi;
                 this.rotation = rotation;
             }
+
+            @Override
+            public boolean equals(Object o) {
+                if (this == o) {
+                    return true;
+                }
+                if (!(o instanceof Metrics)) {
+                    return false;
+                }
+                Metrics other = (Metrics) o;
+                return widthPx == other.widthPx
+                        && heightPx == other.heightPx
+                        && densityDpi == other.densityDpi
+                        && rotation == other.rotation;
+            }
+
+            @Override
+            public int hashCode() {
+                int result = widthPx;
+                result = 31 * result + heightPx;
+                result = 31 * result + densityDpi;
+                result = 31 * result + rotation;
+                return result;
+            }
         }
 
         public RawWindowEvent(long timeNanos, Kind kind, Metrics metrics) {
@@ -419,7 +995,7 @@ public final class PlatformAdaptationLayer {
         }
     }
 
-    // Raw 传感器事件
+    // Raw 传感器事件（timeNanos 为 SensorEvent.timestamp，硬件采样时刻）
     public static final class RawSensorEvent implements RawEvent {
         public final long timeNanos;
         public final SensorType sensorType;
@@ -427,7 +1003,8 @@ public final class PlatformAdaptationLayer {
         public final Accuracy accuracy;
 
         public enum SensorType {
-            GYROSCOPE
+            GYROSCOPE,
+            ACCELEROMETER
         }
 
         public enum Accuracy {
@@ -487,5 +1064,12 @@ public final class PlatformAdaptationLayer {
             handleTouchEvent(event);
             return true;
         }
+
+        @Override
+        protected void onConfigurationChanged(Configuration newConfig) {
+            super.onConfigurationChanged(newConfig);
+            // 资源中的 DisplayMetrics 在配置变化后才更新，这里再刷新一次
+            refreshMetrics();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,128 @@
+package com.linecat.wmmtcontroller.layer;
+
+import com.linecat.wmmtcontroller.layer.PlatformAdaptationLayer.RawDropEvent;
+import com.linecat.wmmtcontroller.layer.PlatformAdaptationLayer.RawPointerEvent;
+import com.linecat.wmmtcontroller.layer.PlatformAdaptationLayer.RawSensorEvent;
+import com.linecat.wmmtcontroller.layer.PlatformAdaptationLayer.RawWindowEvent;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Raw 事件环形缓冲区
+ * <p>
+ * 单生产者 / 单消费者（SPSC），无锁，容量固定且为 2 的幂。
+ * 所有槽位在构造时预分配并重复使用，入队/出队不产生任何对象；占用量为 tail - head，O(1)。
+ * <p>
+ * 用法（生产者）：{@link #claim()} 取得空闲槽位 → 写入字段 → {@link #publish()}。
+ * 用法（消费者）：{@link #peek()} 取得最旧槽位 → 读取字段 → {@link #release()}。
+ */
+final class RawEventRing {
+    static final int TYPE_WINDOW = 0;
+    static final int TYPE_POINTER = 1;
+    static final int TYPE_SENSOR = 2;
+    static final int TYPE_DROP = 3;
+
+    private final Slot[] slots;
+    private final int capacity;
+    private final int mask;
+
+    // head 只由消费者推进，tail 只由生产者推进
+    private final AtomicLong head = new AtomicLong(0);
+    private final AtomicLong tail = new AtomicLong(0);
+
+    RawEventRing(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    /**
+     * 获取容量
+     */
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * 获取当前占用量（O(1)）
+     */
+    int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    /**
+     * 生产者：取得下一个可写槽位，缓冲区已满时返回 null
+     * 调用方写完字段后必须调用 {@link #publish()}
+     */
+    Slot claim() {
+        long t = tail.get();
+        if (t - head.get() >= capacity) {
+            return null;
+        }
+        return slots[(int) (t & mask)];
+    }
+
+    /**
+     * 生产者：发布最近一次 claim 的槽位
+     */
+    void publish() {
+        tail.lazySet(tail.get() + 1);
+    }
+
+    /**
+     * 消费者：取得最旧的已发布槽位，缓冲区为空时返回 null
+     */
+    Slot peek() {
+        long h = head.get();
+        if (h == tail.get()) {
+            return null;
+        }
+        return slots[(int) (h & mask)];
+    }
+
+    /**
+     * 消费者：释放最近一次 peek 的槽位
+     */
+    void release() {
+        head.lazySet(head.get() + 1);
+    }
+
+    /**
+     * 可复用的 Raw 事件槽位
+     * 按 type 决定哪些字段有效；引用字段（metrics、枚举）指向不可变对象，可安全复用
+     */
+    static final class Slot {
+        int type;
+        long timeNanos;
+        long enqueueTimeNanos;
+
+        // TYPE_POINTER
+        RawPointerEvent.Action action;
+        int changedId;
+        int pointerCount;
+        final int[] pointerIds = new int[PlatformAdaptationLayer.MAX_POINTERS];
+        final float[] pointerXs = new float[PlatformAdaptationLayer.MAX_POINTERS];
+        final float[] pointerYs = new float[PlatformAdaptationLayer.MAX_POINTERS];
+
+        // TYPE_POINTER / TYPE_WINDOW
+        RawWindowEvent.Metrics metrics;
+
+        // TYPE_WINDOW
+        RawWindowEvent.Kind windowKind;
+
+        // TYPE_SENSOR
+        RawSensorEvent.SensorType sensorType;
+        final float[] values = new float[3];
+        RawSensorEvent.Accuracy accuracy;
+
+        // TYPE_DROP
+        RawDropEvent.Kind dropKind;
+        int droppedCount;
+    }
+}
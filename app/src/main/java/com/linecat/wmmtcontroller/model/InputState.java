@@ -3,13 +3,15 @@ package com.linecat.wmmtcontroller.model;
 import com.linecat.wmmtcontroller.control.ControlAction;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
 /**
  * 输入状态类
  * 表示当前的输入状态
+ * <p>
+ * 按键集合以位图（KeySet）保存，可通过 reset() 清零后逐帧复用，copyFrom() 原地复制；
+ * 需要跨帧或跨线程持有时调用 snapshot() 取得独立副本（发布时复制）。
  */
 public class InputState {
     // 按键状态
@@ -30,7 +32,7 @@ public class InputState {
     private boolean mouseMiddle = false;
 
     // 键盘按键状态
-    private Set<String> keys = new HashSet<>();
+    private final KeySet keys = new KeySet();
 
     // 框架ID
     private long frameId = 0;
@@ -114,8 +116,8 @@ public class InputState {
     }
 
     private MouseState mouse = new MouseState();
-    private Set<String> keyboard = new HashSet<>();
-    private Set<String> gamepad = new HashSet<>(); // 添加游戏手柄字段
+    private final KeySet keyboard = new KeySet();
+    private final KeySet gamepad = new KeySet(); // 添加游戏手柄字段
     private List<JoystickState> joysticks = new ArrayList<>();
     private JoystickState joystick = new JoystickState(0.0f, 0.0f); // 添加 joystick 字段
     private GyroscopeState gyroscope = new GyroscopeState(); // 添加 gyroscope 字段
@@ -126,48 +128,153 @@ public class InputState {
 
     // 复制构造函数
     public InputState(InputState other) {
-        if (other != null) {
-            this.buttonA = other.buttonA;
-            this.buttonB = other.buttonB;
-            this.buttonX = other.buttonX;
-            this.buttonY = other.buttonY;
-            this.shoulderL = other.shoulderL;
-            this.shoulderR = other.shoulderR;
-            this.triggerL = other.triggerL;
-            this.triggerR = other.triggerR;
-            this.mouseX = other.mouseX;
-            this.mouseY = other.mouseY;
-            this.mouseLeft = other.mouseLeft;
-            this.mouseRight = other.mouseRight;
-            this.mouseMiddle = other.mouseMiddle;
-            this.frameId = other.frameId;
-            this.runtimeStatus = other.runtimeStatus != null ? other.runtimeStatus : "";
-
-            if (other.keys != null) {
-                this.keys.addAll(other.keys);
-            }
+        copyFrom(other);
+    }
+
+    /**
+     * 清零为新建时的状态，供逐帧复用（不分配对象）
+     */
+    public void reset() {
+        buttonA = false;
+        buttonB = false;
+        buttonX = false;
+        buttonY = false;
+        shoulderL = false;
+        shoulderR = false;
+        triggerL = 0.0f;
+        triggerR = 0.0f;
+        mouseX = 0.0f;
+        mouseY = 0.0f;
+        mouseLeft = false;
+        mouseRight = false;
+        mouseMiddle = false;
+        frameId = 0;
+        runtimeStatus = "ok";
+        keys.clear();
+        keyboard.clear();
+        gamepad.clear();
+
+        if (mouse == null) {
+            mouse = new MouseState();
+        }
+        mouse.setX(0.0f);
+        mouse.setY(0.0f);
+        mouse.setLeft(false);
+        mouse.setRight(false);
+        mouse.setMiddle(false);
+
+        if (joystick == null) {
+            joystick = new JoystickState(0.0f, 0.0f);
+        }
+        joystick.setX(0.0f);
+        joystick.setY(0.0f);
+        joystick.setDeadzone(0.1f);
+        joystick.setSmoothing(0.0f);
+
+        if (joysticks == null) {
+            joysticks = new ArrayList<>();
+        }
+        joysticks.clear();
+
+        if (gyroscope == null) {
+            gyroscope = new GyroscopeState();
+        }
+        gyroscope.setPitch(0.0f);
+        gyroscope.setRoll(0.0f);
+        gyroscope.setYaw(0.0f);
+        gyroscope.setDeadzone(2.0f);
+        gyroscope.setSmoothing(0.0f);
+    }
 
-            if (other.mouse != null) {
+    /**
+     * 原地复制另一个状态（复用本对象已有的嵌套对象，摇杆列表长度不变时不分配）
+     * @param other 源状态，为 null 时清零
+     */
+    public void copyFrom(InputState other) {
+        if (other == null) {
+            reset();
+            return;
+        }
+        if (other == this) {
+            return;
+        }
+        this.buttonA = other.buttonA;
+        this.buttonB = other.buttonB;
+        this.buttonX = other.buttonX;
+        this.buttonY = other.buttonY;
+        this.shoulderL = other.shoulderL;
+        this.shoulderR = other.shoulderR;
+        this.triggerL = other.triggerL;
+        this.triggerR = other.triggerR;
+        this.mouseX = other.mouseX;
+        this.mouseY = other.mouseY;
+        this.mouseLeft = other.mouseLeft;
+        this.mouseRight = other.mouseRight;
+        this.mouseMiddle = other.mouseMiddle;
+        this.frameId = other.frameId;
+        this.runtimeStatus = other.runtimeStatus != null ? other.runtimeStatus : "";
+
+        this.keys.copyFrom(other.keys);
+        this.keyboard.copyFrom(other.keyboard);
+        this.gamepad.copyFrom(other.gamepad);
+
+        if (other.mouse != null) {
+            if (this.mouse == null) {
                 this.mouse = new MouseState();
-                this.mouse.setX(other.mouse.getX());
-                this.mouse.setY(other.mouse.getY());
-                this.mouse.setLeft(other.mouse.getLeft());
-                this.mouse.setRight(other.mouse.getRight());
-                this.mouse.setMiddle(other.mouse.getMiddle());
             }
+            this.mouse.setX(other.mouse.getX());
+            this.mouse.setY(other.mouse.getY());
+            this.mouse.setLeft(other.mouse.getLeft());
+            this.mouse.setRight(other.mouse.getRight());
+            this.mouse.setMiddle(other.mouse.getMiddle());
+        }
 
-            if (other.joystick != null) {
-                this.joystick = new JoystickState(other.joystick.getX(), other.joystick.getY());
-                this.joystick.setDeadzone(other.joystick.getDeadzone());
-                this.joystick.setSmoothing(other.joystick.getSmoothing());
+        if (other.joystick != null) {
+            if (this.joystick == null) {
+                this.joystick = new JoystickState(0.0f, 0.0f);
             }
+            this.joystick.setX(other.joystick.getX());
+            this.joystick.setY(other.joystick.getY());
+            this.joystick.setDeadzone(other.joystick.getDeadzone());
+            this.joystick.setSmoothing(other.joystick.getSmoothing());
+        }
 
-            if (other.joysticks != null) {
-                for (JoystickState js : other.joysticks) {
+        if (other.joysticks != null) {
+            if (this.joysticks == null) {
+                this.joysticks = new ArrayList<>();
+            }
+            int size = other.joysticks.size();
+            while (this.joysticks.size() > size) {
+                this.joysticks.remove(this.joysticks.size() - 1);
+            }
+            for (int i = 0; i < size; i++) {
+                JoystickState js = other.joysticks.get(i);
+                if (i < this.joysticks.size()) {
+                    this.joysticks.get(i).setX(js.getX());
+                    this.joysticks.get(i).setY(js.getY());
+                } else {
                     this.joysticks.add(new JoystickState(js.getX(), js.getY()));
                 }
             }
         }
+
+        if (other.gyroscope != null) {
+            if (this.gyroscope == null) {
+                this.gyroscope = new GyroscopeState();
+            }
+            this.gyroscope.setPitch(other.gyroscope.getPitch());
+            this.gyroscope.setRoll(other.gyroscope.getRoll());
+            this.gyroscope.setYaw(other.gyroscope.getYaw());
+            this.gyroscope.setDeadzone(other.gyroscope.getDeadzone());
+            this.gyroscope.setSmoothing(other.gyroscope.getSmoothing());
+        }
+    }
+
+    /**
+     * 创建独立副本，用于跨帧或跨线程持有复用中的状态
+     */
+    public InputState snapshot() {
+        return new InputState(this);
     }
 
     // 从 ControlAction 创建 InputState
@@ -222,10 +329,12 @@ public class InputState {
     public void setMouseMiddle(boolean mouseMiddle) { this.mouseMiddle = mouseMiddle; }
 
     // 键盘按键相关 getter/setter
-    public Set<String> getKeys() { return keys; }
+    public KeySet getKeys() { return keys; }
+    // 复制内容，不持有传入的集合
     public void setKeys(Set<String> keys) {
         if (keys != null) {
-            this.keys = keys;
+            this.keys.clear();
+            this.keys.addAll(keys);
         }
     }
 
@@ -245,8 +354,14 @@ public class InputState {
     public MouseState getMouse() { return mouse; }
     public void setMouse(MouseState mouse) { this.mouse = mouse; }
 
-    public Set<String> getKeyboard() { return keyboard; }
-    public void setKeyboard(Set<String> keyboard) { this.keyboard = keyboard; }
+    public KeySet getKeyboard() { return keyboard; }
+    // 复制内容，不持有传入的集合
+    public void setKeyboard(Set<String> keyboard) {
+        this.keyboard.clear();
+        if (keyboard != null) {
+            this.keyboard.addAll(keyboard);
+        }
+    }
 
     // 添加键盘列表设置方法，用于测试
     public void setKeyboard(List<String> keys) {
@@ -298,11 +413,13 @@ public class InputState {
     }
 
     // 游戏手柄相关 getter/setter
-    public Set<String> getGamepad() { return gamepad; }
+    public KeySet getGamepad() { return gamepad; }
 
+    // 复制内容，不持有传入的集合
     public void setGamepad(Set<String> gamepad) {
         if (gamepad != null) {
-            this.gamepad = gamepad;
+            this.gamepad.clear();
+            this.gamepad.addAll(gamepad);
         }
     }
 
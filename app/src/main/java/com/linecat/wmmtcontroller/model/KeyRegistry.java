@@ -0,0 +1,75 @@
+package com.linecat.wmmtcontroller.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按键/按钮 ID 注册表
+ * <p>
+ * 为按键名和手柄按钮名分配进程内唯一的整数 ID（从 0 起连续分配），名称驻留（intern）。
+ * KeySet 以这些 ID 作为位下标。查询已注册名称不分配对象，只有首次出现的名称需要注册。
+ * 可在任意线程调用。
+ */
+public final class KeyRegistry {
+    private static final ConcurrentHashMap<String, Integer> IDS = new ConcurrentHashMap<>();
+    // 按 ID 排列的名称，扩容时整体替换
+    private static volatile String[] names = new String[64];
+    private static int count;
+
+    private KeyRegistry() {
+    }
+
+    /**
+     * 获取名称的 ID，未注册时注册
+     * @param name 按键或按钮名称，不能为 null
+     * @return ID
+     */
+    public static int idOf(String name) {
+        Integer id = IDS.get(name);
+        return id != null ? id : register(name);
+    }
+
+    /**
+     * 查询名称的 ID，不注册
+     * @param name 按键或按钮名称
+     * @return ID，未注册时返回 -1
+     */
+    public static int lookup(String name) {
+        Integer id = name != null ? IDS.get(name) : null;
+        return id != null ? id : -1;
+    }
+
+    /**
+     * 获取 ID 对应的名称
+     * @param id ID
+     * @return 驻留的名称，ID 未分配时返回 null
+     */
+    public static String nameOf(int id) {
+        String[] current = names;
+        return id >= 0 && id < current.length ? current[id] : null;
+    }
+
+    /**
+     * 已注册的名称数
+     */
+    public static synchronized int size() {
+        return count;
+    }
+
+    private static synchronized int register(String name) {
+        Integer existing = IDS.get(name);
+        if (existing != null) {
+            return existing;
+        }
+        int id = count++;
+        String[] current = names;
+        if (id >= current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[id] = name.intern();
+        // 先发布名称再发布 ID，其它线程拿到 ID 时一定能查到名称
+        names = current;
+        IDS.put(current[id], id);
+        return id;
+    }
+}
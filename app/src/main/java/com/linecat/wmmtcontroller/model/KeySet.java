@@ -0,0 +1,246 @@
+package com.linecat.wmmtcontroller.model;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * 按键集合
+ * <p>
+ * 以 KeyRegistry 分配的 ID 为下标的位图（long[]），对外仍是 Set&lt;String&gt;，
+ * 现有的 add/remove/contains/clear 调用不需要改动。增删查、清空与整体复制都不分配对象
+ * （只有首次出现的名称需要注册，位图需要扩容时才重新分配）；
+ * 两帧之间的按键变化即两个位图的异或。不保存 null 元素（add(null) 被忽略），非线程安全。
+ */
+public final class KeySet extends AbstractSet<String> {
+    private static final long[] EMPTY = new long[0];
+
+    private long[] words;
+
+    public KeySet() {
+        this.words = new long[2];
+    }
+
+    public KeySet(Collection<String> names) {
+        this();
+        addAll(names);
+    }
+
+    /**
+     * 由名称数组构建位图（用于不可变的状态快照）
+     */
+    public static long[] bitsOf(String[] names) {
+        if (names == null || names.length == 0) {
+            return EMPTY;
+        }
+        long[] bits = EMPTY;
+        for (String name : names) {
+            if (name == null) {
+                continue;
+            }
+            int id = KeyRegistry.idOf(name);
+            int word = id >>> 6;
+            if (word >= bits.length) {
+                bits = Arrays.copyOf(bits, word + 1);
+            }
+            bits[word] |= 1L << id;
+        }
+        return bits;
+    }
+
+    /**
+     * 两个位图是否包含相同的 ID（忽略末尾的零字）
+     */
+    public static boolean sameBits(long[] a, long[] b) {
+        int n = Math.max(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            if (word(a, i) != word(b, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 位图第 i 个字，越界时为 0
+     */
+    public static long word(long[] bits, int i) {
+        return i < bits.length ? bits[i] : 0L;
+    }
+
+    @Override
+    public boolean add(String name) {
+        if (name == null) {
+            // 未配置的映射键为 null，直接忽略
+            return false;
+        }
+        return set(KeyRegistry.idOf(name));
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        int id = o instanceof String ? KeyRegistry.lookup((String) o) : -1;
+        return id >= 0 && unset(id);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        int id = o instanceof String ? KeyRegistry.lookup((String) o) : -1;
+        return id >= 0 && get(id);
+    }
+
+    /**
+     * 按 ID 置位
+     * @return 之前是否未置位
+     */
+    public boolean set(int id) {
+        int word = id >>> 6;
+        if (word >= words.length) {
+            words = Arrays.copyOf(words, Math.max(word + 1, words.length * 2));
+        }
+        long mask = 1L << id;
+        boolean added = (words[word] & mask) == 0;
+        words[word] |= mask;
+        return added;
+    }
+
+    /**
+     * 按 ID 清位
+     * @return 之前是否已置位
+     */
+    public boolean unset(int id) {
+        int word = id >>> 6;
+        if (word >= words.length) {
+            return false;
+        }
+        long mask = 1L << id;
+        boolean removed = (words[word] & mask) != 0;
+        words[word] &= ~mask;
+        return removed;
+    }
+
+    /**
+     * 按 ID 查询
+     */
+    public boolean get(int id) {
+        int word = id >>> 6;
+        return word < words.length && (words[word] & (1L << id)) != 0;
+    }
+
+    /**
+     * 从 fromId 起的下一个已置位 ID
+     * @return ID，没有时返回 -1
+     */
+    public int nextSetBit(int fromId) {
+        int word = fromId >>> 6;
+        if (fromId < 0 || word >= words.length) {
+            return -1;
+        }
+        long bits = words[word] & (-1L << fromId);
+        while (true) {
+            if (bits != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word >= words.length) {
+                return -1;
+            }
+            bits = words[word];
+        }
+    }
+
+    /**
+     * 原地复制另一个集合的内容（容量足够时不分配）
+     */
+    public void copyFrom(KeySet other) {
+        if (words.length < other.words.length) {
+            words = new long[other.words.length];
+        }
+        System.arraycopy(other.words, 0, words, 0, other.words.length);
+        Arrays.fill(words, other.words.length, words.length, 0L);
+    }
+
+    /**
+     * 位图副本（去掉末尾的零字），作为跨线程发布的快照
+     */
+    public long[] toBits() {
+        int n = words.length;
+        while (n > 0 && words[n - 1] == 0L) {
+            n--;
+        }
+        return n == 0 ? EMPTY : Arrays.copyOf(words, n);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(words, 0L);
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        for (long word : words) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (long word : words) {
+            if (word != 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof KeySet) {
+            return sameBits(words, ((KeySet) o).words);
+        }
+        return super.equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    /**
+     * 按 ID 顺序遍历名称（不是字母顺序）
+     */
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private int next = nextSetBit(0);
+            private int last = -1;
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public String next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = nextSetBit(next + 1);
+                return KeyRegistry.nameOf(last);
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                unset(last);
+                last = -1;
+            }
+        };
+    }
+}
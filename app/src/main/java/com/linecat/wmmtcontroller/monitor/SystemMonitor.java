@@ -10,8 +10,9 @@ import java.util.Map;
  * 负责收集和管理系统状态，包括：
  * - 控制状态
  * - 布局状态
- * - RTT（Round Trip Time）
+ * - RTT（Round Trip Time）及其分位数、时钟偏移
  * - 丢包率
+ * - 重连统计
  * - 安全状态
  */
 public class SystemMonitor {
@@ -36,7 +37,13 @@ public class SystemMonitor {
     private ControlState controlState = ControlState.IDLE;
     private String currentLayout = "Unknown";
     private long rtt = 0;
+    private double rttP50Ms = 0;
+    private double rttP95Ms = 0;
+    private double rttP99Ms = 0;
+    private long clockOffsetMs = 0;
     private double packetLossRate = 0.0;
+    private long reconnectCount = 0;
+    private long lastOutageMs = 0;
     private SafetyState safetyState = SafetyState.SAFE;
     private long lastUpdateTime = System.currentTimeMillis();
 
@@ -113,6 +120,50 @@ public class SystemMonitor {
         return rtt;
     }
 
+    /**
+     * 设置延迟分布与时钟偏移
+     * @param p50Ms RTT 中位数（毫秒）
+     * @param p95Ms RTT 95 分位（毫秒）
+     * @param p99Ms RTT 99 分位（毫秒）
+     * @param clockOffsetMs 服务端时钟减去客户端时钟（毫秒）
+     */
+    public synchronized void setLatencyStats(double p50Ms, double p95Ms, double p99Ms, long clockOffsetMs) {
+        this.rttP50Ms = p50Ms;
+        this.rttP95Ms = p95Ms;
+        this.rttP99Ms = p99Ms;
+        this.clockOffsetMs = clockOffsetMs;
+        this.lastUpdateTime = System.currentTimeMillis();
+        notifyStateChange("rttP99Ms", null, p99Ms);
+    }
+
+    /**
+     * 获取 RTT 中位数（毫秒）
+     */
+    public synchronized double getRttP50Ms() {
+        return rttP50Ms;
+    }
+
+    /**
+     * 获取 RTT 95 分位（毫秒）
+     */
+    public synchronized double getRttP95Ms() {
+        return rttP95Ms;
+    }
+
+    /**
+     * 获取 RTT 99 分位（毫秒）
+     */
+    public synchronized double getRttP99Ms() {
+        return rttP99Ms;
+    }
+
+    /**
+     * 获取时钟偏移（毫秒）
+     */
+    public synchronized long getClockOffsetMs() {
+        return clockOffsetMs;
+    }
+
     /**
      * 设置丢包率
      */
@@ -129,6 +180,32 @@ public class SystemMonitor {
         return packetLossRate;
     }
 
+    /**
+     * 设置重连统计
+     * @param reconnectCount 成功重连的次数
+     * @param lastOutageMs 最近一次断线到重连成功的时长（毫秒）
+     */
+    public synchronized void setReconnectStats(long reconnectCount, long lastOutageMs) {
+        this.reconnectCount = reconnectCount;
+        this.lastOutageMs = lastOutageMs;
+        this.lastUpdateTime = System.currentTimeMillis();
+        notifyStateChange("lastOutageMs", null, lastOutageMs);
+    }
+
+    /**
+     * 获取成功重连的次数
+     */
+    public synchronized long getReconnectCount() {
+        return reconnectCount;
+    }
+
+    /**
+     * 获取最近一次断线时长（毫秒）
+     */
+    public synchronized long getLastOutageMs() {
+        return lastOutageMs;
+    }
+
     /**
      * 设置安全状态
      */
@@ -164,9 +241,16 @@ public class SystemMonitor {
         states.put("controlState", controlState);
         states.put("currentLayout", currentLayout);
         states.put("rtt", rtt);
+        states.put("rttP50Ms", rttP50Ms);
+        states.put("rttP95Ms", rttP95Ms);
+        states.put("rttP99Ms", rttP99Ms);
+        states.put("clockOffsetMs", clockOffsetMs);
         states.put("packetLossRate", packetLossRate);
+        states.put("reconnectCount", reconnectCount);
+        states.put("lastOutageMs", lastOutageMs);
         states.put("safetyState", safetyState);
         states.put("lastUpdateTime", lastUpdateTime);
+        states.put("traceCounters", TraceLog.snapshotCounters());
         return states;
     }
 
@@ -0,0 +1,174 @@
+package com.linecat.wmmtcontroller.monitor;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.linecat.wmmtcontroller.BuildConfig;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 热路径追踪日志
+ * <p>
+ * 每帧执行的代码不直接调用 Log.d，而是：
+ * <ul>
+ *   <li>用 {@link Counter} 计数（始终开启，无字符串拼接、无分配），计数快照并入 SystemMonitor 的状态；</li>
+ *   <li>需要逐条日志时先判断 {@link #isLoggable}，再拼接字符串并调用 {@link #log}。</li>
+ * </ul>
+ * 调用点写成 {@code if (TraceLog.ENABLED && TraceLog.isLoggable(TAG, Log.DEBUG)) { TraceLog.log(...); }}：
+ * ENABLED 取自 build.gradle 按构建类型声明的字面量字段 BuildConfig.TRACE_ENABLED，是编译期常量，
+ * release 构建中 javac 直接移除整个分支（包括字符串拼接），不依赖 R8。
+ * 注意不能改用 BuildConfig.DEBUG：AGP 将其生成为 Boolean.parseBoolean("true")，不是常量表达式。
+ * 调试构建中按级别过滤，并按 tag 限速，超出限额的日志被丢弃，下一条放行的日志附带丢弃条数。
+ */
+public final class TraceLog {
+    /** 是否编译追踪日志（仅调试构建，编译期常量） */
+    public static final boolean ENABLED = BuildConfig.TRACE_ENABLED;
+
+    // 每个 tag 每秒最多输出的日志条数
+    static final int DEFAULT_LINES_PER_SECOND = 20;
+
+    private static volatile int minLevel = Log.DEBUG;
+    private static volatile int linesPerSecond = DEFAULT_LINES_PER_SECOND;
+
+    private static final Map<String, RateLimiter> limiters = new ConcurrentHashMap<>();
+    private static final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    private TraceLog() {
+    }
+
+    /**
+     * 设置最低输出级别（android.util.Log 的级别常量）
+     */
+    public static void setMinLevel(int level) {
+        minLevel = level;
+    }
+
+    /**
+     * 设置每个 tag 每秒最多输出的日志条数
+     */
+    public static void setLinesPerSecond(int lines) {
+        linesPerSecond = Math.max(1, lines);
+        limiters.clear();
+    }
+
+    /**
+     * 判断是否输出一条日志，返回 true 时占用该 tag 本秒的一个名额
+     * @param tag 日志 tag
+     * @param level android.util.Log 的级别常量
+     */
+    public static boolean isLoggable(String tag, int level) {
+        if (!ENABLED || level < minLevel) {
+            return false;
+        }
+        return limiter(tag).tryAcquire(SystemClock.uptimeMillis());
+    }
+
+    /**
+     * 输出一条日志，调用前须先通过 {@link #isLoggable}
+     */
+    public static void log(String tag, int level, String message) {
+        long dropped = limiter(tag).takeDropped();
+        if (dropped > 0) {
+            message = message + "（此前限速丢弃 " + dropped + " 条）";
+        }
+        Log.println(level, tag, message);
+    }
+
+    /**
+     * 获取（必要时创建）计数器，调用方应在字段中保存返回值，避免每帧查表
+     * @param name 计数器名，建议使用 "模块.事件" 形式
+     */
+    public static Counter counter(String name) {
+        return counters.computeIfAbsent(name, Counter::new);
+    }
+
+    /**
+     * 获取所有计数器的快照（按名称排序）
+     */
+    public static Map<String, Long> snapshotCounters() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        for (Counter counter : counters.values()) {
+            snapshot.put(counter.name, counter.get());
+        }
+        return snapshot;
+    }
+
+    private static RateLimiter limiter(String tag) {
+        RateLimiter limiter = limiters.get(tag);
+        if (limiter == null) {
+            limiter = limiters.computeIfAbsent(tag, t -> new RateLimiter(linesPerSecond));
+        }
+        return limiter;
+    }
+
+    /**
+     * 结构化计数器
+     */
+    public static final class Counter {
+        private final String name;
+        private final LongAdder value = new LongAdder();
+
+        Counter(String name) {
+            this.name = name;
+        }
+
+        public void increment() {
+            value.increment();
+        }
+
+        public void add(long delta) {
+            value.add(delta);
+        }
+
+        public long get() {
+            return value.sum();
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * 按秒分窗的限速器
+     */
+    static final class RateLimiter {
+        private final int perSecond;
+        private long windowStartMs = Long.MIN_VALUE;
+        private int used;
+        private long dropped;
+
+        RateLimiter(int perSecond) {
+            this.perSecond = perSecond;
+        }
+
+        /**
+         * @return 本窗口是否还有名额；没有时计入丢弃条数
+         */
+        synchronized boolean tryAcquire(long nowMs) {
+            if (windowStartMs == Long.MIN_VALUE || nowMs - windowStartMs >= 1000) {
+                windowStartMs = nowMs;
+                used = 0;
+            }
+            if (used < perSecond) {
+                used++;
+                return true;
+            }
+            dropped++;
+            return false;
+        }
+
+        /**
+         * 取出并清零累计丢弃条数
+         */
+        synchronized long takeDropped() {
+            long result = dropped;
+            dropped = 0;
+            return result;
+        }
+    }
+}
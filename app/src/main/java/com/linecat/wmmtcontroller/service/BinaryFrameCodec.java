@@ -0,0 +1,513 @@
+package com.linecat.wmmtcontroller.service;
+
+import com.linecat.wmmtcontroller.model.FormattedInputMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 二进制帧编码器
+ * <p>
+ * 连接建立后客户端发送 hello（携带支持的二进制版本、按键字典与手柄按键字典），服务端回复 helloAck 并声明选用的二进制版本后，
+ * 状态/事件/输入消息改为二进制帧发送；服务端不回复（旧版本）时继续使用 JSON。
+ * <p>
+ * 帧格式（整数均为大端，varint 为无符号 LEB128）：
+ * <pre>
+ * 帧头:   version:u8  type:u8  flags:u8（bit0 = zero-output, bit1 = 帧尾带字面量按键）
+ * STATE:  stateId:varint  clientSendTs:varint  keyMask  buttonMask
+ *         presence:u8（bit0 左摇杆, bit1 右摇杆, bit2 扳机）
+ *         [左摇杆 x:i16 y:i16 deadzone:u16] [右摇杆 同左] [扳机 left:u16 right:u16]
+ * EVENT:  eventId:varint  baseStateId:varint  clientSendTs:varint
+ *         keyCount:varint  (keyIndex &lt;&lt; 1 | pressed):varint ...
+ *         buttonCount:varint  (buttonIndex &lt;&lt; 1 | pressed):varint ...
+ *         presence:u8（bit0 左摇杆, bit1 右摇杆, bit2 左扳机, bit3 右扳机）
+ *         [左摇杆 x:i16 y:i16] [右摇杆 x:i16 y:i16] [左扳机 u16] [右扳机 u16]
+ * INPUT:  frameId:varint  timestamp:varint  keyMask  buttonMask
+ *         mouseButtons:u8（bit0 左, bit1 右, bit2 中）  mouseX:f32  mouseY:f32
+ *         joystick x:i16 y:i16 deadzone:u16 smoothing:u16  runtimeStatus:varint 长度 + UTF-8
+ * keyMask/buttonMask: 字节数:varint + 位图（第 i 位对应字典第 i 项，末尾全零字节省略）
+ * 字面量（版本 2，flags bit1 置位时位于帧尾）:
+ *         keyCount:varint  ((UTF-8 长度 &lt;&lt; 1) | pressed):varint + UTF-8 ...
+ *         buttonCount:varint  同上
+ * </pre>
+ * 摇杆轴按 [-1, 1] 量化为 i16，扳机、死区等按 [0, 1] 量化为 u16。
+ * 字典以外的按键（如 "KeyW" 等布局自定义键名）在版本 2 中以字面量写在帧尾，其余字段布局与版本 1 相同；
+ * 状态/输入帧中的字面量 pressed 恒为 1。协商为版本 1 时无法编码，返回 null，由调用方对该帧回退到 JSON。
+ */
+public class BinaryFrameCodec {
+    public static final int VERSION = 2;
+    // 仅支持字典按键的旧版本
+    public static final int VERSION_DICTIONARY_ONLY = 1;
+
+    static final int TYPE_STATE = 1;
+    static final int TYPE_EVENT = 2;
+    static final int TYPE_INPUT = 3;
+
+    static final int FLAG_ZERO_OUTPUT = 1;
+    static final int FLAG_LITERALS = 2;
+
+    // 单帧字面量按键上限（pressed 位保存在一个 long 中）
+    private static final int MAX_LITERALS = 64;
+
+    private static final String FLAG_NAME_ZERO_OUTPUT = "zero-output";
+
+    // 默认键盘按键字典
+    private static final List<String> DEFAULT_KEY_DICTIONARY = buildDefaultKeyDictionary();
+
+    // 默认手柄按键字典（XInput 命名）
+    private static final List<String> DEFAULT_BUTTON_DICTIONARY = Collections.unmodifiableList(Arrays.asList(
+            "A", "B", "X", "Y", "LB", "RB", "BACK", "START", "LS", "RS",
+            "DPAD_UP", "DPAD_DOWN", "DPAD_LEFT", "DPAD_RIGHT", "GUIDE"));
+
+    private final List<String> keyDictionary;
+    private final List<String> buttonDictionary;
+    private final Map<String, Integer> keyIndex;
+    private final Map<String, Integer> buttonIndex;
+
+    // 与服务端协商的版本
+    private int version = VERSION;
+
+    // 复用的编码缓冲区
+    private byte[] buffer = new byte[128];
+    private int position;
+
+    // 当前帧的字面量按键与其 pressed 位
+    private final List<String> keyLiterals = new ArrayList<>();
+    private final List<String> buttonLiterals = new ArrayList<>();
+    private long keyLiteralPressed;
+    private long buttonLiteralPressed;
+
+    /**
+     * 构造函数
+     * @param keyDictionary 键盘按键字典，顺序即位图中的位序
+     * @param buttonDictionary 手柄按键字典
+     */
+    public BinaryFrameCodec(List<String> keyDictionary, List<String> buttonDictionary) {
+        this.keyDictionary = Collections.unmodifiableList(new ArrayList<>(keyDictionary));
+        this.buttonDictionary = Collections.unmodifiableList(new ArrayList<>(buttonDictionary));
+        this.keyIndex = indexOf(this.keyDictionary);
+        this.buttonIndex = indexOf(this.buttonDictionary);
+    }
+
+    /**
+     * 使用默认字典创建编码器
+     */
+    public static BinaryFrameCodec createDefault() {
+        return new BinaryFrameCodec(DEFAULT_KEY_DICTIONARY, DEFAULT_BUTTON_DICTIONARY);
+    }
+
+    public List<String> getKeyDictionary() {
+        return keyDictionary;
+    }
+
+    public List<String> getButtonDictionary() {
+        return buttonDictionary;
+    }
+
+    /**
+     * 设置与服务端协商的版本（helloAck 中的 binaryVersion）
+     * @param version VERSION_DICTIONARY_ONLY 或 VERSION
+     */
+    public synchronized void setVersion(int version) {
+        if (version < VERSION_DICTIONARY_ONLY || version > VERSION) {
+            throw new IllegalArgumentException("Unsupported binary version: " + version);
+        }
+        this.version = version;
+    }
+
+    public synchronized int getVersion() {
+        return version;
+    }
+
+    /**
+     * 是否支持该版本
+     */
+    public static boolean isSupported(int version) {
+        return version >= VERSION_DICTIONARY_ONLY && version <= VERSION;
+    }
+
+    /**
+     * 编码状态消息
+     * @return 二进制帧，版本 1 下包含字典外按键，或包含非 held 类型时返回 null
+     */
+    public synchronized byte[] encodeState(StateMessage message) {
+        resetLiterals();
+        writeHeader(TYPE_STATE, message.getFlags());
+        writeVarint(message.getStateId());
+        writeVarint(message.getClientSendTs());
+
+        List<KeyboardEvent> keyboard = message.getKeyboardState();
+        long[] keyMask = new long[(keyDictionary.size() + 63) / 64];
+        if (keyboard != null) {
+            for (KeyboardEvent event : keyboard) {
+                if (!KeyboardEvent.EVENT_TYPE_HELD.equals(event.getEventType())) {
+                    return null;
+                }
+                Integer index = keyIndex.get(event.getKeyId());
+                if (index != null) {
+                    keyMask[index >> 6] |= 1L << (index & 63);
+                } else if (!addKeyLiteral(event.getKeyId(), true)) {
+                    return null;
+                }
+            }
+        }
+        writeMask(keyMask, keyDictionary.size());
+
+        StateMessage.GamepadState gamepad = message.getGamepadState();
+        long[] buttonMask = new long[(buttonDictionary.size() + 63) / 64];
+        if (gamepad != null && gamepad.getButtons() != null) {
+            for (GamepadButtonEvent event : gamepad.getButtons()) {
+                if (!GamepadButtonEvent.EVENT_TYPE_HELD.equals(event.getEventType())) {
+                    return null;
+                }
+                Integer index = buttonIndex.get(event.getButtonId());
+                if (index != null) {
+                    buttonMask[index >> 6] |= 1L << (index & 63);
+                } else if (!addButtonLiteral(event.getButtonId(), true)) {
+                    return null;
+                }
+            }
+        }
+        writeMask(buttonMask, buttonDictionary.size());
+
+        StateMessage.GamepadState.Joystick left = null;
+        StateMessage.GamepadState.Joystick right = null;
+        StateMessage.GamepadState.Triggers triggers = null;
+        if (gamepad != null) {
+            if (gamepad.getJoysticks() != null) {
+                left = gamepad.getJoysticks().getLeft();
+                right = gamepad.getJoysticks().getRight();
+            }
+            triggers = gamepad.getTriggers();
+        }
+        writeByte((left != null ? 1 : 0) | (right != null ? 2 : 0) | (triggers != null ? 4 : 0));
+        if (left != null) {
+            writeShort(quantizeAxis(left.getX()));
+            writeShort(quantizeAxis(left.getY()));
+            writeShort(quantizeUnit(left.getDeadzone()));
+        }
+        if (right != null) {
+            writeShort(quantizeAxis(right.getX()));
+            writeShort(quantizeAxis(right.getY()));
+            writeShort(quantizeUnit(right.getDeadzone()));
+        }
+        if (triggers != null) {
+            writeShort(quantizeUnit(triggers.getLeft()));
+            writeShort(quantizeUnit(triggers.getRight()));
+        }
+        writeLiterals();
+        return Arrays.copyOf(buffer, position);
+    }
+
+    /**
+     * 编码事件消息
+     * @return 二进制帧，版本 1 下包含字典外按键时返回 null
+     */
+    public synchronized byte[] encodeEvent(EventMessage message) {
+        resetLiterals();
+        writeHeader(TYPE_EVENT, message.getFlags());
+        writeVarint(message.getEventId());
+        writeVarint(message.getBaseStateId());
+        writeVarint(message.getClientSendTs());
+
+        EventDelta delta = message.getDelta();
+        List<EventDelta.KeyboardEventDelta> keyboard = delta != null ? delta.getKeyboard() : null;
+        int keyCount = keyboard != null ? keyboard.size() : 0;
+        // 先收集字典外按键，得到字典按键数
+        for (int i = 0; i < keyCount; i++) {
+            EventDelta.KeyboardEventDelta event = keyboard.get(i);
+            if (!keyIndex.containsKey(event.getKeyId())
+                    && !addKeyLiteral(event.getKeyId(), EventDelta.KeyboardEventDelta.EVENT_TYPE_PRESSED.equals(event.getEventType()))) {
+                return null;
+            }
+        }
+        writeVarint(keyCount - keyLiterals.size());
+        for (int i = 0; i < keyCount; i++) {
+            EventDelta.KeyboardEventDelta event = keyboard.get(i);
+            Integer index = keyIndex.get(event.getKeyId());
+            if (index != null) {
+                boolean pressed = EventDelta.KeyboardEventDelta.EVENT_TYPE_PRESSED.equals(event.getEventType());
+                writeVarint(((long) index << 1) | (pressed ? 1 : 0));
+            }
+        }
+
+        EventDelta.GamepadEventDelta gamepad = delta != null ? delta.getGamepad() : null;
+        List<EventDelta.GamepadEventDelta.GamepadButtonEventDelta> buttons = gamepad != null ? gamepad.getButtons() : null;
+        int buttonCount = buttons != null ? buttons.size() : 0;
+        for (int i = 0; i < buttonCount; i++) {
+            EventDelta.GamepadEventDelta.GamepadButtonEventDelta event = buttons.get(i);
+            if (!buttonIndex.containsKey(event.getButtonId())
+                    && !addButtonLiteral(event.getButtonId(),
+                            EventDelta.GamepadEventDelta.GamepadButtonEventDelta.EVENT_TYPE_PRESSED.equals(event.getEventType()))) {
+                return null;
+            }
+        }
+        writeVarint(buttonCount - buttonLiterals.size());
+        for (int i = 0; i < buttonCount; i++) {
+            EventDelta.GamepadEventDelta.GamepadButtonEventDelta event = buttons.get(i);
+            Integer index = buttonIndex.get(event.getButtonId());
+            if (index != null) {
+                boolean pressed = EventDelta.GamepadEventDelta.GamepadButtonEventDelta.EVENT_TYPE_PRESSED.equals(event.getEventType());
+                writeVarint(((long) index << 1) | (pressed ? 1 : 0));
+            }
+        }
+
+        EventDelta.GamepadEventDelta.JoystickEventDelta.JoystickDelta left = null;
+        EventDelta.GamepadEventDelta.JoystickEventDelta.JoystickDelta right = null;
+        Float leftTrigger = null;
+        Float rightTrigger = null;
+        if (gamepad != null) {
+            if (gamepad.getJoysticks() != null) {
+                left = gamepad.getJoysticks().getLeft();
+                right = gamepad.getJoysticks().getRight();
+            }
+            if (gamepad.getTriggers() != null) {
+                leftTrigger = gamepad.getTriggers().getLeft();
+                rightTrigger = gamepad.getTriggers().getRight();
+            }
+        }
+        writeByte((left != null ? 1 : 0) | (right != null ? 2 : 0)
+                | (leftTrigger != null ? 4 : 0) | (rightTrigger != null ? 8 : 0));
+        if (left != null) {
+            writeShort(quantizeAxis(left.getX()));
+            writeShort(quantizeAxis(left.getY()));
+        }
+        if (right != null) {
+            writeShort(quantizeAxis(right.getX()));
+            writeShort(quantizeAxis(right.getY()));
+        }
+        if (leftTrigger != null) {
+            writeShort(quantizeUnit(leftTrigger));
+        }
+        if (rightTrigger != null) {
+            writeShort(quantizeUnit(rightTrigger));
+        }
+        writeLiterals();
+        return Arrays.copyOf(buffer, position);
+    }
+
+    /**
+     * 编码输入消息（FormattedInputMessage）
+     * @return 二进制帧，版本 1 下包含字典外按键时返回 null
+     */
+    public synchronized byte[] encodeInput(FormattedInputMessage message) {
+        resetLiterals();
+        writeHeader(TYPE_INPUT, null);
+        FormattedInputMessage.Data data = message.getData();
+        writeVarint(data.frameId != null ? data.frameId : 0);
+        writeVarint(message.getMetadata() != null ? message.getMetadata().getTimestamp() : 0);
+
+        long[] keyMask = new long[(keyDictionary.size() + 63) / 64];
+        if (data.keyboard != null) {
+            for (String key : data.keyboard) {
+                Integer index = keyIndex.get(key);
+                if (index != null) {
+                    keyMask[index >> 6] |= 1L << (index & 63);
+                } else if (!addKeyLiteral(key, true)) {
+                    return null;
+                }
+            }
+        }
+        writeMask(keyMask, keyDictionary.size());
+
+        long[] buttonMask = new long[(buttonDictionary.size() + 63) / 64];
+        if (data.gamepad != null) {
+            for (String button : data.gamepad) {
+                Integer index = buttonIndex.get(button);
+                if (index != null) {
+                    buttonMask[index >> 6] |= 1L << (index & 63);
+                } else if (!addButtonLiteral(button, true)) {
+                    return null;
+                }
+            }
+        }
+        writeMask(buttonMask, buttonDictionary.size());
+
+        FormattedInputMessage.Mouse mouse = data.mouse;
+        if (mouse != null) {
+            writeByte((mouse.left ? 1 : 0) | (mouse.right ? 2 : 0) | (mouse.middle ? 4 : 0));
+            writeInt(Float.floatToIntBits(mouse.x));
+            writeInt(Float.floatToIntBits(mouse.y));
+        } else {
+            writeByte(0);
+            writeInt(Float.floatToIntBits(0f));
+            writeInt(Float.floatToIntBits(0f));
+        }
+
+        FormattedInputMessage.Joystick joystick = data.joystick;
+        writeShort(quantizeAxis(joystick != null ? joystick.x : 0f));
+        writeShort(quantizeAxis(joystick != null ? joystick.y : 0f));
+        writeShort(quantizeUnit(joystick != null ? joystick.deadzone : 0f));
+        writeShort(quantizeUnit(joystick != null ? joystick.smoothing : 0f));
+
+        byte[] status = data.runtimeStatus != null
+                ? data.runtimeStatus.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        writeVarint(status.length);
+        ensureCapacity(status.length);
+        System.arraycopy(status, 0, buffer, position, status.length);
+        position += status.length;
+        writeLiterals();
+        return Arrays.copyOf(buffer, position);
+    }
+
+    /**
+     * 摇杆轴量化：[-1, 1] -> i16
+     */
+    static short quantizeAxis(float value) {
+        if (Float.isNaN(value)) {
+            return 0;
+        }
+        float clamped = Math.max(-1f, Math.min(1f, value));
+        return (short) Math.round(clamped * Short.MAX_VALUE);
+    }
+
+    /**
+     * 单位区间量化：[0, 1] -> u16
+     */
+    static short quantizeUnit(float value) {
+        if (Float.isNaN(value)) {
+            return 0;
+        }
+        float clamped = Math.max(0f, Math.min(1f, value));
+        return (short) Math.round(clamped * 0xFFFF);
+    }
+
+    private void writeHeader(int type, List<String> flags) {
+        writeByte(version);
+        writeByte(type);
+        writeByte(flags != null && flags.contains(FLAG_NAME_ZERO_OUTPUT) ? FLAG_ZERO_OUTPUT : 0);
+    }
+
+    private void writeMask(long[] mask, int bitCount) {
+        int byteCount = (bitCount + 7) / 8;
+        // 省略末尾全零字节
+        while (byteCount > 0 && maskByte(mask, byteCount - 1) == 0) {
+            byteCount--;
+        }
+        writeVarint(byteCount);
+        for (int i = 0; i < byteCount; i++) {
+            writeByte(maskByte(mask, i));
+        }
+    }
+
+    private void resetLiterals() {
+        position = 0;
+        keyLiterals.clear();
+        buttonLiterals.clear();
+        keyLiteralPressed = 0;
+        buttonLiteralPressed = 0;
+    }
+
+    private boolean addKeyLiteral(String name, boolean pressed) {
+        if (version < VERSION || name == null || keyLiterals.size() >= MAX_LITERALS) {
+            return false;
+        }
+        if (pressed) {
+            keyLiteralPressed |= 1L << keyLiterals.size();
+        }
+        keyLiterals.add(name);
+        return true;
+    }
+
+    private boolean addButtonLiteral(String name, boolean pressed) {
+        if (version < VERSION || name == null || buttonLiterals.size() >= MAX_LITERALS) {
+            return false;
+        }
+        if (pressed) {
+            buttonLiteralPressed |= 1L << buttonLiterals.size();
+        }
+        buttonLiterals.add(name);
+        return true;
+    }
+
+    /**
+     * 有字面量时在帧尾写入字面量段并置位帧头 flags
+     */
+    private void writeLiterals() {
+        if (keyLiterals.isEmpty() && buttonLiterals.isEmpty()) {
+            return;
+        }
+        buffer[2] |= FLAG_LITERALS;
+        writeLiteralList(keyLiterals, keyLiteralPressed);
+        writeLiteralList(buttonLiterals, buttonLiteralPressed);
+    }
+
+    private void writeLiteralList(List<String> literals, long pressedBits) {
+        writeVarint(literals.size());
+        for (int i = 0; i < literals.size(); i++) {
+            byte[] utf8 = literals.get(i).getBytes(StandardCharsets.UTF_8);
+            writeVarint(((long) utf8.length << 1) | ((pressedBits >>> i) & 1));
+            ensureCapacity(utf8.length);
+            System.arraycopy(utf8, 0, buffer, position, utf8.length);
+            position += utf8.length;
+        }
+    }
+
+    private static int maskByte(long[] mask, int byteIndex) {
+        return (int) (mask[byteIndex >> 3] >>> ((byteIndex & 7) * 8)) & 0xFF;
+    }
+
+    private void writeVarint(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeShort(short value) {
+        ensureCapacity(2);
+        buffer[position++] = (byte) (value >> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    private void writeInt(int value) {
+        ensureCapacity(4);
+        buffer[position++] = (byte) (value >> 24);
+        buffer[position++] = (byte) (value >> 16);
+        buffer[position++] = (byte) (value >> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (position + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+        }
+    }
+
+    private static Map<String, Integer> indexOf(List<String> dictionary) {
+        Map<String, Integer> index = new HashMap<>();
+        for (int i = 0; i < dictionary.size(); i++) {
+            index.putIfAbsent(dictionary.get(i), i);
+        }
+        return index;
+    }
+
+    private static List<String> buildDefaultKeyDictionary() {
+        List<String> keys = new ArrayList<>();
+        for (char c = 'a'; c <= 'z'; c++) {
+            keys.add(String.valueOf(c));
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            keys.add(String.valueOf(c));
+        }
+        keys.addAll(Arrays.asList(
+                "shift", "ctrl", "alt", "space", "enter", "esc", "tab", "backspace",
+                "up", "down", "left", "right"));
+        for (int i = 1; i <= 12; i++) {
+            keys.add("f" + i);
+        }
+        return Collections.unmodifiableList(keys);
+    }
+}
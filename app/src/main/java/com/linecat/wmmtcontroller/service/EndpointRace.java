@@ -0,0 +1,242 @@
+package com.linecat.wmmtcontroller.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okio.ByteString;
+
+/**
+ * 端点竞速
+ * <p>
+ * 同时向多个候选端点发起 WebSocket 握手，第一个完成握手的端点胜出，其余连接立即取消。
+ * 只有胜出连接的回调会转发给目标监听器；全部失败时转发最后一个失败。
+ * 第一个候选（默认端点或缓存的上次胜出端点）立即拨号，其余候选可延后 headStartMs 再拨号，
+ * 首选端点可用时不会与其它端点争抢握手。
+ */
+final class EndpointRace {
+    // 上次胜出端点的缓存有效期
+    static final long CACHE_TTL_MS = 10 * 60 * 1000;
+    // 缓存端点有效时，其余候选延后拨号的时间
+    static final long CACHED_HEAD_START_MS = 250;
+
+    /**
+     * 拨号（创建 WebSocket）
+     */
+    interface Dialer {
+        WebSocket dial(String url, WebSocketListener listener);
+    }
+
+    /**
+     * 延时调度
+     */
+    interface Scheduler {
+        void schedule(Runnable task, long delayMs);
+    }
+
+    /**
+     * 竞速结果回调，在转发 onOpen/onFailure 之前调用
+     */
+    interface Callback {
+        void onWinner(String url, WebSocket webSocket);
+
+        void onAllFailed(WebSocket lastWebSocket);
+    }
+
+    private final List<Leg> legs = new ArrayList<>();
+    private final WebSocketListener target;
+    private final Callback callback;
+    private Leg winner;
+    private int failed;
+    private boolean cancelled;
+
+    /**
+     * 开始竞速
+     * @param urls 候选端点，第一个为首选
+     * @param headStartMs 首选端点的领先时间，0 表示全部同时拨号
+     */
+    EndpointRace(List<String> urls, long headStartMs, Dialer dialer, Scheduler scheduler,
+                 WebSocketListener target, Callback callback) {
+        this.target = target;
+        this.callback = callback;
+        for (String url : urls) {
+            legs.add(new Leg(url));
+        }
+        for (int i = 0; i < legs.size(); i++) {
+            Leg leg = legs.get(i);
+            if (i == 0 || headStartMs <= 0) {
+                leg.dial(dialer);
+            } else {
+                scheduler.schedule(() -> leg.dial(dialer), headStartMs);
+            }
+        }
+    }
+
+    /**
+     * 按上次胜出端点的缓存排列候选：缓存有效且仍在候选中时排在最前
+     * @param candidates 候选端点，第一个为默认端点
+     * @param cachedUrl 缓存的胜出端点，可能为 null
+     * @param cachedAtMs 缓存时间（墙钟）
+     * @param nowMs 当前时间（墙钟）
+     * @return 排列后的候选（去重）
+     */
+    static List<String> orderCandidates(List<String> candidates, String cachedUrl, long cachedAtMs, long nowMs) {
+        List<String> ordered = new ArrayList<>(candidates.size());
+        if (isCacheFresh(candidates, cachedUrl, cachedAtMs, nowMs)) {
+            ordered.add(cachedUrl);
+        }
+        for (String url : candidates) {
+            if (!ordered.contains(url)) {
+                ordered.add(url);
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * 缓存的胜出端点是否仍有效
+     */
+    static boolean isCacheFresh(List<String> candidates, String cachedUrl, long cachedAtMs, long nowMs) {
+        return cachedUrl != null && candidates.contains(cachedUrl)
+                && nowMs >= cachedAtMs && nowMs - cachedAtMs < CACHE_TTL_MS;
+    }
+
+    /**
+     * 取消竞速：关闭所有未胜出的连接，尚未拨号的候选不再拨号
+     */
+    void cancel() {
+        Leg won;
+        synchronized (this) {
+            cancelled = true;
+            won = winner;
+        }
+        for (Leg leg : legs) {
+            if (leg != won) {
+                leg.cancel();
+            }
+        }
+    }
+
+    /**
+     * 胜出的端点，尚未决出时为 null
+     */
+    synchronized String getWinnerUrl() {
+        return winner != null ? winner.url : null;
+    }
+
+    private final class Leg extends WebSocketListener {
+        final String url;
+        private WebSocket webSocket;
+        private boolean dialed;
+
+        Leg(String url) {
+            this.url = url;
+        }
+
+        void dial(Dialer dialer) {
+            synchronized (EndpointRace.this) {
+                if (cancelled || winner != null || dialed) {
+                    return;
+                }
+                dialed = true;
+            }
+            WebSocket socket = dialer.dial(url, this);
+            synchronized (EndpointRace.this) {
+                webSocket = socket;
+                if (cancelled || (winner != null && winner != this)) {
+                    socket.cancel();
+                }
+            }
+        }
+
+        void cancel() {
+            WebSocket socket;
+            synchronized (EndpointRace.this) {
+                // 未拨号的候选标记为已拨号，避免延时任务再拨号
+                dialed = true;
+                socket = webSocket;
+            }
+            if (socket != null) {
+                socket.cancel();
+            }
+        }
+
+        private boolean isWinner() {
+            synchronized (EndpointRace.this) {
+                return winner == this;
+            }
+        }
+
+        @Override
+        public void onOpen(WebSocket webSocket, Response response) {
+            synchronized (EndpointRace.this) {
+                if (winner != null || cancelled) {
+                    webSocket.cancel();
+                    return;
+                }
+                winner = this;
+                this.webSocket = webSocket;
+            }
+            for (Leg leg : legs) {
+                if (leg != this) {
+                    leg.cancel();
+                }
+            }
+            callback.onWinner(url, webSocket);
+            target.onOpen(webSocket, response);
+        }
+
+        @Override
+        public void onMessage(WebSocket webSocket, String text) {
+            if (isWinner()) {
+                target.onMessage(webSocket, text);
+            }
+        }
+
+        @Override
+        public void onMessage(WebSocket webSocket, ByteString bytes) {
+            if (isWinner()) {
+                target.onMessage(webSocket, bytes);
+            }
+        }
+
+        @Override
+        public void onClosing(WebSocket webSocket, int code, String reason) {
+            if (isWinner()) {
+                target.onClosing(webSocket, code, reason);
+            }
+        }
+
+        @Override
+        public void onClosed(WebSocket webSocket, int code, String reason) {
+            if (isWinner()) {
+                target.onClosed(webSocket, code, reason);
+            }
+        }
+
+        @Override
+        public void onFailure(WebSocket webSocket, Throwable t, Response response) {
+            boolean allFailed;
+            synchronized (EndpointRace.this) {
+                if (winner == this) {
+                    allFailed = false;
+                } else {
+                    // 被取消的连接也会回调失败，竞速已决出或已取消时忽略
+                    if (winner != null || cancelled) {
+                        return;
+                    }
+                    allFailed = ++failed == legs.size();
+                    if (!allFailed) {
+                        return;
+                    }
+                }
+            }
+            if (allFailed) {
+                callback.onAllFailed(webSocket);
+            }
+            target.onFailure(webSocket, t, response);
+        }
+    }
+}
@@ -110,6 +110,14 @@ public class EventDelta {
             this.triggers = new TriggerEventDelta();
         }
 
+        // 完整构造函数
+        public GamepadEventDelta(List<GamepadButtonEventDelta> buttons, JoystickEventDelta joysticks,
+                                 TriggerEventDelta triggers) {
+            this.buttons = buttons;
+            this.joysticks = joysticks;
+            this.triggers = triggers;
+        }
+
         // getter方法
         public List<GamepadButtonEventDelta> getButtons() {
             return buttons;
@@ -251,6 +259,14 @@ public class EventDelta {
                 this.right = right;
             }
 
+            // 工厂方法，用于创建任意一侧可为空（未变化）的实例
+            public static TriggerEventDelta of(Float left, Float right) {
+                TriggerEventDelta delta = new TriggerEventDelta();
+                delta.left = left;
+                delta.right = right;
+                return delta;
+            }
+
             // getter方法
             public Float getLeft() {
                 return left;
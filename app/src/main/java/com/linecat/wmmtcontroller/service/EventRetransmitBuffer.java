@@ -0,0 +1,317 @@
+package com.linecat.wmmtcontroller.service;
+
+import com.linecat.wmmtcontroller.model.KeyRegistry;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 在途事件缓冲
+ * <p>
+ * 以 eventId 为下标的定长环形缓冲，保存已发送事件的编码结果（直接持有发送时生成的 JSON 或二进制帧，不复制），
+ * 收到 eventAck 后释放。内存占用以在途窗口为上限，窗口被新事件覆盖的旧条目直接丢弃。
+ * <p>
+ * 含按键/手柄按键边沿的事件超时未确认时重传（沿用原 eventId，服务端按 eventId 去重）：
+ * <ul>
+ *   <li>同一按键之后已有更新的边沿被确认时，旧边沿已过时，不再重传；</li>
+ *   <li>之后已发送完整状态关键帧时，关键帧之前的边沿均已过时，不再重传；</li>
+ *   <li>事件同时带有轴值时只重传边沿部分，避免把摇杆/扳机拉回旧值；</li>
+ *   <li>超过最大重传次数后放弃，由之后的完整状态关键帧兜底。</li>
+ * </ul>
+ */
+final class EventRetransmitBuffer {
+    static final int CAPACITY = 256;
+    private static final int MASK = CAPACITY - 1;
+    static final int MAX_RETRANSMITS = 3;
+
+    /**
+     * 重传回调（在调用 retransmitDue 的线程上执行）
+     */
+    interface Retransmitter {
+        /**
+         * @param eventId 原 eventId
+         * @param json 原 JSON，以二进制发送时为 null
+         * @param frame 原二进制帧，以 JSON 发送时为 null
+         * @param edgesOnly 原事件带有轴值时为只含边沿的增量，需要重新编码；为 null 时直接重发原编码
+         */
+        void retransmit(long eventId, String json, byte[] frame, EventDelta edgesOnly);
+    }
+
+    private final long[] ids = new long[CAPACITY];
+    private final long[] sentNanos = new long[CAPACITY];
+    private final int[] retransmits = new int[CAPACITY];
+    private final String[] jsons = new String[CAPACITY];
+    private final byte[][] frames = new byte[CAPACITY][];
+    private final EventDelta[] deltas = new EventDelta[CAPACITY];
+    private final boolean[] discrete = new boolean[CAPACITY];
+
+    // 每个按键最近一次被确认的边沿所在 eventId，以 KeyRegistry ID 为下标（键盘键与手柄按键分开保存）
+    private long[] ackedKeyEdges = new long[64];
+    private long[] ackedButtonEdges = new long[64];
+    // retransmitDue 的到期槽位（按 eventId 排序），预分配避免每次检查分配
+    private final int[] dueSlots = new int[CAPACITY];
+
+    private int inFlight;
+    private long retransmitCount;
+    private long supersededCount;
+    private long evictedUnacked;
+
+    /**
+     * 记录一条已发送事件
+     * @param eventId 事件ID
+     * @param delta 事件增量
+     * @param json 发送的JSON，以二进制发送时为 null
+     * @param frame 发送的二进制帧，以JSON发送时为 null
+     * @param nowNanos 单调时钟（纳秒）
+     * @return 事件是否含按键边沿（需要等待确认、可能重传）
+     */
+    synchronized boolean put(long eventId, EventDelta delta, String json, byte[] frame, long nowNanos) {
+        int slot = (int) (eventId & MASK);
+        if (ids[slot] != 0) {
+            // 在途窗口已满，覆盖最旧的未确认事件
+            evictedUnacked++;
+            release(slot);
+        }
+        ids[slot] = eventId;
+        sentNanos[slot] = nowNanos;
+        retransmits[slot] = 0;
+        jsons[slot] = json;
+        frames[slot] = frame;
+        deltas[slot] = delta;
+        discrete[slot] = hasEdges(delta);
+        inFlight++;
+        return discrete[slot];
+    }
+
+    /**
+     * 获取仍在途的事件JSON（用于错误日志）
+     * @return JSON，已确认或已被覆盖时为 null
+     */
+    synchronized String getJson(long eventId) {
+        int slot = (int) (eventId & MASK);
+        return ids[slot] == eventId ? jsons[slot] : null;
+    }
+
+    /**
+     * 获取仍在途的事件增量（以二进制发送的事件用于错误日志）
+     * @return 增量，已确认或已被覆盖时为 null
+     */
+    synchronized EventDelta getDelta(long eventId) {
+        int slot = (int) (eventId & MASK);
+        return ids[slot] == eventId ? deltas[slot] : null;
+    }
+
+    /**
+     * 处理事件确认，释放条目
+     * @return 是否为在途事件
+     */
+    synchronized boolean ack(long eventId) {
+        int slot = (int) (eventId & MASK);
+        if (ids[slot] != eventId) {
+            return false;
+        }
+        EventDelta delta = deltas[slot];
+        if (delta != null) {
+            if (delta.getKeyboard() != null) {
+                for (EventDelta.KeyboardEventDelta key : delta.getKeyboard()) {
+                    ackedKeyEdges = markAcked(ackedKeyEdges, key.getKeyId(), eventId);
+                }
+            }
+            if (delta.getGamepad() != null && delta.getGamepad().getButtons() != null) {
+                for (EventDelta.GamepadEventDelta.GamepadButtonEventDelta button : delta.getGamepad().getButtons()) {
+                    ackedButtonEdges = markAcked(ackedButtonEdges, button.getButtonId(), eventId);
+                }
+            }
+        }
+        release(slot);
+        return true;
+    }
+
+    /**
+     * 重传超时未确认的边沿事件，按 eventId 顺序回调
+     * @param nowNanos 单调时钟（纳秒）
+     * @param timeoutNanos 重传超时
+     * @param retransmitter 重传回调
+     * @return 本次重传的事件数
+     */
+    synchronized int retransmitDue(long nowNanos, long timeoutNanos, Retransmitter retransmitter) {
+        int dueCount = 0;
+        for (int slot = 0; slot < CAPACITY; slot++) {
+            if (ids[slot] != 0 && discrete[slot] && nowNanos - sentNanos[slot] >= timeoutNanos) {
+                // 插入排序：到期条目通常很少，且大多已按 eventId 排列
+                int i = dueCount++;
+                while (i > 0 && ids[dueSlots[i - 1]] > ids[slot]) {
+                    dueSlots[i] = dueSlots[i - 1];
+                    i--;
+                }
+                dueSlots[i] = slot;
+            }
+        }
+
+        int sent = 0;
+        for (int d = 0; d < dueCount; d++) {
+            int slot = dueSlots[d];
+            long eventId = ids[slot];
+            if (isSuperseded(eventId, deltas[slot])) {
+                supersededCount++;
+                release(slot);
+                continue;
+            }
+            if (retransmits[slot] >= MAX_RETRANSMITS) {
+                release(slot);
+                continue;
+            }
+            retransmits[slot]++;
+            sentNanos[slot] = nowNanos;
+            EventDelta delta = deltas[slot];
+            retransmitter.retransmit(eventId, jsons[slot], frames[slot], hasAxes(delta) ? edgesOnly(delta) : null);
+            retransmitCount++;
+            sent++;
+        }
+        return sent;
+    }
+
+    /**
+     * 已发送完整状态关键帧：不超过 eventId 的在途边沿事件均已被关键帧覆盖，不再重传
+     * 条目仍保留到确认或被覆盖为止，用于错误日志
+     * @param eventId 关键帧发送时已分配的最大 eventId
+     */
+    synchronized void supersedeThrough(long eventId) {
+        for (int slot = 0; slot < CAPACITY; slot++) {
+            if (ids[slot] != 0 && discrete[slot] && ids[slot] <= eventId) {
+                discrete[slot] = false;
+                supersededCount++;
+            }
+        }
+    }
+
+    /**
+     * 是否还有等待确认的边沿事件
+     */
+    synchronized boolean hasPendingEdges() {
+        for (int slot = 0; slot < CAPACITY; slot++) {
+            if (ids[slot] != 0 && discrete[slot]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 在途事件数
+     */
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * 累计重传次数
+     */
+    synchronized long getRetransmitCount() {
+        return retransmitCount;
+    }
+
+    /**
+     * 因按键已有更新边沿被确认或已被关键帧覆盖而放弃重传的事件数
+     */
+    synchronized long getSupersededCount() {
+        return supersededCount;
+    }
+
+    /**
+     * 在途窗口溢出而被覆盖的未确认事件数
+     */
+    synchronized long getEvictedUnacked() {
+        return evictedUnacked;
+    }
+
+    /**
+     * 清空缓冲（连接重建后旧事件不再重传）
+     */
+    synchronized void clear() {
+        for (int slot = 0; slot < CAPACITY; slot++) {
+            if (ids[slot] != 0) {
+                release(slot);
+            }
+        }
+        Arrays.fill(ackedKeyEdges, 0L);
+        Arrays.fill(ackedButtonEdges, 0L);
+    }
+
+    private void release(int slot) {
+        ids[slot] = 0;
+        jsons[slot] = null;
+        frames[slot] = null;
+        deltas[slot] = null;
+        discrete[slot] = false;
+        inFlight--;
+    }
+
+    private boolean isSuperseded(long eventId, EventDelta delta) {
+        if (delta.getKeyboard() != null) {
+            for (EventDelta.KeyboardEventDelta key : delta.getKeyboard()) {
+                if (ackedEdge(ackedKeyEdges, key.getKeyId()) > eventId) {
+                    return true;
+                }
+            }
+        }
+        if (delta.getGamepad() != null && delta.getGamepad().getButtons() != null) {
+            for (EventDelta.GamepadEventDelta.GamepadButtonEventDelta button : delta.getGamepad().getButtons()) {
+                if (ackedEdge(ackedButtonEdges, button.getButtonId()) > eventId) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static long[] markAcked(long[] edges, String name, long eventId) {
+        if (name == null) {
+            return edges;
+        }
+        int id = KeyRegistry.idOf(name);
+        if (id >= edges.length) {
+            edges = Arrays.copyOf(edges, Math.max(id + 1, edges.length * 2));
+        }
+        if (edges[id] < eventId) {
+            edges[id] = eventId;
+        }
+        return edges;
+    }
+
+    private static long ackedEdge(long[] edges, String name) {
+        int id = KeyRegistry.lookup(name);
+        return id >= 0 && id < edges.length ? edges[id] : 0L;
+    }
+
+    /**
+     * 增量是否含按键/按钮边沿（边沿不能被之后的轴值帧取代，需要可靠送达）
+     */
+    static boolean hasEdges(EventDelta delta) {
+        if (delta == null) {
+            return false;
+        }
+        if (delta.getKeyboard() != null && !delta.getKeyboard().isEmpty()) {
+            return true;
+        }
+        EventDelta.GamepadEventDelta gamepad = delta.getGamepad();
+        return gamepad != null && gamepad.getButtons() != null && !gamepad.getButtons().isEmpty();
+    }
+
+    private static boolean hasAxes(EventDelta delta) {
+        EventDelta.GamepadEventDelta gamepad = delta.getGamepad();
+        if (gamepad == null) {
+            return false;
+        }
+        EventDelta.GamepadEventDelta.JoystickEventDelta joysticks = gamepad.getJoysticks();
+        EventDelta.GamepadEventDelta.TriggerEventDelta triggers = gamepad.getTriggers();
+        return (joysticks != null && (joysticks.getLeft() != null || joysticks.getRight() != null))
+                || (triggers != null && (triggers.getLeft() != null || triggers.getRight() != null));
+    }
+
+    private static EventDelta edgesOnly(EventDelta delta) {
+        EventDelta.GamepadEventDelta gamepad = delta.getGamepad();
+        return new EventDelta(delta.getKeyboard(), new EventDelta.GamepadEventDelta(
+                gamepad != null && gamepad.getButtons() != null ? gamepad.getButtons() : List.of()));
+    }
+}
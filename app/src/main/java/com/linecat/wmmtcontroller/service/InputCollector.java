@@ -8,6 +8,7 @@ import android.hardware.SensorManager;
 import android.util.Log;
 
 import com.linecat.wmmtcontroller.model.RawInput;
+import com.linecat.wmmtcontroller.monitor.TraceLog;
 
 /**
  * 输入采集器
@@ -225,7 +226,9 @@ public class InputCollector implements RawInputCollector {
     public void onGamepad(android.view.InputEvent event) {
         // 处理游戏手柄事件
         // 目前暂未实现，只记录日志
-        Log.d(TAG, "onGamepad: " + event);
+        if (TraceLog.ENABLED && TraceLog.isLoggable(TAG, Log.VERBOSE)) {
+            TraceLog.log(TAG, Log.VERBOSE, "onGamepad: " + event);
+        }
     }
     
     /**
@@ -6,21 +6,26 @@ import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.app.Service;
 import android.content.Intent;
+import android.hardware.display.DisplayManager;
 import android.os.IBinder;
+import android.view.Display;
 import android.util.Log;
 
 import androidx.annotation.Nullable;
 import androidx.core.app.NotificationCompat;
 
 import com.linecat.wmmtcontroller.MainActivity;
+import com.linecat.wmmtcontroller.input.EmbeddedJsInputScriptEngine;
 import com.linecat.wmmtcontroller.input.InputScriptEngine;
 import com.linecat.wmmtcontroller.input.JsInputScriptEngine;
 import com.linecat.wmmtcontroller.input.ProfileManager;
 import com.linecat.wmmtcontroller.input.SafetyController;
 import com.linecat.wmmtcontroller.input.ScriptProfile;
+import com.linecat.wmmtcontroller.input.SwitchableInputScriptEngine;
 import com.linecat.wmmtcontroller.layer.ConversionLayer;
 import com.linecat.wmmtcontroller.layer.InputAbstractionLayer;
 import com.linecat.wmmtcontroller.layer.MappingLayer;
+import com.linecat.wmmtcontroller.layer.MoveCoalescingPolicy;
 import com.linecat.wmmtcontroller.layer.NetworkLayer;
 import com.linecat.wmmtcontroller.layer.PlatformAdaptationLayer;
 import com.linecat.wmmtcontroller.layer.UIInputLayer;
@@ -36,6 +41,9 @@ public class InputRuntimeService extends Service {
     private static final String TAG = "InputRuntimeService";
     private static final String CHANNEL_ID = "InputRuntimeService";
     private static final int NOTIFICATION_ID = 1;
+    // adaptive 策略：发送队列积压时的最低 MOVE 频率与对应的积压字节数
+    private static final int ADAPTIVE_MIN_MOVE_HZ = 20;
+    private static final long ADAPTIVE_SEND_QUEUE_HIGH_WATERMARK_BYTES = 16 * 1024;
 
     // 运行时组件
     private RuntimeConfig runtimeConfig;
@@ -50,6 +58,7 @@ public class InputRuntimeService extends Service {
     private ConversionLayer conversionLayer;
     private MappingLayer mappingLayer;
     private NetworkLayer networkLayer;
+    private MoveCoalescingPolicy moveCoalescingPolicy;
 
     // 运行状态
     private boolean isRunning = false;
@@ -170,8 +179,14 @@ public class InputRuntimeService extends Service {
         // 创建运行时配置
         runtimeConfig = new RuntimeConfig(this);
 
-        // 创建脚本引擎
-        scriptEngine = new JsInputScriptEngine(this);
+        // 创建脚本引擎（按Profile在WebView引擎与嵌入式引擎之间切换）
+        scriptEngine = new SwitchableInputScriptEngine(
+                () -> new JsInputScriptEngine(this),
+                () -> {
+                    EmbeddedJsInputScriptEngine engine = new EmbeddedJsInputScriptEngine();
+                    engine.init();
+                    return engine;
+                });
 
         // 创建配置文件管理器
         profileManager = new ProfileManager(this, scriptEngine);
@@ -233,14 +248,30 @@ public class InputRuntimeService extends Service {
             public void onPointerFrame(InputAbstractionLayer.PointerFrame frame) {
                 // 处理指针帧（根据需要实现）
             }
-            
+
+            @Override
+            public void onPointerFrameView(InputAbstractionLayer.PointerFrameView view) {
+                // 零分配入口：直接读取视图，不物化 PointerFrame 快照
+                // 指针帧暂无下游消费者；接入时在此读取 view，需要跨帧保留时再调用 view.toPointerFrame()
+            }
+
             @Override
             public void onGyroFrame(InputAbstractionLayer.GyroFrame frame) {
                 // 处理陀螺仪帧（根据需要实现）
             }
         });
+        moveCoalescingPolicy = createMoveCoalescingPolicy();
+        inputAbstractionLayer.setMoveCoalescingPolicy(moveCoalescingPolicy);
+        inputAbstractionLayer.setGyroOutputHz(runtimeConfig.getGyroOutputHz());
+        inputAbstractionLayer.setGyroFusionEnabled(runtimeConfig.isGyroFusionEnabled());
         
         platformAdaptationLayer = new PlatformAdaptationLayer(this, inputAbstractionLayer);
+        platformAdaptationLayer.setInputThreadPriority(runtimeConfig.getInputThreadPriority());
+        platformAdaptationLayer.setHistoricalSampleMode(runtimeConfig.forwardTouchHistory()
+                ? PlatformAdaptationLayer.HistoricalSampleMode.FORWARD
+                : PlatformAdaptationLayer.HistoricalSampleMode.COALESCE);
+        platformAdaptationLayer.setSensorMaxReportLatencyUs(runtimeConfig.getSensorMaxReportLatencyUs());
+        platformAdaptationLayer.setAccelerometerEnabled(runtimeConfig.isGyroFusionEnabled());
         
         // 注意：不再需要设置依赖项、初始化或获取交互捕获器
         // 新的平台适配层设计不再使用这些方法
@@ -248,6 +279,38 @@ public class InputRuntimeService extends Service {
         Log.d(TAG, "All layers initialized");
     }
 
+    /**
+     * 按运行时配置创建 MOVE 合并策略
+     */
+    private MoveCoalescingPolicy createMoveCoalescingPolicy() {
+        String policy = runtimeConfig.getMoveCoalescingPolicy();
+        int moveOutputHz = runtimeConfig.getMoveOutputHz();
+        if (RuntimeConfig.MOVE_POLICY_VSYNC.equals(policy)) {
+            DisplayManager displayManager = getSystemService(DisplayManager.class);
+            Display display = displayManager != null ? displayManager.getDisplay(Display.DEFAULT_DISPLAY) : null;
+            float refreshRate = display != null ? display.getRefreshRate() : moveOutputHz;
+            Log.d(TAG, "Using vsync-aligned MOVE coalescing, refresh rate: " + refreshRate);
+            return new MoveCoalescingPolicy.VsyncAligned(refreshRate);
+        }
+        if (RuntimeConfig.MOVE_POLICY_ADAPTIVE.equals(policy)) {
+            Log.d(TAG, "Using adaptive MOVE coalescing, max rate: " + moveOutputHz);
+            return new MoveCoalescingPolicy.Adaptive(moveOutputHz, Math.min(ADAPTIVE_MIN_MOVE_HZ, moveOutputHz),
+                    this::getSendQueueBytes,
+                    ADAPTIVE_SEND_QUEUE_HIGH_WATERMARK_BYTES);
+        }
+        Log.d(TAG, "Using fixed-rate MOVE coalescing: " + moveOutputHz + "Hz");
+        return new MoveCoalescingPolicy.FixedRate(moveOutputHz);
+    }
+
+    /**
+     * 获取网络层待发送字节数（在输入线程上调用）
+     */
+    private long getSendQueueBytes() {
+        NetworkLayer layer = networkLayer;
+        TransportController transportController = layer != null ? layer.getTransportController() : null;
+        return transportController != null ? transportController.getSendQueueBytes() : 0;
+    }
+
     /**
      * 启动所有层
      */
@@ -263,7 +326,8 @@ public class InputRuntimeService extends Service {
         // 启动转换层
         conversionLayer.start();
 
-        // 启动平台适配层的 overlay
+        // 启动 MOVE 合并策略的时钟源，再启动平台适配层的 overlay
+        moveCoalescingPolicy.start();
         platformAdaptationLayer.startOverlay();
 
         Log.d(TAG, "All layers started");
@@ -279,6 +343,9 @@ public class InputRuntimeService extends Service {
         if (platformAdaptationLayer != null) {
             platformAdaptationLayer.stopOverlay();
         }
+        if (moveCoalescingPolicy != null) {
+            moveCoalescingPolicy.stop();
+        }
 
         // 停止转换层
         if (conversionLayer != null) {
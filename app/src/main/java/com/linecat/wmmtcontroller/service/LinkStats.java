@@ -0,0 +1,293 @@
+package com.linecat.wmmtcontroller.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 链路统计
+ * <p>
+ * 汇总三类链路指标，线程安全（发送线程、接收线程与定时任务并发调用）：
+ * <ul>
+ *   <li>RTT：ping/pong 往返时间（基于单调时钟），服务端不支持 ping 时退化为状态/事件确认的往返时间；
+ *       样本记入分段线性直方图，用于计算 p50/p95/p99；</li>
+ *   <li>时钟偏移：按 NTP 方式由 pong 携带的服务端收发时间估算，取最近若干样本中往返延迟最小者，
+ *       表示服务端时钟减去客户端时钟；</li>
+ *   <li>丢包率：记录已发送的状态/事件ID，确认越过某个ID（允许少量乱序）后仍未确认的记为丢失。</li>
+ * </ul>
+ */
+final class LinkStats {
+    // 直方图：50ms 以内按 0.1ms 分桶，2s 以内按 1ms 分桶，超出部分计入最后一个桶
+    private static final int FINE_BUCKET_US = 100;
+    private static final int FINE_LIMIT_US = 50_000;
+    private static final int COARSE_BUCKET_US = 1000;
+    private static final int COARSE_LIMIT_US = 2_000_000;
+    private static final int FINE_BUCKETS = FINE_LIMIT_US / FINE_BUCKET_US;
+    private static final int COARSE_BUCKETS = (COARSE_LIMIT_US - FINE_LIMIT_US) / COARSE_BUCKET_US;
+
+    // 时钟偏移估算使用的最近样本数
+    private static final int OFFSET_SAMPLES = 8;
+    // 等待 pong 的 ping 最多保留数量
+    private static final int MAX_PENDING_PINGS = 16;
+
+    private final long[] buckets = new long[FINE_BUCKETS + COARSE_BUCKETS + 1];
+    private long sampleCount;
+    private long lastRttUs;
+
+    private long nextPingId;
+    private final Map<Long, long[]> pendingPings = new LinkedHashMap<Long, long[]>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, long[]> eldest) {
+            return size() > MAX_PENDING_PINGS;
+        }
+    };
+    private boolean pongSeen;
+
+    private final long[] offsetSamplesMs = new long[OFFSET_SAMPLES];
+    private final long[] delaySamplesMs = new long[OFFSET_SAMPLES];
+    private int offsetSampleCount;
+    private int nextOffsetSample;
+
+    private final AckTracker stateAcks = new AckTracker();
+    private final AckTracker eventAcks = new AckTracker();
+
+    /**
+     * 记录一次 ping 发送
+     * @param nowNanos 单调时钟（纳秒）
+     * @param nowWallMs 客户端墙上时间（毫秒），随 ping 发送并由 pong 原样带回
+     * @return pingId
+     */
+    synchronized long onPingSent(long nowNanos, long nowWallMs) {
+        long pingId = ++nextPingId;
+        pendingPings.put(pingId, new long[]{nowNanos, nowWallMs});
+        return pingId;
+    }
+
+    /**
+     * 记录一次 pong
+     * @param pingId 对应的 pingId
+     * @param serverRecvMs 服务端收到 ping 的时间，未提供时为 0
+     * @param serverSendMs 服务端发出 pong 的时间，未提供时为 0
+     * @param nowNanos 单调时钟（纳秒）
+     * @param nowWallMs 客户端墙上时间（毫秒）
+     * @return 往返时间（微秒），未知 pingId 返回 -1
+     */
+    synchronized long onPong(long pingId, long serverRecvMs, long serverSendMs, long nowNanos, long nowWallMs) {
+        long[] ping = pendingPings.remove(pingId);
+        if (ping == null) {
+            return -1;
+        }
+        pongSeen = true;
+        long rttUs = (nowNanos - ping[0]) / 1000;
+        recordRtt(rttUs);
+
+        if (serverRecvMs > 0 && serverSendMs >= serverRecvMs) {
+            long clientSendMs = ping[1];
+            // NTP：offset = ((t1 - t0) + (t2 - t3)) / 2，delay = (t3 - t0) - (t2 - t1)
+            long offset = ((serverRecvMs - clientSendMs) + (serverSendMs - nowWallMs)) / 2;
+            long delay = (nowWallMs - clientSendMs) - (serverSendMs - serverRecvMs);
+            offsetSamplesMs[nextOffsetSample] = offset;
+            delaySamplesMs[nextOffsetSample] = delay;
+            nextOffsetSample = (nextOffsetSample + 1) % OFFSET_SAMPLES;
+            offsetSampleCount = Math.min(offsetSampleCount + 1, OFFSET_SAMPLES);
+        }
+        return rttUs;
+    }
+
+    /**
+     * 记录一条已写入连接的状态消息
+     */
+    synchronized void onStateSent(long stateId, long nowNanos) {
+        stateAcks.onSent(stateId, nowNanos);
+    }
+
+    /**
+     * 记录一次状态确认
+     */
+    synchronized void onStateAck(long stateId, long nowNanos) {
+        recordAckRtt(stateAcks.onAck(stateId, nowNanos));
+    }
+
+    /**
+     * 记录一条已写入连接的事件消息
+     */
+    synchronized void onEventSent(long eventId, long nowNanos) {
+        eventAcks.onSent(eventId, nowNanos);
+    }
+
+    /**
+     * 记录一次事件确认
+     */
+    synchronized void onEventAck(long eventId, long nowNanos) {
+        recordAckRtt(eventAcks.onAck(eventId, nowNanos));
+    }
+
+    /**
+     * 最近一次 RTT（微秒）
+     */
+    synchronized long getLastRttUs() {
+        return lastRttUs;
+    }
+
+    /**
+     * RTT 样本数
+     */
+    synchronized long getRttSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * RTT 分位数
+     * @param quantile 0~1，如 0.95
+     * @return 分位数所在桶的上界（微秒），无样本时为 0
+     */
+    synchronized long getRttPercentileUs(double quantile) {
+        if (sampleCount == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(quantile * sampleCount));
+        long cumulative = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            cumulative += buckets[i];
+            if (cumulative >= target) {
+                return bucketUpperUs(i);
+            }
+        }
+        return COARSE_LIMIT_US;
+    }
+
+    /**
+     * 时钟偏移估算（服务端时钟 - 客户端时钟）
+     * @return 偏移毫秒数，无样本时为 0
+     */
+    synchronized long getClockOffsetMs() {
+        if (offsetSampleCount == 0) {
+            return 0;
+        }
+        int best = 0;
+        for (int i = 1; i < offsetSampleCount; i++) {
+            if (delaySamplesMs[i] < delaySamplesMs[best]) {
+                best = i;
+            }
+        }
+        return offsetSamplesMs[best];
+    }
+
+    /**
+     * 基于确认的丢包率：已判定的消息中未被确认的比例
+     */
+    synchronized double getLossRate() {
+        long resolved = stateAcks.resolved + eventAcks.resolved;
+        if (resolved == 0) {
+            return 0.0;
+        }
+        return (double) (stateAcks.lost + eventAcks.lost) / resolved;
+    }
+
+    /**
+     * 已判定丢失的消息数
+     */
+    synchronized long getLostCount() {
+        return stateAcks.lost + eventAcks.lost;
+    }
+
+    private void recordAckRtt(long rttNanos) {
+        // 确认的往返时间包含服务端处理时间，只在服务端不支持 ping 时使用
+        if (rttNanos >= 0 && !pongSeen) {
+            recordRtt(rttNanos / 1000);
+        }
+    }
+
+    private void recordRtt(long rttUs) {
+        if (rttUs < 0) {
+            return;
+        }
+        lastRttUs = rttUs;
+        buckets[bucketIndex(rttUs)]++;
+        sampleCount++;
+    }
+
+    static int bucketIndex(long us) {
+        if (us < FINE_LIMIT_US) {
+            return (int) (us / FINE_BUCKET_US);
+        }
+        if (us < COARSE_LIMIT_US) {
+            return FINE_BUCKETS + (int) ((us - FINE_LIMIT_US) / COARSE_BUCKET_US);
+        }
+        return FINE_BUCKETS + COARSE_BUCKETS;
+    }
+
+    static long bucketUpperUs(int index) {
+        if (index < FINE_BUCKETS) {
+            return (long) (index + 1) * FINE_BUCKET_US;
+        }
+        if (index < FINE_BUCKETS + COARSE_BUCKETS) {
+            return FINE_LIMIT_US + (long) (index - FINE_BUCKETS + 1) * COARSE_BUCKET_US;
+        }
+        return COARSE_LIMIT_US;
+    }
+
+    /**
+     * 确认跟踪：环形记录最近发送的ID，确认越过 ID + REORDER_WINDOW 后判定该ID是否丢失
+     */
+    private static final class AckTracker {
+        private static final int CAPACITY = 1024;
+        private static final int MASK = CAPACITY - 1;
+        // 允许的乱序距离
+        private static final int REORDER_WINDOW = 2;
+
+        private final long[] ids = new long[CAPACITY];
+        private final long[] sendNanos = new long[CAPACITY];
+        private final boolean[] acked = new boolean[CAPACITY];
+        // 不大于该ID的消息均已判定，-1 表示尚未发送过
+        private long resolvedThrough = -1;
+        private long highestAcked;
+        long resolved;
+        long lost;
+
+        void onSent(long id, long nowNanos) {
+            if (resolvedThrough < 0) {
+                resolvedThrough = id - 1;
+            }
+            // 即将被覆盖的槽位先判定
+            resolveThrough(id - CAPACITY);
+            int slot = (int) (id & MASK);
+            ids[slot] = id;
+            sendNanos[slot] = nowNanos;
+            acked[slot] = false;
+        }
+
+        /**
+         * @return 该ID的往返时间（纳秒），未记录或重复确认时为 -1
+         */
+        long onAck(long id, long nowNanos) {
+            int slot = (int) (id & MASK);
+            if (ids[slot] != id || acked[slot] || id <= resolvedThrough) {
+                return -1;
+            }
+            acked[slot] = true;
+            if (id > highestAcked) {
+                highestAcked = id;
+                resolveThrough(highestAcked - REORDER_WINDOW - 1);
+            }
+            return nowNanos - sendNanos[slot];
+        }
+
+        private void resolveThrough(long id) {
+            if (resolvedThrough < 0 || id <= resolvedThrough) {
+                return;
+            }
+            // 环形记录之外的ID已被覆盖，跳过
+            resolvedThrough = Math.max(resolvedThrough, id - CAPACITY);
+            while (resolvedThrough < id) {
+                resolvedThrough++;
+                int slot = (int) (resolvedThrough & MASK);
+                if (ids[slot] == resolvedThrough) {
+                    resolved++;
+                    if (!acked[slot]) {
+                        lost++;
+                    }
+                }
+            }
+        }
+    }
+}
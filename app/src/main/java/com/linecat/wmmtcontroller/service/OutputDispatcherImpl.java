@@ -4,6 +4,7 @@ import android.content.Context;
 import android.util.Log;
 
 import com.linecat.wmmtcontroller.model.InputState;
+import com.linecat.wmmtcontroller.monitor.TraceLog;
 
 /**
  * 输出派发器实现
@@ -28,7 +29,9 @@ public class OutputDispatcherImpl implements OutputDispatcher {
     
     @Override
     public void sendKey(int keyCode, boolean pressed) {
-        Log.d(TAG, "sendKey: " + keyCode + " pressed: " + pressed);
+        if (TraceLog.ENABLED && TraceLog.isLoggable(TAG, Log.DEBUG)) {
+            TraceLog.log(TAG, Log.DEBUG, "sendKey: " + keyCode + " pressed: " + pressed);
+        }
         
         // 创建一个临时InputState用于发送按键事件
         // 实际应用中，应该从当前运行时状态获取InputState
@@ -52,7 +55,9 @@ public class OutputDispatcherImpl implements OutputDispatcher {
     
     @Override
     public void sendAxis(int axisId, float value) {
-        Log.d(TAG, "sendAxis: " + axisId + " value: " + value);
+        if (TraceLog.ENABLED && TraceLog.isLoggable(TAG, Log.VERBOSE)) {
+            TraceLog.log(TAG, Log.VERBOSE, "sendAxis: " + axisId + " value: " + value);
+        }
         
         // 轴事件处理，目前暂未实现
         // 实际应用中，应该根据轴ID更新对应的轴值到InputState
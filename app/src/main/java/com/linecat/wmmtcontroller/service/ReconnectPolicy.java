@@ -0,0 +1,52 @@
+package com.linecat.wmmtcontroller.service;
+
+import java.util.Random;
+import java.util.function.DoubleSupplier;
+
+/**
+ * 重连退避策略
+ * <p>
+ * 第 n 次重连的退避上限为 min(maxDelay, baseDelay * 2^n)，实际延迟在 [上限/2, 上限] 内随机取值：
+ * 保留一半确定的退避避免连续快速重试，另一半随机抖动避免多台设备在同一时刻重连。
+ */
+final class ReconnectPolicy {
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final DoubleSupplier random;
+
+    /**
+     * 构造函数
+     * @param baseDelayMs 首次重连的退避上限
+     * @param maxDelayMs 退避上限的最大值
+     */
+    ReconnectPolicy(long baseDelayMs, long maxDelayMs) {
+        this(baseDelayMs, maxDelayMs, new Random()::nextDouble);
+    }
+
+    /**
+     * 构造函数
+     * @param baseDelayMs 首次重连的退避上限
+     * @param maxDelayMs 退避上限的最大值
+     * @param random [0, 1) 随机数来源
+     */
+    ReconnectPolicy(long baseDelayMs, long maxDelayMs, DoubleSupplier random) {
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.random = random;
+    }
+
+    /**
+     * 计算重连延迟
+     * @param attempt 已连续失败的重连次数，从 0 开始
+     * @return 延迟毫秒数
+     */
+    long nextDelayMs(int attempt) {
+        long ceiling = maxDelayMs;
+        // 超过 30 次移位后必然达到上限，避免溢出
+        if (attempt < 30) {
+            ceiling = Math.min(maxDelayMs, baseDelayMs << attempt);
+        }
+        long half = ceiling / 2;
+        return half + (long) (random.getAsDouble() * (ceiling - half));
+    }
+}
@@ -7,6 +7,9 @@ import android.util.Log;
 import com.linecat.wmmtcontroller.database.DatabaseHelper;
 import com.linecat.wmmtcontroller.model.ConnectionInfo;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * 运行时配置管理类
  * 用于管理WebSocket URL、Profile选择等配置
@@ -18,10 +21,37 @@ public class RuntimeConfig {
     private static final String PREFS_NAME = "runtime_config";
     private static final String KEY_PROFILE_ID = "profile_id";
     private static final String KEY_USE_SCRIPT_RUNTIME = "use_script_runtime";
+    private static final String KEY_INPUT_THREAD_PRIORITY = "input_thread_priority";
+    private static final String KEY_FORWARD_TOUCH_HISTORY = "forward_touch_history";
+    private static final String KEY_SENSOR_MAX_REPORT_LATENCY_US = "sensor_max_report_latency_us";
+    private static final String KEY_MOVE_COALESCING_POLICY = "move_coalescing_policy";
+    private static final String KEY_MOVE_OUTPUT_HZ = "move_output_hz";
+    private static final String KEY_GYRO_OUTPUT_HZ = "gyro_output_hz";
+    private static final String KEY_GYRO_FUSION_ENABLED = "gyro_fusion_enabled";
+    private static final String KEY_BINARY_PROTOCOL_ENABLED = "binary_protocol_enabled";
+    private static final String KEY_SENT_FRAME_BROADCAST_INTERVAL = "sent_frame_broadcast_interval";
+    private static final String KEY_AUTO_RECONNECT_ENABLED = "auto_reconnect_enabled";
+    private static final String KEY_STATE_TRANSPORT = "state_transport";
+    private static final String KEY_UDP_REDUNDANCY = "udp_redundancy";
+    private static final String KEY_CONNECTION_RACING_ENABLED = "connection_racing_enabled";
+    private static final String KEY_RACED_ENDPOINT_URL = "raced_endpoint_url";
+    private static final String KEY_RACED_ENDPOINT_TIME = "raced_endpoint_time";
+    
+    // MOVE 合并策略取值
+    public static final String MOVE_POLICY_FIXED = "fixed";
+    public static final String MOVE_POLICY_VSYNC = "vsync";
+    public static final String MOVE_POLICY_ADAPTIVE = "adaptive";
+    
+    // 状态帧传输方式取值
+    public static final String STATE_TRANSPORT_WEBSOCKET = "websocket";
+    public static final String STATE_TRANSPORT_UDP = "udp";
     
     // 默认配置
     private static final String DEFAULT_PROFILE_ID = "official-profiles/wmmt_keyboard_basic";
     private static final boolean DEFAULT_USE_SCRIPT_RUNTIME = true;
+    private static final int DEFAULT_INPUT_THREAD_PRIORITY = android.os.Process.THREAD_PRIORITY_URGENT_DISPLAY;
+    private static final int DEFAULT_MOVE_OUTPUT_HZ = 60;
+    private static final int DEFAULT_GYRO_OUTPUT_HZ = 60;
     
     private final SharedPreferences sharedPreferences;
     private final DatabaseHelper databaseHelper;
@@ -128,6 +158,259 @@ public class RuntimeConfig {
         sharedPreferences.edit().putBoolean(KEY_USE_SCRIPT_RUNTIME, useScriptRuntime).apply();
     }
     
+    /**
+     * 获取输入线程优先级
+     * @return android.os.Process.THREAD_PRIORITY_* 取值
+     */
+    public int getInputThreadPriority() {
+        return sharedPreferences.getInt(KEY_INPUT_THREAD_PRIORITY, DEFAULT_INPUT_THREAD_PRIORITY);
+    }
+    
+    /**
+     * 设置输入线程优先级
+     * @param priority android.os.Process.THREAD_PRIORITY_* 取值
+     */
+    public void setInputThreadPriority(int priority) {
+        sharedPreferences.edit().putInt(KEY_INPUT_THREAD_PRIORITY, priority).apply();
+    }
+    
+    /**
+     * 是否逐个转发 MotionEvent 的批量历史触摸样本
+     * @return true 表示转发历史样本，false 表示只取最新样本
+     */
+    public boolean forwardTouchHistory() {
+        return sharedPreferences.getBoolean(KEY_FORWARD_TOUCH_HISTORY, false);
+    }
+    
+    /**
+     * 设置是否逐个转发批量历史触摸样本
+     * @param forward 是否转发
+     */
+    public void setForwardTouchHistory(boolean forward) {
+        sharedPreferences.edit().putBoolean(KEY_FORWARD_TOUCH_HISTORY, forward).apply();
+    }
+    
+    /**
+     * 获取陀螺仪批量上报延迟（微秒）
+     * @return 0 表示不批量（默认），&gt; 0 表示启用硬件 FIFO 批量上报
+     */
+    public int getSensorMaxReportLatencyUs() {
+        return sharedPreferences.getInt(KEY_SENSOR_MAX_REPORT_LATENCY_US, 0);
+    }
+    
+    /**
+     * 设置陀螺仪批量上报延迟（微秒）
+     * @param maxReportLatencyUs 0 表示不批量
+     */
+    public void setSensorMaxReportLatencyUs(int maxReportLatencyUs) {
+        sharedPreferences.edit().putInt(KEY_SENSOR_MAX_REPORT_LATENCY_US, maxReportLatencyUs).apply();
+    }
+    
+    /**
+     * 获取 MOVE 合并策略
+     * @return MOVE_POLICY_FIXED（默认）、MOVE_POLICY_VSYNC 或 MOVE_POLICY_ADAPTIVE
+     */
+    public String getMoveCoalescingPolicy() {
+        return sharedPreferences.getString(KEY_MOVE_COALESCING_POLICY, MOVE_POLICY_FIXED);
+    }
+    
+    /**
+     * 设置 MOVE 合并策略
+     * @param policy MOVE_POLICY_* 取值
+     */
+    public void setMoveCoalescingPolicy(String policy) {
+        sharedPreferences.edit().putString(KEY_MOVE_COALESCING_POLICY, policy).apply();
+    }
+    
+    /**
+     * 获取 MOVE 输出频率（Hz）
+     * fixed 策略下为固定频率，adaptive 策略下为发送队列空闲时的最高频率
+     * @return 输出频率，默认 60
+     */
+    public int getMoveOutputHz() {
+        return sharedPreferences.getInt(KEY_MOVE_OUTPUT_HZ, DEFAULT_MOVE_OUTPUT_HZ);
+    }
+    
+    /**
+     * 设置 MOVE 输出频率（Hz）
+     * @param hz 输出频率
+     */
+    public void setMoveOutputHz(int hz) {
+        sharedPreferences.edit().putInt(KEY_MOVE_OUTPUT_HZ, hz).apply();
+    }
+    
+    /**
+     * 获取 GyroFrame 输出频率（Hz）
+     * @return 输出频率，默认 60；0 表示每个陀螺仪样本都输出
+     */
+    public int getGyroOutputHz() {
+        return sharedPreferences.getInt(KEY_GYRO_OUTPUT_HZ, DEFAULT_GYRO_OUTPUT_HZ);
+    }
+    
+    /**
+     * 设置 GyroFrame 输出频率（Hz）
+     * @param hz 输出频率，0 表示不抽取
+     */
+    public void setGyroOutputHz(int hz) {
+        sharedPreferences.edit().putInt(KEY_GYRO_OUTPUT_HZ, hz).apply();
+    }
+    
+    /**
+     * 是否启用陀螺仪与加速度计的互补滤波
+     * @return 是否启用，默认 false
+     */
+    public boolean isGyroFusionEnabled() {
+        return sharedPreferences.getBoolean(KEY_GYRO_FUSION_ENABLED, false);
+    }
+    
+    /**
+     * 设置是否启用陀螺仪与加速度计的互补滤波
+     * @param enabled 是否启用
+     */
+    public void setGyroFusionEnabled(boolean enabled) {
+        sharedPreferences.edit().putBoolean(KEY_GYRO_FUSION_ENABLED, enabled).apply();
+    }
+    
+    /**
+     * 是否协商二进制传输协议（服务端不支持时自动回退到JSON）
+     * @return 默认为true
+     */
+    public boolean isBinaryProtocolEnabled() {
+        return sharedPreferences.getBoolean(KEY_BINARY_PROTOCOL_ENABLED, true);
+    }
+    
+    /**
+     * 设置是否协商二进制传输协议
+     * @param enabled false表示始终使用JSON
+     */
+    public void setBinaryProtocolEnabled(boolean enabled) {
+        sharedPreferences.edit().putBoolean(KEY_BINARY_PROTOCOL_ENABLED, enabled).apply();
+    }
+    
+    /**
+     * 获取已发送帧诊断广播的采样间隔
+     * @return 每N帧广播一次，默认0（不广播）
+     */
+    public int getSentFrameBroadcastInterval() {
+        return sharedPreferences.getInt(KEY_SENT_FRAME_BROADCAST_INTERVAL, 0);
+    }
+    
+    /**
+     * 设置已发送帧诊断广播的采样间隔
+     * @param interval 每N帧广播一次，0表示不广播
+     */
+    public void setSentFrameBroadcastInterval(int interval) {
+        sharedPreferences.edit().putInt(KEY_SENT_FRAME_BROADCAST_INTERVAL, interval).apply();
+    }
+    
+    /**
+     * 获取是否在连接意外断开后自动重连
+     * @return 默认true
+     */
+    public boolean isAutoReconnectEnabled() {
+        return sharedPreferences.getBoolean(KEY_AUTO_RECONNECT_ENABLED, true);
+    }
+    
+    /**
+     * 设置是否在连接意外断开后自动重连
+     * @param enabled false表示断开后等待手动连接
+     */
+    public void setAutoReconnectEnabled(boolean enabled) {
+        sharedPreferences.edit().putBoolean(KEY_AUTO_RECONNECT_ENABLED, enabled).apply();
+    }
+    
+    /**
+     * 获取状态帧传输方式
+     * @return STATE_TRANSPORT_WEBSOCKET（默认）或 STATE_TRANSPORT_UDP
+     */
+    public String getStateTransport() {
+        return sharedPreferences.getString(KEY_STATE_TRANSPORT, STATE_TRANSPORT_WEBSOCKET);
+    }
+    
+    /**
+     * 设置状态帧传输方式
+     * UDP 只承载状态/事件帧，握手与确认仍走 WebSocket；服务端不支持时自动使用 WebSocket
+     * @param transport STATE_TRANSPORT_WEBSOCKET 或 STATE_TRANSPORT_UDP
+     */
+    public void setStateTransport(String transport) {
+        sharedPreferences.edit().putString(KEY_STATE_TRANSPORT, transport).apply();
+    }
+    
+    /**
+     * 获取 UDP 包的冗余帧数
+     * @return 每个包额外重复的历史帧数，默认3
+     */
+    public int getUdpRedundancy() {
+        return sharedPreferences.getInt(KEY_UDP_REDUNDANCY, 3);
+    }
+    
+    /**
+     * 设置 UDP 包的冗余帧数
+     * @param redundancy 每个包额外重复的历史帧数，0表示不冗余
+     */
+    public void setUdpRedundancy(int redundancy) {
+        sharedPreferences.edit().putInt(KEY_UDP_REDUNDANCY, redundancy).apply();
+    }
+    
+    /**
+     * 获取是否对所有已保存的连接并行竞速连接
+     * @return 默认false，只连接默认连接
+     */
+    public boolean isConnectionRacingEnabled() {
+        return sharedPreferences.getBoolean(KEY_CONNECTION_RACING_ENABLED, false);
+    }
+    
+    /**
+     * 设置是否对所有已保存的连接并行竞速连接
+     * @param enabled true表示同时连接所有已保存的端点，使用最先完成握手的端点
+     */
+    public void setConnectionRacingEnabled(boolean enabled) {
+        sharedPreferences.edit().putBoolean(KEY_CONNECTION_RACING_ENABLED, enabled).apply();
+    }
+    
+    /**
+     * 获取竞速连接的候选端点
+     * @return 默认连接的URL在最前，其后为其它已保存连接的URL（去重）
+     */
+    public List<String> getWebSocketUrlCandidates() {
+        List<String> urls = new ArrayList<>();
+        urls.add(getWebSocketUrl());
+        for (ConnectionInfo connectionInfo : databaseHelper.getAllConnectionInfos()) {
+            String url = DatabaseHelper.getWebSocketUrl(connectionInfo);
+            if (!urls.contains(url)) {
+                urls.add(url);
+            }
+        }
+        return urls;
+    }
+    
+    /**
+     * 获取上次竞速胜出的端点
+     * @return URL，没有记录时返回null
+     */
+    public String getRacedEndpointUrl() {
+        return sharedPreferences.getString(KEY_RACED_ENDPOINT_URL, null);
+    }
+    
+    /**
+     * 获取上次竞速胜出的时间（墙钟毫秒）
+     */
+    public long getRacedEndpointTime() {
+        return sharedPreferences.getLong(KEY_RACED_ENDPOINT_TIME, 0);
+    }
+    
+    /**
+     * 记录竞速胜出的端点
+     * @param url 胜出端点的URL
+     * @param timeMs 胜出时间（墙钟毫秒）
+     */
+    public void setRacedEndpoint(String url, long timeMs) {
+        sharedPreferences.edit()
+                .putString(KEY_RACED_ENDPOINT_URL, url)
+                .putLong(KEY_RACED_ENDPOINT_TIME, timeMs)
+                .apply();
+    }
+    
     /**
      * 清除所有配置，恢复默认值
      */
@@ -0,0 +1,68 @@
+package com.linecat.wmmtcontroller.service;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 已发送帧的进程内观察接口
+ * <p>
+ * 替代每帧一次的 ACTION_WS_SENT_FRAME 广播：测试与调试界面在同一进程内注册监听，
+ * 发送路径只遍历监听列表的快照，无锁、无 IPC；没有监听者时只有一次 volatile 读。
+ * 监听回调在发送线程上执行，应尽快返回。
+ */
+public final class SentFrameTap {
+
+    /**
+     * 已发送帧监听器
+     */
+    public interface Listener {
+        /**
+         * 一帧已交给WebSocket发送（未连接时同样回调，此时 payloadBytes 为 0）
+         * @param frameId 帧ID（状态消息为stateId，事件消息为eventId）
+         * @param message 帧内容的JSON表示
+         * @param payloadBytes 实际写入WebSocket的字节数
+         * @param binary 是否以二进制帧发送
+         */
+        void onFrameSent(long frameId, String message, int payloadBytes, boolean binary);
+    }
+
+    private static final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private static volatile boolean hasListeners = false;
+
+    private SentFrameTap() {
+    }
+
+    /**
+     * 注册监听器
+     */
+    public static void addListener(Listener listener) {
+        listeners.addIfAbsent(listener);
+        hasListeners = true;
+    }
+
+    /**
+     * 注销监听器
+     */
+    public static void removeListener(Listener listener) {
+        listeners.remove(listener);
+        hasListeners = !listeners.isEmpty();
+    }
+
+    /**
+     * 是否有监听器（发送路径可据此跳过只为观察者准备的数据）
+     */
+    public static boolean hasListeners() {
+        return hasListeners;
+    }
+
+    /**
+     * 通知所有监听器
+     */
+    static void publish(long frameId, String message, int payloadBytes, boolean binary) {
+        if (!hasListeners) {
+            return;
+        }
+        for (Listener listener : listeners) {
+            listener.onFrameSent(frameId, message, payloadBytes, binary);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.linecat.wmmtcontroller.service;
+
+import com.linecat.wmmtcontroller.model.KeyRegistry;
+import com.linecat.wmmtcontroller.model.KeySet;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 状态差分器
+ * <p>
+ * 比较当前状态帧与服务端已知的基线，决定本帧发送完整状态（关键帧）、事件增量还是不发送：
+ * <ul>
+ *   <li>服务端尚未确认过任何状态（旧版服务端或刚建立连接）时，每帧都发送完整状态；</li>
+ *   <li>距上一关键帧超过固定间隔，或关键帧迟迟未被确认而增量已累积过多时，重新发送关键帧；</li>
+ *   <li>其余情况只发送按键按下/释放边沿与变化超过阈值的轴值，无变化时不发送。</li>
+ * </ul>
+ * 基线记录的是最后发送出去的值而非上一帧，低于阈值的缓慢漂移会累积到超过阈值后再发送。
+ * 只在发送线程上使用，非线程安全。
+ */
+final class StateDiffer {
+    // 关键帧最大间隔
+    static final long KEYFRAME_INTERVAL_MS = 1000;
+    // 关键帧未被确认时，最多发送的增量数
+    static final int MAX_UNACKED_DELTAS = 30;
+    // 轴值变化阈值
+    static final float AXIS_EPSILON = 0.005f;
+
+    private static final Comparator<EventDelta.KeyboardEventDelta> KEY_ORDER =
+            Comparator.comparing(EventDelta.KeyboardEventDelta::getKeyId);
+    private static final Comparator<EventDelta.GamepadEventDelta.GamepadButtonEventDelta> BUTTON_ORDER =
+            Comparator.comparing(EventDelta.GamepadEventDelta.GamepadButtonEventDelta::getButtonId);
+
+    /**
+     * 差分结果
+     */
+    enum Decision {
+        // 发送完整状态
+        KEYFRAME,
+        // 发送事件增量（通过 getDelta() 获取）
+        DELTA,
+        // 与基线相同，无需发送
+        NONE
+    }
+
+    // 服务端已知的基线（最后发送的关键帧叠加之后的增量）
+    private StateSendStage.Frame baseline;
+    private float baselineJoystickX;
+    private float baselineJoystickY;
+    private float baselineTriggerL;
+    private float baselineTriggerR;
+
+    private long lastKeyframeStateId;
+    private long lastKeyframeTimeMs;
+    private int deltasSinceKeyframe;
+    private EventDelta delta;
+
+    /**
+     * 计算本帧的发送方式
+     * @param frame 当前状态帧
+     * @param nowMs 当前时间（单调时钟，毫秒）
+     * @param lastAckedStateId 服务端最后确认的状态ID，0 表示尚未确认过
+     * @return 发送方式
+     */
+    Decision next(StateSendStage.Frame frame, long nowMs, long lastAckedStateId) {
+        delta = null;
+        if (needsKeyframe(frame, nowMs, lastAckedStateId)) {
+            return Decision.KEYFRAME;
+        }
+
+        List<EventDelta.KeyboardEventDelta> keyboard = new ArrayList<>();
+        diffKeys(baseline.keyboardBits, frame.keyboardBits, keyboard, null);
+        List<EventDelta.GamepadEventDelta.GamepadButtonEventDelta> buttons = new ArrayList<>();
+        diffKeys(baseline.gamepadBits, frame.gamepadBits, null, buttons);
+
+        EventDelta.GamepadEventDelta.JoystickEventDelta.JoystickDelta left = null;
+        if (changed(baselineJoystickX, frame.joystickX) || changed(baselineJoystickY, frame.joystickY)) {
+            left = new EventDelta.GamepadEventDelta.JoystickEventDelta.JoystickDelta(frame.joystickX, frame.joystickY);
+        }
+        Float triggerL = changed(baselineTriggerL, frame.triggerL) ? frame.triggerL : null;
+        Float triggerR = changed(baselineTriggerR, frame.triggerR) ? frame.triggerR : null;
+
+        if (keyboard.isEmpty() && buttons.isEmpty() && left == null && triggerL == null && triggerR == null) {
+            return Decision.NONE;
+        }
+
+        delta = new EventDelta(keyboard, new EventDelta.GamepadEventDelta(buttons,
+                new EventDelta.GamepadEventDelta.JoystickEventDelta(left),
+                EventDelta.GamepadEventDelta.TriggerEventDelta.of(triggerL, triggerR)));
+
+        // 增量发出后，服务端看到的即为本帧的按键集合与已发送的轴值
+        baseline = frame;
+        if (left != null) {
+            baselineJoystickX = frame.joystickX;
+            baselineJoystickY = frame.joystickY;
+        }
+        if (triggerL != null) {
+            baselineTriggerL = frame.triggerL;
+        }
+        if (triggerR != null) {
+            baselineTriggerR = frame.triggerR;
+        }
+        deltasSinceKeyframe++;
+        return Decision.DELTA;
+    }
+
+    /**
+     * 最近一次 next() 返回 DELTA 时的事件增量
+     */
+    EventDelta getDelta() {
+        return delta;
+    }
+
+    /**
+     * 记录已发送的关键帧，作为之后增量的基线
+     * @param frame 已发送的状态帧
+     * @param stateId 关键帧的状态ID
+     * @param nowMs 当前时间（单调时钟，毫秒）
+     */
+    void onKeyframeSent(StateSendStage.Frame frame, long stateId, long nowMs) {
+        baseline = frame;
+        baselineJoystickX = frame.joystickX;
+        baselineJoystickY = frame.joystickY;
+        baselineTriggerL = frame.triggerL;
+        baselineTriggerR = frame.triggerR;
+        lastKeyframeStateId = stateId;
+        lastKeyframeTimeMs = nowMs;
+        deltasSinceKeyframe = 0;
+    }
+
+    /**
+     * 清除基线，下一帧发送关键帧（如连接重建后）
+     */
+    void reset() {
+        baseline = null;
+        delta = null;
+        deltasSinceKeyframe = 0;
+    }
+
+    private boolean needsKeyframe(StateSendStage.Frame frame, long nowMs, long lastAckedStateId) {
+        if (baseline == null || lastAckedStateId <= 0) {
+            return true;
+        }
+        if (nowMs - lastKeyframeTimeMs >= KEYFRAME_INTERVAL_MS) {
+            return true;
+        }
+        // 死区不在事件增量中，变化时只能通过完整状态同步
+        if (Float.compare(baseline.joystickDeadzone, frame.joystickDeadzone) != 0) {
+            return true;
+        }
+        // 关键帧未被确认：增量的基础状态落后太多，改为重发完整状态
+        return lastAckedStateId < lastKeyframeStateId && deltasSinceKeyframe >= MAX_UNACKED_DELTAS;
+    }
+
+    /**
+     * 轴值是否需要发送：超过阈值，或刚好回到中位/极限位置（松开摇杆、踩到底不能被阈值吞掉）
+     */
+    private static boolean changed(float previous, float current) {
+        return Math.abs(current - previous) > AXIS_EPSILON
+                || (current != previous && (current == 0f || Math.abs(current) == 1f));
+    }
+
+    /**
+     * 比较两个按键位图，生成按下/释放边沿（键盘与手柄按键二选一输出）
+     * 变化的按键即两个位图的异或，按下为其中在当前帧置位的部分；边沿按名称排序，输出顺序稳定
+     */
+    private static void diffKeys(long[] previous, long[] current,
+                                 List<EventDelta.KeyboardEventDelta> keyboardOut,
+                                 List<EventDelta.GamepadEventDelta.GamepadButtonEventDelta> buttonOut) {
+        int words = Math.max(previous.length, current.length);
+        for (int w = 0; w < words; w++) {
+            long now = KeySet.word(current, w);
+            long changed = KeySet.word(previous, w) ^ now;
+            while (changed != 0) {
+                int bit = Long.numberOfTrailingZeros(changed);
+                changed &= changed - 1;
+                String name = KeyRegistry.nameOf((w << 6) + bit);
+                boolean pressed = (now & (1L << bit)) != 0;
+                if (keyboardOut != null) {
+                    keyboardOut.add(pressed ? EventDelta.KeyboardEventDelta.pressed(name)
+                            : EventDelta.KeyboardEventDelta.released(name));
+                } else {
+                    buttonOut.add(pressed ? EventDelta.GamepadEventDelta.GamepadButtonEventDelta.pressed(name)
+                            : EventDelta.GamepadEventDelta.GamepadButtonEventDelta.released(name));
+                }
+            }
+        }
+        if (keyboardOut != null && keyboardOut.size() > 1) {
+            keyboardOut.sort(KEY_ORDER);
+        } else if (buttonOut != null && buttonOut.size() > 1) {
+            buttonOut.sort(BUTTON_ORDER);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.linecat.wmmtcontroller.service;
+
+import com.linecat.wmmtcontroller.model.InputState;
+import com.linecat.wmmtcontroller.model.KeySet;
+import com.linecat.wmmtcontroller.monitor.TraceLog;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * 异步状态发送阶段
+ * <p>
+ * 输入线程只截取一份状态帧并投递，序列化与发送在独立的发送线程上执行：
+ * <ul>
+ *   <li>按键/手柄按键集合发生变化的帧进入有序的边沿通道，按提交顺序全部发送，保证短按不丢失；</li>
+ *   <li>只有轴值变化的帧进入单槽"最新状态"邮箱，新帧直接覆盖未发送的旧帧；</li>
+ *   <li>发送队列积压超过阈值时暂缓发送邮箱中的帧，等待期间被新帧取代的旧帧直接丢弃。</li>
+ * </ul>
+ * 因此拥塞时排在发送队列后面的始终只有最新状态，端到端延迟不会随积压无限增长。
+ * 单帧发送抛出的运行时异常只计数并跳过该帧，发送线程继续运行。
+ */
+final class StateSendStage {
+    // 拥塞时重新检查发送队列的间隔
+    private static final long CONGESTION_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long STOP_JOIN_TIMEOUT_MS = 200;
+    private static final TraceLog.Counter SEND_FAILURES = TraceLog.counter("stateSend.failure");
+
+    /**
+     * 状态帧的发送目标（在发送线程上调用）
+     */
+    interface Sink {
+        void send(Frame frame);
+    }
+
+    /**
+     * 一帧待发送状态的不可变快照
+     */
+    static final class Frame {
+        final String[] keyboard;
+        final String[] gamepad;
+        // 按键集合的位图（KeyRegistry ID），用于比较与差分
+        final long[] keyboardBits;
+        final long[] gamepadBits;
+        final float joystickX;
+        final float joystickY;
+        final float joystickDeadzone;
+        final float triggerL;
+        final float triggerR;
+        // 提交序号（提交时赋值，之后经队列/邮箱发布给发送线程）
+        long sequence;
+
+        Frame(String[] keyboard, String[] gamepad, float joystickX, float joystickY,
+              float joystickDeadzone, float triggerL, float triggerR) {
+            this(keyboard, KeySet.bitsOf(keyboard), gamepad, KeySet.bitsOf(gamepad),
+                    joystickX, joystickY, joystickDeadzone, triggerL, triggerR);
+        }
+
+        private Frame(String[] keyboard, long[] keyboardBits, String[] gamepad, long[] gamepadBits,
+                      float joystickX, float joystickY, float joystickDeadzone, float triggerL, float triggerR) {
+            this.keyboard = keyboard;
+            this.gamepad = gamepad;
+            this.keyboardBits = keyboardBits;
+            this.gamepadBits = gamepadBits;
+            this.joystickX = joystickX;
+            this.joystickY = joystickY;
+            this.joystickDeadzone = joystickDeadzone;
+            this.triggerL = triggerL;
+            this.triggerR = triggerR;
+        }
+
+        /**
+         * 从输入状态截取发送所需的字段
+         */
+        static Frame capture(InputState inputState) {
+            InputState.JoystickState joystick = inputState.getJoystick();
+            KeySet keyboard = inputState.getKeyboard();
+            KeySet gamepad = inputState.getGamepad();
+            return new Frame(
+                    toSortedArray(keyboard), keyboard.toBits(),
+                    toSortedArray(gamepad), gamepad.toBits(),
+                    joystick != null ? joystick.getX() : 0f,
+                    joystick != null ? joystick.getY() : 0f,
+                    joystick != null ? joystick.getDeadzone() : 0f,
+                    inputState.getTriggerL(),
+                    inputState.getTriggerR());
+        }
+
+        /**
+         * 按键与手柄按键集合是否相同（即两帧之间没有离散边沿）
+         */
+        boolean sameButtons(Frame other) {
+            return KeySet.sameBits(keyboardBits, other.keyboardBits) && KeySet.sameBits(gamepadBits, other.gamepadBits);
+        }
+
+        private static String[] toSortedArray(Set<String> set) {
+            if (set == null || set.isEmpty()) {
+                return new String[0];
+            }
+            String[] array = set.toArray(new String[0]);
+            Arrays.sort(array);
+            return array;
+        }
+    }
+
+    private final Sink sink;
+    private final LongSupplier sendQueueBytes;
+    private final long queueHighWatermarkBytes;
+
+    private final ConcurrentLinkedQueue<Frame> edgeLane = new ConcurrentLinkedQueue<>();
+    private final AtomicReference<Frame> latestState = new AtomicReference<>();
+
+    // 上一个提交的帧与提交序号（提交时持有本对象锁）
+    private Frame lastSubmitted;
+    private long nextSequence;
+    // 最后发送的帧序号（仅在发送线程上读写）
+    private long lastSentSequence;
+
+    private volatile boolean running;
+    private volatile Thread senderThread;
+
+    // 统计
+    private final AtomicLong statesSkipped = new AtomicLong();
+    private volatile long statesSent;
+    private volatile long edgesSent;
+    private volatile long sendFailures;
+
+    /**
+     * 构造函数
+     * @param sink 发送目标
+     * @param sendQueueBytes 发送队列当前积压字节数
+     * @param queueHighWatermarkBytes 积压超过该值时暂缓发送最新状态
+     */
+    StateSendStage(Sink sink, LongSupplier sendQueueBytes, long queueHighWatermarkBytes) {
+        this.sink = sink;
+        this.sendQueueBytes = sendQueueBytes;
+        this.queueHighWatermarkBytes = queueHighWatermarkBytes;
+    }
+
+    /**
+     * 启动发送线程
+     */
+    synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(this::runLoop, "TransportSender");
+        senderThread = thread;
+        thread.start();
+    }
+
+    /**
+     * 停止发送线程，丢弃未发送的帧
+     */
+    synchronized void stop() {
+        running = false;
+        Thread thread = senderThread;
+        senderThread = null;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(STOP_JOIN_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        edgeLane.clear();
+        latestState.set(null);
+        lastSubmitted = null;
+    }
+
+    /**
+     * 提交一帧状态（通常在输入线程上调用，重连时也会在主线程补交断线期间的最新帧；不做序列化）
+     */
+    synchronized void submit(Frame frame) {
+        frame.sequence = ++nextSequence;
+        Frame previous = lastSubmitted;
+        lastSubmitted = frame;
+        if (previous == null || !frame.sameButtons(previous)) {
+            // 先清空邮箱再入队，保证发送顺序与提交顺序一致
+            if (latestState.getAndSet(null) != null) {
+                statesSkipped.incrementAndGet();
+            }
+            edgeLane.offer(frame);
+        } else if (latestState.getAndSet(frame) != null) {
+            statesSkipped.incrementAndGet();
+        }
+        Thread thread = senderThread;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void runLoop() {
+        while (running) {
+            Frame edge;
+            while (running && (edge = edgeLane.poll()) != null) {
+                if (deliver(edge)) {
+                    edgesSent++;
+                }
+                lastSentSequence = edge.sequence;
+            }
+
+            Frame state = latestState.getAndSet(null);
+            if (state != null) {
+                if (state.sequence < lastSentSequence) {
+                    // 已被之后发送的边沿帧取代
+                    statesSkipped.incrementAndGet();
+                    continue;
+                }
+                if (!edgeLane.isEmpty() || sendQueueBytes.getAsLong() > queueHighWatermarkBytes) {
+                    // 边沿帧优先，或发送队列拥塞：放回邮箱，若期间已有新帧则丢弃旧帧
+                    if (!latestState.compareAndSet(null, state)) {
+                        statesSkipped.incrementAndGet();
+                    }
+                    if (edgeLane.isEmpty()) {
+                        LockSupport.parkNanos(this, CONGESTION_RETRY_NANOS);
+                    }
+                    continue;
+                }
+                if (deliver(state)) {
+                    statesSent++;
+                }
+                lastSentSequence = state.sequence;
+                continue;
+            }
+
+            if (edgeLane.isEmpty() && latestState.get() == null) {
+                LockSupport.park(this);
+            }
+        }
+    }
+
+    /**
+     * 已发送的最新状态帧数
+     */
+    long getStatesSent() {
+        return statesSent;
+    }
+
+    /**
+     * 发送一帧；sink 抛出运行时异常（如差分或编码错误）时计数并放弃该帧，避免发送线程退出后状态输出静默中断
+     * @return 是否发送成功
+     */
+    private boolean deliver(Frame frame) {
+        try {
+            sink.send(frame);
+            return true;
+        } catch (RuntimeException e) {
+            sendFailures++;
+            SEND_FAILURES.increment();
+            return false;
+        }
+    }
+
+    /**
+     * 已发送的边沿帧数
+     */
+    long getEdgesSent() {
+        return edgesSent;
+    }
+
+    /**
+     * 被新帧取代而未发送的状态帧数
+     */
+    long getStatesSkipped() {
+        return statesSkipped.get();
+    }
+
+    /**
+     * 发送时抛出异常而被放弃的帧数
+     */
+    long getSendFailures() {
+        return sendFailures;
+    }
+}
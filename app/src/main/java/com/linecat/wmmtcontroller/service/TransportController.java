@@ -5,15 +5,18 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.os.Build;
+import android.os.SystemClock;
 import android.util.Log;
 
 import com.linecat.wmmtcontroller.model.InputState;
+import com.linecat.wmmtcontroller.monitor.TraceLog;
 import com.linecat.wmmtcontroller.service.GamepadButtonEvent;
 import com.linecat.wmmtcontroller.service.KeyboardEvent;
 import com.linecat.wmmtcontroller.service.StateMessage;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * 传输控制器
@@ -21,16 +24,24 @@ import java.util.Set;
  */
 public class TransportController {
     private static final String TAG = "TransportController";
+    // 发送队列积压超过该值时，最新状态帧暂缓发送并可被新帧取代
+    private static final long SEND_QUEUE_HIGH_WATERMARK_BYTES = 16 * 1024;
     private final Context context;
     private final WebSocketClient webSocketClient;
     private final RuntimeConfig runtimeConfig;
+    // 异步发送阶段：序列化与发送在独立线程上执行
+    private final StateSendStage stateSendStage;
+    // 状态差分：在关键帧之间只发送事件增量（仅在发送线程上使用）
+    private final StateDiffer stateDiffer = new StateDiffer();
+    private volatile long keyframesSent = 0;
+    private volatile long deltasSent = 0;
+    // 断线期间只保留最新一帧（不排队），重连后立即补发
+    private final AtomicReference<StateSendStage.Frame> pendingWhileDisconnected = new AtomicReference<>();
     
     // Metrics 统计
-    private long totalMessagesSent = 0;
+    private volatile long totalMessagesSent = 0;
     private long totalMessagesReceived = 0;
-    private long totalAckReceived = 0;
-    private long lastRtt = 0;
-    private long lastMessageTime = 0;
+    private volatile long lastMessageTime = 0;
     
     // 连接信息更新广播接收器
     private final BroadcastReceiver connectionInfoUpdateReceiver = new BroadcastReceiver() {
@@ -51,6 +62,12 @@ public class TransportController {
                     disconnect();
                     connect();
                 }
+            } else if (RuntimeEvents.ACTION_WS_CONNECTED.equals(intent.getAction())) {
+                // 连接（或自动重连）成功后立即发送断线期间的最新状态
+                StateSendStage.Frame pending = pendingWhileDisconnected.getAndSet(null);
+                if (pending != null) {
+                    stateSendStage.submit(pending);
+                }
             }
         }
     };
@@ -61,6 +78,7 @@ public class TransportController {
         // 注册连接信息更新广播接收器
         IntentFilter filter = new IntentFilter();
         filter.addAction(RuntimeEvents.ACTION_CONNECTION_INFO_UPDATED);
+        filter.addAction(RuntimeEvents.ACTION_WS_CONNECTED);
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
             context.registerReceiver(connectionInfoUpdateReceiver, filter, Context.RECEIVER_NOT_EXPORTED);
         } else {
@@ -68,6 +86,8 @@ public class TransportController {
         }
         
         this.webSocketClient = new WebSocketClient(context, runtimeConfig.getWebSocketUrl());
+        this.stateSendStage = new StateSendStage(this::sendStateFrame,
+                webSocketClient::getSendQueueBytes, SEND_QUEUE_HIGH_WATERMARK_BYTES);
     }
 
     /**
@@ -75,6 +95,17 @@ public class TransportController {
      */
     public void init() {
         webSocketClient.init();
+        webSocketClient.setBinaryProtocolEnabled(runtimeConfig.isBinaryProtocolEnabled());
+        webSocketClient.setSentFrameBroadcastInterval(runtimeConfig.getSentFrameBroadcastInterval());
+        webSocketClient.setAutoReconnectEnabled(runtimeConfig.isAutoReconnectEnabled());
+        webSocketClient.setUdpTransport(
+                RuntimeConfig.STATE_TRANSPORT_UDP.equals(runtimeConfig.getStateTransport()),
+                runtimeConfig.getUdpRedundancy());
+        // 竞速胜出的端点带有效期缓存，下次启动时优先拨号
+        webSocketClient.setEndpointListener(url -> runtimeConfig.setRacedEndpoint(url, System.currentTimeMillis()));
+        stateSendStage.start();
+        // 服务启动时预热DNS与TCP/TLS，用户首次点击连接时直接进行WebSocket握手
+        webSocketClient.prewarm(connectCandidates());
         Log.d(TAG, "Transport controller initialized");
     }
 
@@ -94,6 +125,16 @@ public class TransportController {
         String wsUrl = runtimeConfig.getWebSocketUrl();
         Log.d(TAG, "[传输控制] WebSocket URL: " + wsUrl);
         
+        // 启用竞速时同时连接所有已保存的端点
+        List<String> candidates = connectCandidates();
+        boolean cacheFresh = EndpointRace.isCacheFresh(candidates, runtimeConfig.getRacedEndpointUrl(),
+                runtimeConfig.getRacedEndpointTime(), System.currentTimeMillis());
+        webSocketClient.setRaceCandidates(candidates, cacheFresh ? EndpointRace.CACHED_HEAD_START_MS : 0);
+        // 上次竞速可能改用了其它端点，每次连接都从首选端点开始
+        if (!webSocketClient.isConnected()) {
+            webSocketClient.updateWebSocketUrl(candidates.get(0));
+        }
+        
         // 调用WebSocketClient的connect方法
         Log.d(TAG, "[传输控制] 准备调用webSocketClient.connect()");
         webSocketClient.connect();
@@ -101,6 +142,18 @@ public class TransportController {
         Log.d(TAG, "[传输控制] 正在连接到服务器: " + wsUrl);
     }
 
+    /**
+     * 获取连接候选端点：未启用竞速时只有默认端点；启用时为所有已保存的端点，有效期内的上次胜出端点排在最前
+     */
+    private List<String> connectCandidates() {
+        if (!runtimeConfig.isConnectionRacingEnabled()) {
+            return Collections.singletonList(runtimeConfig.getWebSocketUrl());
+        }
+        return EndpointRace.orderCandidates(runtimeConfig.getWebSocketUrlCandidates(),
+                runtimeConfig.getRacedEndpointUrl(), runtimeConfig.getRacedEndpointTime(),
+                System.currentTimeMillis());
+    }
+
     /**
      * 断开连接
      */
@@ -115,45 +168,134 @@ public class TransportController {
 
     /**
      * 发送输入状态
+     * 只截取状态并投递给发送线程，不在调用线程上序列化；断线期间只覆盖保存最新一帧
      */
     public void sendInputState(InputState inputState) {
+        StateSendStage.Frame frame = StateSendStage.Frame.capture(inputState);
         if (webSocketClient.isConnected()) {
-            // 将旧的InputState转换为新的状态格式
-            List<KeyboardEvent> keyboardState = new ArrayList<>();
-            
-            // 转换键盘状态
-            Set<String> keys = inputState.getKeyboard();
-            for (String key : keys) {
-                keyboardState.add(new KeyboardEvent(key, KeyboardEvent.EVENT_TYPE_HELD));
-            }
-            
-            // 创建游戏手柄状态
-            InputState.JoystickState joystick = inputState.getJoystick();
-            StateMessage.GamepadState.Joystick leftJoystick = new StateMessage.GamepadState.Joystick(
-                    joystick.getX(), joystick.getY(), joystick.getDeadzone());
-            StateMessage.GamepadState.Joysticks joysticks = new StateMessage.GamepadState.Joysticks(
-                    leftJoystick, null);
-            
-            StateMessage.GamepadState.Triggers triggers = new StateMessage.GamepadState.Triggers(
-                    inputState.getTriggerL(), inputState.getTriggerR());
-            
-            List<GamepadButtonEvent> gamepadButtons = new ArrayList<>();
-            // 转换游戏手柄按键
-            Set<String> gamepadKeys = inputState.getGamepad();
-            for (String button : gamepadKeys) {
-                gamepadButtons.add(new GamepadButtonEvent(button, GamepadButtonEvent.EVENT_TYPE_HELD));
-            }
-            
-            StateMessage.GamepadState gamepadState = new StateMessage.GamepadState(
-                    gamepadButtons, joysticks, triggers);
-            
-            // 发送状态消息
-            webSocketClient.sendStateMessage(keyboardState, gamepadState, false);
-            totalMessagesSent++;
-            lastMessageTime = System.currentTimeMillis();
+            pendingWhileDisconnected.set(null);
+            stateSendStage.submit(frame);
+        } else {
+            pendingWhileDisconnected.set(frame);
         }
     }
 
+    /**
+     * 在发送线程上发送一帧：需要关键帧时发送完整状态，否则只发送与基线相比的事件增量
+     */
+    private void sendStateFrame(StateSendStage.Frame frame) {
+        if (!webSocketClient.isConnected()) {
+            stateDiffer.reset();
+            return;
+        }
+        long now = SystemClock.elapsedRealtime();
+        switch (stateDiffer.next(frame, now, webSocketClient.getLastAckedStateId())) {
+            case KEYFRAME:
+                long stateId = sendFullState(frame);
+                stateDiffer.onKeyframeSent(frame, stateId, now);
+                keyframesSent++;
+                break;
+            case DELTA:
+                webSocketClient.sendEventMessage(stateDiffer.getDelta(), false);
+                deltasSent++;
+                break;
+            default:
+                // 与服务端已知状态相同，不发送
+                return;
+        }
+        totalMessagesSent++;
+        lastMessageTime = System.currentTimeMillis();
+    }
+
+    /**
+     * 将状态帧转换为完整状态消息并发送
+     * @return 状态ID
+     */
+    private long sendFullState(StateSendStage.Frame frame) {
+        // 转换键盘状态
+        List<KeyboardEvent> keyboardState = new ArrayList<>(frame.keyboard.length);
+        for (String key : frame.keyboard) {
+            keyboardState.add(new KeyboardEvent(key, KeyboardEvent.EVENT_TYPE_HELD));
+        }
+        
+        // 创建游戏手柄状态
+        StateMessage.GamepadState.Joystick leftJoystick = new StateMessage.GamepadState.Joystick(
+                frame.joystickX, frame.joystickY, frame.joystickDeadzone);
+        StateMessage.GamepadState.Joysticks joysticks = new StateMessage.GamepadState.Joysticks(
+                leftJoystick, null);
+        
+        StateMessage.GamepadState.Triggers triggers = new StateMessage.GamepadState.Triggers(
+                frame.triggerL, frame.triggerR);
+        
+        List<GamepadButtonEvent> gamepadButtons = new ArrayList<>(frame.gamepad.length);
+        // 转换游戏手柄按键
+        for (String button : frame.gamepad) {
+            gamepadButtons.add(new GamepadButtonEvent(button, GamepadButtonEvent.EVENT_TYPE_HELD));
+        }
+        
+        StateMessage.GamepadState gamepadState = new StateMessage.GamepadState(
+                gamepadButtons, joysticks, triggers);
+        
+        // 发送状态消息
+        return webSocketClient.sendStateMessage(keyboardState, gamepadState, false);
+    }
+
+    /**
+     * 获取已发送的完整状态（关键帧）数
+     */
+    public long getKeyframesSent() {
+        return keyframesSent;
+    }
+
+    /**
+     * 获取已发送的事件增量数
+     */
+    public long getDeltasSent() {
+        return deltasSent;
+    }
+
+    /**
+     * 获取被新状态取代而未发送的状态帧数
+     */
+    public long getStatesSkipped() {
+        return stateSendStage.getStatesSkipped();
+    }
+
+    /**
+     * 获取发送时抛出异常而被放弃的状态帧数
+     */
+    public long getStateSendFailures() {
+        return stateSendStage.getSendFailures();
+    }
+
+    /**
+     * 获取成功自动重连的次数
+     */
+    public long getReconnectCount() {
+        return webSocketClient.getReconnectCount();
+    }
+
+    /**
+     * 获取最近一次断线到重连成功的时长（毫秒）
+     */
+    public long getLastOutageMs() {
+        return webSocketClient.getLastOutageMs();
+    }
+
+    /**
+     * 获取最近一次调度重连时的退避延迟（毫秒）
+     */
+    public long getLastReconnectDelayMs() {
+        return webSocketClient.getLastReconnectDelayMs();
+    }
+
+    /**
+     * 获取超时未确认而重传的事件次数
+     */
+    public long getEventRetransmitCount() {
+        return webSocketClient.getEventRetransmitCount();
+    }
+
     /**
      * 检查连接状态
      */
@@ -161,6 +303,13 @@ public class TransportController {
         return webSocketClient.isConnected();
     }
 
+    /**
+     * 获取 WebSocket 待发送字节数
+     */
+    public long getSendQueueBytes() {
+        return webSocketClient.getSendQueueBytes();
+    }
+
     /**
      * 更新 WebSocket URL
      */
@@ -170,29 +319,33 @@ public class TransportController {
     }
 
     /**
-     * 获取 RTT (Round Trip Time)
+     * 获取 RTT (Round Trip Time) 中位数，单位毫秒
      */
     public long getRtt() {
-        return lastRtt;
+        return Math.round(webSocketClient.getLinkStats().getRttPercentileUs(0.5) / 1000.0);
     }
 
     /**
-     * 获取丢包率
+     * 获取 RTT 分位数
+     * @param quantile 0~1，如 0.99
+     * @return 毫秒数，无样本时为 0
      */
-    public double getPacketLossRate() {
-        if (totalMessagesSent == 0) {
-            return 0.0;
-        }
-        return (double) (totalMessagesSent - totalAckReceived) / totalMessagesSent;
+    public double getRttPercentileMs(double quantile) {
+        return webSocketClient.getLinkStats().getRttPercentileUs(quantile) / 1000.0;
     }
 
     /**
-     * 处理 ACK 消息
+     * 获取估算的时钟偏移（服务端时钟 - 客户端时钟），单位毫秒
      */
-    public void handleAck(long frameId, long timestamp) {
-        totalAckReceived++;
-        lastRtt = System.currentTimeMillis() - timestamp;
-        Log.d(TAG, "ACK received for frameId: " + frameId + ", RTT: " + lastRtt + "ms");
+    public long getClockOffsetMs() {
+        return webSocketClient.getLinkStats().getClockOffsetMs();
+    }
+
+    /**
+     * 获取基于确认的丢包率
+     */
+    public double getPacketLossRate() {
+        return webSocketClient.getLinkStats().getLossRate();
     }
 
     /**
@@ -200,7 +353,9 @@ public class TransportController {
      */
     public void handleReceivedMessage(String message) {
         totalMessagesReceived++;
-        Log.d(TAG, "Message received: " + message);
+        if (TraceLog.ENABLED && TraceLog.isLoggable(TAG, Log.VERBOSE)) {
+            TraceLog.log(TAG, Log.VERBOSE, "Message received: " + message);
+        }
     }
 
     /**
@@ -213,6 +368,7 @@ public class TransportController {
         } catch (Exception e) {
             Log.e(TAG, "Error unregistering connection info update receiver: " + e.getMessage());
         }
+        stateSendStage.stop();
         webSocketClient.shutdown();
         Log.d(TAG, "Transport controller cleaned up");
     }
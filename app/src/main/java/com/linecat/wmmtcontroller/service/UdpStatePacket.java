@@ -0,0 +1,147 @@
+package com.linecat.wmmtcontroller.service;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * UDP 状态包格式
+ * <p>
+ * 每个包携带一个本帧和最多 N 个之前的帧（冗余），帧内容为 BinaryFrameCodec 编码的状态/事件帧：
+ * <pre>
+ * magic:u16 ('W''M')  version:u8  token:u32  seq:u32  count:u8
+ * 重复 count 次（从新到旧，第 i 个帧的序号为 seq - i）：length:varint  frame:bytes
+ * </pre>
+ * 接收端（服务端）应只接受序号比已见最新序号更大的包，并用冗余帧补齐中间丢失的帧。
+ */
+final class UdpStatePacket {
+    static final int MAGIC = 0x574D;
+    static final int VERSION = 1;
+    // 包大小上限，保证不分片
+    static final int MAX_PACKET_BYTES = 1200;
+    private static final int HEADER_BYTES = 2 + 1 + 4 + 4 + 1;
+
+    private UdpStatePacket() {
+    }
+
+    /**
+     * 解码后的包
+     */
+    static final class Packet {
+        final long token;
+        final long seq;
+        // 从新到旧
+        final List<byte[]> frames;
+
+        Packet(long token, long seq, List<byte[]> frames) {
+            this.token = token;
+            this.seq = seq;
+            this.frames = frames;
+        }
+    }
+
+    /**
+     * 编码一个包，放不下的旧冗余帧被舍弃
+     * @param token 会话令牌（服务端在 helloAck 中分配）
+     * @param seq 本帧序号
+     * @param frames 从新到旧的帧，第一个为本帧
+     * @return 包字节，本帧本身超出大小上限时返回 null
+     */
+    static byte[] encode(long token, long seq, List<byte[]> frames) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(MAX_PACKET_BYTES);
+        out.write(MAGIC >>> 8);
+        out.write(MAGIC & 0xFF);
+        out.write(VERSION);
+        writeU32(out, token);
+        writeU32(out, seq);
+        int countOffset = out.size();
+        out.write(0);
+
+        int size = HEADER_BYTES;
+        int count = 0;
+        for (byte[] frame : frames) {
+            int frameBytes = varintLength(frame.length) + frame.length;
+            if (size + frameBytes > MAX_PACKET_BYTES || count == 255) {
+                break;
+            }
+            writeVarint(out, frame.length);
+            out.write(frame, 0, frame.length);
+            size += frameBytes;
+            count++;
+        }
+        if (count == 0) {
+            return null;
+        }
+        byte[] packet = out.toByteArray();
+        packet[countOffset] = (byte) count;
+        return packet;
+    }
+
+    /**
+     * 解码一个包
+     * @return 包，格式不符时返回 null
+     */
+    static Packet decode(byte[] data, int length) {
+        if (length < HEADER_BYTES) {
+            return null;
+        }
+        int magic = ((data[0] & 0xFF) << 8) | (data[1] & 0xFF);
+        if (magic != MAGIC || (data[2] & 0xFF) != VERSION) {
+            return null;
+        }
+        long token = readU32(data, 3);
+        long seq = readU32(data, 7);
+        int count = data[11] & 0xFF;
+        List<byte[]> frames = new ArrayList<>(count);
+        int offset = HEADER_BYTES;
+        for (int i = 0; i < count; i++) {
+            int frameLength = 0;
+            int shift = 0;
+            int b;
+            do {
+                if (offset >= length || shift > 28) {
+                    return null;
+                }
+                b = data[offset++] & 0xFF;
+                frameLength |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            if (frameLength > length - offset) {
+                return null;
+            }
+            byte[] frame = new byte[frameLength];
+            System.arraycopy(data, offset, frame, 0, frameLength);
+            offset += frameLength;
+            frames.add(frame);
+        }
+        return new Packet(token, seq, frames);
+    }
+
+    private static void writeU32(ByteArrayOutputStream out, long value) {
+        out.write((int) (value >>> 24) & 0xFF);
+        out.write((int) (value >>> 16) & 0xFF);
+        out.write((int) (value >>> 8) & 0xFF);
+        out.write((int) value & 0xFF);
+    }
+
+    private static long readU32(byte[] data, int offset) {
+        return ((long) (data[offset] & 0xFF) << 24) | ((data[offset + 1] & 0xFF) << 16)
+                | ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int varintLength(int value) {
+        int length = 1;
+        while ((value >>>= 7) != 0) {
+            length++;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,87 @@
+package com.linecat.wmmtcontroller.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * UDP 状态通道
+ * <p>
+ * 可被后续帧取代的帧（状态快照、只含轴值的事件）经 UDP 发送，避免 TCP 丢包重传造成的队头阻塞：
+ * 丢失的包不会拖住之后的帧，每个包额外重复最近 N 个帧，单个包丢失时接收端可以从下一个包中补回。
+ * 含按键边沿的事件以及握手、确认、ping 等控制消息仍走 WebSocket。
+ */
+final class UdpStateTransport implements Closeable {
+    private final DatagramSocket socket;
+    private final long token;
+    private final int redundancy;
+
+    // 最近发送的帧，从新到旧（仅在发送方法内访问）
+    private final List<byte[]> history = new ArrayList<>();
+    private long nextSeq;
+
+    private volatile long packetsSent;
+    private volatile long bytesSent;
+
+    /**
+     * 构造函数
+     * @param target 服务端 UDP 地址
+     * @param token 会话令牌（由服务端在 helloAck 中分配）
+     * @param redundancy 每个包额外携带的历史帧数，0 表示不冗余
+     */
+    UdpStateTransport(InetSocketAddress target, long token, int redundancy) throws SocketException {
+        this.socket = new DatagramSocket();
+        this.socket.connect(target);
+        this.token = token & 0xFFFFFFFFL;
+        this.redundancy = Math.max(0, redundancy);
+    }
+
+    /**
+     * 发送一帧（在发送线程上调用）
+     * @param frame BinaryFrameCodec 编码的状态/事件帧
+     * @return 是否已发送；单帧超过包大小上限时返回 false，由调用方改走 WebSocket
+     */
+    synchronized boolean send(byte[] frame) throws IOException {
+        history.add(0, frame);
+        // 只按冗余深度截取视图编码，最旧的帧在发送成功前仍保留在历史中
+        int frameCount = Math.min(history.size(), redundancy + 1);
+        byte[] packet = UdpStatePacket.encode(token, nextSeq + 1, history.subList(0, frameCount));
+        if (packet == null) {
+            history.remove(0);
+            return false;
+        }
+        socket.send(new DatagramPacket(packet, packet.length));
+        // 发送成功后才提交：序号前进，舍弃超出冗余深度的最旧帧
+        nextSeq++;
+        while (history.size() > redundancy + 1) {
+            history.remove(history.size() - 1);
+        }
+        packetsSent++;
+        bytesSent += packet.length;
+        return true;
+    }
+
+    /**
+     * 已发送的包数
+     */
+    long getPacketsSent() {
+        return packetsSent;
+    }
+
+    /**
+     * 已发送的字节数（含冗余）
+     */
+    long getBytesSent() {
+        return bytesSent;
+    }
+
+    @Override
+    public void close() {
+        socket.close();
+    }
+}
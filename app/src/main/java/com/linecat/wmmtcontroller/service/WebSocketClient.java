@@ -3,26 +3,39 @@ package com.linecat.wmmtcontroller.service;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Handler;
+import android.os.SystemClock;
 import android.util.Log;
 import android.widget.Toast;
 
 import com.google.gson.Gson;
 import com.linecat.wmmtcontroller.model.FormattedInputMessage;
 import com.linecat.wmmtcontroller.model.InputState;
+import com.linecat.wmmtcontroller.monitor.SystemMonitor;
+import com.linecat.wmmtcontroller.monitor.TraceLog;
 import com.linecat.wmmtcontroller.service.EventDelta;
 import com.linecat.wmmtcontroller.service.EventMessage;
 import com.linecat.wmmtcontroller.service.KeyboardEvent;
 import com.linecat.wmmtcontroller.service.StateMessage;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.LinkedHashMap;
 import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+import okhttp3.Call;
+import okhttp3.Callback;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.Request;
 import okhttp3.WebSocket;
 import okhttp3.WebSocketListener;
@@ -35,17 +48,38 @@ import okio.ByteString;
 public class WebSocketClient {
     private static final String TAG = "WebSocketClient";
     private OkHttpClient client;
-    private WebSocket webSocket;
+    // 发送线程与 OkHttp 回调线程共享；发送路径只读取一次到局部变量
+    private volatile WebSocket webSocket;
     private Gson gson;
-    private boolean isConnected = false;
+    private volatile boolean isConnected = false;
     private String serverUrl;
     private Context context;
     // 重连尝试次数，用于指数退避重连
-    private int reconnectAttempts = 0;
+    private volatile int reconnectAttempts = 0;
+    // 首次重连延迟上限（250毫秒）
+    private static final long RECONNECT_BASE_DELAY = 250;
     // 最大重连延迟（30秒）
     private static final long MAX_RECONNECT_DELAY = 30000;
+    private final ReconnectPolicy reconnectPolicy = new ReconnectPolicy(RECONNECT_BASE_DELAY, MAX_RECONNECT_DELAY);
+    // 重连调度Handler（主线程）
+    private Handler reconnectHandler;
+    private boolean autoReconnectEnabled = true;
+    // 是否有已建立的会话：只有会话意外断开才自动重连，手动断开时清除
+    private volatile boolean sessionEstablished = false;
+    // 会话断开的时刻（单调时钟），0表示当前没有处于断线中
+    private volatile long disconnectedAtMs = 0;
+    // 重连统计
+    private volatile long reconnectCount = 0;
+    private volatile long lastReconnectDelayMs = 0;
+    private volatile long lastOutageMs = 0;
     // 连接超时时间（3秒）
     private static final long CONNECTION_TIMEOUT = 3000;
+    // ping间隔（1秒），同时作为链路指标发布到SystemMonitor的间隔
+    private static final long PING_INTERVAL = 1000;
+    // 链路统计：RTT分布、时钟偏移、基于确认的丢包率
+    private final LinkStats linkStats = new LinkStats();
+    // 链路定时任务（ping、事件重传）Handler（主线程）
+    private Handler linkHandler;
     // 超时处理Handler
     private Handler timeoutHandler;
     // 连接开始时间
@@ -53,22 +87,54 @@ public class WebSocketClient {
     // 连接结果回调
     private boolean connectionResultReported = false;
     
-    // 状态ID计数器
-    private long stateId = 0;
-    // 事件ID计数器
-    private long eventId = 0;
-    // 最后确认的状态ID
-    private long lastAckedStateId = 0;
-    
-    // 事件缓存，保存最近100个发送的事件
-    private final Map<Long, String> eventCache = Collections.synchronizedMap(
-        new LinkedHashMap<Long, String>(100, 0.75f, false) {
-            @Override
-            protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
-                return size() > 100;
-            }
-        }
-    );
+    // 状态ID计数器（发送线程递增，sendResume 在 OkHttp 回调线程读取）
+    private final AtomicLong stateId = new AtomicLong();
+    // 事件ID计数器（同上）
+    private final AtomicLong eventId = new AtomicLong();
+    // 最后确认的状态ID（接收线程写入，发送线程读取；每次建立连接时清零）
+    private volatile long lastAckedStateId = 0;
+    
+    // 二进制协议：是否允许协商，以及服务端是否已确认支持
+    private final BinaryFrameCodec binaryCodec = BinaryFrameCodec.createDefault();
+    private boolean binaryProtocolEnabled = true;
+    private volatile boolean binaryProtocolActive = false;
+    
+    // UDP状态通道：是否请求，冗余帧数，以及服务端在helloAck中分配端口后建立的通道
+    private boolean udpTransportEnabled = false;
+    private int udpRedundancy = 3;
+    private volatile UdpStateTransport udpTransport;
+    
+    // 已发送帧广播采样间隔（每N帧广播一次，0表示不广播），仅用于诊断
+    private volatile int sentFrameBroadcastInterval = 0;
+    private int framesSinceBroadcast = 0;
+    
+    // 在途事件缓冲：确认后释放，超时未确认的按键边沿事件重传
+    private final EventRetransmitBuffer eventBuffer = new EventRetransmitBuffer();
+    private final AtomicBoolean retransmitCheckScheduled = new AtomicBoolean(false);
+    
+    // 端点竞速：候选端点（第一个为首选）、首选端点领先时间、进行中的竞速
+    private volatile List<String> raceCandidates = Collections.emptyList();
+    private volatile long raceHeadStartMs = 0;
+    private EndpointRace endpointRace;
+    private volatile EndpointListener endpointListener;
+    
+    /**
+     * 端点选定监听器
+     */
+    public interface EndpointListener {
+        void onEndpointSelected(String url);
+    }
+    // 重传检查间隔，以及重传超时的上下限（超时取 RTT p95 的两倍）
+    private static final long RETRANSMIT_CHECK_INTERVAL = 20;
+    private static final long RETRANSMIT_MIN_TIMEOUT = 40;
+    private static final long RETRANSMIT_MAX_TIMEOUT = 500;
+    
+    // 热路径计数器（替代逐帧日志）
+    private static final TraceLog.Counter STATE_ACKS = TraceLog.counter("ws.stateAck");
+    private static final TraceLog.Counter EVENT_ACKS = TraceLog.counter("ws.eventAck");
+    private static final TraceLog.Counter BINARY_RECEIVED = TraceLog.counter("ws.binaryReceived");
+    private static final TraceLog.Counter EVENT_RETRANSMITS = TraceLog.counter("ws.eventRetransmit");
+    private static final TraceLog.Counter BINARY_FALLBACKS = TraceLog.counter("ws.binaryFallback");
     
     /**
      * WebSocket客户端构造函数
@@ -94,6 +160,8 @@ public class WebSocketClient {
         
         Log.d(TAG, "[WebSocket] 初始化超时处理Handler");
         timeoutHandler = new Handler();
+        reconnectHandler = new Handler(context.getMainLooper());
+        linkHandler = new Handler(context.getMainLooper());
         
         Log.d(TAG, "[WebSocket] 初始化完成，当前服务器URL: " + serverUrl);
         Log.d(TAG, "[WebSocket] WebSocketClient已准备就绪，可以连接");
@@ -134,6 +202,7 @@ public class WebSocketClient {
                     connectionResultReported = true;
                     
                     // 清理WebSocket资源
+                    cancelEndpointRace();
                     if (webSocket != null) {
                         webSocket.close(1000, "Connection timeout");
                         webSocket = null;
@@ -145,12 +214,17 @@ public class WebSocketClient {
                     Intent intent = new Intent(RuntimeEvents.ACTION_WS_DISCONNECTED);
                     context.sendBroadcast(intent);
                     
-                    // 显示连接失败toast
-                    showConnectionToast(false, elapsedTime);
+                    if (sessionEstablished) {
+                        // 自动重连中的连接超时：继续退避重连，不打扰用户
+                        reconnect();
+                    } else {
+                        // 显示连接失败toast
+                        showConnectionToast(false, elapsedTime);
+                    }
                 }
             }, CONNECTION_TIMEOUT);
             
-            webSocket = client.newWebSocket(request, new WebSocketListener() {
+            WebSocketListener listener = new WebSocketListener() {
                 @Override
                 public void onOpen(WebSocket webSocket, okhttp3.Response response) {
                     long elapsedTime = System.currentTimeMillis() - connectStartTime;
@@ -165,12 +239,43 @@ public class WebSocketClient {
                     // 连接成功，重置重连尝试次数
                     reconnectAttempts = 0;
                     
+                    // 断线后重连成功：记录断线时长，并通知服务端从上次的状态继续
+                    boolean resumed = disconnectedAtMs != 0;
+                    if (resumed) {
+                        lastOutageMs = SystemClock.elapsedRealtime() - disconnectedAtMs;
+                        disconnectedAtMs = 0;
+                        reconnectCount++;
+                        SystemMonitor.getInstance().setReconnectStats(reconnectCount, lastOutageMs);
+                        Log.d(TAG, "[自动重连] 第" + reconnectCount + "次重连成功，断线时长: " + lastOutageMs + "ms");
+                        sendResume(webSocket);
+                    }
+                    sessionEstablished = true;
+                    
+                    // 新连接上服务端没有任何已确认状态，确认前按完整状态发送
+                    lastAckedStateId = 0;
+                    
+                    // 旧连接上的在途事件不再重传，由新连接的关键帧同步
+                    eventBuffer.clear();
+                    
+                    // 开始周期性ping
+                    linkHandler.removeCallbacks(pingTask);
+                    linkHandler.post(pingTask);
+                    
+                    // 协商二进制协议，服务端确认前继续使用JSON（UDP状态通道同样在确认后建立）
+                    binaryProtocolActive = false;
+                    closeUdpTransport();
+                    if (binaryProtocolEnabled) {
+                        sendHello(webSocket);
+                    }
+                    
                     // 发送WebSocket连接成功广播
                     Intent intent = new Intent(RuntimeEvents.ACTION_WS_CONNECTED);
                     context.sendBroadcast(intent);
                     
-                    // 显示连接成功toast
-                    showConnectionToast(true, elapsedTime);
+                    // 显示连接成功toast（自动重连成功时不提示）
+                    if (!resumed) {
+                        showConnectionToast(true, elapsedTime);
+                    }
                 }
                 
                 @Override
@@ -185,13 +290,43 @@ public class WebSocketClient {
                         if ("stateAck".equals(type)) {
                             long ackedStateId = jsonObj.getLong("ackStateId");
                             lastAckedStateId = Math.max(lastAckedStateId, ackedStateId);
-                            Log.d(TAG, "[消息接收] 收到状态确认: ackStateId=" + ackedStateId + ", 更新lastAckedStateId=" + lastAckedStateId);
+                            linkStats.onStateAck(ackedStateId, System.nanoTime());
+                            STATE_ACKS.increment();
+                            if (TraceLog.ENABLED && TraceLog.isLoggable(TAG, Log.VERBOSE)) {
+                                TraceLog.log(TAG, Log.VERBOSE, "[消息接收] 收到状态确认: ackStateId=" + ackedStateId);
+                            }
+                        }
+                        
+                        // 处理ping应答：RTT基于单调时钟，服务端时间戳用于估算时钟偏移
+                        else if ("pong".equals(type)) {
+                            linkStats.onPong(jsonObj.getLong("pingId"),
+                                    jsonObj.optLong("serverRecvTs", 0), jsonObj.optLong("serverSendTs", 0),
+                                    System.nanoTime(), System.currentTimeMillis());
+                        }
+                        
+                        // 处理协议协商确认消息
+                        else if ("helloAck".equals(type)) {
+                            int binaryVersion = jsonObj.optInt("binaryVersion", 0);
+                            binaryProtocolActive = binaryProtocolEnabled && BinaryFrameCodec.isSupported(binaryVersion);
+                            if (binaryProtocolActive) {
+                                binaryCodec.setVersion(binaryVersion);
+                            }
+                            Log.d(TAG, "[消息接收] 收到协议确认: binaryVersion=" + binaryVersion + ", 使用二进制协议=" + binaryProtocolActive);
+                            int udpPort = jsonObj.optInt("udpPort", 0);
+                            if (binaryProtocolActive && udpTransportEnabled && udpPort > 0) {
+                                openUdpTransport(udpPort, jsonObj.optLong("udpToken", 0));
+                            }
                         }
                         
                         // 处理事件确认消息
                         else if ("eventAck".equals(type)) {
                             long ackedEventId = jsonObj.getLong("eventId");
-                            Log.d(TAG, "[消息接收] 收到事件确认: eventId=" + ackedEventId);
+                            linkStats.onEventAck(ackedEventId, System.nanoTime());
+                            eventBuffer.ack(ackedEventId);
+                            EVENT_ACKS.increment();
+                            if (TraceLog.ENABLED && TraceLog.isLoggable(TAG, Log.VERBOSE)) {
+                                TraceLog.log(TAG, Log.VERBOSE, "[消息接收] 收到事件确认: eventId=" + ackedEventId);
+                            }
                         }
                         
                         // 处理错误消息
@@ -200,7 +335,12 @@ public class WebSocketClient {
                             String errorMsg = jsonObj.getString("message");
                             
                             // 获取对应的原始发送数据
-                            String originalData = eventCache.get(errorId);
+                            String originalData = eventBuffer.getJson(errorId);
+                            if (originalData == null) {
+                                // 以二进制发送的事件未保留JSON，按增量重新序列化
+                                EventDelta delta = eventBuffer.getDelta(errorId);
+                                originalData = delta != null ? gson.toJson(delta) : null;
+                            }
                             
                             // 构建完整的错误信息
                             String fullErrorMsg = "服务端返回错误: " + errorMsg + ", 错误ID: " + errorId + ", 原始发送数据: " + originalData;
@@ -221,7 +361,10 @@ public class WebSocketClient {
                 
                 @Override
                 public void onMessage(WebSocket webSocket, ByteString bytes) {
-                    Log.d(TAG, "[消息接收] WebSocket二进制消息: " + bytes.hex());
+                    BINARY_RECEIVED.increment();
+                    if (TraceLog.ENABLED && TraceLog.isLoggable(TAG, Log.DEBUG)) {
+                        TraceLog.log(TAG, Log.DEBUG, "[消息接收] WebSocket二进制消息: " + bytes.size() + " 字节");
+                    }
                 }
                 
                 @Override
@@ -234,22 +377,38 @@ public class WebSocketClient {
                 @Override
                 public void onClosed(WebSocket webSocket, int code, String reason) {
                     Log.d(TAG, "[连接已关闭] WebSocket已关闭: " + code + " - " + reason);
+                    if (webSocket != WebSocketClient.this.webSocket) {
+                        // 已被手动断开或超时清理的旧连接，状态已处理
+                        return;
+                    }
+                    WebSocketClient.this.webSocket = null;
                     isConnected = false;
+                    binaryProtocolActive = false;
+                    closeUdpTransport();
                     
                     // 发送WebSocket断开连接广播
                     Intent intent = new Intent(RuntimeEvents.ACTION_WS_DISCONNECTED);
                     context.sendBroadcast(intent);
+                    
+                    // 服务端关闭了会话，自动重连
+                    reconnect();
                 }
                 
                 @Override
                 public void onFailure(WebSocket webSocket, Throwable t, okhttp3.Response response) {
                     long elapsedTime = System.currentTimeMillis() - connectStartTime;
                     Log.e(TAG, "[连接失败] WebSocket连接失败，耗时: " + elapsedTime + "ms，错误原因: " + t.getMessage(), t);
+                    if (webSocket != WebSocketClient.this.webSocket) {
+                        // 已被手动断开或超时清理的旧连接，不影响当前连接
+                        return;
+                    }
                     
                     // 取消超时任务
                     timeoutHandler.removeCallbacksAndMessages(null);
                     
                     isConnected = false;
+                    binaryProtocolActive = false;
+                    closeUdpTransport();
                     connectionResultReported = true;
                     
                     // 发送WebSocket断开连接广播
@@ -262,14 +421,44 @@ public class WebSocketClient {
                         WebSocketClient.this.webSocket = null;
                     }
                     
-                    // 显示连接失败toast
-                    showConnectionToast(false, elapsedTime);
-                    
-                    // 不自动重连，等待用户手动触发
+                    if (sessionEstablished) {
+                        // 已建立的会话意外断开（或重连失败）：退避后自动重连
+                        reconnect();
+                    } else {
+                        // 首次连接失败：显示toast，等待用户手动触发
+                        showConnectionToast(false, elapsedTime);
+                    }
                 }
-            });
+            };
             
-            Log.d(TAG, "[连接开始] WebSocket连接请求已发送到服务器");
+            // 首次连接时对所有候选端点竞速；自动重连只拨当前端点，会话绑定在该服务端上
+            List<String> candidates = raceCandidates;
+            if (candidates.size() > 1 && !sessionEstablished) {
+                webSocket = null;
+                endpointRace = new EndpointRace(candidates, raceHeadStartMs,
+                        (url, raceListener) -> client.newWebSocket(new Request.Builder().url(url).build(), raceListener),
+                        linkHandler::postDelayed, listener, new EndpointRace.Callback() {
+                            @Override
+                            public void onWinner(String url, WebSocket winner) {
+                                serverUrl = url;
+                                webSocket = winner;
+                                Log.d(TAG, "[端点竞速] 胜出端点: " + url);
+                                EndpointListener endpointListener = WebSocketClient.this.endpointListener;
+                                if (endpointListener != null) {
+                                    endpointListener.onEndpointSelected(url);
+                                }
+                            }
+                            
+                            @Override
+                            public void onAllFailed(WebSocket lastWebSocket) {
+                                webSocket = lastWebSocket;
+                            }
+                        });
+                Log.d(TAG, "[连接开始] 向 " + candidates.size() + " 个候选端点发起竞速连接");
+            } else {
+                webSocket = client.newWebSocket(request, listener);
+                Log.d(TAG, "[连接开始] WebSocket连接请求已发送到服务器");
+            }
         } catch (URISyntaxException e) {
             long elapsedTime = System.currentTimeMillis() - connectStartTime;
             Log.e(TAG, "[连接失败] 无效的WebSocket URI: " + serverUrl, e);
@@ -303,14 +492,77 @@ public class WebSocketClient {
      * 断开WebSocket连接
      */
     public void disconnect() {
+        cancelReconnect();
+        cancelEndpointRace();
         if (webSocket != null) {
             webSocket.close(1000, "Manual disconnect");
             webSocket = null;
         }
         isConnected = false;
+        binaryProtocolActive = false;
+        closeUdpTransport();
         Log.d(TAG, "WebSocket disconnected manually");
     }
     
+    /**
+     * 设置竞速连接的候选端点，第一个为首选端点
+     * @param urls 候选端点，少于两个时只连接当前服务器URL
+     * @param headStartMs 首选端点的领先时间，0 表示全部同时拨号
+     */
+    public void setRaceCandidates(List<String> urls, long headStartMs) {
+        this.raceCandidates = urls != null ? new ArrayList<>(urls) : Collections.emptyList();
+        this.raceHeadStartMs = headStartMs;
+    }
+    
+    /**
+     * 设置端点选定监听器（竞速决出胜出端点时回调，在OkHttp线程上执行）
+     */
+    public void setEndpointListener(EndpointListener listener) {
+        this.endpointListener = listener;
+    }
+    
+    /**
+     * 预热连接：提前完成DNS解析与TCP/TLS握手，连接放入连接池供之后的WebSocket握手复用
+     * 预热请求与WebSocket使用相同的协议列表（仅HTTP/1.1），否则TLS连接会协商为HTTP/2而无法复用
+     * @param urls 需要预热的端点
+     */
+    public void prewarm(List<String> urls) {
+        if (client == null || urls == null) {
+            return;
+        }
+        OkHttpClient prewarmClient = client.newBuilder()
+                .protocols(Collections.singletonList(Protocol.HTTP_1_1))
+                .callTimeout(CONNECTION_TIMEOUT, TimeUnit.MILLISECONDS)
+                .build();
+        for (String url : urls) {
+            try {
+                Request request = new Request.Builder().url(url).head().build();
+                prewarmClient.newCall(request).enqueue(new Callback() {
+                    @Override
+                    public void onFailure(Call call, IOException e) {
+                        Log.d(TAG, "[连接预热] 预热失败: " + url + "，" + e.getMessage());
+                    }
+                    
+                    @Override
+                    public void onResponse(Call call, okhttp3.Response response) {
+                        response.close();
+                        Log.d(TAG, "[连接预热] 已预热: " + url);
+                    }
+                });
+            } catch (IllegalArgumentException e) {
+                Log.w(TAG, "[连接预热] 无效的URL: " + url);
+            }
+        }
+    }
+    
+    private void cancelEndpointRace() {
+        EndpointRace race = endpointRace;
+        endpointRace = null;
+        if (race != null) {
+            race.cancel();
+        }
+    }
+    
     /**
      * 更新WebSocket服务器URL
      * @param newUrl 新的WebSocket服务器URL
@@ -330,34 +582,20 @@ public class WebSocketClient {
             // 创建符合服务端格式的消息对象
             FormattedInputMessage message = new FormattedInputMessage(inputState);
             
-            // 将消息转换为JSON
-            String json = gson.toJson(message);
+            byte[] frame = encodeBinary(message);
             
-            // 尝试发送WebSocket消息
-            if (isConnected && webSocket != null) {
-                Log.d(TAG, "Sending message to server: " + json);
-                webSocket.send(json);
-            } else {
-                Log.d(TAG, "WebSocket not connected, skipping send but still broadcasting event");
-                Log.d(TAG, "Attempted to send message to server: " + json);
+            // 尝试发送WebSocket消息，JSON只在以JSON发送时序列化
+            WebSocket socket = webSocket;
+            boolean sent = isConnected && socket != null;
+            String json = sent && frame == null ? gson.toJson(message) : null;
+            if (sent) {
+                // 完整输入快照可被下一帧取代，允许走UDP
+                sendFrame(socket, json, frame, true);
             }
             
-            // 发送WebSocket发送帧成功广播，无论WebSocket是否连接
-            Intent intent = new Intent(RuntimeEvents.ACTION_WS_SENT_FRAME);
-            // 从json中提取frameId（如果存在），否则使用时间戳作为frameId
-            long frameId = System.currentTimeMillis();
-            try {
-                // 尝试从json中解析frameId
-                org.json.JSONObject jsonObj = new org.json.JSONObject(json);
-                if (jsonObj.has("data") && jsonObj.getJSONObject("data").has("frameId")) {
-                    frameId = jsonObj.getJSONObject("data").getLong("frameId");
-                }
-            } catch (org.json.JSONException e) {
-                // 如果解析失败，继续使用时间戳
-            }
-            intent.putExtra(RuntimeEvents.EXTRA_FRAME_ID, frameId);
-            intent.putExtra(RuntimeEvents.EXTRA_WS_MESSAGE, json);
-            context.sendBroadcast(intent);
+            // 通知已发送帧观察者，无论WebSocket是否连接
+            long frameId = message.getData().frameId != null ? message.getData().frameId : System.currentTimeMillis();
+            notifyFrameSent(frameId, message, json, frame, sent);
         } catch (Exception e) {
             Log.e(TAG, "Error sending input state: " + e.getMessage(), e);
             
@@ -373,32 +611,32 @@ public class WebSocketClient {
      * @param keyboardState 键盘状态
      * @param gamepadState 游戏手柄状态
      * @param zeroOutput 是否为零输出
+     * @return 本条状态消息的状态ID
      */
-    public void sendStateMessage(List<KeyboardEvent> keyboardState, StateMessage.GamepadState gamepadState, boolean zeroOutput) {
+    public long sendStateMessage(List<KeyboardEvent> keyboardState, StateMessage.GamepadState gamepadState, boolean zeroOutput) {
+        // 生成新的状态ID
+        long currentStateId = stateId.incrementAndGet();
         try {
-            // 生成新的状态ID
-            long currentStateId = ++stateId;
             
             // 创建状态消息
             StateMessage stateMessage = new StateMessage(currentStateId, keyboardState, gamepadState, zeroOutput);
             
-            // 将消息转换为JSON
-            String json = gson.toJson(stateMessage);
+            byte[] frame = encodeBinary(stateMessage);
             
-            // 尝试发送WebSocket消息
-            if (isConnected && webSocket != null) {
-                Log.d(TAG, "Sending state message: stateId=" + currentStateId + ", keyboardStateSize=" + keyboardState.size());
-                webSocket.send(json);
-            } else {
-                Log.d(TAG, "WebSocket not connected, skipping state send");
-                Log.e(TAG, "Attempted to send state message: " + json);
+            // 尝试发送WebSocket消息，JSON只在以JSON发送时序列化
+            WebSocket socket = webSocket;
+            boolean sent = isConnected && socket != null;
+            String json = sent && frame == null ? gson.toJson(stateMessage) : null;
+            if (sent) {
+                // 状态关键帧可被下一帧取代，允许走UDP
+                sendFrame(socket, json, frame, true);
+                linkStats.onStateSent(currentStateId, System.nanoTime());
+                // 完整状态关键帧覆盖之前所有按键边沿，未确认的旧边沿不再重传（否则会把已松开的键重新按下）
+                eventBuffer.supersedeThrough(eventId.get());
             }
             
-            // 发送WebSocket发送帧成功广播，无论WebSocket是否连接
-            Intent intent = new Intent(RuntimeEvents.ACTION_WS_SENT_FRAME);
-            intent.putExtra(RuntimeEvents.EXTRA_FRAME_ID, currentStateId);
-            intent.putExtra(RuntimeEvents.EXTRA_WS_MESSAGE, json);
-            context.sendBroadcast(intent);
+            // 通知已发送帧观察者，无论WebSocket是否连接
+            notifyFrameSent(currentStateId, stateMessage, json, frame, sent);
         } catch (Exception e) {
             Log.e(TAG, "Error sending state message: " + e.getMessage(), e);
             
@@ -407,6 +645,7 @@ public class WebSocketClient {
             intent.putExtra(RuntimeEvents.EXTRA_ERROR_TYPE, RuntimeEvents.ERROR_TYPE_WEBSOCKET_ERROR);
             context.sendBroadcast(intent);
         }
+        return currentStateId;
     }
     
     /**
@@ -417,7 +656,7 @@ public class WebSocketClient {
     public void sendEventMessage(EventDelta delta, boolean zeroOutput) {
         try {
             // 生成新的事件ID
-            long currentEventId = ++eventId;
+            long currentEventId = eventId.incrementAndGet();
             
             // 使用最后确认的状态ID作为基础状态ID
             long currentBaseStateId = lastAckedStateId;
@@ -425,26 +664,25 @@ public class WebSocketClient {
             // 创建事件消息
             EventMessage eventMessage = new EventMessage(currentEventId, currentBaseStateId, delta, zeroOutput);
             
-            // 将消息转换为JSON
-            String json = gson.toJson(eventMessage);
-            
-            // 缓存事件到事件缓存中
-            eventCache.put(currentEventId, json);
+            byte[] frame = encodeBinary(eventMessage);
             
-            // 尝试发送WebSocket消息
-            if (isConnected && webSocket != null) {
-                Log.d(TAG, "Sending event message: eventId=" + currentEventId + ", baseStateId=" + currentBaseStateId);
-                webSocket.send(json);
-            } else {
-                Log.d(TAG, "WebSocket not connected, skipping event send");
-                Log.e(TAG, "Attempted to send event message: " + json);
+            // 尝试发送WebSocket消息，JSON只在以JSON发送时序列化
+            WebSocket socket = webSocket;
+            boolean sent = isConnected && socket != null;
+            String json = sent && frame == null ? gson.toJson(eventMessage) : null;
+            if (sent) {
+                // 按键/按钮边沿丢失后无法被后续轴值帧取代，只走WebSocket；只含轴值的事件允许走UDP
+                sendFrame(socket, json, frame, !EventRetransmitBuffer.hasEdges(delta));
+                long now = System.nanoTime();
+                linkStats.onEventSent(currentEventId, now);
+                // 保留编码结果直到确认，用于重传与错误日志
+                if (eventBuffer.put(currentEventId, delta, json, frame, now)) {
+                    scheduleRetransmitCheck();
+                }
             }
             
-            // 发送WebSocket发送帧成功广播，无论WebSocket是否连接
-            Intent intent = new Intent(RuntimeEvents.ACTION_WS_SENT_FRAME);
-            intent.putExtra(RuntimeEvents.EXTRA_FRAME_ID, currentEventId);
-            intent.putExtra(RuntimeEvents.EXTRA_WS_MESSAGE, json);
-            context.sendBroadcast(intent);
+            // 通知已发送帧观察者，无论WebSocket是否连接
+            notifyFrameSent(currentEventId, eventMessage, json, frame, sent);
         } catch (Exception e) {
             Log.e(TAG, "Error sending event message: " + e.getMessage(), e);
             
@@ -455,13 +693,286 @@ public class WebSocketClient {
         }
     }
     
+    /**
+     * 二进制协议生效时编码消息；无法编码（如版本 1 下的字典外按键）时计数并返回 null，该帧回退到JSON
+     */
+    private byte[] encodeBinary(Object message) {
+        if (!binaryProtocolActive) {
+            return null;
+        }
+        byte[] frame;
+        if (message instanceof StateMessage) {
+            frame = binaryCodec.encodeState((StateMessage) message);
+        } else if (message instanceof EventMessage) {
+            frame = binaryCodec.encodeEvent((EventMessage) message);
+        } else {
+            frame = binaryCodec.encodeInput((FormattedInputMessage) message);
+        }
+        if (frame == null) {
+            BINARY_FALLBACKS.increment();
+        }
+        return frame;
+    }
+    
+    /**
+     * 发送一帧：有二进制编码时走二进制帧，否则发送JSON
+     * @param socket 调用方检查连接时读取的连接（字段可能被回调线程并发清空，不再重新读取）
+     * @param json JSON文本，以二进制发送时可为null
+     * @param frame 二进制帧，为null表示回退到JSON
+     * @param supersedable 帧是否可被之后的帧取代（状态快照、只含轴值的事件）；只有这类帧在UDP通道可用时走UDP，
+     *                     含按键边沿的事件与控制消息始终走WebSocket
+     */
+    private void sendFrame(WebSocket socket, String json, byte[] frame, boolean supersedable) {
+        UdpStateTransport udp = udpTransport;
+        if (supersedable && frame != null && udp != null) {
+            try {
+                if (udp.send(frame)) {
+                    return;
+                }
+            } catch (IOException e) {
+                // UDP发送失败（如网络切换），关闭通道，之后的帧回到WebSocket
+                Log.e(TAG, "[UDP] 发送失败，回退到WebSocket: " + e.getMessage());
+                closeUdpTransport();
+            }
+        }
+        if (frame != null) {
+            socket.send(ByteString.of(frame));
+        } else {
+            socket.send(json);
+        }
+    }
+    
+    /**
+     * 建立UDP状态通道，目标地址为WebSocket服务器主机的指定端口
+     * @param udpPort 服务端UDP端口
+     * @param udpToken 服务端分配的会话令牌，UDP包据此关联到当前WebSocket会话
+     */
+    private void openUdpTransport(int udpPort, long udpToken) {
+        closeUdpTransport();
+        try {
+            String host = new URI(serverUrl).getHost();
+            udpTransport = new UdpStateTransport(new InetSocketAddress(host, udpPort), udpToken, udpRedundancy);
+            Log.d(TAG, "[UDP] 状态通道已建立: " + host + ":" + udpPort + "，冗余帧数: " + udpRedundancy);
+        } catch (Exception e) {
+            Log.e(TAG, "[UDP] 建立状态通道失败，继续使用WebSocket: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 关闭UDP状态通道
+     */
+    private void closeUdpTransport() {
+        UdpStateTransport udp = udpTransport;
+        udpTransport = null;
+        if (udp != null) {
+            udp.close();
+        }
+    }
+    
+    /**
+     * 通知已发送帧：进程内观察者每帧回调，广播仅在开启采样时按间隔发送
+     * @param frameId 帧ID
+     * @param message 帧对应的消息对象，观察者需要JSON而尚未序列化时使用
+     * @param json 帧内容的JSON表示，未序列化时为null
+     * @param frame 二进制帧，为null表示以JSON发送
+     * @param sent 是否实际写入了WebSocket
+     */
+    private void notifyFrameSent(long frameId, Object message, String json, byte[] frame, boolean sent) {
+        if (SentFrameTap.hasListeners()) {
+            if (json == null) {
+                json = gson.toJson(message);
+            }
+            int payloadBytes = !sent ? 0
+                    : frame != null ? frame.length : json.getBytes(StandardCharsets.UTF_8).length;
+            SentFrameTap.publish(frameId, json, payloadBytes, sent && frame != null);
+        }
+        
+        int interval = sentFrameBroadcastInterval;
+        if (interval > 0 && ++framesSinceBroadcast >= interval) {
+            framesSinceBroadcast = 0;
+            if (json == null) {
+                json = gson.toJson(message);
+            }
+            Intent intent = new Intent(RuntimeEvents.ACTION_WS_SENT_FRAME);
+            intent.putExtra(RuntimeEvents.EXTRA_FRAME_ID, frameId);
+            intent.putExtra(RuntimeEvents.EXTRA_WS_MESSAGE, json);
+            context.sendBroadcast(intent);
+        }
+    }
+    
+    /**
+     * 发送协议协商消息，携带二进制协议版本与按键字典
+     * @param socket 刚建立的连接
+     */
+    private void sendHello(WebSocket socket) {
+        Map<String, Object> hello = new LinkedHashMap<>();
+        hello.put("type", "hello");
+        hello.put("binaryVersions", Arrays.asList(BinaryFrameCodec.VERSION, BinaryFrameCodec.VERSION_DICTIONARY_ONLY));
+        hello.put("keyDictionary", binaryCodec.getKeyDictionary());
+        hello.put("buttonDictionary", binaryCodec.getButtonDictionary());
+        if (udpTransportEnabled) {
+            hello.put("stateTransports", Arrays.asList("udp", "websocket"));
+            hello.put("udpRedundancy", udpRedundancy);
+        }
+        socket.send(gson.toJson(hello));
+        Log.d(TAG, "[协议协商] 已发送hello，二进制协议版本: " + BinaryFrameCodec.VERSION);
+    }
+    
+    /**
+     * 发送会话恢复消息，携带断线前最后发送的状态/事件ID，服务端据此重新同步
+     * 之后的第一帧为完整状态（见 StateDiffer），断线期间的输入只保留最新一帧，不补发
+     * @param socket 刚建立的连接
+     */
+    private void sendResume(WebSocket socket) {
+        Map<String, Object> resume = new LinkedHashMap<>();
+        resume.put("type", "resume");
+        long lastStateId = stateId.get();
+        resume.put("lastStateId", lastStateId);
+        resume.put("lastAckedStateId", lastAckedStateId);
+        resume.put("lastEventId", eventId.get());
+        resume.put("outageMs", lastOutageMs);
+        socket.send(gson.toJson(resume));
+        Log.d(TAG, "[自动重连] 已发送resume，lastStateId: " + lastStateId);
+    }
+    
     /**
      * 重连WebSocket
-     * 不再自动重连，需要用户手动触发
+     * 已建立的会话意外断开时，按指数退避加随机抖动调度下一次连接；手动断开后不重连
      */
     private void reconnect() {
-        Log.d(TAG, "Reconnect requested, but auto-reconnect is disabled. Please use manual connect.");
-        // 不执行自动重连，等待用户手动触发
+        if (!autoReconnectEnabled || !sessionEstablished || reconnectHandler == null) {
+            Log.d(TAG, "[自动重连] 未启用自动重连或没有已建立的会话，等待手动连接");
+            return;
+        }
+        if (disconnectedAtMs == 0) {
+            disconnectedAtMs = SystemClock.elapsedRealtime();
+        }
+        long delay = reconnectPolicy.nextDelayMs(reconnectAttempts++);
+        lastReconnectDelayMs = delay;
+        Log.d(TAG, "[自动重连] 第" + reconnectAttempts + "次重连将在 " + delay + "ms 后进行");
+        reconnectHandler.removeCallbacks(reconnectTask);
+        reconnectHandler.postDelayed(reconnectTask, delay);
+    }
+    
+    private final Runnable reconnectTask = () -> {
+        if (sessionEstablished && !isConnected) {
+            connect();
+        }
+    };
+    
+    private final Runnable pingTask = new Runnable() {
+        @Override
+        public void run() {
+            WebSocket socket = webSocket;
+            if (!isConnected || socket == null) {
+                return;
+            }
+            sendPing(socket);
+            publishLinkStats();
+            linkHandler.postDelayed(this, PING_INTERVAL);
+        }
+    };
+    
+    private final Runnable retransmitTask = new Runnable() {
+        @Override
+        public void run() {
+            retransmitCheckScheduled.set(false);
+            WebSocket socket = webSocket;
+            if (!isConnected || socket == null) {
+                return;
+            }
+            eventBuffer.retransmitDue(System.nanoTime(), retransmitTimeoutNanos(),
+                    (id, json, frame, edgesOnly) -> retransmitEvent(socket, id, json, frame, edgesOnly));
+            if (eventBuffer.hasPendingEdges()) {
+                scheduleRetransmitCheck();
+            }
+        }
+    };
+    
+    /**
+     * 有待确认的边沿事件时调度一次重传检查（可在任意线程调用）
+     */
+    private void scheduleRetransmitCheck() {
+        Handler handler = linkHandler;
+        if (handler != null && retransmitCheckScheduled.compareAndSet(false, true)) {
+            handler.postDelayed(retransmitTask, RETRANSMIT_CHECK_INTERVAL);
+        }
+    }
+    
+    /**
+     * 重传超时：RTT p95 的两倍，限制在上下限之间；尚无RTT样本时取上下限的中间值
+     */
+    private long retransmitTimeoutNanos() {
+        long p95Us = linkStats.getRttPercentileUs(0.95);
+        long timeoutMs = p95Us > 0
+                ? Math.max(RETRANSMIT_MIN_TIMEOUT, Math.min(RETRANSMIT_MAX_TIMEOUT, p95Us * 2 / 1000))
+                : (RETRANSMIT_MIN_TIMEOUT + RETRANSMIT_MAX_TIMEOUT) / 2;
+        return TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    }
+    
+    /**
+     * 重传一个事件：沿用原eventId，始终走WebSocket
+     */
+    private void retransmitEvent(WebSocket socket, long id, String json, byte[] frame, EventDelta edgesOnly) {
+        if (edgesOnly != null) {
+            // 原事件带有轴值：只重发边沿部分
+            EventMessage message = new EventMessage(id, lastAckedStateId, edgesOnly);
+            frame = encodeBinary(message);
+            json = frame == null ? gson.toJson(message) : null;
+        }
+        if (frame != null) {
+            socket.send(ByteString.of(frame));
+        } else {
+            socket.send(json);
+        }
+        EVENT_RETRANSMITS.increment();
+        if (TraceLog.ENABLED && TraceLog.isLoggable(TAG, Log.DEBUG)) {
+            TraceLog.log(TAG, Log.DEBUG, "[事件重传] eventId=" + id);
+        }
+    }
+    
+    /**
+     * 发送ping，服务端以pong原样带回pingId与clientTs，并附上自己的收发时间
+     * @param socket 当前连接
+     */
+    private void sendPing(WebSocket socket) {
+        long clientTs = System.currentTimeMillis();
+        long pingId = linkStats.onPingSent(System.nanoTime(), clientTs);
+        Map<String, Object> ping = new LinkedHashMap<>();
+        ping.put("type", "ping");
+        ping.put("pingId", pingId);
+        ping.put("clientTs", clientTs);
+        socket.send(gson.toJson(ping));
+    }
+    
+    /**
+     * 将链路指标发布到SystemMonitor
+     */
+    private void publishLinkStats() {
+        SystemMonitor monitor = SystemMonitor.getInstance();
+        monitor.setRtt(Math.round(linkStats.getRttPercentileUs(0.5) / 1000.0));
+        monitor.setPacketLossRate(linkStats.getLossRate());
+        monitor.setLatencyStats(linkStats.getRttPercentileUs(0.5) / 1000.0,
+                linkStats.getRttPercentileUs(0.95) / 1000.0,
+                linkStats.getRttPercentileUs(0.99) / 1000.0,
+                linkStats.getClockOffsetMs());
+    }
+    
+    /**
+     * 取消已调度的重连并结束当前会话
+     */
+    private void cancelReconnect() {
+        sessionEstablished = false;
+        disconnectedAtMs = 0;
+        reconnectAttempts = 0;
+        if (reconnectHandler != null) {
+            reconnectHandler.removeCallbacks(reconnectTask);
+        }
+        if (linkHandler != null) {
+            linkHandler.removeCallbacks(pingTask);
+            linkHandler.removeCallbacks(retransmitTask);
+            retransmitCheckScheduled.set(false);
+        }
     }
     
     /**
@@ -493,6 +1004,8 @@ public class WebSocketClient {
      * 关闭WebSocket客户端
      */
     public void shutdown() {
+        cancelReconnect();
+        cancelEndpointRace();
         if (webSocket != null) {
             webSocket.close(1000, "Client shutdown");
         }
@@ -504,9 +1017,136 @@ public class WebSocketClient {
             timeoutHandler.removeCallbacksAndMessages(null);
         }
         isConnected = false;
+        closeUdpTransport();
         Log.d(TAG, "WebSocketClient shutdown");
     }
     
+    /**
+     * 设置是否协商二进制协议，下次连接时生效
+     * @param enabled false表示始终使用JSON
+     */
+    public void setBinaryProtocolEnabled(boolean enabled) {
+        this.binaryProtocolEnabled = enabled;
+        if (!enabled) {
+            binaryProtocolActive = false;
+        }
+    }
+    
+    /**
+     * 设置状态帧是否请求走UDP通道，下次连接时生效
+     * UDP通道承载二进制帧，因此需要同时启用二进制协议；服务端未提供UDP端口时继续使用WebSocket
+     * @param enabled 是否请求UDP通道
+     * @param redundancy 每个UDP包额外携带的历史帧数
+     */
+    public void setUdpTransport(boolean enabled, int redundancy) {
+        this.udpTransportEnabled = enabled;
+        this.udpRedundancy = Math.max(0, redundancy);
+        if (!enabled) {
+            closeUdpTransport();
+        }
+    }
+    
+    /**
+     * 获取事件重传次数
+     */
+    public long getEventRetransmitCount() {
+        return eventBuffer.getRetransmitCount();
+    }
+    
+    /**
+     * 获取在途（已发送未确认）的事件数
+     */
+    public int getEventsInFlight() {
+        return eventBuffer.getInFlight();
+    }
+    
+    /**
+     * 当前是否通过UDP发送状态帧
+     */
+    public boolean isUdpTransportActive() {
+        return udpTransport != null;
+    }
+    
+    /**
+     * 设置已发送帧广播的采样间隔
+     * 每帧广播会产生一次跨进程调用，只应在诊断时开启；进程内观察请使用 SentFrameTap
+     * @param interval 每N帧广播一次，0表示不广播
+     */
+    public void setSentFrameBroadcastInterval(int interval) {
+        this.sentFrameBroadcastInterval = Math.max(0, interval);
+    }
+    
+    /**
+     * 设置连接意外断开后是否自动重连
+     * @param enabled false表示断开后等待手动连接
+     */
+    public void setAutoReconnectEnabled(boolean enabled) {
+        this.autoReconnectEnabled = enabled;
+        if (!enabled && reconnectHandler != null) {
+            reconnectHandler.removeCallbacks(reconnectTask);
+        }
+    }
+    
+    /**
+     * 获取成功重连的次数
+     */
+    public long getReconnectCount() {
+        return reconnectCount;
+    }
+    
+    /**
+     * 获取最近一次断线到重连成功的时长（毫秒）
+     */
+    public long getLastOutageMs() {
+        return lastOutageMs;
+    }
+    
+    /**
+     * 获取最近一次调度重连时的退避延迟（毫秒）
+     */
+    public long getLastReconnectDelayMs() {
+        return lastReconnectDelayMs;
+    }
+    
+    /**
+     * 当前是否处于断线等待重连中
+     */
+    public boolean isReconnecting() {
+        return disconnectedAtMs != 0;
+    }
+    
+    /**
+     * 当前连接是否使用二进制协议
+     * @return 服务端已确认二进制协议时为true
+     */
+    public boolean isBinaryProtocolActive() {
+        return binaryProtocolActive;
+    }
+    
+    /**
+     * 获取待发送字节数（OkHttp 发送队列中尚未写出的数据量）
+     * @return 待发送字节数，未连接时为 0
+     */
+    public long getSendQueueBytes() {
+        WebSocket socket = webSocket;
+        return socket != null ? socket.queueSize() : 0;
+    }
+    
+    /**
+     * 获取链路统计
+     */
+    LinkStats getLinkStats() {
+        return linkStats;
+    }
+    
+    /**
+     * 获取服务端最后确认的状态ID
+     * @return 状态ID，当前连接上尚未收到确认时为 0
+     */
+    public long getLastAckedStateId() {
+        return lastAckedStateId;
+    }
+    
     /**
      * 检查WebSocket是否连接
      * @return 是否连接
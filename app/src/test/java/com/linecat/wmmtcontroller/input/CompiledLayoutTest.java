@@ -0,0 +1,73 @@
+package com.linecat.wmmtcontroller.input;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 编译布局测试
+ */
+public class CompiledLayoutTest {
+
+    /**
+     * 用例 PLAN-001：各类区域只保留各自的最高 zIndex 组，组内保持原顺序
+     */
+    @Test
+    public void testTopGroupsPerLayer() {
+        LayoutSnapshot layout = new LayoutSnapshot(Arrays.asList(
+                region("gyro_low", Region.RegionType.GYROSCOPE, 1, null, null),
+                region("op_a", Region.RegionType.OPERATION, 3, null, null),
+                region("gyro_a", Region.RegionType.GYROSCOPE, 2, null, null),
+                region("op_low", Region.RegionType.OPERATION, 0, null, null),
+                region("gyro_b", Region.RegionType.GYROSCOPE, 2, null, null),
+                region("op_b", Region.RegionType.OPERATION, 3, null, null)));
+
+        CompiledLayout compiled = layout.getCompiledLayout();
+
+        assertThat(compiled.getTopGyroRegions()).extracting(Region::getId).containsExactly("gyro_a", "gyro_b");
+        assertThat(compiled.getTopOperationRegions()).extracting(Region::getId).containsExactly("op_a", "op_b");
+        assertThat(compiled.getTopOperationZIndex()).isEqualTo(3);
+        assertThat(compiled.getRegionsByZ()).extracting(Region::getZIndex).containsExactly(3, 3, 2, 2, 1, 0);
+        assertThat(compiled.getTopMappingTargets()).isEmpty();
+    }
+
+    /**
+     * 用例 PLAN-002：简化格式的映射区域预先解析映射类别，映射目标已驻留
+     */
+    @Test
+    public void testMappingTargetsResolved() {
+        String key = new String("KEY_W");
+        LayoutSnapshot layout = new LayoutSnapshot(Arrays.asList(
+                region("gear_up", Region.RegionType.BUTTON, 5, null, "RB"),
+                region("throttle", Region.RegionType.BUTTON, 5, key, null),
+                region("plain", Region.RegionType.BUTTON, 9, null, null),
+                region("low", Region.RegionType.BUTTON, 1, null, "LB")));
+
+        CompiledLayout.MappingTarget[] targets = layout.getCompiledLayout().getTopMappingTargets();
+
+        assertThat(targets).extracting(t -> t.regionId).containsExactly("gear_up", "throttle");
+        assertThat(targets[0].kind).isEqualTo(CompiledLayout.MappingKind.GAMEPAD);
+        assertThat(targets[0].button).isEqualTo("RB");
+        assertThat(targets[1].kind).isEqualTo(CompiledLayout.MappingKind.KEYBOARD);
+        assertThat(targets[1].key).isSameAs("KEY_W");
+    }
+
+    /**
+     * 用例 PLAN-003：编译结果按布局快照缓存，区域视图不再每次新建
+     */
+    @Test
+    public void testCompiledOncePerSnapshot() {
+        LayoutSnapshot layout = new LayoutSnapshot(Arrays.asList(
+                region("a", Region.RegionType.BUTTON, 0, null, null)));
+
+        assertThat(layout.getCompiledLayout()).isSameAs(layout.getCompiledLayout());
+        assertThat(layout.getRegions()).isSameAs(layout.getRegions());
+    }
+
+    private static Region region(String id, Region.RegionType type, int zIndex, String key, String button) {
+        return new Region(id, type, 0f, 0f, 1f, 1f, zIndex, 0f, "linear", null, null,
+                null, null, key, null, button, null, null);
+    }
+}
@@ -0,0 +1,129 @@
+package com.linecat.wmmtcontroller.input;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * 预编译灵敏度曲线测试
+ * 验证查找表误差、区域内置曲线与原处理器公式一致，以及自定义分段/贝塞尔曲线
+ */
+public class CurveFunctionTest {
+    private static final int SAMPLES = 4001;
+
+    /**
+     * 用例 CURVE-001：compile 精确实现（含 gamma 2、3 的乘法特化）与 applyCurve 逐位一致，查找表在误差内，超出 [-1,1] 使用精确实现
+     */
+    @Test
+    public void testCompileMatchesApplyCurve() {
+        String[] types = {"linear", "exponential", "exponential", "exponential", "logarithmic", "sine"};
+        float[] params = {1f, 1.7f, 2f, 3f, 9f, 1f};
+        for (int t = 0; t < types.length; t++) {
+            CurveFunction exact = CurveProcessor.compile(types[t], params[t]);
+            CurveFunction small = CurveProcessor.compile(types[t], params[t], CurveFunction.LUT_SMALL);
+            CurveFunction large = CurveProcessor.compile(types[t], params[t], CurveFunction.LUT_LARGE);
+            for (int i = 0; i < SAMPLES; i++) {
+                float v = -1f + 2f * i / (SAMPLES - 1);
+                float expected = CurveProcessor.applyCurve(v, types[t], params[t]);
+                assertThat(exact.apply(v)).isEqualTo(expected);
+                assertThat(small.apply(v)).isCloseTo(expected, within(2e-3f));
+                assertThat(large.apply(v)).isCloseTo(expected, within(2e-4f));
+            }
+            assertThat(large.apply(1.5f)).isEqualTo(CurveProcessor.applyCurve(1.5f, types[t], params[t]));
+        }
+    }
+
+    /**
+     * 用例 CURVE-002：区域在构造时编译曲线，内置名称与原各层处理器的公式一致，未知或空曲线为线性，无效定义记录解析错误
+     */
+    @Test
+    public void testRegionCompilesBuiltInCurves() {
+        for (String type : new String[] {"linear", "exponential", "logarithmic", "sine"}) {
+            Region region = region(type);
+            CurveFunction curve = region.getCurveFunction();
+            assertThat(region.getCurveFunction()).isSameAs(curve);
+            for (int i = 0; i < SAMPLES; i++) {
+                float v = -1f + 2f * i / (SAMPLES - 1);
+                assertThat(curve.apply(v)).isCloseTo(legacyCurve(v, type), within(1e-3f));
+            }
+        }
+        assertThat(region("exponential").getCurveFunction().apply(-0.5f)).isEqualTo(-0.25f);
+        assertThat(region(null).getCurveFunction()).isSameAs(CurveFunction.LINEAR);
+        assertThat(region("unknown").getCurveFunction()).isSameAs(CurveFunction.LINEAR);
+        assertThat(region("exponential").getCurveError()).isNull();
+
+        Region invalid = region("{\"type\": \"piecewise\", \"points\": [[0.5, 1]]}");
+        assertThat(invalid.getCurveFunction()).isSameAs(CurveFunction.LINEAR);
+        assertThat(invalid.getCurveError()).isNotNull();
+    }
+
+    /**
+     * 用例 CURVE-003：布局 JSON 中的分段线性曲线按控制点插值，奇对称且单调
+     */
+    @Test
+    public void testPiecewiseCurve() {
+        CurveFunction curve = region("{\"type\": \"piecewise\", \"points\": [[0, 0], [0.5, 0.2], [1, 1]], \"lut\": 0}")
+                .getCurveFunction();
+
+        assertThat(curve.apply(0f)).isZero();
+        assertThat(curve.apply(0.25f)).isCloseTo(0.1f, within(1e-6f));
+        assertThat(curve.apply(0.5f)).isCloseTo(0.2f, within(1e-6f));
+        assertThat(curve.apply(0.75f)).isCloseTo(0.6f, within(1e-6f));
+        assertThat(curve.apply(-0.75f)).isCloseTo(-0.6f, within(1e-6f));
+        assertThat(curve.apply(2f)).isEqualTo(1f);
+        assertMonotonic(curve);
+    }
+
+    /**
+     * 用例 CURVE-004：贝塞尔曲线端点固定、对角控制点退化为线性，烘焙为查找表后单调
+     */
+    @Test
+    public void testBezierCurve() {
+        CurveFunction diagonal = CurveFunction.bezier(0.25f, 0.25f, 0.75f, 0.75f);
+        for (int i = 0; i < SAMPLES; i++) {
+            float v = -1f + 2f * i / (SAMPLES - 1);
+            assertThat(diagonal.apply(v)).isCloseTo(v, within(1e-5f));
+        }
+
+        CurveFunction curve = region("{\"type\": \"bezier\", \"controlPoints\": [0.6, 0, 0.9, 0.5], \"lut\": 1024}")
+                .getCurveFunction();
+        assertThat(curve.apply(0f)).isZero();
+        assertThat(curve.apply(1f)).isCloseTo(1f, within(1e-6f));
+        assertThat(curve.apply(-1f)).isCloseTo(-1f, within(1e-6f));
+        // 控制点靠右下：小输入被压低
+        assertThat(curve.apply(0.5f)).isLessThan(0.3f);
+        assertMonotonic(curve);
+    }
+
+    private static void assertMonotonic(CurveFunction curve) {
+        float previous = curve.apply(-1f);
+        for (int i = 1; i < SAMPLES; i++) {
+            float current = curve.apply(-1f + 2f * i / (SAMPLES - 1));
+            assertThat(current).isGreaterThanOrEqualTo(previous);
+            previous = current;
+        }
+    }
+
+    /**
+     * 原 OperationLayerHandler/MappingLayerHandler 的曲线实现
+     */
+    private static float legacyCurve(float value, String curveType) {
+        switch (curveType) {
+            case "exponential":
+                return (float) Math.pow(value, 2.0) * Math.signum(value);
+            case "logarithmic":
+                return (float) Math.log10(Math.abs(value) * 9 + 1) * Math.signum(value) * 0.5f;
+            case "sine":
+                return (float) Math.sin(value * Math.PI / 2);
+            case "linear":
+            default:
+                return value;
+        }
+    }
+
+    private static Region region(String curve) {
+        return new Region("curve", Region.RegionType.OPERATION, 0f, 0f, 1f, 1f, 0, 0f, curve, null, null,
+                Region.OperationType.STEERING, null, null, null, null, null, null);
+    }
+}
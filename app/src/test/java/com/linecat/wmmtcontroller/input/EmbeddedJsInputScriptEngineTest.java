@@ -0,0 +1,129 @@
+package com.linecat.wmmtcontroller.input;
+
+import com.linecat.wmmtcontroller.model.InputState;
+import com.linecat.wmmtcontroller.model.RawInput;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 嵌入式脚本引擎测试
+ * 验证脚本在调用线程内执行、直接绑定 ScriptContext，以及超时/异常时的按键释放
+ */
+public class EmbeddedJsInputScriptEngineTest {
+
+    private EmbeddedJsInputScriptEngine engine;
+    private RawInput rawInput;
+    private InputState inputState;
+
+    @Before
+    public void setUp() {
+        engine = new EmbeddedJsInputScriptEngine();
+        engine.init();
+        rawInput = new RawInput();
+        inputState = new InputState();
+    }
+
+    /**
+     * 用例 EMBED-001：update 返回的 heldKeys 写入 InputState
+     */
+    @Test
+    public void testReturnedHeldKeysApplied() {
+        assertThat(engine.loadScript("function update(raw, state) { return { heldKeys: ['W', 'SHIFT'] }; }")).isTrue();
+
+        assertThat(engine.update(rawInput, inputState)).isTrue();
+
+        assertThat(inputState.getKeyboard()).containsExactlyInAnyOrder("W", "SHIFT");
+        assertThat(engine.getState()).isEqualTo(InputScriptEngine.EngineState.LOADED);
+        assertThat(engine.getLastExecutionTimeNanos()).isPositive();
+    }
+
+    /**
+     * 用例 EMBED-002：脚本通过 rawAccess/stateMutator 直接读写 ScriptContext
+     */
+    @Test
+    public void testScriptReadsRawInputAndHoldsKey() {
+        String script = "function update() {\n"
+                + "    if (rawAccess.getRawInput().getGyroPitch() > 0.5) { stateMutator.holdKey('D'); }\n"
+                + "    else { stateMutator.releaseKey('D'); }\n"
+                + "}";
+        assertThat(engine.loadScript(script)).isTrue();
+
+        rawInput.setGyroPitch(1.0f);
+        engine.update(rawInput, inputState);
+        assertThat(inputState.getKeyboard()).containsExactly("D");
+
+        rawInput.setGyroPitch(0f);
+        engine.update(rawInput, inputState);
+        assertThat(inputState.getKeyboard()).isEmpty();
+    }
+
+    /**
+     * 用例 EMBED-003：可选的 init 在加载时调用一次
+     */
+    @Test
+    public void testInitCalledOnceAtLoad() {
+        String script = "var initCount = 0;\n"
+                + "function init() { initCount++; }\n"
+                + "function update() { return { heldKeys: initCount === 1 ? ['I'] : [] }; }";
+        assertThat(engine.loadScript(script)).isTrue();
+
+        engine.update(rawInput, inputState);
+        engine.update(rawInput, inputState);
+
+        assertThat(inputState.getKeyboard()).containsExactly("I");
+    }
+
+    /**
+     * 用例 EMBED-004：缺少 update 函数时加载失败
+     */
+    @Test
+    public void testMissingUpdateFailsToLoad() {
+        assertThat(engine.loadScript("function init() {}")).isFalse();
+
+        assertThat(engine.getState()).isEqualTo(InputScriptEngine.EngineState.ERROR);
+        assertThat(engine.getLastError()).contains("update");
+    }
+
+    /**
+     * 用例 EMBED-005：死循环被指令预算中断，按键全部释放
+     */
+    @Test
+    public void testInfiniteLoopTimesOutAndClearsKeys() {
+        inputState.getKeyboard().add("W");
+        assertThat(engine.loadScript("function update() { while (true) {} }")).isTrue();
+
+        assertThat(engine.update(rawInput, inputState)).isFalse();
+
+        assertThat(engine.getState()).isEqualTo(InputScriptEngine.EngineState.ERROR);
+        assertThat(engine.getLastError()).startsWith("TIMEOUT");
+        assertThat(inputState.getKeyboard()).isEmpty();
+    }
+
+    /**
+     * 用例 EMBED-006：运行时异常进入错误状态并释放按键
+     */
+    @Test
+    public void testRuntimeErrorClearsKeys() {
+        inputState.getKeyboard().add("W");
+        assertThat(engine.loadScript("function update() { throw new Error('boom'); }")).isTrue();
+
+        assertThat(engine.update(rawInput, inputState)).isFalse();
+
+        assertThat(engine.getLastError()).startsWith("RUNTIME_ERROR");
+        assertThat(inputState.getKeyboard()).isEmpty();
+    }
+
+    /**
+     * 用例 EMBED-007：脚本无法通过反射访问应用包以外的 Java 类
+     */
+    @Test
+    public void testJavaReflectionBlocked() {
+        String script = "function update() { rawAccess.getClass().forName('java.lang.System'); }";
+        assertThat(engine.loadScript(script)).isTrue();
+
+        assertThat(engine.update(rawInput, inputState)).isFalse();
+        assertThat(engine.getState()).isEqualTo(InputScriptEngine.EngineState.ERROR);
+    }
+}
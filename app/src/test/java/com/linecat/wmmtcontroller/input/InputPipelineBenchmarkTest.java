@@ -0,0 +1,204 @@
+package com.linecat.wmmtcontroller.input;
+
+import com.linecat.wmmtcontroller.model.RawInput;
+import com.linecat.wmmtcontroller.test.AllocationMeter;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * 输入管线预处理基准测试
+ * 对照原先逐阶段复制 RawInput 的实现（LegacyPreprocessor），验证结果一致，
+ * 并输出两者的 ns/帧 与 bytes/帧；只断言分配，不断言耗时
+ */
+public class InputPipelineBenchmarkTest {
+    private static final int INPUTS = 256;
+    private static final int WARMUP_FRAMES = 20000;
+    private static final int MEASURED_FRAMES = 20000;
+
+    /**
+     * 用例 PIPE-001：原地阶段链与逐阶段复制的实现结果一致（线性、平方、立方曲线逐位一致，其余曲线在误差内）
+     */
+    @Test
+    public void testMatchesLegacyChain() {
+        RawInput[] inputs = buildInputs();
+        for (float exponent : new float[] {2f, 1f, 3f, 1.7f}) {
+            Recorder recorder = new Recorder();
+            InputPipeline pipeline = new InputPipeline();
+            pipeline.setCurveExponent(exponent);
+            pipeline.setStages(pipeline.getStage(InputPipeline.StageType.FILTER),
+                    pipeline.getStage(InputPipeline.StageType.SMOOTHING),
+                    pipeline.getStage(InputPipeline.StageType.DEADZONE),
+                    pipeline.getStage(InputPipeline.StageType.CURVE),
+                    recorder);
+            LegacyPreprocessor legacy = new LegacyPreprocessor(exponent);
+
+            for (RawInput input : inputs) {
+                pipeline.process(input);
+                RawInput expected = legacy.preprocess(input);
+                if (exponent == 1f || exponent == 2f || exponent == 3f) {
+                    assertThat(recorder.roll).isEqualTo(expected.getGyroRoll());
+                    assertThat(recorder.pitch).isEqualTo(expected.getGyroPitch());
+                } else {
+                    assertThat(recorder.roll).isCloseTo(expected.getGyroRoll(), within(Math.abs(expected.getGyroRoll()) * 1e-5f));
+                    assertThat(recorder.pitch).isCloseTo(expected.getGyroPitch(), within(Math.abs(expected.getGyroPitch()) * 1e-5f));
+                }
+            }
+        }
+    }
+
+    /**
+     * 用例 PIPE-002：阶段可重新排列或禁用
+     */
+    @Test
+    public void testStageOrder() {
+        RawInput input = new RawInput();
+        input.setGyroRoll(0.05f);
+        InputPipeline pipeline = new InputPipeline();
+        Recorder recorder = new Recorder();
+
+        // 只保留曲线阶段：低于死区的值不再被清零
+        pipeline.setStages(pipeline.getStage(InputPipeline.StageType.CURVE), recorder);
+        pipeline.process(input);
+        assertThat(recorder.roll).isEqualTo(0.05f * 0.05f);
+
+        pipeline.setStageOrder(InputPipeline.StageType.DEADZONE, InputPipeline.StageType.CURVE);
+        input.setGyroRoll(0.9f);
+        assertThat(pipeline.process(input).getKeyboard()).containsExactly(new KeyboardMapping().getRightKey());
+    }
+
+    /**
+     * 用例 PIPE-003：稳态处理零分配，并输出与原实现的对比
+     */
+    @Test
+    public void testSteadyStateBenchmark() {
+        AllocationMeter meter = AllocationMeter.forCurrentThread();
+
+        RawInput[] inputs = buildInputs();
+        InputPipeline pipeline = new InputPipeline();
+        LegacyPreprocessor legacy = new LegacyPreprocessor(pipeline.getCurveExponent());
+        float checksum = 0f;
+
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            checksum += pipeline.process(inputs[i % INPUTS]).getMouse().getX();
+            checksum += legacy.preprocess(inputs[i % INPUTS]).getGyroRoll();
+        }
+
+        long legacyBytes = meter.allocatedBytes();
+        long legacyStart = System.nanoTime();
+        for (int i = 0; i < MEASURED_FRAMES; i++) {
+            checksum += legacy.preprocess(inputs[i % INPUTS]).getGyroRoll();
+        }
+        long legacyNanos = System.nanoTime() - legacyStart;
+        legacyBytes = meter.allocatedBytes() - legacyBytes;
+
+        long fusedBytes = meter.allocatedBytes();
+        long fusedStart = System.nanoTime();
+        for (int i = 0; i < MEASURED_FRAMES; i++) {
+            checksum += pipeline.process(inputs[i % INPUTS]).getMouse().getX();
+        }
+        long fusedNanos = System.nanoTime() - fusedStart;
+        fusedBytes = meter.allocatedBytes() - fusedBytes;
+
+        System.out.printf("InputPipeline preprocess: legacy %.1f ns/frame %.1f bytes/frame, fused %.1f ns/frame %.1f bytes/frame (checksum %.3f)%n",
+                (double) legacyNanos / MEASURED_FRAMES, (double) legacyBytes / MEASURED_FRAMES,
+                (double) fusedNanos / MEASURED_FRAMES, (double) fusedBytes / MEASURED_FRAMES, checksum);
+
+        assertThat(fusedBytes).isLessThan(AllocationMeter.MAX_ALLOCATED_BYTES);
+        assertThat(legacyBytes).isGreaterThan(fusedBytes);
+    }
+
+    private static RawInput[] buildInputs() {
+        RawInput[] inputs = new RawInput[INPUTS];
+        for (int i = 0; i < INPUTS; i++) {
+            RawInput input = new RawInput();
+            // 覆盖死区内外、超出范围与正负值
+            input.setGyroRoll((float) Math.sin(i * 0.1) * (i % 7 == 0 ? 240f : 1.5f));
+            input.setGyroPitch((float) Math.cos(i * 0.13) * 0.8f);
+            input.setGyroYaw(i % 5 == 0 ? -200f : 0.05f);
+            input.setTouchPressed(i % 3 == 0);
+            input.setTouchX(i * 3f);
+            input.setTouchY(i * 2f);
+            input.setButtonA(i % 2 == 0);
+            input.setButtonB(i % 4 == 0);
+            inputs[i] = input;
+        }
+        return inputs;
+    }
+
+    /**
+     * 记录预处理结果的阶段
+     */
+    private static final class Recorder implements InputPipeline.Stage {
+        float roll;
+        float pitch;
+
+        @Override
+        public void apply(InputPipeline.Frame frame) {
+            roll = frame.gyroRoll;
+            pitch = frame.gyroPitch;
+        }
+    }
+
+    /**
+     * 原先的预处理实现：每个阶段复制一个新的 RawInput
+     */
+    private static final class LegacyPreprocessor {
+        private final float exponent;
+        private RawInput lastInput;
+
+        LegacyPreprocessor(float exponent) {
+            this.exponent = exponent;
+        }
+
+        RawInput preprocess(RawInput input) {
+            RawInput filtered = copy(input);
+            filtered.setGyroPitch(Math.max(-180, Math.min(180, input.getGyroPitch())));
+            filtered.setGyroRoll(Math.max(-180, Math.min(180, input.getGyroRoll())));
+            filtered.setGyroYaw(Math.max(-180, Math.min(180, input.getGyroYaw())));
+
+            RawInput smoothed = filtered;
+            if (lastInput != null) {
+                smoothed = copy(filtered);
+                smoothed.setGyroPitch(lerp(lastInput.getGyroPitch(), filtered.getGyroPitch(), 0.5f));
+                smoothed.setGyroRoll(lerp(lastInput.getGyroRoll(), filtered.getGyroRoll(), 0.5f));
+                smoothed.setGyroYaw(lerp(lastInput.getGyroYaw(), filtered.getGyroYaw(), 0.5f));
+            }
+
+            RawInput deadzone = copy(smoothed);
+            deadzone.setGyroPitch(Math.abs(smoothed.getGyroPitch()) < 0.1f ? 0 : smoothed.getGyroPitch());
+            deadzone.setGyroRoll(Math.abs(smoothed.getGyroRoll()) < 0.1f ? 0 : smoothed.getGyroRoll());
+            deadzone.setGyroYaw(Math.abs(smoothed.getGyroYaw()) < 0.1f ? 0 : smoothed.getGyroYaw());
+
+            RawInput curved = copy(deadzone);
+            curved.setGyroPitch(curve(deadzone.getGyroPitch()));
+            curved.setGyroRoll(curve(deadzone.getGyroRoll()));
+            curved.setGyroYaw(curve(deadzone.getGyroYaw()));
+
+            lastInput = input;
+            return curved;
+        }
+
+        private float curve(float value) {
+            return Math.signum(value) * (float) Math.pow(Math.abs(value), exponent);
+        }
+
+        private static float lerp(float a, float b, float t) {
+            return a + (b - a) * t;
+        }
+
+        private static RawInput copy(RawInput input) {
+            RawInput result = new RawInput();
+            result.setTouchPressed(input.isTouchPressed());
+            result.setTouchX(input.getTouchX());
+            result.setTouchY(input.getTouchY());
+            result.setButtonA(input.isButtonA());
+            result.setButtonB(input.isButtonB());
+            result.setButtonC(input.isButtonC());
+            result.setButtonD(input.isButtonD());
+            return result;
+        }
+    }
+}
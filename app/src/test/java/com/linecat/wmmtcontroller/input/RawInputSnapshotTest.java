@@ -0,0 +1,52 @@
+package com.linecat.wmmtcontroller.input;
+
+import com.linecat.wmmtcontroller.model.RawInput;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 原始输入快照测试
+ */
+public class RawInputSnapshotTest {
+
+    /**
+     * 用例 SNAPSHOT-001：快照与后续对 RawInput 的修改隔离
+     */
+    @Test
+    public void testSnapshotIsImmutable() {
+        RawInput rawInput = new RawInput();
+        rawInput.setGyroPitch(0.5f);
+        rawInput.setTouchPressed(true);
+        rawInput.getGamepad().setAxis("leftX", -0.25f);
+        rawInput.getGamepad().setButton("start", true);
+
+        RawInputSnapshot snapshot = RawInputSnapshot.of(rawInput, 7);
+        rawInput.setGyroPitch(1.0f);
+        rawInput.getGamepad().setAxis("leftX", 1.0f);
+
+        assertThat(snapshot.frameId).isEqualTo(7);
+        assertThat(snapshot.gyroPitch).isEqualTo(0.5f);
+        assertThat(snapshot.touchPressed).isTrue();
+        assertThat(snapshot.getAxis("leftX")).isEqualTo(-0.25f);
+        assertThat(snapshot.getAxis("missing")).isZero();
+        assertThat(snapshot.isGamepadButtonPressed("start")).isTrue();
+        assertThat(snapshot.isGamepadButtonPressed("select")).isFalse();
+    }
+
+    /**
+     * 用例 SNAPSHOT-002：批量访问的整帧 JSON 包含全部字段并转义手柄键名
+     */
+    @Test
+    public void testBulkJson() {
+        RawInput rawInput = new RawInput();
+        rawInput.setGyroYaw(0.125f);
+        rawInput.setButtonC(true);
+        rawInput.getGamepad().setAxis("a\"b", 0.5f);
+
+        String json = RawInputSnapshot.of(rawInput, 3).toJson();
+
+        assertThat(json).startsWith("{\"frameId\":3,");
+        assertThat(json).contains("\"gyroYaw\":0.125", "\"buttonC\":true", "\"axes\":{\"a\\\"b\":0.5}", "\"buttons\":{}");
+    }
+}
@@ -0,0 +1,128 @@
+package com.linecat.wmmtcontroller.input;
+
+import com.linecat.wmmtcontroller.layer.InputAbstractionLayer;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 区域网格索引测试
+ */
+public class RegionGridIndexTest {
+
+    /**
+     * 用例 GRID-001：随机布局下网格命中结果与线性扫描一致（含边界、越界坐标和重叠区域）
+     */
+    @Test
+    public void testMatchesLinearScan() {
+        Random random = new Random(42);
+        List<Region> regions = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            float left = random.nextFloat() * 1.2f - 0.1f;
+            float top = random.nextFloat() * 1.2f - 0.1f;
+            regions.add(region("r" + i, left, top, left + random.nextFloat() * 0.3f,
+                    top + random.nextFloat() * 0.3f, random.nextInt(4)));
+        }
+        LayoutSnapshot layout = new LayoutSnapshot(regions);
+        Region[] hits = new Region[regions.size()];
+
+        for (int i = 0; i < 5000; i++) {
+            float x = random.nextFloat() * 1.4f - 0.2f;
+            float y = random.nextFloat() * 1.4f - 0.2f;
+            if (i % 10 == 0) {
+                // 落在区域边界上
+                Region edge = regions.get(i % regions.size());
+                x = edge.getRight();
+                y = edge.getTop();
+            }
+
+            assertThat(layout.hitTest(x, y)).isSameAs(linearHitTest(layout, x, y));
+            int count = layout.hitTestTopGroup(x, y, hits);
+            assertThat(Arrays.asList(hits).subList(0, count)).containsExactlyElementsOf(linearTopGroup(layout, x, y));
+        }
+    }
+
+    /**
+     * 用例 GRID-002：单元只包含与之相交的区域，无效边界的区域不进入索引
+     */
+    @Test
+    public void testCellsOnlyHoldOverlappingRegions() {
+        Region[] regions = {
+                region("left", 0f, 0f, 0.2f, 1f, 0),
+                region("right", 0.8f, 0f, 1f, 1f, 0),
+                region("inverted", 0.6f, 0.5f, 0.4f, 0.6f, 0)
+        };
+        RegionGridIndex index = new RegionGridIndex(regions);
+
+        assertThat(index.cellSize(0.1f, 0.5f)).isEqualTo(1);
+        assertThat(index.cellSize(0.5f, 0.55f)).isZero();
+        assertThat(index.hitTest(0.5f, 0.55f)).isNull();
+        assertThat(index.hitTest(0.9f, 0.5f).getId()).isEqualTo("right");
+    }
+
+    /**
+     * 用例 GRID-003：批量命中按帧坐标空间归一化，一次解析全部活动指针
+     */
+    @Test
+    public void testHitTestPointers() {
+        LayoutSnapshot layout = new LayoutSnapshot(Arrays.asList(
+                region("steer", 0f, 0f, 0.5f, 1f, 0),
+                region("gas", 0.5f, 0f, 1f, 1f, 0),
+                region("nitro", 0.8f, 0f, 1f, 0.2f, 1)));
+        Map<Integer, InputAbstractionLayer.PointerState> pointers = new LinkedHashMap<>();
+        pointers.put(0, new InputAbstractionLayer.PointerState(InputAbstractionLayer.PointerState.Phase.DOWN, 100f, 500f));
+        pointers.put(3, new InputAbstractionLayer.PointerState(InputAbstractionLayer.PointerState.Phase.MOVE, 1800f, 100f));
+        pointers.put(5, new InputAbstractionLayer.PointerState(InputAbstractionLayer.PointerState.Phase.MOVE, 1200f, 900f));
+        InputAbstractionLayer.PointerFrame frame = new InputAbstractionLayer.PointerFrame(0L, pointers,
+                new ArrayList<>(), false, new InputAbstractionLayer.CoordinateSpace(2000, 1000,
+                InputAbstractionLayer.CoordinateSpace.Basis.LANDSCAPE_90));
+        int[] ids = new int[4];
+        Region[] hits = new Region[4];
+
+        int count = layout.hitTestPointers(frame, ids, hits);
+
+        assertThat(count).isEqualTo(3);
+        assertThat(ids).startsWith(0, 3, 5);
+        assertThat(hits[0].getId()).isEqualTo("steer");
+        assertThat(hits[1].getId()).isEqualTo("nitro");
+        assertThat(hits[2].getId()).isEqualTo("gas");
+
+        // 结果数组容量不足时只写满为止
+        assertThat(layout.hitTestPointers(frame, new int[2], new Region[2])).isEqualTo(2);
+    }
+
+    private static Region linearHitTest(LayoutSnapshot layout, float x, float y) {
+        for (Region region : layout.getRegions()) {
+            if (region.hitTest(x, y)) {
+                return region;
+            }
+        }
+        return null;
+    }
+
+    private static List<Region> linearTopGroup(LayoutSnapshot layout, float x, float y) {
+        List<Region> hits = new ArrayList<>();
+        for (Region region : layout.getRegions()) {
+            if (!hits.isEmpty() && region.getZIndex() < hits.get(0).getZIndex()) {
+                break;
+            }
+            if (region.hitTest(x, y)) {
+                hits.add(region);
+            }
+        }
+        return hits;
+    }
+
+    private static Region region(String id, float left, float top, float right, float bottom, int zIndex) {
+        return new Region(id, Region.RegionType.BUTTON, left, top, right, bottom, zIndex, 0f, "linear", null, null,
+                null, null, null, null, null, null, null);
+    }
+}
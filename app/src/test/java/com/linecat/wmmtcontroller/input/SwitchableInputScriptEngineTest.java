@@ -0,0 +1,126 @@
+package com.linecat.wmmtcontroller.input;
+
+import com.linecat.wmmtcontroller.model.InputState;
+import com.linecat.wmmtcontroller.model.RawInput;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 可切换脚本引擎测试
+ * 验证引擎按选择延迟创建并转发调用，以及 shutdown 后不再创建或转发到任何引擎
+ */
+public class SwitchableInputScriptEngineTest {
+
+    private FakeEngine webView;
+    private FakeEngine embedded;
+    private int webViewCreated;
+    private int embeddedCreated;
+    private SwitchableInputScriptEngine switcher;
+
+    @Before
+    public void setUp() {
+        webView = new FakeEngine();
+        embedded = new FakeEngine();
+        switcher = new SwitchableInputScriptEngine(() -> {
+            webViewCreated++;
+            return webView;
+        }, () -> {
+            embeddedCreated++;
+            return embedded;
+        });
+    }
+
+    /**
+     * 用例 SWITCH-001：引擎在首次选中时创建，调用转发给当前选中的引擎
+     */
+    @Test
+    public void testForwardsToSelectedEngine() {
+        assertThat(switcher.update(new RawInput(), new InputState())).isTrue();
+        assertThat(webView.updates).isEqualTo(1);
+        assertThat(embeddedCreated).isZero();
+
+        switcher.select(ScriptProfile.SCRIPT_ENGINE_EMBEDDED);
+        switcher.update(new RawInput(), new InputState());
+
+        assertThat(embedded.updates).isEqualTo(1);
+        assertThat(webView.updates).isEqualTo(1);
+        assertThat(webViewCreated).isEqualTo(1);
+        assertThat(embeddedCreated).isEqualTo(1);
+    }
+
+    /**
+     * 用例 SWITCH-002：shutdown 后关闭全部已创建引擎，之后的调用与切换不再转发或创建引擎
+     */
+    @Test
+    public void testShutdownStopsForwarding() {
+        switcher.update(new RawInput(), new InputState());
+        switcher.shutdown();
+
+        assertThat(webView.state).isEqualTo(InputScriptEngine.EngineState.SHUTDOWN);
+        assertThat(switcher.update(new RawInput(), new InputState())).isFalse();
+        assertThat(switcher.loadScript("function update() {}")).isFalse();
+        switcher.reset();
+        assertThat(webView.updates).isEqualTo(1);
+        assertThat(webView.resets).isZero();
+
+        switcher.select(ScriptProfile.SCRIPT_ENGINE_EMBEDDED);
+        assertThat(switcher.update(new RawInput(), new InputState())).isFalse();
+        assertThat(embeddedCreated).isZero();
+        assertThat(switcher.getState()).isEqualTo(InputScriptEngine.EngineState.SHUTDOWN);
+    }
+
+    /**
+     * 记录调用次数的引擎替身
+     */
+    private static final class FakeEngine implements InputScriptEngine {
+        EngineState state = EngineState.LOADED;
+        int updates;
+        int resets;
+
+        @Override
+        public void init() {
+        }
+
+        @Override
+        public boolean loadScript(String scriptCode) {
+            return true;
+        }
+
+        @Override
+        public boolean update(RawInput rawInput, InputState inputState) {
+            updates++;
+            return true;
+        }
+
+        @Override
+        public void onEvent(GameInputEvent event) {
+        }
+
+        @Override
+        public void reset() {
+            resets++;
+        }
+
+        @Override
+        public void shutdown() {
+            state = EngineState.SHUTDOWN;
+        }
+
+        @Override
+        public EngineState getState() {
+            return state;
+        }
+
+        @Override
+        public String getLastError() {
+            return null;
+        }
+
+        @Override
+        public long getLastExecutionTime() {
+            return 0;
+        }
+    }
+}
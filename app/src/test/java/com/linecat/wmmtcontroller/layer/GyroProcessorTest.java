@@ -0,0 +1,119 @@
+package com.linecat.wmmtcontroller.layer;
+
+import com.linecat.wmmtcontroller.layer.test.PrimitiveCollector;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * GyroProcessor 积分、抽取与互补滤波测试
+ */
+public class GyroProcessorTest {
+    private static final long START_NANOS = 1_000_000_000L;
+    // 400Hz 陀螺仪采样
+    private static final long SAMPLE_INTERVAL_NANOS = 2_500_000L;
+
+    /**
+     * 用例 GYRO-PROC-001：抽取到 50Hz，积分角度守恒
+     */
+    @Test
+    public void testDecimationPreservesIntegratedAngle() {
+        GyroProcessor processor = new GyroProcessor();
+        processor.setOutputHz(50);
+
+        int frames = 0;
+        double totalYaw = 0;
+        // 1 秒、恒定 1 rad/s
+        for (int i = 0; i <= 400; i++) {
+            if (processor.onGyroSample(START_NANOS + i * SAMPLE_INTERVAL_NANOS, 1f, 0f, 0f)) {
+                frames++;
+                totalYaw += processor.getDeltaYaw();
+                assertThat(processor.getYawRate()).isCloseTo(1f, within(1e-4f));
+            }
+        }
+
+        // 首个样本立即输出，之后每 20ms 一帧
+        assertThat(frames).isEqualTo(51);
+        assertThat(totalYaw).isCloseTo(1.0, within(1e-4));
+    }
+
+    /**
+     * 用例 GYRO-PROC-002：输出频率为 0 时每个样本都输出原始角速度
+     */
+    @Test
+    public void testPassthroughKeepsRawRates() {
+        GyroProcessor processor = new GyroProcessor();
+
+        assertThat(processor.onGyroSample(START_NANOS, 1.5f, 0.5f, 1.0f)).isTrue();
+        assertThat(processor.onGyroSample(START_NANOS + SAMPLE_INTERVAL_NANOS, -1.5f, -0.5f, -1.0f)).isTrue();
+        assertThat(processor.getYawRate()).isEqualTo(-1.5f);
+        assertThat(processor.getPitchRate()).isEqualTo(-0.5f);
+        assertThat(processor.getRollRate()).isEqualTo(-1.0f);
+        // 两个样本梯形积分：(1.5 + -1.5) / 2 * dt = 0
+        assertThat(processor.getDeltaYaw()).isCloseTo(0f, within(1e-6f));
+    }
+
+    /**
+     * 用例 GYRO-PROC-003：互补滤波抑制陀螺仪零偏漂移
+     */
+    @Test
+    public void testFusionBoundsGyroBiasDrift() {
+        GyroProcessor processor = new GyroProcessor();
+        processor.setFusionEnabled(true);
+
+        // 横屏持握静止（重力沿 +x），陀螺仪有 0.1 rad/s 零偏，持续 5 秒
+        for (int i = 0; i <= 2000; i++) {
+            long t = START_NANOS + i * SAMPLE_INTERVAL_NANOS;
+            processor.onGyroSample(t, 0.1f, 0f, 0f);
+            if (i % 4 == 0) {
+                processor.onAccelerometerSample(t, 9.8f, 0f, 0.5f);
+            }
+        }
+
+        // 纯积分会漂移 0.5 rad；融合后稳态误差约为 零偏 × 时间常数
+        assertThat(processor.isSteeringValid()).isTrue();
+        assertThat(processor.getSteeringAngle()).isCloseTo((float) (Math.PI / 2), within(0.1f));
+    }
+
+    /**
+     * 用例 GYRO-PROC-004：平放时无法确定转向角
+     */
+    @Test
+    public void testFlatDeviceHasNoSteeringAngle() {
+        GyroProcessor processor = new GyroProcessor();
+        processor.setFusionEnabled(true);
+
+        processor.onAccelerometerSample(START_NANOS, 0.3f, 0.2f, 9.8f);
+
+        assertThat(processor.isSteeringValid()).isFalse();
+    }
+
+    /**
+     * 用例 GYRO-PROC-005：InputAbstractionLayer 按配置频率输出 GyroFrame
+     */
+    @Test
+    public void testInputAbstractionLayerDecimatesGyroFrames() {
+        PrimitiveCollector collector = new PrimitiveCollector();
+        InputAbstractionLayer layer = new InputAbstractionLayer(collector);
+        layer.setGyroOutputHz(100);
+
+        // 100ms 的 400Hz 样本
+        for (int i = 0; i < 40; i++) {
+            layer.onRawSensorEvent(new PlatformAdaptationLayer.RawSensorEvent(
+                    START_NANOS + i * SAMPLE_INTERVAL_NANOS,
+                    PlatformAdaptationLayer.RawSensorEvent.SensorType.GYROSCOPE,
+                    new float[]{0.5f, 1.0f, 2.0f},
+                    PlatformAdaptationLayer.RawSensorEvent.Accuracy.HIGH));
+        }
+
+        List<InputAbstractionLayer.GyroFrame> frames = collector.getGyroFrames();
+        assertThat(frames).hasSize(10);
+        InputAbstractionLayer.GyroFrame last = frames.get(frames.size() - 1);
+        assertThat(last.yawRate).isCloseTo(2.0f, within(1e-4f));
+        assertThat(last.deltaYaw).isCloseTo(0.02f, within(1e-4f));
+        assertThat(last.steeringValid).isFalse();
+    }
+}
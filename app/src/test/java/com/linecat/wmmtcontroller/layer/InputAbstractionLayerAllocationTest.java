@@ -0,0 +1,206 @@
+package com.linecat.wmmtcontroller.layer;
+
+import com.linecat.wmmtcontroller.test.AllocationMeter;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * InputAbstractionLayer 分配测试
+ * 验证 sink 覆盖 onPointerFrameView 时，稳态触摸处理不产生对象分配（含输入线程从环形缓冲区分发的一侧）
+ */
+public class InputAbstractionLayerAllocationTest {
+    private static final int WARMUP_ROUNDS = 5000;
+    private static final int MEASURED_ROUNDS = 5000;
+    // 每轮：DOWN、第二指 DOWN、两次 MOVE、第二指 UP、UP
+    private static final int EVENTS_PER_ROUND = 6;
+    // MOVE 间隔大于 60Hz 周期，保证每次 MOVE 都会输出帧
+    private static final long STEP_NANOS = 20_000_000L;
+
+    /**
+     * 用例 IA-ALLOC-001：稳态多指手势零分配
+     */
+    @Test
+    public void testSteadyStatePointerFramesDoNotAllocate() {
+        AllocationMeter meter = AllocationMeter.forCurrentThread();
+
+        ViewSink sink = new ViewSink();
+        InputAbstractionLayer layer = new InputAbstractionLayer(sink);
+        PlatformAdaptationLayer.RawWindowEvent.Metrics metrics =
+                new PlatformAdaptationLayer.RawWindowEvent.Metrics(1080, 2400, 480, 1);
+        layer.onRawWindowEvent(new PlatformAdaptationLayer.RawWindowEvent(0,
+                PlatformAdaptationLayer.RawWindowEvent.Kind.METRICS_CHANGED, metrics));
+
+        // 事件全部预先构造，测量区间内只做回放
+        PlatformAdaptationLayer.RawPointerEvent[] warmup = buildGestures(0, WARMUP_ROUNDS, metrics);
+        PlatformAdaptationLayer.RawPointerEvent[] measured =
+                buildGestures(WARMUP_ROUNDS, MEASURED_ROUNDS, metrics);
+
+        replay(layer, warmup);
+        int framesBefore = sink.frames;
+
+        long before = meter.allocatedBytes();
+        replay(layer, measured);
+        long allocated = meter.allocatedBytes() - before;
+
+        assertThat(sink.frames - framesBefore).isEqualTo(MEASURED_ROUNDS * EVENTS_PER_ROUND);
+        assertThat(sink.lastPointerCount).isEqualTo(1);
+        assertThat(allocated).isLessThan(AllocationMeter.MAX_ALLOCATED_BYTES);
+    }
+
+    /**
+     * 用例 IA-ALLOC-002：输入线程从环形缓冲区取出指针槽位并分发到 InputAbstractionLayer 的整条路径零分配
+     */
+    @Test
+    public void testRingDrainDoesNotAllocate() {
+        AllocationMeter meter = AllocationMeter.forCurrentThread();
+
+        ViewSink sink = new ViewSink();
+        InputAbstractionLayer layer = new InputAbstractionLayer(sink);
+        PlatformAdaptationLayer.RawWindowEvent.Metrics metrics =
+                new PlatformAdaptationLayer.RawWindowEvent.Metrics(1080, 2400, 480, 1);
+        layer.onRawWindowEvent(new PlatformAdaptationLayer.RawWindowEvent(0,
+                PlatformAdaptationLayer.RawWindowEvent.Kind.METRICS_CHANGED, metrics));
+        RawEventRing ring = new RawEventRing(16);
+
+        PlatformAdaptationLayer.RawPointerEvent[] warmup = buildGestures(0, WARMUP_ROUNDS, metrics);
+        PlatformAdaptationLayer.RawPointerEvent[] measured =
+                buildGestures(WARMUP_ROUNDS, MEASURED_ROUNDS, metrics);
+
+        replayThroughRing(layer, ring, warmup);
+        int framesBefore = sink.frames;
+
+        long before = meter.allocatedBytes();
+        replayThroughRing(layer, ring, measured);
+        long allocated = meter.allocatedBytes() - before;
+
+        assertThat(sink.frames - framesBefore).isEqualTo(MEASURED_ROUNDS * EVENTS_PER_ROUND);
+        assertThat(sink.lastPointerCount).isEqualTo(1);
+        assertThat(allocated).isLessThan(AllocationMeter.MAX_ALLOCATED_BYTES);
+    }
+
+    /**
+     * 用例 IA-ALLOC-003：默认 sink 仍然得到可持有的快照帧
+     */
+    @Test
+    public void testLegacySinkReceivesSnapshotFrames() {
+        com.linecat.wmmtcontroller.layer.test.PrimitiveCollector collector =
+                new com.linecat.wmmtcontroller.layer.test.PrimitiveCollector();
+        InputAbstractionLayer layer = new InputAbstractionLayer(collector);
+        PlatformAdaptationLayer.RawWindowEvent.Metrics metrics =
+                new PlatformAdaptationLayer.RawWindowEvent.Metrics(1080, 2400, 480, 1);
+        layer.onRawWindowEvent(new PlatformAdaptationLayer.RawWindowEvent(0,
+                PlatformAdaptationLayer.RawWindowEvent.Kind.METRICS_CHANGED, metrics));
+
+        replay(layer, buildGestures(0, 1, metrics));
+
+        List<InputAbstractionLayer.PointerFrame> frames = collector.getPointerFrames();
+        assertThat(frames).hasSize(EVENTS_PER_ROUND);
+        // 首帧在后续帧输出后保持不变
+        assertThat(frames.get(0).pointersById).hasSize(1);
+        assertThat(frames.get(0).pointersById.get(0).phase)
+                .isEqualTo(InputAbstractionLayer.PointerState.Phase.DOWN);
+        assertThat(frames.get(1).pointersById).hasSize(2);
+        assertThat(frames.get(1).changedIds).containsExactly(1);
+        assertThat(frames.get(5).pointersById.get(0).phase)
+                .isEqualTo(InputAbstractionLayer.PointerState.Phase.UP);
+    }
+
+    private static void replay(InputAbstractionLayer layer, PlatformAdaptationLayer.RawPointerEvent[] events) {
+        for (int i = 0; i < events.length; i++) {
+            layer.onRawPointerEvent(events[i]);
+        }
+    }
+
+    /**
+     * 按生产者写入槽位、输入线程 peek → dispatchSlot → release 的顺序回放
+     */
+    private static void replayThroughRing(InputAbstractionLayer layer, RawEventRing ring,
+                                          PlatformAdaptationLayer.RawPointerEvent[] events) {
+        for (int i = 0; i < events.length; i++) {
+            PlatformAdaptationLayer.RawPointerEvent event = events[i];
+            RawEventRing.Slot slot = ring.claim();
+            slot.type = RawEventRing.TYPE_POINTER;
+            slot.timeNanos = event.timeNanos;
+            slot.action = event.action;
+            slot.changedId = event.changedId;
+            slot.metrics = event.display;
+            slot.pointerCount = event.pointers.size();
+            for (int p = 0; p < slot.pointerCount; p++) {
+                slot.pointerIds[p] = event.pointers.get(p).id;
+                slot.pointerXs[p] = event.pointers.get(p).x;
+                slot.pointerYs[p] = event.pointers.get(p).y;
+            }
+            ring.publish();
+
+            PlatformAdaptationLayer.dispatchSlot(ring.peek(), layer);
+            ring.release();
+        }
+    }
+
+    private static PlatformAdaptationLayer.RawPointerEvent[] buildGestures(
+            int firstRound, int rounds, PlatformAdaptationLayer.RawWindowEvent.Metrics metrics) {
+        PlatformAdaptationLayer.RawPointerEvent[] events =
+                new PlatformAdaptationLayer.RawPointerEvent[rounds * EVENTS_PER_ROUND];
+        int n = 0;
+        for (int r = firstRound; r < firstRound + rounds; r++) {
+            long t = (long) r * EVENTS_PER_ROUND * STEP_NANOS;
+            float offset = r % 100;
+            List<PlatformAdaptationLayer.RawPointerEvent.Pointer> one = List.of(
+                    new PlatformAdaptationLayer.RawPointerEvent.Pointer(0, 100f + offset, 200f));
+            List<PlatformAdaptationLayer.RawPointerEvent.Pointer> two = List.of(
+                    new PlatformAdaptationLayer.RawPointerEvent.Pointer(0, 100f + offset, 200f),
+                    new PlatformAdaptationLayer.RawPointerEvent.Pointer(1, 500f, 600f));
+            List<PlatformAdaptationLayer.RawPointerEvent.Pointer> moved = List.of(
+                    new PlatformAdaptationLayer.RawPointerEvent.Pointer(0, 110f + offset, 210f),
+                    new PlatformAdaptationLayer.RawPointerEvent.Pointer(1, 510f, 610f));
+            List<PlatformAdaptationLayer.RawPointerEvent.Pointer> movedAgain = List.of(
+                    new PlatformAdaptationLayer.RawPointerEvent.Pointer(0, 120f + offset, 220f),
+                    new PlatformAdaptationLayer.RawPointerEvent.Pointer(1, 520f, 620f));
+
+            events[n++] = new PlatformAdaptationLayer.RawPointerEvent(t,
+                    PlatformAdaptationLayer.RawPointerEvent.Action.DOWN, 0, one, metrics);
+            events[n++] = new PlatformAdaptationLayer.RawPointerEvent(t + STEP_NANOS,
+                    PlatformAdaptationLayer.RawPointerEvent.Action.DOWN, 1, two, metrics);
+            events[n++] = new PlatformAdaptationLayer.RawPointerEvent(t + 2 * STEP_NANOS,
+                    PlatformAdaptationLayer.RawPointerEvent.Action.MOVE, -1, moved, metrics);
+            events[n++] = new PlatformAdaptationLayer.RawPointerEvent(t + 3 * STEP_NANOS,
+                    PlatformAdaptationLayer.RawPointerEvent.Action.MOVE, -1, movedAgain, metrics);
+            events[n++] = new PlatformAdaptationLayer.RawPointerEvent(t + 4 * STEP_NANOS,
+                    PlatformAdaptationLayer.RawPointerEvent.Action.UP, 1, movedAgain, metrics);
+            events[n++] = new PlatformAdaptationLayer.RawPointerEvent(t + 5 * STEP_NANOS,
+                    PlatformAdaptationLayer.RawPointerEvent.Action.UP, 0, one, metrics);
+        }
+        return events;
+    }
+
+    /**
+     * 零分配 sink：只读取 view，不持有
+     */
+    private static final class ViewSink implements InputAbstractionLayer.OutputSink {
+        int frames;
+        int lastPointerCount;
+        float checksum;
+
+        @Override
+        public void onPointerFrameView(InputAbstractionLayer.PointerFrameView view) {
+            frames++;
+            lastPointerCount = view.pointerCount();
+            for (int i = 0; i < view.pointerCount(); i++) {
+                checksum += view.x(i) + view.y(i);
+            }
+        }
+
+        @Override
+        public void onPointerFrame(InputAbstractionLayer.PointerFrame frame) {
+            throw new AssertionError("legacy path should not be used");
+        }
+
+        @Override
+        public void onGyroFrame(InputAbstractionLayer.GyroFrame frame) {
+        }
+    }
+}
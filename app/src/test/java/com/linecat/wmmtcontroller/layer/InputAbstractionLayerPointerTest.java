@@ -305,4 +305,75 @@ public class InputAbstractionLayerPointerTest {
         }
         assertThat(hasActivePointersAfterCancel).isFalse();
     }
-}
\ No newline at end of file
+
+    /**
+     * 用例 IA-PTR-005：第二指抬起（ACTION_POINTER_UP）不影响第一指
+     * 验证：UP 只作用于 changedId，其余指针保持按下并继续出现在后续帧中
+     */
+    @Test
+    public void testSecondPointerUpKeepsFirstPointerDown() {
+        PlatformAdaptationLayer.RawWindowEvent.Metrics metrics = 
+                new PlatformAdaptationLayer.RawWindowEvent.Metrics(1080, 2400, 480, 0);
+        inputAbstractionLayer.onRawWindowEvent(
+                new PlatformAdaptationLayer.RawWindowEvent(System.nanoTime(), 
+                        PlatformAdaptationLayer.RawWindowEvent.Kind.METRICS_CHANGED, metrics));
+
+        // id0 DOWN
+        inputAbstractionLayer.onRawPointerEvent(
+                new PlatformAdaptationLayer.RawPointerEvent(System.nanoTime(),
+                        PlatformAdaptationLayer.RawPointerEvent.Action.DOWN,
+                        0,
+                        List.of(new PlatformAdaptationLayer.RawPointerEvent.Pointer(0, 100f, 200f)),
+                        metrics)
+        );
+
+        // id1 DOWN（ACTION_POINTER_DOWN）
+        inputAbstractionLayer.onRawPointerEvent(
+                new PlatformAdaptationLayer.RawPointerEvent(System.nanoTime(),
+                        PlatformAdaptationLayer.RawPointerEvent.Action.DOWN,
+                        1,
+                        List.of(
+                                new PlatformAdaptationLayer.RawPointerEvent.Pointer(0, 100f, 200f),
+                                new PlatformAdaptationLayer.RawPointerEvent.Pointer(1, 300f, 400f)
+                        ),
+                        metrics)
+        );
+
+        List<InputAbstractionLayer.PointerFrame> frames = primitiveCollector.getPointerFrames();
+        assertThat(frames).hasSize(2);
+        assertThat(frames.get(1).changedIds).containsExactly(1);
+
+        // id1 UP（ACTION_POINTER_UP）
+        inputAbstractionLayer.onRawPointerEvent(
+                new PlatformAdaptationLayer.RawPointerEvent(System.nanoTime(),
+                        PlatformAdaptationLayer.RawPointerEvent.Action.UP,
+                        1,
+                        List.of(
+                                new PlatformAdaptationLayer.RawPointerEvent.Pointer(0, 100f, 200f),
+                                new PlatformAdaptationLayer.RawPointerEvent.Pointer(1, 300f, 400f)
+                        ),
+                        metrics)
+        );
+
+        frames = primitiveCollector.getPointerFrames();
+        assertThat(frames).hasSize(3);
+        InputAbstractionLayer.PointerFrame upFrame = frames.get(2);
+        assertThat(upFrame.changedIds).containsExactly(1);
+        assertThat(upFrame.pointersById.get(1).phase).isEqualTo(InputAbstractionLayer.PointerState.Phase.UP);
+        assertThat(upFrame.pointersById.get(0).phase).isNotEqualTo(InputAbstractionLayer.PointerState.Phase.UP);
+
+        // id0 仍然按下：UP 后依然可以结束它
+        inputAbstractionLayer.onRawPointerEvent(
+                new PlatformAdaptationLayer.RawPointerEvent(System.nanoTime(),
+                        PlatformAdaptationLayer.RawPointerEvent.Action.UP,
+                        0,
+                        List.of(new PlatformAdaptationLayer.RawPointerEvent.Pointer(0, 100f, 200f)),
+                        metrics)
+        );
+
+        frames = primitiveCollector.getPointerFrames();
+        assertThat(frames).hasSize(4);
+        assertThat(frames.get(3).changedIds).containsExactly(0);
+        assertThat(frames.get(3).pointersById).containsOnlyKeys(0);
+    }
+}
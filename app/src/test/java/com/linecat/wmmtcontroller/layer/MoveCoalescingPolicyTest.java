@@ -0,0 +1,123 @@
+package com.linecat.wmmtcontroller.layer;
+
+import com.linecat.wmmtcontroller.layer.test.PrimitiveCollector;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * MOVE 合并策略测试
+ */
+public class MoveCoalescingPolicyTest {
+    private static final long MS = 1_000_000L;
+
+    private InputAbstractionLayer inputAbstractionLayer;
+    private PrimitiveCollector primitiveCollector;
+    private PlatformAdaptationLayer.RawWindowEvent.Metrics metrics;
+
+    @Before
+    public void setUp() {
+        primitiveCollector = new PrimitiveCollector();
+        inputAbstractionLayer = new InputAbstractionLayer(primitiveCollector);
+        metrics = new PlatformAdaptationLayer.RawWindowEvent.Metrics(1080, 2400, 480, 1);
+        inputAbstractionLayer.onRawWindowEvent(new PlatformAdaptationLayer.RawWindowEvent(0,
+                PlatformAdaptationLayer.RawWindowEvent.Kind.METRICS_CHANGED, metrics));
+    }
+
+    /**
+     * 用例 MOVE-POLICY-001：固定频率按周期输出
+     */
+    @Test
+    public void testFixedRateInterval() {
+        MoveCoalescingPolicy policy = new MoveCoalescingPolicy.FixedRate(120);
+
+        assertThat(policy.targetIntervalNanos()).isEqualTo(1_000_000_000L / 120);
+        assertThat(policy.shouldOutput(100 * MS, 95 * MS)).isFalse();
+        assertThat(policy.shouldOutput(100 * MS, 91 * MS)).isTrue();
+    }
+
+    /**
+     * 用例 MOVE-POLICY-002：自适应策略随发送队列深度降频
+     */
+    @Test
+    public void testAdaptiveSlowsDownWithQueueDepth() {
+        AtomicLong queueBytes = new AtomicLong(0);
+        MoveCoalescingPolicy policy = new MoveCoalescingPolicy.Adaptive(100, 10, queueBytes::get, 1000);
+
+        // 队列空闲：按 100Hz（10ms）输出
+        assertThat(policy.shouldOutput(10 * MS, 0)).isTrue();
+        assertThat(policy.targetIntervalNanos()).isEqualTo(10 * MS);
+
+        // 积压到高水位：降到 10Hz（100ms）
+        queueBytes.set(5000);
+        assertThat(policy.shouldOutput(50 * MS, 0)).isFalse();
+        assertThat(policy.targetIntervalNanos()).isEqualTo(100 * MS);
+
+        // 积压一半：间隔位于两者之间
+        queueBytes.set(500);
+        policy.shouldOutput(0, 0);
+        assertThat(policy.targetIntervalNanos()).isEqualTo(55 * MS);
+    }
+
+    /**
+     * 用例 MOVE-POLICY-003：策略拒绝 MOVE 时 DOWN/UP 仍立即输出，并记录合并统计
+     */
+    @Test
+    public void testEdgesBypassPolicy() {
+        inputAbstractionLayer.setMoveCoalescingPolicy(new MoveCoalescingPolicy() {
+            @Override
+            public boolean shouldOutput(long timeNanos, long lastOutputNanos) {
+                return false;
+            }
+
+            @Override
+            public long targetIntervalNanos() {
+                return Long.MAX_VALUE;
+            }
+        });
+
+        sendPointer(PlatformAdaptationLayer.RawPointerEvent.Action.DOWN, 100 * MS, 100f);
+        sendPointer(PlatformAdaptationLayer.RawPointerEvent.Action.MOVE, 200 * MS, 150f);
+        sendPointer(PlatformAdaptationLayer.RawPointerEvent.Action.MOVE, 300 * MS, 200f);
+        sendPointer(PlatformAdaptationLayer.RawPointerEvent.Action.UP, 400 * MS, 250f);
+
+        List<InputAbstractionLayer.PointerFrame> frames = primitiveCollector.getPointerFrames();
+        assertThat(frames).hasSize(2);
+        assertThat(frames.get(0).pointersById.get(0).phase).isEqualTo(InputAbstractionLayer.PointerState.Phase.DOWN);
+        assertThat(frames.get(1).pointersById.get(0).phase).isEqualTo(InputAbstractionLayer.PointerState.Phase.UP);
+        assertThat(inputAbstractionLayer.getMovesCoalesced()).isEqualTo(2);
+        assertThat(inputAbstractionLayer.getMoveFramesOutput()).isZero();
+    }
+
+    /**
+     * 用例 MOVE-POLICY-004：MOVE 帧时序统计反映实际输出频率
+     */
+    @Test
+    public void testMoveFrameTimingStats() {
+        inputAbstractionLayer.setMoveCoalescingPolicy(new MoveCoalescingPolicy.FixedRate(100));
+
+        sendPointer(PlatformAdaptationLayer.RawPointerEvent.Action.DOWN, 1000 * MS, 100f);
+        // 4ms 一个 MOVE（250Hz 触摸采样），100Hz 策略下约每 3 个输出一次
+        for (int i = 1; i <= 30; i++) {
+            sendPointer(PlatformAdaptationLayer.RawPointerEvent.Action.MOVE, (1000 + 4 * i) * MS, 100f + i);
+        }
+
+        assertThat(inputAbstractionLayer.getMoveFramesOutput()).isEqualTo(10);
+        assertThat(inputAbstractionLayer.getMovesCoalesced()).isEqualTo(20);
+        assertThat(inputAbstractionLayer.getAverageMoveIntervalNanos()).isEqualTo(12 * MS);
+        assertThat(inputAbstractionLayer.getEffectiveMoveRateHz()).isBetween(83.0, 84.0);
+
+        inputAbstractionLayer.resetMoveStats();
+        assertThat(inputAbstractionLayer.getMoveFramesOutput()).isZero();
+        assertThat(inputAbstractionLayer.getEffectiveMoveRateHz()).isZero();
+    }
+
+    private void sendPointer(PlatformAdaptationLayer.RawPointerEvent.Action action, long timeNanos, float x) {
+        inputAbstractionLayer.onRawPointerEvent(new PlatformAdaptationLayer.RawPointerEvent(timeNanos, action, 0,
+                List.of(new PlatformAdaptationLayer.RawPointerEvent.Pointer(0, x, 200f)), metrics));
+    }
+}
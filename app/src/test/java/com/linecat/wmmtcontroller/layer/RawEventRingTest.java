@@ -0,0 +1,62 @@
+package com.linecat.wmmtcontroller.layer;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * RawEventRing SPSC 环形缓冲区测试
+ */
+public class RawEventRingTest {
+
+    /**
+     * 用例 RING-001：FIFO 顺序与 O(1) 占用量
+     */
+    @Test
+    public void testFifoOrderAndSize() {
+        RawEventRing ring = new RawEventRing(4);
+        for (int i = 0; i < 3; i++) {
+            RawEventRing.Slot slot = ring.claim();
+            slot.type = RawEventRing.TYPE_SENSOR;
+            slot.timeNanos = i;
+            ring.publish();
+        }
+        assertThat(ring.size()).isEqualTo(3);
+
+        for (int i = 0; i < 3; i++) {
+            RawEventRing.Slot slot = ring.peek();
+            assertThat(slot.timeNanos).isEqualTo(i);
+            ring.release();
+        }
+        assertThat(ring.size()).isZero();
+        assertThat(ring.peek()).isNull();
+    }
+
+    /**
+     * 用例 RING-002：写满后拒绝写入，槽位在回绕后被复用
+     */
+    @Test
+    public void testFullRingRejectsAndReusesSlots() {
+        RawEventRing ring = new RawEventRing(2);
+        RawEventRing.Slot first = ring.claim();
+        ring.publish();
+        ring.claim();
+        ring.publish();
+
+        assertThat(ring.claim()).isNull();
+
+        ring.peek();
+        ring.release();
+        // 回绕后拿到的是同一个预分配槽位，没有新对象
+        assertThat(ring.claim()).isSameAs(first);
+    }
+
+    /**
+     * 用例 RING-003：容量必须为 2 的幂
+     */
+    @Test
+    public void testCapacityMustBePowerOfTwo() {
+        assertThatThrownBy(() -> new RawEventRing(3)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,93 @@
+package com.linecat.wmmtcontroller.model;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 可复用输入状态与按键位图测试
+ */
+public class InputStateTest {
+
+    /**
+     * 用例 STATE-001：按键位图按 Set 语义增删查，名称驻留，同名共享同一 ID
+     */
+    @Test
+    public void testKeySetBehavesAsSet() {
+        KeySet keys = new KeySet();
+
+        assertThat(keys.add("KEY_W")).isTrue();
+        assertThat(keys.add(new String("KEY_W"))).isFalse();
+        assertThat(keys.add("KEY_A")).isTrue();
+        assertThat(keys.add(null)).isFalse();
+
+        assertThat(keys).containsExactlyInAnyOrder("KEY_W", "KEY_A");
+        assertThat(keys.contains("KEY_UNKNOWN_" + System.nanoTime())).isFalse();
+        assertThat(keys).isEqualTo(new HashSet<>(Arrays.asList("KEY_A", "KEY_W")));
+        assertThat(KeyRegistry.nameOf(KeyRegistry.idOf("KEY_W"))).isSameAs("KEY_W");
+
+        assertThat(keys.remove("KEY_W")).isTrue();
+        assertThat(keys.remove("KEY_W")).isFalse();
+        assertThat(keys).containsExactly("KEY_A");
+    }
+
+    /**
+     * 用例 STATE-002：位图扩容后仍可正确遍历与比较，末尾零字不影响相等
+     */
+    @Test
+    public void testKeySetGrowsAndCompares() {
+        KeySet wide = new KeySet();
+        for (int i = 0; i < 200; i++) {
+            wide.add("STATE_WIDE_" + i);
+        }
+        wide.clear();
+        wide.add("KEY_A");
+        KeySet narrow = new KeySet();
+        narrow.add("KEY_A");
+
+        assertThat(wide.size()).isEqualTo(1);
+        assertThat(wide).isEqualTo(narrow);
+        assertThat(KeySet.sameBits(wide.toBits(), narrow.toBits())).isTrue();
+        assertThat(KeySet.sameBits(wide.toBits(), new long[16])).isFalse();
+    }
+
+    /**
+     * 用例 STATE-003：reset 恢复为新建状态，原地复制与快照彼此独立
+     */
+    @Test
+    public void testResetCopyAndSnapshot() {
+        InputState state = new InputState();
+        state.getKeyboard().add("KEY_W");
+        state.getGamepad().add("RB");
+        state.setTriggerR(0.8f);
+        state.getJoystick().setX(-0.5f);
+        state.getGyroscope().setRoll(12f);
+        state.setFrameId(42);
+
+        InputState snapshot = state.snapshot();
+        InputState target = new InputState();
+        target.getKeyboard().add("KEY_S");
+        target.copyFrom(state);
+        state.reset();
+
+        assertThat(state.getKeyboard()).isEmpty();
+        assertThat(state.getGamepad()).isEmpty();
+        assertThat(state.getTriggerR()).isZero();
+        assertThat(state.getJoystick().getX()).isZero();
+        assertThat(state.getJoystick().getDeadzone()).isEqualTo(0.1f);
+        assertThat(state.getGyroscope().getRoll()).isZero();
+        assertThat(state.getFrameId()).isZero();
+
+        for (InputState copy : Arrays.asList(snapshot, target)) {
+            assertThat(copy.getKeyboard()).containsExactly("KEY_W");
+            assertThat(copy.getGamepad()).containsExactly("RB");
+            assertThat(copy.getTriggerR()).isEqualTo(0.8f);
+            assertThat(copy.getJoystick().getX()).isEqualTo(-0.5f);
+            assertThat(copy.getGyroscope().getRoll()).isEqualTo(12f);
+            assertThat(copy.getFrameId()).isEqualTo(42);
+        }
+    }
+}
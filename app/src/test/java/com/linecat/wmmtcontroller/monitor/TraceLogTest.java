@@ -0,0 +1,46 @@
+package com.linecat.wmmtcontroller.monitor;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 热路径追踪日志测试
+ */
+public class TraceLogTest {
+
+    /**
+     * 用例 TRACE-001：每秒名额用完后丢弃，并累计丢弃条数
+     */
+    @Test
+    public void testRateLimiterWindow() {
+        TraceLog.RateLimiter limiter = new TraceLog.RateLimiter(3);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiter.tryAcquire(1000 + i)).isTrue();
+        }
+        assertThat(limiter.tryAcquire(1500)).isFalse();
+        assertThat(limiter.tryAcquire(1999)).isFalse();
+
+        // 新窗口恢复名额，丢弃条数取出后清零
+        assertThat(limiter.tryAcquire(2000)).isTrue();
+        assertThat(limiter.takeDropped()).isEqualTo(2);
+        assertThat(limiter.takeDropped()).isZero();
+    }
+
+    /**
+     * 用例 TRACE-002：同名计数器共享同一实例，快照按名称汇总
+     */
+    @Test
+    public void testCountersSharedByName() {
+        TraceLog.Counter a = TraceLog.counter("test.shared");
+        TraceLog.Counter b = TraceLog.counter("test.shared");
+        long before = a.get();
+
+        a.increment();
+        b.add(4);
+
+        assertThat(a).isSameAs(b);
+        assertThat(TraceLog.snapshotCounters()).containsEntry("test.shared", before + 5);
+    }
+}
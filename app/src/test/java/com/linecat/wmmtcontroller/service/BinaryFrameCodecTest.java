@@ -0,0 +1,186 @@
+package com.linecat.wmmtcontroller.service;
+
+import com.google.gson.Gson;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 二进制帧编码测试
+ */
+public class BinaryFrameCodecTest {
+
+    private final BinaryFrameCodec codec = BinaryFrameCodec.createDefault();
+
+    /**
+     * 用例 BIN-001：状态帧按字段布局编码，按键位图对应字典位置
+     */
+    @Test
+    public void testStateFrameLayout() {
+        StateMessage message = new StateMessage(300,
+                List.of(KeyboardEvent.held("a"), KeyboardEvent.held("d")),
+                gamepadState(0.5f, -1f, 1f), true);
+
+        byte[] frame = codec.encodeState(message);
+
+        assertThat(frame).isNotNull();
+        assertThat(frame[0]).isEqualTo((byte) BinaryFrameCodec.VERSION);
+        assertThat(frame[1]).isEqualTo((byte) BinaryFrameCodec.TYPE_STATE);
+        assertThat(frame[2]).isEqualTo((byte) BinaryFrameCodec.FLAG_ZERO_OUTPUT);
+        // stateId 300 的 varint
+        assertThat(frame[3]).isEqualTo((byte) 0xAC);
+        assertThat(frame[4]).isEqualTo((byte) 0x02);
+
+        int offset = 5 + varintLength(message.getClientSendTs());
+        // 按键位图：1 字节，a=bit0、d=bit3
+        assertThat(frame[offset]).isEqualTo((byte) 1);
+        assertThat(frame[offset + 1]).isEqualTo((byte) 0x09);
+        // 手柄按键位图：RB=bit5
+        assertThat(frame[offset + 2]).isEqualTo((byte) 1);
+        assertThat(frame[offset + 3]).isEqualTo((byte) 0x20);
+        // 左摇杆与扳机
+        assertThat(frame[offset + 4]).isEqualTo((byte) 0x05);
+        assertThat(readShort(frame, offset + 5)).isEqualTo((short) 16384);
+        assertThat(readShort(frame, offset + 7)).isEqualTo((short) -32767);
+        assertThat(frame.length).isEqualTo(offset + 5 + 6 + 4);
+    }
+
+    /**
+     * 用例 BIN-002：典型状态帧比 JSON 小一个数量级
+     */
+    @Test
+    public void testStateFrameMuchSmallerThanJson() {
+        StateMessage message = new StateMessage(12345,
+                List.of(KeyboardEvent.held("w"), KeyboardEvent.held("a"), KeyboardEvent.held("shift")),
+                gamepadState(0.25f, 0f, 0.8f));
+
+        byte[] frame = codec.encodeState(message);
+        int jsonBytes = new Gson().toJson(message).getBytes(StandardCharsets.UTF_8).length;
+
+        assertThat(frame).isNotNull();
+        assertThat(frame.length * 10).isLessThanOrEqualTo(jsonBytes);
+    }
+
+    /**
+     * 用例 BIN-003：协商为版本 1 时字典外按键无法编码，由调用方回退到 JSON
+     */
+    @Test
+    public void testUnknownKeyFallsBack() {
+        StateMessage message = new StateMessage(1, List.of(KeyboardEvent.held("volume_up")), null);
+        codec.setVersion(BinaryFrameCodec.VERSION_DICTIONARY_ONLY);
+
+        assertThat(codec.encodeState(message)).isNull();
+    }
+
+    /**
+     * 用例 BIN-004：事件帧编码按键索引与按下/释放位
+     */
+    @Test
+    public void testEventFrame() {
+        EventDelta delta = new EventDelta(List.of(
+                EventDelta.KeyboardEventDelta.pressed("b"),
+                EventDelta.KeyboardEventDelta.released("c")));
+        EventMessage message = new EventMessage(5, 4, delta);
+
+        byte[] frame = codec.encodeEvent(message);
+
+        assertThat(frame).isNotNull();
+        assertThat(frame[1]).isEqualTo((byte) BinaryFrameCodec.TYPE_EVENT);
+        assertThat(frame[3]).isEqualTo((byte) 5);
+        assertThat(frame[4]).isEqualTo((byte) 4);
+        int offset = 5 + varintLength(message.getClientSendTs());
+        assertThat(Arrays.copyOfRange(frame, offset, offset + 3)).containsExactly(2, (1 << 1) | 1, 2 << 1);
+        // 无手柄按键变化、无轴变化
+        assertThat(frame[offset + 3]).isEqualTo((byte) 0);
+        assertThat(frame[offset + 4]).isEqualTo((byte) 0);
+        assertThat(frame.length).isEqualTo(offset + 5);
+    }
+
+    /**
+     * 用例 BIN-005：量化对越界与 NaN 做截断
+     */
+    @Test
+    public void testQuantization() {
+        assertThat(BinaryFrameCodec.quantizeAxis(2f)).isEqualTo(Short.MAX_VALUE);
+        assertThat(BinaryFrameCodec.quantizeAxis(-2f)).isEqualTo((short) -Short.MAX_VALUE);
+        assertThat(BinaryFrameCodec.quantizeAxis(Float.NaN)).isZero();
+        assertThat(BinaryFrameCodec.quantizeUnit(1f) & 0xFFFF).isEqualTo(0xFFFF);
+        assertThat(BinaryFrameCodec.quantizeUnit(-0.5f)).isZero();
+    }
+
+    /**
+     * 用例 BIN-006：版本 2 中 "KeyW" 等字典外键名以字面量写在帧尾，字典按键照常进位图
+     */
+    @Test
+    public void testLiteralKeyNames() {
+        StateMessage state = new StateMessage(1,
+                List.of(KeyboardEvent.held("KeyW"), KeyboardEvent.held("a"), KeyboardEvent.held("ShiftLeft")), null);
+
+        byte[] frame = codec.encodeState(state);
+
+        assertThat(frame).isNotNull();
+        assertThat(frame[0]).isEqualTo((byte) BinaryFrameCodec.VERSION);
+        assertThat(frame[2] & BinaryFrameCodec.FLAG_LITERALS).isEqualTo(BinaryFrameCodec.FLAG_LITERALS);
+        int offset = 4 + varintLength(state.getClientSendTs());
+        // 字典按键位图：a=bit0；手柄位图为空；无轴
+        assertThat(Arrays.copyOfRange(frame, offset, offset + 4)).containsExactly(1, 1, 0, 0);
+        // 字面量段：2 个键盘键（held 的 pressed 位为 1），0 个手柄按键
+        byte[] literals = Arrays.copyOfRange(frame, offset + 4, frame.length);
+        assertThat(literals).containsExactly(concat(new byte[] {2, (4 << 1) | 1}, ascii("KeyW"),
+                new byte[] {(9 << 1) | 1}, ascii("ShiftLeft"), new byte[] {0}));
+
+        EventDelta delta = new EventDelta(List.of(
+                EventDelta.KeyboardEventDelta.pressed("b"),
+                EventDelta.KeyboardEventDelta.released("KeyW")));
+        EventMessage event = new EventMessage(5, 4, delta);
+
+        frame = codec.encodeEvent(event);
+
+        assertThat(frame).isNotNull();
+        offset = 5 + varintLength(event.getClientSendTs());
+        // 字典按键只剩 b，其后为空的手柄按键与轴，帧尾为释放的 KeyW
+        assertThat(Arrays.copyOfRange(frame, offset, frame.length)).containsExactly(concat(
+                new byte[] {1, (1 << 1) | 1, 0, 0, 1, 4 << 1}, ascii("KeyW"), new byte[] {0}));
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        byte[] result = new byte[length];
+        int position = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, result, position, part.length);
+            position += part.length;
+        }
+        return result;
+    }
+
+    private static StateMessage.GamepadState gamepadState(float x, float y, float rightTrigger) {
+        return new StateMessage.GamepadState(
+                List.of(new GamepadButtonEvent("RB", GamepadButtonEvent.EVENT_TYPE_HELD)),
+                new StateMessage.GamepadState.Joysticks(new StateMessage.GamepadState.Joystick(x, y, 0.1f), null),
+                new StateMessage.GamepadState.Triggers(0f, rightTrigger));
+    }
+
+    private static int varintLength(long value) {
+        int length = 1;
+        while ((value >>>= 7) != 0) {
+            length++;
+        }
+        return length;
+    }
+
+    private static short readShort(byte[] frame, int offset) {
+        return (short) (((frame[offset] & 0xFF) << 8) | (frame[offset + 1] & 0xFF));
+    }
+}
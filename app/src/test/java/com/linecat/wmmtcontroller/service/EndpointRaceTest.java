@@ -0,0 +1,209 @@
+package com.linecat.wmmtcontroller.service;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okio.ByteString;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 端点竞速测试（替身拨号器，不发起真实连接）
+ */
+public class EndpointRaceTest {
+    private static final String A = "ws://192.168.1.10:8080/ws/input";
+    private static final String B = "ws://10.8.0.2:8080/ws/input";
+    private static final String C = "ws://pc.local:8080/ws/input";
+
+    private final Map<String, FakeWebSocket> sockets = new LinkedHashMap<>();
+    private final List<Runnable> scheduled = new ArrayList<>();
+    private final List<String> targetEvents = new ArrayList<>();
+    private final List<String> callbackEvents = new ArrayList<>();
+
+    private final WebSocketListener target = new WebSocketListener() {
+        @Override
+        public void onOpen(WebSocket webSocket, Response response) {
+            targetEvents.add("open:" + ((FakeWebSocket) webSocket).url);
+        }
+
+        @Override
+        public void onMessage(WebSocket webSocket, String text) {
+            targetEvents.add("message:" + text);
+        }
+
+        @Override
+        public void onFailure(WebSocket webSocket, Throwable t, Response response) {
+            targetEvents.add("failure:" + ((FakeWebSocket) webSocket).url);
+        }
+    };
+
+    private final EndpointRace.Callback callback = new EndpointRace.Callback() {
+        @Override
+        public void onWinner(String url, WebSocket webSocket) {
+            callbackEvents.add("winner:" + url);
+        }
+
+        @Override
+        public void onAllFailed(WebSocket lastWebSocket) {
+            callbackEvents.add("allFailed");
+        }
+    };
+
+    /**
+     * 用例 RACE-001：最先完成握手的端点胜出，其余连接被取消，只转发胜出连接的回调
+     */
+    @Test
+    public void testFirstOpenWins() {
+        EndpointRace race = start(Arrays.asList(A, B, C), 0);
+        assertThat(sockets).containsOnlyKeys(A, B, C);
+
+        open(B);
+        open(A);
+        message(A, "late");
+        message(B, "hello");
+
+        assertThat(race.getWinnerUrl()).isEqualTo(B);
+        assertThat(callbackEvents).containsExactly("winner:" + B);
+        assertThat(targetEvents).containsExactly("open:" + B, "message:hello");
+        assertThat(sockets.get(A).cancelled).isTrue();
+        assertThat(sockets.get(C).cancelled).isTrue();
+        assertThat(sockets.get(B).cancelled).isFalse();
+    }
+
+    /**
+     * 用例 RACE-002：部分端点失败不影响竞速，全部失败时只转发一次失败
+     */
+    @Test
+    public void testAllFailed() {
+        start(Arrays.asList(A, B), 0);
+
+        fail(A);
+        assertThat(targetEvents).isEmpty();
+        fail(B);
+
+        assertThat(callbackEvents).containsExactly("allFailed");
+        assertThat(targetEvents).containsExactly("failure:" + B);
+    }
+
+    /**
+     * 用例 RACE-003：首选端点领先期内完成握手时，其余候选不再拨号
+     */
+    @Test
+    public void testHeadStartSkipsAlternates() {
+        start(Arrays.asList(A, B), 250);
+        assertThat(sockets).containsOnlyKeys(A);
+        assertThat(scheduled).hasSize(1);
+
+        open(A);
+        scheduled.forEach(Runnable::run);
+
+        assertThat(sockets).containsOnlyKeys(A);
+        assertThat(targetEvents).containsExactly("open:" + A);
+    }
+
+    /**
+     * 用例 RACE-004：取消竞速后不再拨号，也不转发迟到的握手
+     */
+    @Test
+    public void testCancel() {
+        EndpointRace race = start(Arrays.asList(A, B), 250);
+        race.cancel();
+        scheduled.forEach(Runnable::run);
+        open(A);
+
+        assertThat(sockets).containsOnlyKeys(A);
+        assertThat(sockets.get(A).cancelled).isTrue();
+        assertThat(targetEvents).isEmpty();
+        assertThat(race.getWinnerUrl()).isNull();
+    }
+
+    /**
+     * 用例 RACE-005：有效期内且仍在候选中的缓存端点排在最前
+     */
+    @Test
+    public void testOrderCandidatesWithCache() {
+        List<String> saved = Arrays.asList(A, B, C);
+        long now = 1_000_000_000L;
+
+        assertThat(EndpointRace.orderCandidates(saved, C, now - 1000, now)).containsExactly(C, A, B);
+        assertThat(EndpointRace.orderCandidates(saved, C, now - EndpointRace.CACHE_TTL_MS, now))
+                .containsExactly(A, B, C);
+        assertThat(EndpointRace.orderCandidates(saved, "ws://gone:8080/ws/input", now, now))
+                .containsExactly(A, B, C);
+        assertThat(EndpointRace.orderCandidates(saved, null, 0, now)).containsExactly(A, B, C);
+    }
+
+    private EndpointRace start(List<String> urls, long headStartMs) {
+        return new EndpointRace(urls, headStartMs, (url, listener) -> {
+            FakeWebSocket socket = new FakeWebSocket(url, listener);
+            sockets.put(url, socket);
+            return socket;
+        }, (task, delayMs) -> scheduled.add(task), target, callback);
+    }
+
+    private void open(String url) {
+        FakeWebSocket socket = sockets.get(url);
+        socket.listener.onOpen(socket, null);
+    }
+
+    private void message(String url, String text) {
+        FakeWebSocket socket = sockets.get(url);
+        socket.listener.onMessage(socket, text);
+    }
+
+    private void fail(String url) {
+        FakeWebSocket socket = sockets.get(url);
+        socket.listener.onFailure(socket, new IOException("refused"), null);
+    }
+
+    private static final class FakeWebSocket implements WebSocket {
+        final String url;
+        final WebSocketListener listener;
+        boolean cancelled;
+
+        FakeWebSocket(String url, WebSocketListener listener) {
+            this.url = url;
+            this.listener = listener;
+        }
+
+        @Override
+        public Request request() {
+            return new Request.Builder().url(url).build();
+        }
+
+        @Override
+        public long queueSize() {
+            return 0;
+        }
+
+        @Override
+        public boolean send(String text) {
+            return true;
+        }
+
+        @Override
+        public boolean send(ByteString bytes) {
+            return true;
+        }
+
+        @Override
+        public boolean close(int code, String reason) {
+            return true;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
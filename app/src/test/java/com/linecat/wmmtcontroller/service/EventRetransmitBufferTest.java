@@ -0,0 +1,147 @@
+package com.linecat.wmmtcontroller.service;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 在途事件缓冲测试
+ */
+public class EventRetransmitBufferTest {
+    private static final long TIMEOUT = 100;
+
+    private final EventRetransmitBuffer buffer = new EventRetransmitBuffer();
+    private final List<Long> retransmitted = new ArrayList<>();
+    private final List<EventDelta> edgesOnly = new ArrayList<>();
+
+    private final EventRetransmitBuffer.Retransmitter recorder = (eventId, json, frame, edges) -> {
+        retransmitted.add(eventId);
+        edgesOnly.add(edges);
+    };
+
+    /**
+     * 用例 RETX-001：确认后释放条目，不再重传
+     */
+    @Test
+    public void testAckReleasesEntry() {
+        buffer.put(1, keys(EventDelta.KeyboardEventDelta.pressed("A")), "{1}", null, 0);
+        buffer.put(2, keys(EventDelta.KeyboardEventDelta.released("A")), "{2}", null, 0);
+
+        assertThat(buffer.ack(1)).isTrue();
+        assertThat(buffer.ack(1)).isFalse();
+        assertThat(buffer.getJson(1)).isNull();
+        assertThat(buffer.getJson(2)).isEqualTo("{2}");
+        assertThat(buffer.getInFlight()).isEqualTo(1);
+
+        buffer.retransmitDue(TIMEOUT, TIMEOUT, recorder);
+        assertThat(retransmitted).containsExactly(2L);
+    }
+
+    /**
+     * 用例 RETX-002：超时未确认的边沿事件按 eventId 顺序重传，达到上限后放弃
+     */
+    @Test
+    public void testRetransmitOrderAndCap() {
+        buffer.put(300, keys(EventDelta.KeyboardEventDelta.pressed("B")), "{300}", null, 0);
+        buffer.put(5, keys(EventDelta.KeyboardEventDelta.pressed("A")), "{5}", null, 0);
+
+        // 未超时不重传
+        assertThat(buffer.retransmitDue(TIMEOUT - 1, TIMEOUT, recorder)).isZero();
+
+        long now = 0;
+        for (int i = 0; i < EventRetransmitBuffer.MAX_RETRANSMITS; i++) {
+            now += TIMEOUT;
+            buffer.retransmitDue(now, TIMEOUT, recorder);
+        }
+        assertThat(retransmitted).containsExactly(5L, 300L, 5L, 300L, 5L, 300L);
+
+        buffer.retransmitDue(now + TIMEOUT, TIMEOUT, recorder);
+        assertThat(buffer.getRetransmitCount()).isEqualTo(6);
+        assertThat(buffer.hasPendingEdges()).isFalse();
+        assertThat(buffer.getInFlight()).isZero();
+    }
+
+    /**
+     * 用例 RETX-003：同一按键已有更新的边沿被确认时，旧边沿不再重传
+     */
+    @Test
+    public void testSupersededEdgeDropped() {
+        buffer.put(1, keys(EventDelta.KeyboardEventDelta.pressed("A")), "{1}", null, 0);
+        buffer.put(2, keys(EventDelta.KeyboardEventDelta.released("A")), "{2}", null, 0);
+        buffer.ack(2);
+
+        assertThat(buffer.retransmitDue(TIMEOUT, TIMEOUT, recorder)).isZero();
+        assertThat(buffer.getSupersededCount()).isEqualTo(1);
+        assertThat(buffer.getInFlight()).isZero();
+    }
+
+    /**
+     * 用例 RETX-004：只带轴值的事件不重传；带轴值的边沿事件只重传边沿部分
+     */
+    @Test
+    public void testAxisOnlyEventsNotRetransmitted() {
+        EventDelta.GamepadEventDelta.JoystickEventDelta stick = new EventDelta.GamepadEventDelta.JoystickEventDelta(
+                new EventDelta.GamepadEventDelta.JoystickEventDelta.JoystickDelta(0.5f, 0f));
+        buffer.put(1, new EventDelta(new EventDelta.GamepadEventDelta(null, stick, null)), "{1}", null, 0);
+        buffer.put(2, new EventDelta(new EventDelta.GamepadEventDelta(
+                Arrays.asList(EventDelta.GamepadEventDelta.GamepadButtonEventDelta.pressed("A")), stick, null)),
+                "{2}", new byte[]{2}, 0);
+
+        assertThat(buffer.hasPendingEdges()).isTrue();
+        buffer.retransmitDue(TIMEOUT, TIMEOUT, recorder);
+
+        assertThat(retransmitted).containsExactly(2L);
+        EventDelta resent = edgesOnly.get(0);
+        assertThat(resent).isNotNull();
+        assertThat(resent.getGamepad().getButtons()).extracting(b -> b.getButtonId()).containsExactly("A");
+        assertThat(resent.getGamepad().getJoysticks().getLeft()).isNull();
+    }
+
+    /**
+     * 用例 RETX-005：在途窗口溢出时覆盖最旧的未确认事件
+     */
+    @Test
+    public void testWindowOverflowEvictsOldest() {
+        for (long id = 1; id <= EventRetransmitBuffer.CAPACITY + 2; id++) {
+            buffer.put(id, keys(EventDelta.KeyboardEventDelta.pressed("K" + id)), "{" + id + "}", null, 0);
+        }
+
+        assertThat(buffer.getInFlight()).isEqualTo(EventRetransmitBuffer.CAPACITY);
+        assertThat(buffer.getEvictedUnacked()).isEqualTo(2);
+        assertThat(buffer.getJson(1)).isNull();
+        assertThat(buffer.getJson(EventRetransmitBuffer.CAPACITY + 1)).isNotNull();
+
+        buffer.clear();
+        assertThat(buffer.getInFlight()).isZero();
+        assertThat(buffer.hasPendingEdges()).isFalse();
+    }
+
+    /**
+     * 用例 RETX-006：按下边沿丢失后发送了松开状态的关键帧，旧按下不再重传；关键帧之后的边沿照常重传
+     */
+    @Test
+    public void testKeyframeSupersedesEarlierEdges() {
+        buffer.put(1, keys(EventDelta.KeyboardEventDelta.pressed("KeyW")), "{1}", null, 0);
+        buffer.put(2, new EventDelta(new EventDelta.GamepadEventDelta(
+                Arrays.asList(EventDelta.GamepadEventDelta.GamepadButtonEventDelta.pressed("A")))), "{2}", null, 0);
+        // 关键帧（KeyW 与 A 均已松开）在 eventId 2 之后发送
+        buffer.supersedeThrough(2);
+        buffer.put(3, keys(EventDelta.KeyboardEventDelta.pressed("KeyS")), "{3}", null, 0);
+
+        buffer.retransmitDue(TIMEOUT, TIMEOUT, recorder);
+
+        assertThat(retransmitted).containsExactly(3L);
+        assertThat(buffer.getSupersededCount()).isEqualTo(2);
+        // 条目保留到确认，仍可用于错误日志
+        assertThat(buffer.getJson(1)).isEqualTo("{1}");
+        assertThat(buffer.ack(1)).isTrue();
+    }
+
+    private static EventDelta keys(EventDelta.KeyboardEventDelta... keys) {
+        return new EventDelta(Arrays.asList(keys));
+    }
+}
@@ -0,0 +1,115 @@
+package com.linecat.wmmtcontroller.service;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 链路统计测试
+ */
+public class LinkStatsTest {
+
+    private final LinkStats stats = new LinkStats();
+
+    /**
+     * 用例 LINK-001：RTT 分位数按直方图桶上界返回
+     */
+    @Test
+    public void testRttPercentiles() {
+        long now = 0;
+        // 98 个 2ms 样本，1 个 20ms，1 个 300ms
+        for (int i = 0; i < 100; i++) {
+            long rttMs = i < 98 ? 2 : i == 98 ? 20 : 300;
+            long pingId = stats.onPingSent(now, 1000);
+            stats.onPong(pingId, 0, 0, now + TimeUnit.MILLISECONDS.toNanos(rttMs), 1000 + rttMs);
+            now += TimeUnit.SECONDS.toNanos(1);
+        }
+
+        assertThat(stats.getRttSampleCount()).isEqualTo(100);
+        assertThat(stats.getRttPercentileUs(0.5)).isEqualTo(2100);
+        assertThat(stats.getRttPercentileUs(0.95)).isEqualTo(2100);
+        assertThat(stats.getRttPercentileUs(0.99)).isEqualTo(20100);
+        assertThat(stats.getRttPercentileUs(1.0)).isEqualTo(301_000);
+        assertThat(stats.getLastRttUs()).isEqualTo(300_000);
+    }
+
+    /**
+     * 用例 LINK-002：时钟偏移取往返延迟最小的样本
+     */
+    @Test
+    public void testClockOffsetUsesMinimumDelaySample() {
+        // 服务端时钟快 500ms，对称 5ms 单程延迟
+        long pingId = stats.onPingSent(0, 10_000);
+        stats.onPong(pingId, 10_505, 10_506, TimeUnit.MILLISECONDS.toNanos(11), 10_011);
+        // 去程排队 40ms 的非对称样本，延迟大，应被忽略
+        pingId = stats.onPingSent(0, 20_000);
+        stats.onPong(pingId, 20_545, 20_546, TimeUnit.MILLISECONDS.toNanos(51), 20_051);
+
+        assertThat(stats.getClockOffsetMs()).isEqualTo(500);
+    }
+
+    /**
+     * 用例 LINK-003：未知 pingId 不计入样本
+     */
+    @Test
+    public void testUnknownPongIgnored() {
+        assertThat(stats.onPong(42, 0, 0, 1000, 0)).isEqualTo(-1);
+        assertThat(stats.getRttSampleCount()).isZero();
+        assertThat(stats.getRttPercentileUs(0.5)).isZero();
+    }
+
+    /**
+     * 用例 LINK-004：确认越过乱序窗口后，未确认的消息计为丢失
+     */
+    @Test
+    public void testAckBasedLossRate() {
+        for (long id = 1; id <= 10; id++) {
+            stats.onStateSent(id, id);
+        }
+        for (long id = 1; id <= 10; id++) {
+            if (id != 4 && id != 7) {
+                stats.onStateAck(id, id + 100);
+            }
+        }
+
+        // 8~10 仍在乱序窗口内，1~7 已判定，其中 4、7 丢失
+        assertThat(stats.getLostCount()).isEqualTo(2);
+        assertThat(stats.getLossRate()).isEqualTo(2.0 / 7);
+        // 服务端不支持 ping 时，确认往返时间作为 RTT 样本
+        assertThat(stats.getRttSampleCount()).isEqualTo(8);
+    }
+
+    /**
+     * 用例 LINK-005：迟到的确认不会撤销已判定的丢失，重复确认不重复计数
+     */
+    @Test
+    public void testLateAndDuplicateAcks() {
+        for (long id = 1; id <= 6; id++) {
+            stats.onEventSent(id, 0);
+        }
+        stats.onEventAck(2, 10);
+        stats.onEventAck(6, 10);
+        stats.onEventAck(6, 20);
+        stats.onEventAck(1, 30);
+
+        // 6 越过窗口后判定 1~3：1、3 未确认
+        assertThat(stats.getLostCount()).isEqualTo(2);
+        assertThat(stats.getRttSampleCount()).isEqualTo(2);
+    }
+
+    /**
+     * 用例 LINK-006：收到过 pong 后，确认往返时间不再混入 RTT 样本
+     */
+    @Test
+    public void testAckRttIgnoredOncePingSupported() {
+        long pingId = stats.onPingSent(0, 0);
+        stats.onPong(pingId, 0, 0, TimeUnit.MILLISECONDS.toNanos(3), 3);
+        stats.onStateSent(1, 0);
+        stats.onStateAck(1, TimeUnit.MILLISECONDS.toNanos(50));
+
+        assertThat(stats.getRttSampleCount()).isEqualTo(1);
+        assertThat(stats.getLastRttUs()).isEqualTo(3000);
+    }
+}
@@ -0,0 +1,53 @@
+package com.linecat.wmmtcontroller.service;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 重连退避策略测试
+ */
+public class ReconnectPolicyTest {
+
+    /**
+     * 用例 RECONNECT-001：退避上限按指数增长并封顶
+     */
+    @Test
+    public void testExponentialCeilingIsCapped() {
+        ReconnectPolicy policy = new ReconnectPolicy(250, 30000, () -> 0.999999);
+
+        assertThat(policy.nextDelayMs(0)).isEqualTo(249);
+        assertThat(policy.nextDelayMs(1)).isEqualTo(499);
+        assertThat(policy.nextDelayMs(4)).isEqualTo(3999);
+        assertThat(policy.nextDelayMs(7)).isEqualTo(29999);
+        assertThat(policy.nextDelayMs(100)).isEqualTo(29999);
+    }
+
+    /**
+     * 用例 RECONNECT-002：抖动范围为退避上限的后一半
+     */
+    @Test
+    public void testJitterKeepsHalfOfCeiling() {
+        ReconnectPolicy low = new ReconnectPolicy(250, 30000, () -> 0.0);
+        ReconnectPolicy mid = new ReconnectPolicy(250, 30000, () -> 0.5);
+
+        assertThat(low.nextDelayMs(0)).isEqualTo(125);
+        assertThat(low.nextDelayMs(10)).isEqualTo(15000);
+        assertThat(mid.nextDelayMs(2)).isEqualTo(750);
+    }
+
+    /**
+     * 用例 RECONNECT-003：默认随机源的延迟始终落在区间内
+     */
+    @Test
+    public void testRandomDelayWithinBounds() {
+        ReconnectPolicy policy = new ReconnectPolicy(250, 30000);
+
+        for (int attempt = 0; attempt < 20; attempt++) {
+            long ceiling = Math.min(30000, 250L << attempt);
+            for (int i = 0; i < 50; i++) {
+                assertThat(policy.nextDelayMs(attempt)).isBetween(ceiling / 2, ceiling);
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.linecat.wmmtcontroller.service;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * 状态差分器测试
+ */
+public class StateDifferTest {
+
+    private final StateDiffer differ = new StateDiffer();
+
+    /**
+     * 用例 DIFF-001：服务端未确认过状态时每帧都发送完整状态
+     */
+    @Test
+    public void testKeyframeUntilFirstAck() {
+        StateSendStage.Frame frame = frame(0f, 0f, "w");
+
+        assertThat(differ.next(frame, 0, 0)).isEqualTo(StateDiffer.Decision.KEYFRAME);
+        differ.onKeyframeSent(frame, 1, 0);
+        assertThat(differ.next(frame(0f, 0f, "w", "a"), 10, 0)).isEqualTo(StateDiffer.Decision.KEYFRAME);
+    }
+
+    /**
+     * 用例 DIFF-002：按键集合变化生成按下/释放边沿，状态不变时不发送
+     */
+    @Test
+    public void testKeyEdges() {
+        sendKeyframe(frame(0f, 0f, "a", "w"), 1, 0);
+
+        assertThat(differ.next(frame(0f, 0f, "a", "w"), 5, 1)).isEqualTo(StateDiffer.Decision.NONE);
+        assertThat(differ.next(frame(0f, 0f, "d", "w"), 10, 1)).isEqualTo(StateDiffer.Decision.DELTA);
+
+        EventDelta delta = differ.getDelta();
+        assertThat(delta.getKeyboard()).extracting(EventDelta.KeyboardEventDelta::getKeyId,
+                        EventDelta.KeyboardEventDelta::getEventType)
+                .containsExactly(
+                        tuple("a", EventDelta.KeyboardEventDelta.EVENT_TYPE_RELEASED),
+                        tuple("d", EventDelta.KeyboardEventDelta.EVENT_TYPE_PRESSED));
+        assertThat(delta.getGamepad().getButtons()).isEmpty();
+        assertThat(delta.getGamepad().getJoysticks().getLeft()).isNull();
+        assertThat(delta.getGamepad().getTriggers().getLeft()).isNull();
+        assertThat(delta.getGamepad().getTriggers().getRight()).isNull();
+
+        // 增量发送后基线前移
+        assertThat(differ.next(frame(0f, 0f, "d", "w"), 15, 1)).isEqualTo(StateDiffer.Decision.NONE);
+    }
+
+    /**
+     * 用例 DIFF-003：轴值按阈值发送，低于阈值的漂移累积后发送，回到中位时必定发送
+     */
+    @Test
+    public void testAxisEpsilon() {
+        sendKeyframe(frame(0.5f, 0.2f), 1, 0);
+
+        assertThat(differ.next(frame(0.503f, 0.2f), 5, 1)).isEqualTo(StateDiffer.Decision.NONE);
+        assertThat(differ.next(frame(0.506f, 0.2f), 10, 1)).isEqualTo(StateDiffer.Decision.DELTA);
+        EventDelta.GamepadEventDelta gamepad = differ.getDelta().getGamepad();
+        assertThat(gamepad.getJoysticks().getLeft().getX()).isEqualTo(0.506f);
+        assertThat(gamepad.getTriggers().getLeft()).isNull();
+
+        sendKeyframe(frame(0.003f, 0f), 2, 20);
+        assertThat(differ.next(frame(0f, 0f), 25, 2)).isEqualTo(StateDiffer.Decision.DELTA);
+        assertThat(differ.getDelta().getGamepad().getJoysticks().getLeft().getX()).isZero();
+    }
+
+    /**
+     * 用例 DIFF-004：超过关键帧间隔时发送完整状态
+     */
+    @Test
+    public void testPeriodicKeyframe() {
+        sendKeyframe(frame(0f, 0f), 1, 0);
+
+        assertThat(differ.next(frame(0f, 0f), StateDiffer.KEYFRAME_INTERVAL_MS - 1, 1))
+                .isEqualTo(StateDiffer.Decision.NONE);
+        assertThat(differ.next(frame(0f, 0f), StateDiffer.KEYFRAME_INTERVAL_MS, 1))
+                .isEqualTo(StateDiffer.Decision.KEYFRAME);
+    }
+
+    /**
+     * 用例 DIFF-005：关键帧迟迟未被确认时，增量累积过多后回退到完整状态
+     */
+    @Test
+    public void testFallbackWhenAckLags() {
+        sendKeyframe(frame(0f, 0f), 1, 0);
+        sendKeyframe(frame(0f, 0f), 2, 1);
+
+        for (int i = 0; i < StateDiffer.MAX_UNACKED_DELTAS; i++) {
+            String key = i % 2 == 0 ? "w" : null;
+            StateSendStage.Frame frame = key != null ? frame(0f, 0f, key) : frame(0f, 0f);
+            assertThat(differ.next(frame, 2 + i, 1)).isEqualTo(StateDiffer.Decision.DELTA);
+        }
+        assertThat(differ.next(frame(0f, 0f, "s"), 100, 1)).isEqualTo(StateDiffer.Decision.KEYFRAME);
+
+        // 关键帧已被确认时不受增量数量限制
+        sendKeyframe(frame(0f, 0f), 3, 100);
+        for (int i = 0; i <= StateDiffer.MAX_UNACKED_DELTAS; i++) {
+            String key = i % 2 == 0 ? "w" : null;
+            StateSendStage.Frame frame = key != null ? frame(0f, 0f, key) : frame(0f, 0f);
+            assertThat(differ.next(frame, 101 + i, 3)).isEqualTo(StateDiffer.Decision.DELTA);
+        }
+    }
+
+    private void sendKeyframe(StateSendStage.Frame frame, long stateId, long nowMs) {
+        differ.onKeyframeSent(frame, stateId, nowMs);
+    }
+
+    private static StateSendStage.Frame frame(float joystickX, float triggerL, String... keys) {
+        return new StateSendStage.Frame(keys, new String[0], joystickX, 0f, 0.1f, triggerL, 0f);
+    }
+}
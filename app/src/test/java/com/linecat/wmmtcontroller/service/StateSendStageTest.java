@@ -0,0 +1,114 @@
+package com.linecat.wmmtcontroller.service;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 异步状态发送阶段测试
+ */
+public class StateSendStageTest {
+    private static final long WATERMARK = 1000;
+
+    private final List<StateSendStage.Frame> sent = new CopyOnWriteArrayList<>();
+    private final AtomicLong queueBytes = new AtomicLong();
+    private final StateSendStage stage = new StateSendStage(sent::add, queueBytes::get, WATERMARK);
+
+    @After
+    public void tearDown() {
+        stage.stop();
+    }
+
+    /**
+     * 用例 SEND-001：拥塞期间只保留最新状态，恢复后发送最新帧
+     */
+    @Test
+    public void testLatestStateWinsUnderCongestion() throws InterruptedException {
+        stage.start();
+        stage.submit(frame(0f, "w"));
+        awaitTrue(() -> sent.size() == 1);
+
+        queueBytes.set(WATERMARK + 1);
+        for (int i = 1; i <= 50; i++) {
+            stage.submit(frame(i / 50f, "w"));
+        }
+        Thread.sleep(20);
+        assertThat(sent).hasSize(1);
+
+        queueBytes.set(0);
+        awaitTrue(() -> sent.size() == 2);
+        Thread.sleep(20);
+
+        assertThat(sent).hasSize(2);
+        assertThat(sent.get(1).joystickX).isEqualTo(1f);
+        assertThat(stage.getStatesSkipped()).isEqualTo(49);
+    }
+
+    /**
+     * 用例 SEND-002：按键边沿在拥塞时也按顺序全部发送
+     */
+    @Test
+    public void testEdgesDeliveredInOrder() {
+        queueBytes.set(WATERMARK + 1);
+        stage.start();
+
+        stage.submit(frame(0f));
+        stage.submit(frame(0f, "space"));
+        stage.submit(frame(0.5f, "space"));
+        stage.submit(frame(0f));
+
+        awaitTrue(() -> stage.getEdgesSent() == 3);
+        assertThat(sent).hasSize(3);
+        assertThat(sent.get(0).keyboard).isEmpty();
+        assertThat(sent.get(1).keyboard).containsExactly("space");
+        assertThat(sent.get(2).keyboard).isEmpty();
+        // 轴值帧被之后的边沿帧取代
+        assertThat(stage.getStatesSent()).isZero();
+    }
+
+    /**
+     * 用例 SEND-003：单帧发送抛出异常时计数并跳过，发送线程继续发送之后的帧
+     */
+    @Test
+    public void testSendFailureDoesNotStopSender() {
+        List<StateSendStage.Frame> delivered = new CopyOnWriteArrayList<>();
+        StateSendStage failing = new StateSendStage(frame -> {
+            if (frame.keyboard.length > 0 && frame.keyboard[0].equals("bad")) {
+                throw new IllegalStateException("encode failed");
+            }
+            delivered.add(frame);
+        }, queueBytes::get, WATERMARK);
+        failing.start();
+        try {
+            failing.submit(frame(0f, "bad"));
+            failing.submit(frame(0f, "w"));
+            failing.submit(frame(0f));
+
+            awaitTrue(() -> delivered.size() == 2);
+            assertThat(failing.getSendFailures()).isEqualTo(1);
+            assertThat(failing.getEdgesSent()).isEqualTo(2);
+            assertThat(delivered.get(0).keyboard).containsExactly("w");
+        } finally {
+            failing.stop();
+        }
+    }
+
+    private static StateSendStage.Frame frame(float joystickX, String... keys) {
+        return new StateSendStage.Frame(keys, new String[0], joystickX, 0f, 0f, 0f, 0f);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.yield();
+        }
+    }
+}
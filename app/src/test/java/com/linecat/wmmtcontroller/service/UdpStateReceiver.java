@@ -0,0 +1,52 @@
+package com.linecat.wmmtcontroller.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * UDP 状态包接收端替身（模拟服务端）：丢弃不比已见最新序号更新的包，用冗余帧补齐丢失的帧
+ */
+final class UdpStateReceiver {
+    private final long token;
+    private long newestSeq = -1;
+    private long packetsDropped;
+    private long framesRecovered;
+
+    UdpStateReceiver(long token) {
+        this.token = token;
+    }
+
+    /**
+     * 接收一个包
+     * @return 需要按顺序应用的帧（从旧到新），过期或无效的包返回空列表
+     */
+    List<byte[]> accept(byte[] data, int length) {
+        UdpStatePacket.Packet packet = UdpStatePacket.decode(data, length);
+        if (packet == null || packet.token != token || packet.seq <= newestSeq) {
+            packetsDropped++;
+            return Collections.emptyList();
+        }
+        long missing = newestSeq < 0 ? 0 : packet.seq - newestSeq - 1;
+        int usable = (int) Math.min(packet.frames.size(), missing + 1);
+        List<byte[]> ordered = new ArrayList<>(usable);
+        for (int i = usable - 1; i >= 0; i--) {
+            ordered.add(packet.frames.get(i));
+        }
+        framesRecovered += usable - 1;
+        newestSeq = packet.seq;
+        return ordered;
+    }
+
+    long getNewestSeq() {
+        return newestSeq;
+    }
+
+    long getPacketsDropped() {
+        return packetsDropped;
+    }
+
+    long getFramesRecovered() {
+        return framesRecovered;
+    }
+}
@@ -0,0 +1,170 @@
+package com.linecat.wmmtcontroller.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * UDP 状态通道测试（本地 UDP 替身服务端）
+ */
+public class UdpStateTransportTest {
+    private static final long TOKEN = 0xCAFEBABEL;
+
+    private DatagramSocket server;
+    private UdpStateTransport transport;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+        server.setSoTimeout(2000);
+    }
+
+    @After
+    public void tearDown() {
+        if (transport != null) {
+            transport.close();
+        }
+        server.close();
+    }
+
+    /**
+     * 用例 UDP-001：单个包丢失时，接收端从下一个包的冗余帧中补回
+     */
+    @Test
+    public void testRedundancyRecoversLostPacket() throws IOException {
+        transport = new UdpStateTransport(serverAddress(), TOKEN, 2);
+        UdpStateReceiver receiver = new UdpStateReceiver(TOKEN);
+        List<byte[]> applied = new ArrayList<>();
+
+        for (int i = 1; i <= 6; i++) {
+            assertThat(transport.send(frame(i))).isTrue();
+            byte[] packet = receive();
+            // 替身服务端丢掉第 3、4 个包
+            if (i == 3 || i == 4) {
+                continue;
+            }
+            applied.addAll(receiver.accept(packet, packet.length));
+        }
+
+        assertThat(applied).extracting(frame -> (int) frame[0]).containsExactly(1, 2, 3, 4, 5, 6);
+        assertThat(receiver.getFramesRecovered()).isEqualTo(2);
+        assertThat(transport.getPacketsSent()).isEqualTo(6);
+    }
+
+    /**
+     * 用例 UDP-002：连续丢包超过冗余深度时，只补回仍在包内的帧
+     */
+    @Test
+    public void testLossBeyondRedundancy() throws IOException {
+        transport = new UdpStateTransport(serverAddress(), TOKEN, 1);
+        UdpStateReceiver receiver = new UdpStateReceiver(TOKEN);
+        List<byte[]> applied = new ArrayList<>();
+
+        for (int i = 1; i <= 5; i++) {
+            transport.send(frame(i));
+            byte[] packet = receive();
+            if (i >= 2 && i <= 3) {
+                continue;
+            }
+            applied.addAll(receiver.accept(packet, packet.length));
+        }
+
+        // 帧 2 已不在任何收到的包中
+        assertThat(applied).extracting(frame -> (int) frame[0]).containsExactly(1, 3, 4, 5);
+    }
+
+    /**
+     * 用例 UDP-003：乱序到达的旧包被丢弃
+     */
+    @Test
+    public void testStalePacketDropped() throws IOException {
+        transport = new UdpStateTransport(serverAddress(), TOKEN, 0);
+        UdpStateReceiver receiver = new UdpStateReceiver(TOKEN);
+
+        transport.send(frame(1));
+        byte[] first = receive();
+        transport.send(frame(2));
+        byte[] second = receive();
+
+        assertThat(receiver.accept(second, second.length)).hasSize(1);
+        assertThat(receiver.accept(first, first.length)).isEmpty();
+        assertThat(receiver.getNewestSeq()).isEqualTo(2);
+        assertThat(receiver.getPacketsDropped()).isEqualTo(1);
+    }
+
+    /**
+     * 用例 UDP-004：令牌不符或格式错误的包被丢弃
+     */
+    @Test
+    public void testForeignPacketDropped() {
+        UdpStateReceiver receiver = new UdpStateReceiver(TOKEN);
+        byte[] foreign = UdpStatePacket.encode(TOKEN + 1, 1, Arrays.asList(frame(1)));
+        byte[] garbage = {1, 2, 3};
+
+        assertThat(receiver.accept(foreign, foreign.length)).isEmpty();
+        assertThat(receiver.accept(garbage, garbage.length)).isEmpty();
+        assertThat(receiver.getNewestSeq()).isEqualTo(-1);
+    }
+
+    /**
+     * 用例 UDP-005：包大小受限时舍弃最旧的冗余帧
+     */
+    @Test
+    public void testPacketSizeLimit() {
+        byte[] large = new byte[500];
+        byte[] packet = UdpStatePacket.encode(TOKEN, 10, Arrays.asList(large, large, large));
+
+        assertThat(packet.length).isLessThanOrEqualTo(UdpStatePacket.MAX_PACKET_BYTES);
+        UdpStatePacket.Packet decoded = UdpStatePacket.decode(packet, packet.length);
+        assertThat(decoded.seq).isEqualTo(10);
+        assertThat(decoded.frames).hasSize(2);
+        assertThat(UdpStatePacket.encode(TOKEN, 11, Arrays.asList(new byte[2000]))).isNull();
+    }
+
+    /**
+     * 用例 UDP-006：单帧超出包大小上限时不发送，历史与序号保持不变，下一个包仍携带完整冗余
+     */
+    @Test
+    public void testOversizedFrameKeepsHistory() throws IOException {
+        transport = new UdpStateTransport(serverAddress(), TOKEN, 2);
+        for (int i = 1; i <= 3; i++) {
+            transport.send(frame(i));
+            receive();
+        }
+
+        assertThat(transport.send(new byte[2000])).isFalse();
+        assertThat(transport.send(new byte[2000])).isFalse();
+        assertThat(transport.send(frame(4))).isTrue();
+
+        byte[] packet = receive();
+        UdpStatePacket.Packet decoded = UdpStatePacket.decode(packet, packet.length);
+        assertThat(decoded.seq).isEqualTo(4);
+        assertThat(decoded.frames).extracting(frame -> (int) frame[0]).containsExactly(4, 3, 2);
+        assertThat(transport.getPacketsSent()).isEqualTo(4);
+    }
+
+    private InetSocketAddress serverAddress() {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getLocalPort());
+    }
+
+    private byte[] receive() throws IOException {
+        DatagramPacket packet = new DatagramPacket(new byte[2048], 2048);
+        server.receive(packet);
+        return Arrays.copyOf(packet.getData(), packet.getLength());
+    }
+
+    private static byte[] frame(int marker) {
+        return new byte[]{(byte) marker, 0x55, 0x66};
+    }
+}
@@ -0,0 +1,41 @@
+package com.linecat.wmmtcontroller.test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * AllocationMeter 是一个测试辅助类，用 ThreadMXBean 统计当前线程分配的字节数，供零分配用例共用
+ * JVM 不支持线程分配计数时，{@link #forCurrentThread()} 通过 Assume 跳过用例
+ */
+public final class AllocationMeter {
+    /** 零分配用例的上限：允许 ThreadMXBean 查询本身的少量分配 */
+    public static final long MAX_ALLOCATED_BYTES = 1024;
+
+    private final com.sun.management.ThreadMXBean threadBean;
+    private final long threadId;
+
+    private AllocationMeter(com.sun.management.ThreadMXBean threadBean, long threadId) {
+        this.threadBean = threadBean;
+        this.threadId = threadId;
+    }
+
+    /**
+     * 为当前线程创建计量器，并开启线程分配计数
+     */
+    public static AllocationMeter forCurrentThread() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        return new AllocationMeter(threadBean, Thread.currentThread().getId());
+    }
+
+    /**
+     * 当前线程累计分配的字节数，两次读数之差即区间内的分配量
+     */
+    public long allocatedBytes() {
+        return threadBean.getThreadAllocatedBytes(threadId);
+    }
+}